@@ -0,0 +1,75 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.benchmarks;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.python.parser.PythonParser;
+import org.sonar.python.tree.PythonTreeMaker;
+
+/**
+ * Pinned corpus of real-world Python files of varied sizes, used as input of all benchmarks.
+ * Files of the corpus must never be modified: results would no longer be comparable with previous runs.
+ */
+public final class Corpus {
+
+  public static final String SMALL = "typeshed_serializer.py";
+  public static final String MEDIUM = "tox_runner.py";
+  public static final String MEDIUM_LARGE = "serializers.py";
+  public static final String LARGE_TESTS = "test_symbols_merger.py";
+  public static final String LARGE = "symbols.py";
+
+  private Corpus() {
+  }
+
+  public static String content(String fileName) {
+    try (InputStream inputStream = Corpus.class.getResourceAsStream("/corpus/" + fileName)) {
+      if (inputStream == null) {
+        throw new IllegalArgumentException("No corpus file named " + fileName);
+      }
+      return new String(inputStream.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public static PythonFile pythonFile(String fileName) {
+    return new CorpusFile(fileName, content(fileName));
+  }
+
+  public static FileInput parse(PythonFile pythonFile) {
+    return new PythonTreeMaker().fileInput(PythonParser.create().parse(pythonFile.content()));
+  }
+
+  private record CorpusFile(String fileName, String content) implements PythonFile {
+
+    @Override
+    public URI uri() {
+      return URI.create("corpus:/" + fileName);
+    }
+
+    @Override
+    public String key() {
+      return fileName;
+    }
+  }
+}
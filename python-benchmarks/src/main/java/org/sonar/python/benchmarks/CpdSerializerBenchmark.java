@@ -0,0 +1,48 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.benchmarks;
+
+import com.sonar.sslr.api.Token;
+import java.io.IOException;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.sonar.python.caching.CpdSerializer;
+import org.sonar.python.lexer.LexerState;
+import org.sonar.python.lexer.PythonLexer;
+
+public class CpdSerializerBenchmark extends CorpusBenchmark {
+
+  private List<Token> tokens;
+  private CpdSerializer.SerializationResult serialized;
+
+  @Setup
+  public void setup() throws IOException {
+    tokens = PythonLexer.create(new LexerState()).lex(Corpus.content(fileName));
+    serialized = CpdSerializer.serialize(tokens);
+  }
+
+  @Benchmark
+  public CpdSerializer.SerializationResult serialize() throws IOException {
+    return CpdSerializer.serialize(tokens);
+  }
+
+  @Benchmark
+  public List<CpdSerializer.TokenInfo> deserialize() throws IOException {
+    return CpdSerializer.deserialize(serialized.data, serialized.stringTable);
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.benchmarks;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.util.Set;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.python.index.Descriptor;
+import org.sonar.python.index.DescriptorsToProtobuf;
+import org.sonar.python.semantic.ProjectLevelSymbolTable;
+import org.sonar.python.types.protobuf.DescriptorsProtos;
+
+/**
+ * (De)serialization of the global descriptors of a module, as done to store the project-level symbol table in the cache.
+ */
+public class DescriptorsToProtobufBenchmark extends CorpusBenchmark {
+
+  private Set<Descriptor> descriptors;
+  private byte[] serialized;
+
+  @Setup
+  public void setup() {
+    PythonFile pythonFile = Corpus.pythonFile(fileName);
+    descriptors = ProjectLevelSymbolTable.empty().computeModuleEntry(Corpus.parse(pythonFile), "", pythonFile).descriptors();
+    serialized = DescriptorsToProtobuf.toProtobufModuleDescriptor(descriptors).toByteArray();
+  }
+
+  @Benchmark
+  public byte[] serialize() {
+    return DescriptorsToProtobuf.toProtobufModuleDescriptor(descriptors).toByteArray();
+  }
+
+  @Benchmark
+  public Set<Descriptor> deserialize() throws InvalidProtocolBufferException {
+    return DescriptorsToProtobuf.fromProtobuf(DescriptorsProtos.ModuleDescriptor.parseFrom(serialized));
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.benchmarks;
+
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.impl.Lexer;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.sonar.python.lexer.LexerState;
+import org.sonar.python.lexer.PythonLexer;
+
+public class LexerBenchmark extends CorpusBenchmark {
+
+  @Param({"false", "true"})
+  public boolean handWrittenChannels;
+
+  private String content;
+  private LexerState lexerState;
+  private Lexer lexer;
+
+  @Setup
+  public void setup() {
+    content = Corpus.content(fileName);
+    lexerState = new LexerState();
+    lexer = PythonLexer.create(lexerState, handWrittenChannels);
+  }
+
+  @Benchmark
+  public List<Token> lex() {
+    lexerState.reset();
+    return lexer.lex(content);
+  }
+}
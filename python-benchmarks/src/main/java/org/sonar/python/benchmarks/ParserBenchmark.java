@@ -0,0 +1,42 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.benchmarks;
+
+import com.sonar.sslr.api.AstNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Setup;
+import org.sonar.python.parser.PythonParser;
+
+/**
+ * Lexing and parsing: the SSLR parser always lexes the whole source before parsing it.
+ */
+public class ParserBenchmark extends CorpusBenchmark {
+
+  private String content;
+  private PythonParser parser;
+
+  @Setup
+  public void setup() {
+    content = Corpus.content(fileName);
+    parser = PythonParser.create();
+  }
+
+  @Benchmark
+  public AstNode parse() {
+    return parser.parse(content);
+  }
+}
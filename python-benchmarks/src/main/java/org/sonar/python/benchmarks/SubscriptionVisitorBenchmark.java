@@ -0,0 +1,80 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.benchmarks;
+
+import java.util.ArrayList;
+import java.util.List;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.PythonSubscriptionCheck;
+import org.sonar.plugins.python.api.PythonVisitorContext;
+import org.sonar.plugins.python.api.SubscriptionContext;
+import org.sonar.plugins.python.api.tree.Tree;
+import org.sonar.python.SubscriptionVisitor;
+import org.sonar.python.caching.CacheContextImpl;
+import org.sonar.python.semantic.ProjectLevelSymbolTable;
+
+/**
+ * Cost of dispatching the nodes of a tree to subscription checks. Checks subscribe to every kind of node and do no work,
+ * so that only the dispatch itself is measured.
+ */
+public class SubscriptionVisitorBenchmark extends CorpusBenchmark {
+
+  @Param({"1", "50"})
+  public int numberOfChecks;
+
+  private PythonVisitorContext visitorContext;
+  private List<PythonSubscriptionCheck> checks;
+
+  @Setup
+  public void setup(Blackhole blackhole) {
+    PythonFile pythonFile = Corpus.pythonFile(fileName);
+    visitorContext = new PythonVisitorContext(Corpus.parse(pythonFile), pythonFile, null, "", ProjectLevelSymbolTable.empty(),
+      CacheContextImpl.dummyCache());
+    checks = new ArrayList<>();
+    for (int i = 0; i < numberOfChecks; i++) {
+      checks.add(new SubscribingToAllKindsCheck(blackhole));
+    }
+  }
+
+  @Benchmark
+  public void analyze() {
+    SubscriptionVisitor.analyze(checks, visitorContext);
+  }
+
+  private static class SubscribingToAllKindsCheck extends PythonSubscriptionCheck {
+    private final Blackhole blackhole;
+
+    SubscribingToAllKindsCheck(Blackhole blackhole) {
+      this.blackhole = blackhole;
+    }
+
+    @Override
+    public void initialize(Context context) {
+      for (Tree.Kind kind : Tree.Kind.values()) {
+        context.registerSyntaxNodeConsumer(kind, this::consume);
+      }
+    }
+
+    private void consume(SubscriptionContext ctx) {
+      blackhole.consume(ctx.syntaxNode());
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.benchmarks;
+
+import java.util.Map;
+import java.util.Set;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Setup;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.python.semantic.ProjectLevelSymbolTable;
+import org.sonar.python.semantic.v2.ProjectLevelTypeTable;
+import org.sonar.python.semantic.v2.SymbolTable;
+import org.sonar.python.semantic.v2.SymbolTableBuilderV2;
+import org.sonar.python.semantic.v2.SymbolV2;
+import org.sonar.python.semantic.v2.TypeInferenceV2;
+import org.sonar.python.types.v2.PythonType;
+
+/**
+ * Type inference decorates the tree it visits: each invocation works on a freshly made tree and symbol table.
+ * The type table is shared by all invocations, so that typeshed modules are loaded during warmup: only the inference itself is measured.
+ */
+public class TypeInferenceV2Benchmark extends CorpusBenchmark {
+
+  private PythonFile pythonFile;
+  private ProjectLevelTypeTable typeTable;
+  private FileInput fileInput;
+  private SymbolTable symbolTable;
+
+  @Setup
+  public void setupTrial() {
+    pythonFile = Corpus.pythonFile(fileName);
+    typeTable = new ProjectLevelTypeTable(ProjectLevelSymbolTable.empty());
+  }
+
+  @Setup(Level.Invocation)
+  public void setupInvocation() {
+    fileInput = Corpus.parse(pythonFile);
+    symbolTable = new SymbolTableBuilderV2(fileInput).build();
+  }
+
+  @Benchmark
+  public Map<SymbolV2, Set<PythonType>> inferTypes() {
+    return new TypeInferenceV2(typeTable, pythonFile, symbolTable, "").inferTypes(fileInput);
+  }
+}
@@ -0,0 +1,70 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.benchmarks;
+
+import java.util.Map;
+import java.util.Set;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.sonar.plugins.python.api.PythonVersionUtils;
+import org.sonar.python.index.Descriptor;
+import org.sonar.python.semantic.v2.typeshed.TypeShedDescriptorsProvider;
+
+/**
+ * Lookup of typeshed modules:
+ * {@link #convertModule(ColdCache)} measures reading and converting a module, as done the first time a module is imported in the JVM,
+ * while {@link #sharedModule()} measures a lookup from a new provider once the module has been converted.
+ */
+public class TypeShedDescriptorsProviderBenchmark extends BenchmarkSettings {
+
+  @Param({"os", "typing", "collections", "sqlite3"})
+  public String moduleName;
+
+  @Setup
+  public void setup() {
+    newProvider().descriptorsForModule(moduleName);
+  }
+
+  @State(Scope.Thread)
+  public static class ColdCache {
+    private TypeShedDescriptorsProvider provider;
+
+    @Setup(Level.Invocation)
+    public void setupInvocation() {
+      TypeShedDescriptorsProvider.clearConvertedModules();
+      provider = newProvider();
+    }
+  }
+
+  @Benchmark
+  public Map<String, Descriptor> convertModule(ColdCache coldCache) {
+    return coldCache.provider.descriptorsForModule(moduleName);
+  }
+
+  @Benchmark
+  public Map<String, Descriptor> sharedModule() {
+    return newProvider().descriptorsForModule(moduleName);
+  }
+
+  private static TypeShedDescriptorsProvider newProvider() {
+    return new TypeShedDescriptorsProvider(Set.of(), PythonVersionUtils.allVersions());
+  }
+}
@@ -76,23 +76,25 @@ public class PythonCheckVerifier {
 
   public static List<PreciseIssue> issues(String path, PythonCheck check) {
     File file = new File(path);
-    PythonVisitorContext context = createContext(file, ProjectLevelSymbolTable.empty(), null);
+    PythonVisitorContext context = createContext(file, check, ProjectLevelSymbolTable.empty(), null);
     return scanFileForIssues(check, context);
   }
 
   private static MultiFileVerifier createVerifier(List<File> files, PythonCheck check, ProjectLevelSymbolTable projectLevelSymbolTable, @Nullable File baseDir) {
     MultiFileVerifier multiFileVerifier = MultiFileVerifier.create(files.get(0).toPath(), UTF_8);
     for (File file : files) {
-      PythonVisitorContext context = createContext(file, projectLevelSymbolTable, baseDir);
+      PythonVisitorContext context = createContext(file, check, projectLevelSymbolTable, baseDir);
       addFileIssues(check, multiFileVerifier, file, context);
     }
     return multiFileVerifier;
   }
 
-  private static PythonVisitorContext createContext(File file, ProjectLevelSymbolTable projectLevelSymbolTable, @Nullable File baseDir) {
-    return baseDir != null
-      ? TestPythonVisitorRunner.createContext(file, null, pythonPackageName(file, baseDir.getAbsolutePath()), projectLevelSymbolTable, CacheContextImpl.dummyCache())
-      : TestPythonVisitorRunner.createContext(file);
+  /**
+   * The legacy symbol table is only built when the check requires it, so that a check wrongly declaring it does not need it fails its tests.
+   */
+  private static PythonVisitorContext createContext(File file, PythonCheck check, ProjectLevelSymbolTable projectLevelSymbolTable, @Nullable File baseDir) {
+    String packageName = baseDir != null ? pythonPackageName(file, baseDir.getAbsolutePath()) : "";
+    return TestPythonVisitorRunner.createContext(file, null, packageName, projectLevelSymbolTable, CacheContextImpl.dummyCache(), check.requiresLegacySymbolTable());
   }
 
   private static void addFileIssues(PythonCheck check, MultiFileVerifier multiFileVerifier, File file, PythonVisitorContext context) {
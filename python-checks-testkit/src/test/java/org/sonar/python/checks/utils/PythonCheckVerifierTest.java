@@ -19,6 +19,7 @@ package org.sonar.python.checks.utils;
 
 import java.util.Collections;
 import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
@@ -54,6 +55,29 @@ class PythonCheckVerifierTest {
     }
   }
 
+  private static class SymbolDependentSubscription extends PythonSubscriptionCheck {
+    private final boolean requiresLegacySymbolTable;
+
+    SymbolDependentSubscription(boolean requiresLegacySymbolTable) {
+      this.requiresLegacySymbolTable = requiresLegacySymbolTable;
+    }
+
+    @Override
+    public void initialize(Context context) {
+      context.registerSyntaxNodeConsumer(Tree.Kind.FUNCDEF, ctx -> {
+        FunctionDef pyFunctionDefTree = (FunctionDef) ctx.syntaxNode();
+        if (pyFunctionDefTree.name().symbol() != null) {
+          ctx.addIssue(pyFunctionDefTree.name(), "the message.").secondary(pyFunctionDefTree.colon(), "second").withCost(42);
+        }
+      });
+    }
+
+    @Override
+    public boolean requiresLegacySymbolTable() {
+      return requiresLegacySymbolTable;
+    }
+  }
+
   public static Stream<Arguments> data() {
     return Stream.of(
       Arguments.of(BASE_DIR + "compliant.py", true),
@@ -89,6 +113,12 @@ class PythonCheckVerifierTest {
     }
   }
 
+  @Test
+  void legacy_symbol_table_only_built_when_required() {
+    assertNoFailureOfVerifier(BASE_DIR + "compliant.py", new SymbolDependentSubscription(true));
+    assertFailOfVerifier(BASE_DIR + "compliant.py", new SymbolDependentSubscription(false));
+  }
+
   private void assertNoFailureOfVerifier(String filePath, PythonCheck check) {
     try {
       PythonCheckVerifier.verify(filePath, check);
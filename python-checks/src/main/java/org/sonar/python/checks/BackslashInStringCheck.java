@@ -72,4 +72,9 @@ public class BackslashInStringCheck extends PythonSubscriptionCheck {
     }
     return false;
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
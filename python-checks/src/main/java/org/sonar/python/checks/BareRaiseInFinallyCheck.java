@@ -52,4 +52,9 @@ public class BareRaiseInFinallyCheck extends PythonSubscriptionCheck {
     return TreeUtils.firstAncestor(finallyClause, t -> t.is(Tree.Kind.FUNCDEF)
       && ((FunctionDef) t).name().name().equals("__exit__")) != null;
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -49,5 +49,9 @@ public class BreakContinueOutsideLoopCheck extends PythonSubscriptionCheck {
     context.registerSyntaxNodeConsumer(Tree.Kind.BREAK_STMT, SUBSCRIPTION_CONTEXT_CONSUMER);
     context.registerSyntaxNodeConsumer(Tree.Kind.CONTINUE_STMT, SUBSCRIPTION_CONTEXT_CONSUMER);
   }
-}
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
+}
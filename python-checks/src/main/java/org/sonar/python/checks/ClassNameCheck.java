@@ -52,4 +52,9 @@ public class ClassNameCheck extends AbstractNameCheck {
       }
     });
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
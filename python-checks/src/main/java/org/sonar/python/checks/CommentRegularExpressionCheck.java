@@ -73,4 +73,9 @@ public class CommentRegularExpressionCheck extends PythonSubscriptionCheck {
       }
     });
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -102,4 +102,9 @@ public class ConfusingWalrusCheck extends PythonSubscriptionCheck {
       assignmentExpressions.add(assignmentExpression);
     }
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
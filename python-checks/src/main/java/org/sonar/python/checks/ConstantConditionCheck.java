@@ -52,7 +52,7 @@ public class ConstantConditionCheck extends PythonVisitorCheck {
 
   @Override
   public void visitFileInput(FileInput fileInput) {
-    reachingDefinitionsAnalysis = new ReachingDefinitionsAnalysis(getContext().pythonFile());
+    reachingDefinitionsAnalysis = getContext().controlFlowAnalysisCache().reachingDefinitionsAnalysis();
     super.visitFileInput(fileInput);
   }
 
@@ -70,4 +70,9 @@ public class ElseAfterLoopsWithoutBreakCheck extends PythonSubscriptionCheck {
       return t.children().stream().anyMatch(ElseAfterLoopsWithoutBreakCheck::containsFreeBreak);
     }
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
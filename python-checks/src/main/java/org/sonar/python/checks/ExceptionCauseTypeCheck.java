@@ -64,4 +64,8 @@ public class ExceptionCauseTypeCheck extends PythonSubscriptionCheck {
     }
   }
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -60,4 +60,9 @@ public class ExceptionGroupCheck extends PythonSubscriptionCheck {
   private static void raiseIssue(SubscriptionContext ctx, Expression exception) {
     ctx.addIssue(exception, String.format(MESSAGE, ((Name) exception).name()));
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
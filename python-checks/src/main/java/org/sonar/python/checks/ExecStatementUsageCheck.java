@@ -32,4 +32,9 @@ public class ExecStatementUsageCheck extends PythonSubscriptionCheck {
       ctx.addIssue(tree.execKeyword(), "Do not use exec statement.");
     });
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -67,5 +67,9 @@ public class ExitHasBadArgumentsCheck extends PythonSubscriptionCheck {
       ctx.addIssue(funcName.firstToken(), rightParenthesis, message);
     }
   }
-}
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
+}
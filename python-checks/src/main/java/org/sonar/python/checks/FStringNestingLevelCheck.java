@@ -103,4 +103,9 @@ public class FStringNestingLevelCheck extends PythonSubscriptionCheck {
   private static boolean supportsTypeParameterSyntax(SubscriptionContext ctx) {
     return PythonVersionUtils.areSourcePythonVersionsGreaterOrEqualThan(ctx.sourcePythonVersions(), PythonVersionUtils.Version.V_312);
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -105,4 +105,9 @@ public class FileHeaderCopyrightCheck extends PythonSubscriptionCheck {
       .filter(Objects::nonNull)
       .anyMatch(content -> content.startsWith(headerFormat));
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
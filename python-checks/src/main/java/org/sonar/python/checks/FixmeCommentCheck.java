@@ -42,5 +42,9 @@ public class FixmeCommentCheck extends PythonSubscriptionCheck {
       }
     });
   }
-}
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
+}
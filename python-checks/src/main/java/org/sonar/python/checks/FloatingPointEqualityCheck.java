@@ -71,7 +71,7 @@ public class FloatingPointEqualityCheck extends PythonSubscriptionCheck {
   }
 
   private void initializeAnalysis(SubscriptionContext ctx) {
-    reachingDefinitionsAnalysis = new ReachingDefinitionsAnalysis(ctx.pythonFile());
+    reachingDefinitionsAnalysis = ctx.reachingDefinitionsAnalysis();
     importedModuleForIsClose = null;
     importedAlias = null;
     typeChecker = ctx.typeChecker();
@@ -36,4 +36,8 @@ public class FunctionNameCheck extends AbstractFunctionNameCheck {
     return !pyFunctionDefTree.isMethodDefinition() && !WHITELIST.contains(pyFunctionDefTree.name().name());
   }
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -334,4 +334,8 @@ public class IgnoredPureOperationsCheck extends PythonSubscriptionCheck {
     return tree.is(Tree.Kind.STATEMENT_LIST) && tree.parent().is(Tree.Kind.TRY_STMT);
   }
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -72,4 +72,9 @@ public class InitReturnsValueCheck extends PythonSubscriptionCheck {
       returnNodes.add(pyYieldStatementTree);
     }
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
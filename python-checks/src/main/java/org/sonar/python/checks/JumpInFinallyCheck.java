@@ -56,4 +56,8 @@ public class JumpInFinallyCheck extends PythonSubscriptionCheck {
     return false;
   }
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
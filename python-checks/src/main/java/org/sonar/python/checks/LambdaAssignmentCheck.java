@@ -51,4 +51,9 @@ public class LambdaAssignmentCheck extends PythonSubscriptionCheck {
       ctx.addIssue(lambdaExpression.lambdaKeyword(), "Define function instead of this lambda assignment statement.");
     }
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
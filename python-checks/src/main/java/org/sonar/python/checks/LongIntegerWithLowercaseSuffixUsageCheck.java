@@ -37,4 +37,9 @@ public class LongIntegerWithLowercaseSuffixUsageCheck extends PythonSubscription
       }
     });
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
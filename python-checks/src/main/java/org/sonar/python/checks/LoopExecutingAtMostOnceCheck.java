@@ -43,10 +43,10 @@ public class LoopExecutingAtMostOnceCheck extends PythonSubscriptionCheck {
   @Override
   public void initialize(Context context) {
     context.registerSyntaxNodeConsumer(Kind.FUNCDEF, ctx ->
-      checkCfg(ControlFlowGraph.build((FunctionDef) ctx.syntaxNode(), ctx.pythonFile()), ctx)
+      checkCfg(ctx.controlFlowGraph((FunctionDef) ctx.syntaxNode()), ctx)
     );
     context.registerSyntaxNodeConsumer(Kind.FILE_INPUT, ctx ->
-      checkCfg(ControlFlowGraph.build((FileInput) ctx.syntaxNode(), ctx.pythonFile()), ctx)
+      checkCfg(ctx.controlFlowGraph((FileInput) ctx.syntaxNode()), ctx)
     );
   }
 
@@ -106,4 +106,8 @@ public class LoopExecutingAtMostOnceCheck extends PythonSubscriptionCheck {
     return elements.isEmpty() || TreeUtils.firstAncestor(elements.get(0), tree -> tree == loop) != null;
   }
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
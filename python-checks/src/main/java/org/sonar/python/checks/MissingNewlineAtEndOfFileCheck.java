@@ -33,4 +33,9 @@ public class MissingNewlineAtEndOfFileCheck extends PythonSubscriptionCheck {
       }
     });
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -58,4 +58,8 @@ public class ModuleNameCheck extends PythonSubscriptionCheck {
     return pattern;
   }
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
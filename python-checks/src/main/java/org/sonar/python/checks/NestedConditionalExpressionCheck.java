@@ -48,4 +48,8 @@ public class NestedConditionalExpressionCheck extends PythonSubscriptionCheck {
     });
   }
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -64,5 +64,9 @@ public class NoPersonReferenceInTodoCheck extends PythonSubscriptionCheck {
       }
     }
   }
-}
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
+}
@@ -37,4 +37,9 @@ public class NonCallableCalledCheck extends NonCallableCalled {
     }
     return "Fix this call; this expression%s is not callable.".formatted(addTypeName(typeV2));
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
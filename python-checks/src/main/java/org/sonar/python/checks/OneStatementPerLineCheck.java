@@ -100,4 +100,9 @@ public class OneStatementPerLineCheck extends PythonSubscriptionCheck {
     }
     return false;
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
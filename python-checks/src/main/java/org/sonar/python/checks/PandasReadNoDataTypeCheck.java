@@ -96,4 +96,9 @@ public class PandasReadNoDataTypeCheck extends PythonSubscriptionCheck {
       .map(name -> String.format("%s \"%s\".", MESSAGE, name))
       .orElse("");
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -40,4 +40,9 @@ public class PreIncrementDecrementCheck extends PythonSubscriptionCheck {
       ctx.addIssue(unaryExpressionTree, String.format(MESSAGE, kind == Kind.UNARY_PLUS ? "inc" : "dec"));
     }
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -33,4 +33,9 @@ public class PrintStatementUsageCheck extends PythonSubscriptionCheck {
       ctx.addIssue(token, "Replace print statement by built-in function.");
     });
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -40,7 +40,7 @@ public class PytzTimeZoneInDatetimeConstructorCheck extends PythonSubscriptionCh
   @Override
   public void initialize(Context context) {
     context.registerSyntaxNodeConsumer(Tree.Kind.FILE_INPUT,
-      ctx -> reachingDefinitionsAnalysis = new ReachingDefinitionsAnalysis(ctx.pythonFile()));
+      ctx -> reachingDefinitionsAnalysis = ctx.reachingDefinitionsAnalysis());
 
     context.registerSyntaxNodeConsumer(Tree.Kind.CALL_EXPR, this::checkCallExpression);
   }
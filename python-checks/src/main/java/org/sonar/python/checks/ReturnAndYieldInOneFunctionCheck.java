@@ -64,4 +64,9 @@ public class ReturnAndYieldInOneFunctionCheck extends PythonSubscriptionCheck {
       hasYield = true;
     }
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
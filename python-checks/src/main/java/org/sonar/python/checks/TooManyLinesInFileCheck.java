@@ -44,5 +44,9 @@ public class TooManyLinesInFileCheck extends PythonSubscriptionCheck {
       }
     });
   }
-}
 
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
+}
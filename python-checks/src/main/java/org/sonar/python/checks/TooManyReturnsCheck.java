@@ -76,4 +76,9 @@ public class TooManyReturnsCheck extends PythonSubscriptionCheck {
       returnStatements.add(pyYieldStatementTree);
     }
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
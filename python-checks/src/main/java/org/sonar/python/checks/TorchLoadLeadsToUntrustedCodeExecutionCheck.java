@@ -44,7 +44,7 @@ public class TorchLoadLeadsToUntrustedCodeExecutionCheck extends PythonSubscript
   @Override
   public void initialize(Context context) {
     context.registerSyntaxNodeConsumer(Tree.Kind.FILE_INPUT, ctx -> reachingDefinitionsAnalysis =
-      new ReachingDefinitionsAnalysis(ctx.pythonFile()));
+      ctx.reachingDefinitionsAnalysis());
 
     context.registerSyntaxNodeConsumer(Tree.Kind.CALL_EXPR, ctx -> {
       CallExpression callExpression = (CallExpression) ctx.syntaxNode();
@@ -128,4 +128,9 @@ public class UselessParenthesisAfterKeywordCheck extends PythonSubscriptionCheck
   private static boolean isTupleWithMoreThanOneElement(Expression expr) {
     return expr.is(Tree.Kind.TUPLE) && ((Tuple) expr).elements().size() > 1;
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
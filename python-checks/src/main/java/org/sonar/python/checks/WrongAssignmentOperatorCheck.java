@@ -55,4 +55,9 @@ public class WrongAssignmentOperatorCheck extends PythonSubscriptionCheck {
     return first.line() == second.line()
       && first.column() + first.value().length() == second.column();
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
@@ -45,4 +45,9 @@ public class DynamicCodeExecutionCheck extends PythonSubscriptionCheck {
     }
     return false;
   }
+
+  @Override
+  public boolean requiresLegacySymbolTable() {
+    return false;
+  }
 }
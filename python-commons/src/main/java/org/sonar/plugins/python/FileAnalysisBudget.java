@@ -0,0 +1,64 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.python;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Time budget granted to the analysis of a single file (see {@link PythonScanner#FILE_ANALYSIS_TIMEOUT_PROPERTY_NAME}).
+ * The budget is enforced cooperatively: it is checked between analysis phases, which are not interrupted.
+ * Once exceeded, a budget remains exceeded.
+ */
+class FileAnalysisBudget {
+
+  private static final FileAnalysisBudget UNLIMITED = new FileAnalysisBudget(0L, 0L, System::nanoTime);
+
+  private final long timeoutNanos;
+  private final long deadlineNanos;
+  private final LongSupplier nanoClock;
+  private boolean exceeded = false;
+
+  private FileAnalysisBudget(long timeoutNanos, long deadlineNanos, LongSupplier nanoClock) {
+    this.timeoutNanos = timeoutNanos;
+    this.deadlineNanos = deadlineNanos;
+    this.nanoClock = nanoClock;
+  }
+
+  /**
+   * @param timeoutNanos the budget of the whole analysis of the file, or 0 when the analysis of files is not bounded
+   * @param elapsedNanos the time already spent analyzing the file, typically to parse it
+   * @param nanoClock the time source, see {@link System#nanoTime()}
+   */
+  static FileAnalysisBudget start(long timeoutNanos, long elapsedNanos, LongSupplier nanoClock) {
+    if (timeoutNanos <= 0) {
+      return UNLIMITED;
+    }
+    return new FileAnalysisBudget(timeoutNanos, nanoClock.getAsLong() + timeoutNanos - elapsedNanos, nanoClock);
+  }
+
+  boolean isExceeded() {
+    if (timeoutNanos > 0 && !exceeded) {
+      exceeded = nanoClock.getAsLong() - deadlineNanos > 0;
+    }
+    return exceeded;
+  }
+
+  long timeoutMillis() {
+    return TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+  }
+}
@@ -38,6 +38,7 @@ import org.sonar.plugins.python.editions.OpenSourceRepositoryInfoProvider;
 import org.sonar.plugins.python.indexer.PythonIndexer;
 import org.sonar.plugins.python.indexer.SonarQubePythonIndexer;
 import org.sonar.plugins.python.architecture.DummyArchitectureCallback;
+import org.sonar.plugins.python.caching.Caching;
 import org.sonar.python.caching.CacheContextImpl;
 import org.sonar.python.parser.PythonParser;
 
@@ -94,23 +95,24 @@ public final class IPynbSensor implements Sensor {
     if (pythonVersions.length != 0) {
       ProjectPythonVersion.setCurrentVersions(PythonVersionUtils.fromStringArray(pythonVersions));
     }
+    boolean handWrittenLexer = context.config().getBoolean(PythonParser.HAND_WRITTEN_LEXER_PROPERTY).orElse(false);
     if (isInSonarLintRuntime(context)) {
-      PythonScanner scanner = new PythonScanner(context, checks, fileLinesContextFactory, noSonarFilter, PythonParser.createIPythonParser(),
-        indexer, new DummyArchitectureCallback());
+      PythonScanner scanner = new PythonScanner(context, checks, fileLinesContextFactory, noSonarFilter,
+        () -> PythonParser.createIPythonParser(handWrittenLexer), indexer, new DummyArchitectureCallback());
       scanner.execute(pythonFiles, context);
     } else {
-      processNotebooksFiles(pythonFiles, context);
+      processNotebooksFiles(pythonFiles, context, handWrittenLexer);
     }
     sensorTelemetryStorage.send(context);
   }
 
-  private void processNotebooksFiles(List<PythonInputFile> pythonFiles, SensorContext context) {
+  private void processNotebooksFiles(List<PythonInputFile> pythonFiles, SensorContext context, boolean handWrittenLexer) {
     pythonFiles = parseNotebooks(pythonFiles, context);
-    // Disable caching for IPynb files for now see: SONARPY-2020
-    CacheContext cacheContext = CacheContextImpl.dummyCache();
-    PythonIndexer pythonIndexer = new SonarQubePythonIndexer(pythonFiles, cacheContext, context);
-    PythonScanner scanner = new PythonScanner(context, checks, fileLinesContextFactory, noSonarFilter, PythonParser.createIPythonParser(),
-      pythonIndexer, new DummyArchitectureCallback());
+    // Cached data of notebooks is keyed on the original notebook files
+    CacheContext cacheContext = CacheContextImpl.of(context);
+    PythonIndexer pythonIndexer = new SonarQubePythonIndexer(pythonFiles, cacheContext, context, Caching.IPYNB_GLOBAL_KEYS_SUFFIX);
+    PythonScanner scanner = new PythonScanner(context, checks, fileLinesContextFactory, noSonarFilter,
+      () -> PythonParser.createIPythonParser(handWrittenLexer), pythonIndexer, new DummyArchitectureCallback());
     scanner.execute(pythonFiles, context);
     sensorTelemetryStorage.updateMetric(TelemetryMetricKey.NOTEBOOK_RECOGNITION_ERROR_KEY, scanner.getRecognitionErrorCount());
     updateDatabricksTelemetry(scanner);
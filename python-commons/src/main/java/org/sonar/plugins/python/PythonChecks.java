@@ -53,6 +53,13 @@ public class PythonChecks {
     return checksByRepository.stream().flatMap(c -> c.all().stream()).toList();
   }
 
+  /**
+   * Whether at least one of the active checks relies on the legacy symbol table.
+   */
+  public boolean requireLegacySymbolTable() {
+    return all().stream().anyMatch(PythonCheck::requiresLegacySymbolTable);
+  }
+
   @Nullable
   public RuleKey ruleKey(PythonCheck check) {
     return checksByRepository.stream().map(c -> c.ruleKey(check)).filter(Objects::nonNull).findFirst().orElse(null);
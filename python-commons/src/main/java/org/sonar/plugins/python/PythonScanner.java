@@ -30,8 +30,13 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
 import java.util.regex.Pattern;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.SonarProduct;
@@ -62,17 +67,29 @@ import org.sonar.plugins.python.cpd.PythonCpdAnalyzer;
 import org.sonar.plugins.python.indexer.PythonIndexer;
 import org.sonar.python.IPythonLocation;
 import org.sonar.python.SubscriptionVisitor;
+import org.sonar.python.caching.CpdSerializer;
 import org.sonar.python.metrics.FileLinesVisitor;
 import org.sonar.python.metrics.FileMetrics;
 import org.sonar.python.parser.PythonParser;
 import org.sonar.python.tree.IPythonTreeMaker;
 import org.sonar.python.tree.PythonTreeMaker;
+import org.sonar.python.types.TypeShed;
+import org.sonarsource.performance.measure.PerformanceMeasure;
 
 public class PythonScanner extends Scanner {
 
   private static final Logger LOG = LoggerFactory.getLogger(PythonScanner.class);
-
-  private final PythonParser parser;
+  private static final int SLOWEST_FILES_REPORT_SIZE = 10;
+  /**
+   * Time budget, in milliseconds, of the analysis of a single file. It is checked between parsing, semantic analysis and each check,
+   * and between the tree nodes visited by subscription checks: once exceeded, the remaining steps of the analysis of the file are skipped
+   * and an analysis error is reported.
+   * Files exceeding the budget are quarantined: as long as their content does not change, the next analyses skip them.
+   * By default, the analysis of files is not bounded.
+   */
+  public static final String FILE_ANALYSIS_TIMEOUT_PROPERTY_NAME = "sonar.python.analysis.fileTimeoutMillis";
+
+  private final ThreadLocal<PythonParser> parsers;
   private final PythonChecks checks;
   private final FileLinesContextFactory fileLinesContextFactory;
   private final NoSonarFilter noSonarFilter;
@@ -83,19 +100,44 @@ public class PythonScanner extends Scanner {
   private static final Pattern DATABRICKS_MAGIC_COMMAND_PATTERN = Pattern.compile("^\\h*#\\h*(MAGIC|COMMAND).*");
   private boolean foundDatabricks = false;
   private final PythonFileConsumer architectureCallback;
+  private final boolean buildLegacySymbolTable;
+  private final long fileAnalysisTimeoutNanos;
+  private final boolean performanceMeasureActivated;
+  @Nullable
+  private final SlowestFiles slowestFiles;
+  private final LongSupplier nanoClock;
 
   public PythonScanner(
     SensorContext context, PythonChecks checks,
-    FileLinesContextFactory fileLinesContextFactory, NoSonarFilter noSonarFilter, PythonParser parser, PythonIndexer indexer, PythonFileConsumer architectureCallback) {
+    FileLinesContextFactory fileLinesContextFactory, NoSonarFilter noSonarFilter, Supplier<PythonParser> parserSupplier, PythonIndexer indexer,
+    PythonFileConsumer architectureCallback) {
+    this(context, checks, fileLinesContextFactory, noSonarFilter, parserSupplier, indexer, architectureCallback, System::nanoTime);
+  }
+
+  /**
+   * @param nanoClock the time source of the analysis budget of files, see {@link System#nanoTime()}
+   */
+  PythonScanner(
+    SensorContext context, PythonChecks checks,
+    FileLinesContextFactory fileLinesContextFactory, NoSonarFilter noSonarFilter, Supplier<PythonParser> parserSupplier, PythonIndexer indexer,
+    PythonFileConsumer architectureCallback, LongSupplier nanoClock) {
     super(context);
+    this.nanoClock = nanoClock;
     this.checks = checks;
     this.fileLinesContextFactory = fileLinesContextFactory;
     this.noSonarFilter = noSonarFilter;
     this.cpdAnalyzer = new PythonCpdAnalyzer(context);
-    this.parser = parser;
+    // SSLR parsers are stateful: each thread preparing files gets its own instance
+    this.parsers = ThreadLocal.withInitial(parserSupplier);
     this.indexer = indexer;
     this.indexer.buildOnce(context);
     this.architectureCallback = architectureCallback;
+    // The symbol highlighting of SonarQube relies on the legacy symbol table
+    this.buildLegacySymbolTable = !isInSonarLint(context) || checks.requireLegacySymbolTable() || architectureCallback.requiresLegacySymbolTable();
+    LOG.debug("Legacy symbol table is {}", buildLegacySymbolTable ? "required" : "not required by any active check");
+    this.fileAnalysisTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(context.config().getLong(FILE_ANALYSIS_TIMEOUT_PROPERTY_NAME).orElse(0L));
+    this.performanceMeasureActivated = context.config().getBoolean(PythonSensor.PERFORMANCE_MEASURE_PROPERTY).orElse(false);
+    this.slowestFiles = performanceMeasureActivated ? new SlowestFiles(SLOWEST_FILES_REPORT_SIZE) : null;
   }
 
   @Override
@@ -105,38 +147,125 @@ public class PythonScanner extends Scanner {
 
   @Override
   protected void scanFile(PythonInputFile inputFile) throws IOException {
-    var pythonFile = SonarQubePythonFile.create(inputFile);
-    PythonVisitorContext visitorContext;
-    InputFile.Type fileType = inputFile.wrappedFile().type();
+    prepareScan(inputFile).complete();
+  }
+
+  @Override
+  protected FileScan prepareScan(PythonInputFile inputFile) throws IOException {
+    long start = nanoClock.getAsLong();
     try {
-      AstNode astNode = parser.parse(inputFile.contents());
-      PythonTreeMaker treeMaker = getTreeMaker(inputFile);
-      FileInput parse = treeMaker.fileInput(astNode);
-      visitorContext = new PythonVisitorContext(parse,
-        pythonFile,
-        getWorkingDirectory(context),
-        indexer.packageName(inputFile),
-        indexer.projectLevelSymbolTable(),
-        indexer.cacheContext(),
-        context.runtime().getProduct());
-      if (fileType == InputFile.Type.MAIN) {
-        saveMeasures(inputFile, visitorContext);
+      AstNode astNode = indexer.takeRetainedParseTree(inputFile);
+      if (astNode == null) {
+        String contents = inputFile.contents();
+        astNode = measureOnSensorThread("Parsing", () -> parsers.get().parse(contents));
       }
+      AstNode parsedNode = astNode;
+      FileInput fileInput = measureOnSensorThread("TreeMaking", () -> getTreeMaker(inputFile).fileInput(parsedNode));
+      long preparationNanos = nanoClock.getAsLong() - start;
+      return () -> completeScan(inputFile, preparationNanos, budget -> scanParsedFile(inputFile, fileInput, budget));
     } catch (RecognitionException e) {
-      visitorContext = new PythonVisitorContext(pythonFile, e, context.runtime().getProduct());
-
-      var line = (inputFile.kind() == PythonInputFile.Kind.IPYTHON) ? ((GeneratedIPythonFile) inputFile).locationMap().get(e.getLine()).line() : e.getLine();
-      var newMessage = e.getMessage().replace("line " + e.getLine(), "line " + line);
-
-      LOG.error("Unable to parse file: " + inputFile);
-      LOG.error(newMessage);
-      recognitionErrorCount++;
-      context.newAnalysisError()
-        .onFile(inputFile.wrappedFile())
-        .at(inputFile.wrappedFile().newPointer(line, 0))
-        .message(newMessage)
-        .save();
+      long preparationNanos = nanoClock.getAsLong() - start;
+      return () -> completeScan(inputFile, preparationNanos, budget -> scanFile(inputFile, parsingErrorContext(inputFile, e), budget));
+    }
+  }
+
+  private void completeScan(PythonInputFile inputFile, long preparationNanos, Consumer<FileAnalysisBudget> action) {
+    long start = nanoClock.getAsLong();
+    FileAnalysisBudget budget = FileAnalysisBudget.start(fileAnalysisTimeoutNanos, preparationNanos, nanoClock);
+    try {
+      TypeShed.runWith(indexer.projectLevelSymbolTable().typeShedContext(), () -> action.accept(budget));
+    } finally {
+      indexer.endOfFileAnalysis(inputFile);
+      if (slowestFiles != null) {
+        slowestFiles.add(inputFile, preparationNanos + nanoClock.getAsLong() - start);
+      }
+    }
+  }
+
+  private static void measure(String measurementName, Runnable action) {
+    PerformanceMeasure.Duration duration = PerformanceMeasure.start(measurementName);
+    try {
+      action.run();
+    } finally {
+      duration.stop();
+    }
+  }
+
+  @Override
+  protected boolean supportsParallelScan() {
+    return true;
+  }
+
+  private void scanParsedFile(PythonInputFile inputFile, FileInput fileInput, FileAnalysisBudget budget) {
+    if (budget.isExceeded()) {
+      skipRemainingAnalysis(inputFile, "parsing", budget);
+      return;
+    }
+    var pythonFile = SonarQubePythonFile.create(inputFile);
+    PythonVisitorContext visitorContext = new PythonVisitorContext(fileInput,
+      pythonFile,
+      getWorkingDirectory(context),
+      indexer.packageName(inputFile),
+      indexer.projectLevelSymbolTable(),
+      indexer.cacheContext(),
+      context.runtime().getProduct(),
+      buildLegacySymbolTable);
+    if (budget.isExceeded()) {
+      skipRemainingAnalysis(inputFile, "semantic analysis", budget);
+      return;
+    }
+    if (inputFile.wrappedFile().type() == InputFile.Type.MAIN) {
+      measure("Measures", () -> saveMeasures(inputFile, visitorContext));
+    }
+    scanFile(inputFile, visitorContext, budget);
+  }
+
+  private void skipRemainingAnalysis(PythonInputFile inputFile, String phase, FileAnalysisBudget budget) {
+    String message = String.format("Analysis of file exceeded the time budget of %d ms during %s, remaining analysis steps were skipped",
+      budget.timeoutMillis(), phase);
+    LOG.warn("{}: {}", message, inputFile);
+    context.newAnalysisError()
+      .onFile(inputFile.wrappedFile())
+      .message(message)
+      .save();
+    indexer.quarantine(inputFile);
+  }
+
+  private PythonVisitorContext parsingErrorContext(PythonInputFile inputFile, RecognitionException e) {
+    var pythonFile = SonarQubePythonFile.create(inputFile);
+    var line = (inputFile.kind() == PythonInputFile.Kind.IPYTHON) ? ((GeneratedIPythonFile) inputFile).locationMap().get(e.getLine()).line() : e.getLine();
+    var newMessage = e.getMessage().replace("line " + e.getLine(), "line " + line);
+
+    LOG.error("Unable to parse file: " + inputFile);
+    LOG.error(newMessage);
+    recognitionErrorCount++;
+    context.newAnalysisError()
+      .onFile(inputFile.wrappedFile())
+      .at(inputFile.wrappedFile().newPointer(line, 0))
+      .message(newMessage)
+      .save();
+    return new PythonVisitorContext(pythonFile, e, context.runtime().getProduct());
+  }
+
+  private void scanFile(PythonInputFile inputFile, PythonVisitorContext visitorContext, FileAnalysisBudget budget) {
+    boolean completed = runChecks(inputFile, visitorContext, budget);
+    visitorContext.controlFlowAnalysisCache().clear();
+    if (completed) {
+      measure("ArchitectureCallback", () -> architectureCallback.scanFile(visitorContext));
     }
+    // Issues raised before the time budget was exceeded are still reported
+    measure("Issues", () -> saveIssues(inputFile, visitorContext.getIssues()));
+
+    if (completed && visitorContext.rootTree() != null && !isInSonarLint(context)) {
+      measure("SymbolHighlighting", () -> new SymbolVisitor(context.newSymbolTable().onFile(inputFile.wrappedFile())).visitFileInput(visitorContext.rootTree()));
+      measure("Highlighting", () -> new PythonHighlighter(context, inputFile).scanFile(visitorContext));
+    }
+
+    searchForDataBricks(visitorContext);
+  }
+
+  private boolean runChecks(PythonInputFile inputFile, PythonVisitorContext visitorContext, FileAnalysisBudget budget) {
+    InputFile.Type fileType = inputFile.wrappedFile().type();
     List<PythonSubscriptionCheck> checksBasedOnTree = new ArrayList<>();
     for (PythonCheck check : checks.all()) {
       if (!isCheckApplicable(check, fileType)
@@ -146,19 +275,26 @@ public class PythonScanner extends Scanner {
       if (check instanceof PythonSubscriptionCheck pythonSubscriptionCheck) {
         checksBasedOnTree.add(pythonSubscriptionCheck);
       } else {
-        check.scanFile(visitorContext);
+        String checkName = check.getClass().getSimpleName();
+        measure(checkName, () -> check.scanFile(visitorContext));
+        if (budget.isExceeded()) {
+          skipRemainingAnalysis(inputFile, checkName, budget);
+          return false;
+        }
       }
     }
-    SubscriptionVisitor.analyze(checksBasedOnTree, visitorContext);
-    architectureCallback.scanFile(visitorContext);
-    saveIssues(inputFile, visitorContext.getIssues());
-
-    if (visitorContext.rootTree() != null && !isInSonarLint(context)) {
-      new SymbolVisitor(context.newSymbolTable().onFile(inputFile.wrappedFile())).visitFileInput(visitorContext.rootTree());
-      new PythonHighlighter(context, inputFile).scanFile(visitorContext);
+    boolean completed;
+    PerformanceMeasure.Duration duration = PerformanceMeasure.start("SubscriptionChecks");
+    try {
+      completed = SubscriptionVisitor.analyze(checksBasedOnTree, visitorContext, budget::isExceeded, performanceMeasureActivated);
+    } finally {
+      duration.stop();
     }
-
-    searchForDataBricks(visitorContext);
+    if (!completed || budget.isExceeded()) {
+      skipRemainingAnalysis(inputFile, "subscription checks", budget);
+      return false;
+    }
+    return true;
   }
 
   private void searchForDataBricks(PythonVisitorContext visitorContext) {
@@ -179,9 +315,21 @@ public class PythonScanner extends Scanner {
 
   @Override
   public boolean scanFileWithoutParsing(PythonInputFile inputFile) {
+    return TypeShed.callWith(indexer.projectLevelSymbolTable().typeShedContext(), () -> scanFileWithoutParsingInContext(inputFile));
+  }
+
+  private boolean scanFileWithoutParsingInContext(PythonInputFile inputFile) {
+    if (indexer.isQuarantined(inputFile)) {
+      LOG.warn("Skipping analysis of file which exceeded the time budget of {} ms during a previous analysis and did not change since: {}",
+        TimeUnit.NANOSECONDS.toMillis(fileAnalysisTimeoutNanos), inputFile);
+      // The file remains quarantined for the next analysis
+      indexer.quarantine(inputFile);
+      indexer.endOfFileAnalysis(inputFile);
+      return true;
+    }
     InputFile.Type fileType = inputFile.wrappedFile().type();
     boolean result = true;
-    PythonFile pythonFile = SonarQubePythonFile.create(inputFile.wrappedFile());
+    PythonFile pythonFile = SonarQubePythonFile.create(inputFile);
     PythonInputFileContext inputFileContext = new PythonInputFileContext(
       pythonFile,
       context.fileSystem().workDir(),
@@ -214,7 +362,11 @@ public class PythonScanner extends Scanner {
       // We must avoid pushing measures twice due to the risk of duplicate cache key error.
       return false;
     }
-    return restoreAndPushMeasuresIfApplicable(inputFile);
+    if (!restoreAndPushMeasuresIfApplicable(inputFile)) {
+      return false;
+    }
+    indexer.endOfFileAnalysis(inputFile);
+    return true;
   }
 
   private boolean checkRequiresParsingOfImpactedFile(PythonInputFile inputFile, PythonCheck check) {
@@ -223,6 +375,13 @@ public class PythonScanner extends Scanner {
 
   @Override
   public void endOfAnalysis() {
+    TypeShed.runWith(indexer.projectLevelSymbolTable().typeShedContext(), this::endOfAnalysisInContext);
+  }
+
+  private void endOfAnalysisInContext() {
+    if (slowestFiles != null) {
+      slowestFiles.report(name());
+    }
     indexer.postAnalysis(context);
     checks.all().stream()
       .filter(EndOfAnalysis.class::isInstance)
@@ -254,7 +413,7 @@ public class PythonScanner extends Scanner {
 
   @Override
   public boolean canBeScannedWithoutParsing(PythonInputFile inputFile) {
-    return this.indexer.canBePartiallyScannedWithoutParsing(inputFile);
+    return this.indexer.isQuarantined(inputFile) || this.indexer.canBePartiallyScannedWithoutParsing(inputFile);
   }
 
   @Override
@@ -342,7 +501,12 @@ public class PythonScanner extends Scanner {
 
     if (!isInSonarLint(context)) {
       if (inputFile.kind() == PythonInputFile.Kind.PYTHON) {
-        cpdAnalyzer.pushCpdTokens(inputFile.wrappedFile(), visitorContext);
+        measure("Cpd", () -> {
+          CpdSerializer.SerializationResult cpdTokens = cpdAnalyzer.pushCpdTokens(inputFile.wrappedFile(), visitorContext);
+          if (cpdTokens != null) {
+            indexer.saveCpdTokens(inputFile, cpdTokens);
+          }
+        });
       }
 
       Set<Integer> linesOfCode = fileLinesVisitor.getLinesOfCode();
@@ -372,11 +536,12 @@ public class PythonScanner extends Scanner {
   }
 
   private boolean restoreAndPushMeasuresIfApplicable(PythonInputFile inputFile) {
-    if (inputFile.wrappedFile().type() == InputFile.Type.TEST) {
+    if (inputFile.wrappedFile().type() == InputFile.Type.TEST || isNotebook(inputFile)) {
+      // No CPD tokens are pushed for test files and notebooks
       return true;
     }
 
-    return cpdAnalyzer.pushCachedCpdTokens(inputFile.wrappedFile(), indexer.cacheContext());
+    return cpdAnalyzer.pushCachedCpdTokens(inputFile.wrappedFile(), indexer.readCachedCpdTokens(inputFile));
   }
 
   private void saveMetricOnFile(PythonInputFile inputFile, Metric<Integer> metric, Integer value) {
@@ -21,6 +21,7 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.LongSupplier;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -49,7 +50,6 @@ import org.sonar.plugins.python.indexer.SonarQubePythonIndexer;
 import org.sonar.plugins.python.warnings.AnalysisWarningsWrapper;
 import org.sonar.python.caching.CacheContextImpl;
 import org.sonar.python.parser.PythonParser;
-import org.sonar.python.types.TypeShed;
 import org.sonarsource.performance.measure.PerformanceMeasure;
 
 import static org.sonar.plugins.python.api.PythonVersionUtils.PYTHON_VERSION_KEY;
@@ -57,7 +57,7 @@ import static org.sonar.plugins.python.api.PythonVersionUtils.PYTHON_VERSION_KEY
 @DependedUpon(value = "org.sonar.plugins.python.PythonSensor_before_com.sonarsource.dbd.SonarLintPythonBugDetectionSensor")
 public final class PythonSensor implements Sensor {
 
-  private static final String PERFORMANCE_MEASURE_PROPERTY = "sonar.python.performance.measure";
+  static final String PERFORMANCE_MEASURE_PROPERTY = "sonar.python.performance.measure";
   private static final String PERFORMANCE_MEASURE_FILE_PATH_PROPERTY = "sonar.python.performance.measure.path";
   private static final String PERFORMANCE_MEASURE_DESTINATION_FILE = "sonar-python-performance-measure.json";
 
@@ -75,6 +75,7 @@ public final class PythonSensor implements Sensor {
     ".version\"";
 
   private final SensorTelemetryStorage sensorTelemetryStorage;
+  private LongSupplier nanoClock = System::nanoTime;
 
   /**
    * Constructor to be used by pico if neither PythonCustomRuleRepository nor PythonIndexer are to be found and injected.
@@ -132,6 +133,13 @@ public final class PythonSensor implements Sensor {
     return checks;
   }
 
+  /**
+   * Replaces the time source of the analysis budget of files (see {@link PythonScanner#FILE_ANALYSIS_TIMEOUT_PROPERTY_NAME}), for tests.
+   */
+  void setNanoClock(LongSupplier nanoClock) {
+    this.nanoClock = nanoClock;
+  }
+
   @Override
   public void describe(SensorDescriptor descriptor) {
     descriptor
@@ -152,12 +160,12 @@ public final class PythonSensor implements Sensor {
       ProjectPythonVersion.setCurrentVersions(PythonVersionUtils.fromStringArray(pythonVersionParameter));
     }
     updatePythonVersionTelemetry(context, pythonVersionParameter);
+    boolean handWrittenLexer = context.config().getBoolean(PythonParser.HAND_WRITTEN_LEXER_PROPERTY).orElse(false);
     CacheContext cacheContext = CacheContextImpl.of(context);
     PythonIndexer pythonIndexer = this.indexer != null ? this.indexer : new SonarQubePythonIndexer(pythonFiles, cacheContext, context);
     pythonIndexer.setSonarLintCache(sonarLintCache);
-    TypeShed.setProjectLevelSymbolTable(pythonIndexer.projectLevelSymbolTable());
-    PythonScanner scanner = new PythonScanner(context, checks, fileLinesContextFactory, noSonarFilter, PythonParser.create(),
-      pythonIndexer, architectureCallback);
+    PythonScanner scanner = new PythonScanner(context, checks, fileLinesContextFactory, noSonarFilter,
+      () -> PythonParser.create(handWrittenLexer), pythonIndexer, architectureCallback, nanoClock);
     scanner.execute(pythonFiles, context);
 
     updateDatabricksTelemetry(scanner);
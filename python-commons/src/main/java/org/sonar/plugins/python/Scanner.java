@@ -18,64 +18,217 @@ package org.sonar.plugins.python;
 
 import com.sonar.sslr.api.RecognitionException;
 import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonarsource.analyzer.commons.ProgressReport;
+import org.sonarsource.performance.measure.PerformanceMeasure;
 
 public abstract class Scanner {
   private static final Logger LOG = LoggerFactory.getLogger(Scanner.class);
   private static final String FAIL_FAST_PROPERTY_NAME = "sonar.internal.analysis.failFast";
+  /**
+   * Number of threads used to prepare the analysis of files (see {@link #prepareScan(PythonInputFile)}).
+   * By default, files are analyzed sequentially on the sensor thread.
+   */
+  public static final String ANALYSIS_THREADS_PROPERTY_NAME = "sonar.python.analysis.threads";
   protected final SensorContext context;
+  private int numScannedWithoutParsing = 0;
 
   protected Scanner(SensorContext context) {
     this.context = context;
   }
 
+  /**
+   * {@link PerformanceMeasure} is not thread-safe: actions running on the worker threads of a parallel scan
+   * (see {@link #ANALYSIS_THREADS_PROPERTY_NAME}) are not measured.
+   */
+  public static <T> T measureOnSensorThread(String measurementName, Supplier<T> action) {
+    if (Thread.currentThread() instanceof WorkerThread) {
+      return action.get();
+    }
+    PerformanceMeasure.Duration duration = PerformanceMeasure.start(measurementName);
+    try {
+      return action.get();
+    } finally {
+      duration.stop();
+    }
+  }
+
   public void execute(List<PythonInputFile> files, SensorContext context) {
     ProgressReport progressReport = new ProgressReport(this.name() + " progress", TimeUnit.SECONDS.toMillis(10));
     String name = this.name();
     LOG.info("Starting {}", name);
     List<String> filenames = files.stream().map(PythonInputFile::wrappedFile).map(InputFile::toString).toList();
 
-    int numScannedWithoutParsing = 0;
+    numScannedWithoutParsing = 0;
     progressReport.start(filenames);
+    int numberOfThreads = numberOfThreads(context);
+    boolean completed;
+    if (numberOfThreads > 1 && supportsParallelScan()) {
+      LOG.debug("Using {} threads for {}", numberOfThreads, name);
+      completed = scanInParallel(files, context, progressReport, numberOfThreads);
+    } else {
+      completed = scanSequentially(files, context, progressReport);
+    }
+    if (!completed) {
+      return;
+    }
+    endOfAnalysis();
+    progressReport.stop();
+    this.reportStatistics(numScannedWithoutParsing, files.size());
+  }
+
+  private boolean scanSequentially(List<PythonInputFile> files, SensorContext context, ProgressReport progressReport) {
     for (PythonInputFile file : files) {
       if (context.isCancelled()) {
         progressReport.cancel();
-        return;
+        return false;
       }
       try {
-        boolean successfullyScannedWithoutParsing = false;
-        if (canBeScannedWithoutParsing(file)) {
-          successfullyScannedWithoutParsing = this.scanFileWithoutParsing(file);
-        }
-        if (!successfullyScannedWithoutParsing) {
+        if (!tryToScanWithoutParsing(file)) {
           this.scanFile(file);
-        } else {
-          ++numScannedWithoutParsing;
         }
       } catch (Exception e) {
-        this.processException(e, file);
-        if (context.config().getBoolean(FAIL_FAST_PROPERTY_NAME).orElse(false) && !isParseErrorOnTestFile(file, e)) {
-          throw new IllegalStateException("Exception when analyzing " + file, e);
-        }
+        handleException(e, file, context);
       } finally {
         progressReport.nextFile();
       }
     }
-    endOfAnalysis();
-    progressReport.stop();
-    this.reportStatistics(numScannedWithoutParsing, files.size());
+    return true;
+  }
+
+  /**
+   * The preparation of files (see {@link #prepareScan(PythonInputFile)}) is dispatched to a pool of workers,
+   * while their completion happens on the calling thread, in the order of the input files.
+   * This keeps results deterministic and ensures the {@link SensorContext} is only accessed from a single thread.
+   * The number of files being prepared ahead of completion is bounded to limit the memory held by pending results.
+   */
+  private boolean scanInParallel(List<PythonInputFile> files, SensorContext context, ProgressReport progressReport, int numberOfThreads) {
+    ExecutorService executor = Executors.newFixedThreadPool(numberOfThreads, new WorkerThreadFactory(name()));
+    Deque<PendingScan> pendingScans = new ArrayDeque<>();
+    int maxPendingScans = numberOfThreads * 2;
+    try {
+      for (PythonInputFile file : files) {
+        if (context.isCancelled()) {
+          progressReport.cancel();
+          return false;
+        }
+        pendingScans.add(submit(file, executor));
+        if (pendingScans.size() > maxPendingScans) {
+          complete(pendingScans.poll(), context, progressReport);
+        }
+      }
+      while (!pendingScans.isEmpty()) {
+        if (context.isCancelled()) {
+          progressReport.cancel();
+          return false;
+        }
+        complete(pendingScans.poll(), context, progressReport);
+      }
+      return true;
+    } finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Files which can be scanned without parsing are not submitted: they are scanned when they are completed, in the order of the input files.
+   */
+  private PendingScan submit(PythonInputFile file, ExecutorService executor) {
+    try {
+      if (canBeScannedWithoutParsing(file)) {
+        return new PendingScan(file, null, null);
+      }
+    } catch (Exception e) {
+      // Failures are reported when the file is completed, to preserve the order of the input files
+      return new PendingScan(file, null, e);
+    }
+    return new PendingScan(file, executor.submit(() -> prepareScan(file)), null);
+  }
+
+  private void complete(PendingScan pendingScan, SensorContext context, ProgressReport progressReport) {
+    PythonInputFile file = pendingScan.file();
+    try {
+      if (pendingScan.failure() != null) {
+        throw pendingScan.failure();
+      }
+      Future<FileScan> preparedScan = pendingScan.preparedScan();
+      if (preparedScan != null) {
+        preparedScan.get().complete();
+      } else if (!scanWithoutParsing(file)) {
+        this.scanFile(file);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while analyzing " + file, e);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (!(cause instanceof Exception exception)) {
+        throw new IllegalStateException("Error when analyzing " + file, cause);
+      }
+      handleException(exception, file, context);
+    } catch (Exception e) {
+      handleException(e, file, context);
+    } finally {
+      progressReport.nextFile();
+    }
+  }
+
+  private boolean tryToScanWithoutParsing(PythonInputFile file) throws IOException {
+    return canBeScannedWithoutParsing(file) && scanWithoutParsing(file);
+  }
+
+  private boolean scanWithoutParsing(PythonInputFile file) throws IOException {
+    if (this.scanFileWithoutParsing(file)) {
+      ++numScannedWithoutParsing;
+      return true;
+    }
+    return false;
+  }
+
+  private void handleException(Exception e, PythonInputFile file, SensorContext context) {
+    this.processException(e, file);
+    if (context.config().getBoolean(FAIL_FAST_PROPERTY_NAME).orElse(false) && !isParseErrorOnTestFile(file, e)) {
+      throw new IllegalStateException("Exception when analyzing " + file, e);
+    }
+  }
+
+  private static int numberOfThreads(SensorContext context) {
+    return Math.max(1, context.config().getInt(ANALYSIS_THREADS_PROPERTY_NAME).orElse(1));
   }
 
   protected abstract String name();
 
   protected abstract void scanFile(PythonInputFile file) throws IOException;
 
+  /**
+   * Performs the part of the analysis of a file which is independent of other files, typically lexing and parsing.
+   * When {@link #supportsParallelScan()} is true, this method may be called from a worker thread: implementations must not access
+   * the {@link SensorContext} nor mutate state shared between files. The returned {@link FileScan} is always completed on the
+   * calling thread, in the order of the input files.
+   */
+  protected FileScan prepareScan(PythonInputFile file) throws IOException {
+    return () -> scanFile(file);
+  }
+
+  protected boolean supportsParallelScan() {
+    return false;
+  }
+
   protected boolean scanFileWithoutParsing(PythonInputFile file) throws IOException {
     return false;
   }
@@ -98,4 +251,34 @@ public abstract class Scanner {
     // As test files may contain invalid syntax on purpose, we avoid failing the analysis when encountering parse errors on them
     return e instanceof RecognitionException && file.wrappedFile().type() == InputFile.Type.TEST;
   }
+
+  @FunctionalInterface
+  protected interface FileScan {
+    void complete() throws IOException;
+  }
+
+  private record PendingScan(PythonInputFile file, @Nullable Future<FileScan> preparedScan, @Nullable Exception failure) {
+  }
+
+  private static class WorkerThreadFactory implements ThreadFactory {
+    private final String scannerName;
+    private final AtomicInteger count = new AtomicInteger();
+
+    WorkerThreadFactory(String scannerName) {
+      this.scannerName = scannerName;
+    }
+
+    @Override
+    public Thread newThread(Runnable runnable) {
+      Thread thread = new WorkerThread(runnable, "sonar-python " + scannerName + " worker " + count.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    }
+  }
+
+  private static class WorkerThread extends Thread {
+    WorkerThread(Runnable runnable, String name) {
+      super(runnable, name);
+    }
+  }
 }
@@ -0,0 +1,61 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.python;
+
+import java.util.Comparator;
+import java.util.PriorityQueue;
+import java.util.concurrent.TimeUnit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps track of the files which took the longest to analyze, reported along with the performance measures.
+ */
+class SlowestFiles {
+
+  private static final Logger LOG = LoggerFactory.getLogger(SlowestFiles.class);
+
+  private final int size;
+  private final PriorityQueue<FileDuration> slowest = new PriorityQueue<>(Comparator.comparingLong(FileDuration::nanos));
+
+  record FileDuration(String file, long nanos) {
+  }
+
+  SlowestFiles(int size) {
+    this.size = size;
+  }
+
+  void add(PythonInputFile file, long nanos) {
+    if (slowest.size() < size) {
+      slowest.add(new FileDuration(file.toString(), nanos));
+    } else if (slowest.peek().nanos() < nanos) {
+      slowest.poll();
+      slowest.add(new FileDuration(file.toString(), nanos));
+    }
+  }
+
+  void report(String phase) {
+    if (slowest.isEmpty()) {
+      return;
+    }
+    StringBuilder report = new StringBuilder("Slowest files for ").append(phase).append(":");
+    slowest.stream()
+      .sorted(Comparator.comparingLong(FileDuration::nanos).reversed())
+      .forEach(f -> report.append(System.lineSeparator()).append("  ").append(TimeUnit.NANOSECONDS.toMillis(f.nanos())).append(" ms ").append(f.file()));
+    LOG.info("{}", report);
+  }
+}
@@ -16,17 +16,22 @@
  */
 package org.sonar.plugins.python.caching;
 
-import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.plugins.python.api.caching.CacheContext;
+import org.sonar.python.caching.CpdSerializer;
+import org.sonar.python.caching.ModuleNamesSerializer;
+import org.sonar.python.caching.VarLengthInputStream;
+import org.sonar.python.caching.VarLengthOutputStream;
 import org.sonar.python.index.Descriptor;
 import org.sonar.python.types.protobuf.DescriptorsProtos;
 
@@ -37,111 +42,279 @@ public class Caching {
 
   private final CacheContext cacheContext;
 
-  public static final String IMPORTS_MAP_CACHE_KEY_PREFIX = "python:imports:";
-  public static final String PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX = "python:descriptors:";
+  /**
+   * Prefix of the consolidated record of each file: content hash, imports, global descriptors and CPD tokens.
+   */
+  public static final String FILE_RECORD_KEY_PREFIX = "python:file:";
   public static final String PROJECT_FILES_KEY = "python:files";
-  public static final String CONTENT_HASHES_KEY = "python:content_hashes:";
   public static final String TYPESHED_MODULES_KEY = "python:typeshed_modules";
   public static final String CACHE_VERSION_KEY = "python:cache_version";
-  public static final String CPD_TOKENS_CACHE_KEY_PREFIX = "python:cpd:data:";
-  public static final String CPD_TOKENS_STRING_TABLE_KEY_PREFIX = "python:cpd:stringTable:";
+  public static final String QUARANTINED_FILES_KEY_PREFIX = "python:quarantined:";
+  public static final String MODULE_NAMES_STRING_TABLE_KEY = "python:module_names:string_table";
+  public static final String DJANGO_VIEWS_KEY_PREFIX = "python:django_views:";
+  /**
+   * Suffix of the project-wide keys (files list, Typeshed modules, cache version, string table) written when analyzing notebooks.
+   * Per-file entries don't need it, as they are keyed on the original notebook file.
+   */
+  public static final String IPYNB_GLOBAL_KEYS_SUFFIX = ":ipynb";
 
   private static final Logger LOG = LoggerFactory.getLogger(Caching.class);
+  private static final int FILE_RECORD_FORMAT_VERSION = 2;
+  private static final String END_MARKER = "END";
 
   public final String cacheVersion;
 
+  private final String projectFilesKey;
+  private final String typeshedModulesKey;
+  private final String cacheVersionKey;
+  private final String moduleNamesStringTableKey;
+  // Reads the entries of the previous analysis, which refer to its string table
+  private ModuleNamesSerializer previousModuleNamesSerializer;
+  // Builds the string table of the entries written since the last call to writeModuleNamesStringTable
+  private ModuleNamesSerializer moduleNamesSerializer = new ModuleNamesSerializer();
+
   public Caching(CacheContext cacheContext, String cacheVersion) {
+    this(cacheContext, cacheVersion, "");
+  }
+
+  public Caching(CacheContext cacheContext, String cacheVersion, String globalKeysSuffix) {
     this.cacheContext = cacheContext;
     this.cacheVersion = cacheVersion;
+    this.projectFilesKey = PROJECT_FILES_KEY + globalKeysSuffix;
+    this.typeshedModulesKey = TYPESHED_MODULES_KEY + globalKeysSuffix;
+    this.cacheVersionKey = CACHE_VERSION_KEY + globalKeysSuffix;
+    this.moduleNamesStringTableKey = MODULE_NAMES_STRING_TABLE_KEY + globalKeysSuffix;
   }
 
-  public void writeImportsMapEntry(String fileKey, Set<String> imports) {
-    byte[] importData = String.join(";", imports).getBytes(StandardCharsets.UTF_8);
-    String cacheKey = importsMapCacheKey(fileKey);
-    cacheContext.getWriteCache().write(cacheKey, importData);
+  /**
+   * Writes the record of a file, replacing the separate entries a file would otherwise need.
+   * A record does not depend on the string table of module names: it can be read as soon as it is written.
+   */
+  public void writeFileRecord(String fileKey, FileRecord fileRecord, @Nullable CpdSerializer.SerializationResult cpdTokens) {
+    try {
+      cacheContext.getWriteCache().write(fileRecordCacheKey(fileKey), serializeFileRecord(fileRecord, cpdTokens));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to serialize the cached record of file " + fileKey, e);
+    }
   }
 
-  public void writeFileContentHash(String fileKey, byte[] hash) {
-    String cacheKey = fileContentHashCacheKey(fileKey);
-    cacheContext.getWriteCache().write(cacheKey, hash);
+  public void copyFileRecordFromPrevious(String fileKey) {
+    cacheContext.getWriteCache().copyFromPrevious(fileRecordCacheKey(fileKey));
   }
 
   public void writeFilesList(List<String> mainFiles) {
-    byte[] projectFiles = String.join(";", mainFiles).getBytes(StandardCharsets.UTF_8);
-    cacheContext.getWriteCache().write(PROJECT_FILES_KEY, projectFiles);
+    byte[] projectFiles = serializeModuleNames(mainFiles);
+    cacheContext.getWriteCache().write(projectFilesKey, projectFiles);
   }
 
   public void writeTypeshedModules(Set<String> stubModules) {
-    byte[] stubModulesBytes = String.join(";", stubModules).getBytes(StandardCharsets.UTF_8);
-    cacheContext.getWriteCache().write(TYPESHED_MODULES_KEY, stubModulesBytes);
+    byte[] stubModulesBytes = serializeModuleNames(stubModules);
+    cacheContext.getWriteCache().write(typeshedModulesKey, stubModulesBytes);
   }
 
   public void writeCacheVersion() {
-    cacheContext.getWriteCache().write(CACHE_VERSION_KEY, cacheVersion.getBytes(StandardCharsets.UTF_8));
+    cacheContext.getWriteCache().write(cacheVersionKey, cacheVersion.getBytes(StandardCharsets.UTF_8));
   }
 
-  public void writeProjectLevelSymbolTableEntry(String fileKey, Set<Descriptor> descriptors) {
-    String cacheKey = projectSymbolTableCacheKey(fileKey);
-    cacheContext.getWriteCache().write(cacheKey, toProtobufModuleDescriptor(descriptors).toByteArray());
+  /**
+   * Writes the string table shared by the project-wide entries holding module names (files list, Typeshed modules).
+   * It must be written after all such entries. The table only holds the names of the entries written since the previous call,
+   * so that it does not grow across analyses.
+   */
+  public void writeModuleNamesStringTable() {
+    try {
+      cacheContext.getWriteCache().write(moduleNamesStringTableKey, moduleNamesSerializer.serializeStringTable());
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to serialize the string table of module names", e);
+    }
+    moduleNamesSerializer = new ModuleNamesSerializer();
+  }
+
+  /**
+   * Writes the fully qualified names of the Django views registered by a file, which are not part of its global descriptors.
+   */
+  public void writeDjangoViews(String fileKey, Set<String> djangoViewsFQN) {
+    try {
+      cacheContext.getWriteCache().write(djangoViewsCacheKey(fileKey), ModuleNamesSerializer.serializeWithStringTable(djangoViewsFQN));
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to serialize the Django views of file " + fileKey, e);
+    }
   }
 
-  public void copyFromPrevious(String fileKey) {
-    cacheContext.getWriteCache().copyFromPrevious(importsMapCacheKey(fileKey));
-    cacheContext.getWriteCache().copyFromPrevious(projectSymbolTableCacheKey(fileKey));
-    cacheContext.getWriteCache().copyFromPrevious(fileContentHashCacheKey(fileKey));
+  public void writeQuarantinedFileHash(String fileKey, byte[] hash) {
+    cacheContext.getWriteCache().write(quarantinedFileCacheKey(fileKey), hash);
   }
 
+  /**
+   * Reads the record of a file, without its CPD tokens (see {@link #readCpdTokens(String)}).
+   */
   @CheckForNull
-  public Set<Descriptor> readProjectLevelSymbolTableEntry(String fileKey) {
-    String key = projectSymbolTableCacheKey(fileKey);
-    if (cacheContext.getReadCache().contains(key)) {
-      byte[] bytes = cacheContext.getReadCache().readBytes(key);
-      if (bytes != null) {
-        try {
-          return fromProtobuf(DescriptorsProtos.ModuleDescriptor.parseFrom(bytes));
-        } catch (InvalidProtocolBufferException e) {
-          LOG.debug("Failed to deserialize project level symbol table entry for module: \"{}\"", fileKey);
-        }
+  public FileRecord readFileRecord(String fileKey) {
+    byte[] bytes = cacheContext.getReadCache().readBytes(fileRecordCacheKey(fileKey));
+    if (bytes != null) {
+      try {
+        return deserializeFileRecord(bytes);
+      } catch (IOException e) {
+        LOG.debug("Failed to deserialize the cached record of file: \"{}\"", fileKey);
       }
     }
     return null;
   }
 
   @CheckForNull
-  public Set<String> readImportMapEntry(String fileKey) {
-    String cacheKey = importsMapCacheKey(fileKey);
-    byte[] bytes = cacheContext.getReadCache().readBytes(cacheKey);
+  public CpdSerializer.SerializationResult readCpdTokens(String fileKey) {
+    byte[] bytes = cacheContext.getReadCache().readBytes(fileRecordCacheKey(fileKey));
     if (bytes != null) {
-      return new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+      try {
+        return deserializeCpdTokens(bytes);
+      } catch (IOException e) {
+        LOG.debug("Failed to deserialize the cached CPD tokens of file: \"{}\"", fileKey);
+      }
+    }
+    return null;
+  }
+
+  @CheckForNull
+  public byte[] readQuarantinedFileHash(String fileKey) {
+    String cacheKey = quarantinedFileCacheKey(fileKey);
+    if (cacheContext.getReadCache().contains(cacheKey)) {
+      return cacheContext.getReadCache().readBytes(cacheKey);
     }
     return null;
   }
 
-  public byte[] readFileContentHash(String fileKey) {
-    String cacheKey = fileContentHashCacheKey(fileKey);
-    return cacheContext.getReadCache().readBytes(cacheKey);
+  public Set<String> readDjangoViews(String fileKey) {
+    String cacheKey = djangoViewsCacheKey(fileKey);
+    byte[] bytes = cacheContext.getReadCache().readBytes(cacheKey);
+    if (bytes != null) {
+      try {
+        return ModuleNamesSerializer.deserializeWithStringTable(bytes);
+      } catch (IOException e) {
+        LOG.debug("Failed to deserialize cache entry: \"{}\"", cacheKey);
+      }
+    }
+    return Collections.emptySet();
   }
 
   public Set<String> readFilesList() {
-    return readSet(PROJECT_FILES_KEY);
+    return readSet(projectFilesKey);
   }
 
   public Set<String> readTypeshedModules() {
-    return readSet(TYPESHED_MODULES_KEY);
+    return readSet(typeshedModulesKey);
   }
 
   private Set<String> readSet(String cacheKey) {
     byte[] bytes = cacheContext.getReadCache().readBytes(cacheKey);
     if (bytes != null) {
-      return new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+      try {
+        return previousModuleNamesSerializer().deserialize(bytes);
+      } catch (IOException e) {
+        LOG.debug("Failed to deserialize cache entry: \"{}\"", cacheKey);
+      }
     }
     return Collections.emptySet();
   }
 
+  // visible for testing
+  static byte[] serializeFileRecord(FileRecord fileRecord, @Nullable CpdSerializer.SerializationResult cpdTokens) throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (VarLengthOutputStream out = new VarLengthOutputStream(stream)) {
+      out.writeInt(FILE_RECORD_FORMAT_VERSION);
+      out.writeBytes(fileRecord.contentHash());
+      out.writeBytes(ModuleNamesSerializer.serializeWithStringTable(fileRecord.imports()));
+      out.writeBytes(toProtobufModuleDescriptor(fileRecord.descriptors()).toByteArray());
+      if (cpdTokens == null) {
+        out.writeInt(0);
+      } else {
+        out.writeInt(1);
+        out.writeBytes(cpdTokens.data);
+        out.writeBytes(cpdTokens.stringTable);
+      }
+      out.writeUTF(END_MARKER);
+    }
+    return stream.toByteArray();
+  }
+
+  // visible for testing
+  static FileRecord deserializeFileRecord(byte[] bytes) throws IOException {
+    try (VarLengthInputStream in = new VarLengthInputStream(bytes)) {
+      checkFileRecordFormatVersion(in);
+      byte[] contentHash = in.readBytes();
+      Set<String> imports = ModuleNamesSerializer.deserializeWithStringTable(in.readBytes());
+      Set<Descriptor> descriptors = fromProtobuf(DescriptorsProtos.ModuleDescriptor.parseFrom(in.readBytes()));
+      return new FileRecord(contentHash, imports, descriptors);
+    }
+  }
+
+  // visible for testing
+  @CheckForNull
+  static CpdSerializer.SerializationResult deserializeCpdTokens(byte[] bytes) throws IOException {
+    try (VarLengthInputStream in = new VarLengthInputStream(bytes)) {
+      checkFileRecordFormatVersion(in);
+      // Content hash, imports and descriptors
+      in.skipBytes();
+      in.skipBytes();
+      in.skipBytes();
+      CpdSerializer.SerializationResult cpdTokens = null;
+      if (in.readInt() != 0) {
+        cpdTokens = new CpdSerializer.SerializationResult(in.readBytes(), in.readBytes());
+      }
+      if (!END_MARKER.equals(in.readUTF())) {
+        throw new IOException("Can't read data from cache, format corrupted");
+      }
+      return cpdTokens;
+    }
+  }
+
+  private static void checkFileRecordFormatVersion(VarLengthInputStream in) throws IOException {
+    int version = in.readInt();
+    if (version != FILE_RECORD_FORMAT_VERSION) {
+      throw new IOException("Can't read data from cache, unsupported format version " + version);
+    }
+  }
+
+  private byte[] serializeModuleNames(Collection<String> moduleNames) {
+    try {
+      return moduleNamesSerializer.serialize(moduleNames);
+    } catch (IOException e) {
+      throw new IllegalStateException("Failed to serialize module names", e);
+    }
+  }
+
+  private ModuleNamesSerializer previousModuleNamesSerializer() {
+    if (previousModuleNamesSerializer == null) {
+      previousModuleNamesSerializer = readModuleNamesStringTable();
+    }
+    return previousModuleNamesSerializer;
+  }
+
+  /**
+   * The project-wide entries of a previous cache version are not read: its string table is ignored in that case.
+   */
+  private ModuleNamesSerializer readModuleNamesStringTable() {
+    if (cacheVersion.equals(readPreviousCacheVersion())) {
+      byte[] bytes = cacheContext.getReadCache().readBytes(moduleNamesStringTableKey);
+      if (bytes != null) {
+        try {
+          return ModuleNamesSerializer.fromStringTable(bytes);
+        } catch (IOException e) {
+          LOG.debug("Failed to deserialize the string table of module names");
+        }
+      }
+    }
+    return new ModuleNamesSerializer();
+  }
+
+  @CheckForNull
+  private String readPreviousCacheVersion() {
+    byte[] bytes = cacheContext.getReadCache().readBytes(cacheVersionKey);
+    return bytes == null ? null : new String(bytes, StandardCharsets.UTF_8);
+  }
+
   public boolean isCacheVersionUpToDate() {
-    byte[] bytes = cacheContext.getReadCache().readBytes(CACHE_VERSION_KEY);
-    if (bytes != null) {
-      String retrievedVersion = new String(bytes, StandardCharsets.UTF_8);
+    String retrievedVersion = readPreviousCacheVersion();
+    if (retrievedVersion != null) {
       if (retrievedVersion.equals(cacheVersion)) {
         LOG.debug("Cache version still up to date: \"{}\".", cacheVersion);
         return true;
@@ -160,15 +333,21 @@ public class Caching {
     return cacheContext;
   }
 
-  public static String importsMapCacheKey(String key) {
-    return IMPORTS_MAP_CACHE_KEY_PREFIX + key.replace('\\', '/');
+  public static String fileRecordCacheKey(String key) {
+    return FILE_RECORD_KEY_PREFIX + key.replace('\\', '/');
+  }
+
+  public static String djangoViewsCacheKey(String key) {
+    return DJANGO_VIEWS_KEY_PREFIX + key.replace('\\', '/');
   }
 
-  public static String projectSymbolTableCacheKey(String key) {
-    return PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + key.replace('\\', '/');
+  public static String quarantinedFileCacheKey(String key) {
+    return QUARANTINED_FILES_KEY_PREFIX + key.replace('\\', '/');
   }
 
-  public static  String fileContentHashCacheKey(String key) {
-    return CONTENT_HASHES_KEY + key.replace('\\', '/');
+  /**
+   * Global symbols of a file, as stored in its cached record.
+   */
+  public record FileRecord(byte[] contentHash, Set<String> imports, Set<Descriptor> descriptors) {
   }
 }
@@ -0,0 +1,140 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.python.caching;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.HashMap;
+import java.util.Map;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.python.caching.VarLengthInputStream;
+import org.sonar.python.caching.VarLengthOutputStream;
+
+/**
+ * Cache persisted in a single local file, used where no server-side cache is available (i.e. in SonarLint).
+ * Like the cache of SonarQube, entries are read from the previous save and written anew: {@link #save()} replaces the content of the file
+ * with the written entries, which then become readable.
+ */
+public class LocalFileCache implements ReadCache, WriteCache {
+
+  private static final Logger LOG = LoggerFactory.getLogger(LocalFileCache.class);
+  private static final int FORMAT_VERSION = 1;
+
+  private final Path path;
+  private Map<String, byte[]> previousEntries;
+  private Map<String, byte[]> entries = new HashMap<>();
+
+  private LocalFileCache(Path path, Map<String, byte[]> previousEntries) {
+    this.path = path;
+    this.previousEntries = previousEntries;
+  }
+
+  /**
+   * A missing or unreadable file results in an empty cache: its content will be replaced on the next save.
+   */
+  public static LocalFileCache load(Path path) {
+    Map<String, byte[]> previousEntries = new HashMap<>();
+    if (Files.isRegularFile(path)) {
+      try (VarLengthInputStream in = new VarLengthInputStream(Files.readAllBytes(path))) {
+        if (in.readInt() != FORMAT_VERSION) {
+          throw new IOException("Unsupported format version");
+        }
+        int size = in.readInt();
+        for (int i = 0; i < size; i++) {
+          previousEntries.put(in.readUTF(), in.readBytes());
+        }
+      } catch (IOException | RuntimeException e) {
+        LOG.debug("Could not read cache file \"{}\" ({})", path, e.getMessage());
+        previousEntries.clear();
+      }
+    }
+    return new LocalFileCache(path, previousEntries);
+  }
+
+  @Override
+  public InputStream read(String key) {
+    if (!contains(key)) {
+      throw new IllegalArgumentException(String.format("Cache file does not contain key \"%s\"", key));
+    }
+    return new ByteArrayInputStream(previousEntries.get(key));
+  }
+
+  @Override
+  public boolean contains(String key) {
+    return previousEntries.containsKey(key);
+  }
+
+  @Override
+  public void write(String key, InputStream data) {
+    try {
+      write(key, data.readAllBytes());
+    } catch (IOException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  @Override
+  public void write(String key, byte[] data) {
+    if (entries.containsKey(key)) {
+      throw new IllegalArgumentException(String.format("Same key cannot be written to multiple times (%s)", key));
+    }
+    entries.put(key, data);
+  }
+
+  @Override
+  public void copyFromPrevious(String key) {
+    if (!contains(key)) {
+      throw new IllegalArgumentException(String.format("Cache file does not contain key \"%s\"", key));
+    }
+    write(key, previousEntries.get(key));
+  }
+
+  /**
+   * Writes the entries to the file, through a temporary file so that an interrupted save does not leave a truncated file behind.
+   * Saved entries are then visible to reads, and new entries can be written for the next save.
+   */
+  public void save() throws IOException {
+    Path parent = path.toAbsolutePath().getParent();
+    Files.createDirectories(parent);
+    Path tempFile = Files.createTempFile(parent, path.getFileName().toString(), ".tmp");
+    try {
+      try (OutputStream stream = new BufferedOutputStream(Files.newOutputStream(tempFile));
+        VarLengthOutputStream out = new VarLengthOutputStream(stream)) {
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(entries.size());
+        for (Map.Entry<String, byte[]> entry : entries.entrySet()) {
+          out.writeUTF(entry.getKey());
+          out.writeBytes(entry.getValue());
+        }
+      }
+      Files.move(tempFile, path, StandardCopyOption.REPLACE_EXISTING);
+    } finally {
+      Files.deleteIfExists(tempFile);
+    }
+    previousEntries = entries;
+    entries = new HashMap<>();
+  }
+}
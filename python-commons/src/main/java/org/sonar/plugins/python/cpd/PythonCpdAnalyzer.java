@@ -21,13 +21,14 @@ import com.sonar.sslr.api.TokenType;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.plugins.python.api.PythonVisitorContext;
-import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.api.TokenLocation;
 import org.sonar.python.api.PythonTokenType;
 import org.sonar.plugins.python.api.tree.Token;
@@ -35,9 +36,6 @@ import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.python.caching.CpdSerializer;
 import org.sonar.python.tree.TreeUtils;
 
-import static org.sonar.plugins.python.caching.Caching.CPD_TOKENS_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.CPD_TOKENS_STRING_TABLE_KEY_PREFIX;
-
 public class PythonCpdAnalyzer {
 
   private static final Logger LOG = LoggerFactory.getLogger(PythonCpdAnalyzer.class);
@@ -48,8 +46,13 @@ public class PythonCpdAnalyzer {
     this.context = context;
   }
 
-  public void pushCpdTokens(InputFile inputFile, PythonVisitorContext visitorContext) {
+  /**
+   * @return the serialized tokens to be cached, or null if there are none or the cache is disabled
+   */
+  @CheckForNull
+  public CpdSerializer.SerializationResult pushCpdTokens(InputFile inputFile, PythonVisitorContext visitorContext) {
     Tree root = visitorContext.rootTree();
+    CpdSerializer.SerializationResult result = null;
     if (root != null) {
       NewCpdTokens cpdTokens = context.newCpdTokens().onFile(inputFile);
       List<Token> tokens = TreeUtils.tokens(root);
@@ -67,29 +70,24 @@ public class PythonCpdAnalyzer {
           tokensToCache.add(token);
         }
       }
-      saveTokensToCache(visitorContext, tokensToCache);
+      result = serializeTokensToCache(visitorContext, tokensToCache);
       cpdTokens.save();
     }
+    return result;
   }
 
-  public boolean pushCachedCpdTokens(InputFile inputFile, CacheContext cacheContext) {
-    String dataKey = dataCacheKey(inputFile.key());
-    String tableKey = stringTableCacheKey(inputFile.key());
-    byte[] dataBytes = cacheContext.getReadCache().readBytes(dataKey);
-    byte[] tableBytes = cacheContext.getReadCache().readBytes(tableKey);
-    if (dataBytes == null || tableBytes == null) {
+  public boolean pushCachedCpdTokens(InputFile inputFile, @Nullable CpdSerializer.SerializationResult cachedTokens) {
+    if (cachedTokens == null) {
       return false;
     }
 
     try {
-      List<CpdSerializer.TokenInfo> tokens = CpdSerializer.deserialize(dataBytes, tableBytes);
+      List<CpdSerializer.TokenInfo> tokens = CpdSerializer.deserialize(cachedTokens.data, cachedTokens.stringTable);
 
       NewCpdTokens cpdTokens = context.newCpdTokens().onFile(inputFile);
       tokens.forEach(tokenInfo ->
         cpdTokens.addToken(tokenInfo.startLine, tokenInfo.startLineOffset, tokenInfo.endLine, tokenInfo.endLineOffset, tokenInfo.value));
       cpdTokens.save();
-      cacheContext.getWriteCache().copyFromPrevious(dataKey);
-      cacheContext.getWriteCache().copyFromPrevious(tableKey);
       return true;
     } catch (IOException e) {
       LOG.warn("Failed to deserialize CPD tokens ({}: {})", e.getClass().getSimpleName(), e.getMessage());
@@ -98,20 +96,17 @@ public class PythonCpdAnalyzer {
     return false;
   }
 
-  private static void saveTokensToCache(PythonVisitorContext visitorContext, List<Token> tokensToCache) {
-    CacheContext cacheContext = visitorContext.cacheContext();
-    if (!cacheContext.isCacheEnabled()) {
-      return;
+  @CheckForNull
+  private static CpdSerializer.SerializationResult serializeTokensToCache(PythonVisitorContext visitorContext, List<Token> tokensToCache) {
+    if (!visitorContext.cacheContext().isCacheEnabled()) {
+      return null;
     }
 
     try {
-      String fileKey = visitorContext.pythonFile().key();
-
-      CpdSerializer.SerializationResult result = CpdSerializer.serialize(tokensToCache);
-      cacheContext.getWriteCache().write(stringTableCacheKey(fileKey), result.stringTable);
-      cacheContext.getWriteCache().write(dataCacheKey(fileKey), result.data);
+      return CpdSerializer.serialize(tokensToCache);
     } catch (Exception e) {
       LOG.warn("Could not write CPD tokens to cache ({}: {})", e.getClass().getSimpleName(), e.getMessage());
+      return null;
     }
   }
 
@@ -125,12 +120,4 @@ public class PythonCpdAnalyzer {
       type.equals(PythonTokenType.INDENT) ||
       type.equals(GenericTokenType.EOF);
   }
-
-  private static String dataCacheKey(String fileKey) {
-    return CPD_TOKENS_CACHE_KEY_PREFIX + fileKey.replace('\\', '/');
-  }
-
-  private static String stringTableCacheKey(String fileKey) {
-    return CPD_TOKENS_STRING_TABLE_KEY_PREFIX + fileKey.replace('\\', '/');
-  }
 }
@@ -19,6 +19,7 @@ package org.sonar.plugins.python.indexer;
 import com.sonar.sslr.api.AstNode;
 import java.io.IOException;
 import java.net.URI;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -35,10 +36,12 @@ import org.sonar.plugins.python.api.PythonFile;
 import org.sonar.plugins.python.api.SonarLintCache;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.python.caching.CpdSerializer;
 import org.sonar.python.parser.PythonParser;
 import org.sonar.python.semantic.ProjectLevelSymbolTable;
 import org.sonar.python.tree.PythonTreeMaker;
 
+import static org.sonar.plugins.python.Scanner.measureOnSensorThread;
 import static org.sonar.python.semantic.SymbolUtils.pythonPackageName;
 
 public abstract class PythonIndexer {
@@ -46,9 +49,12 @@ public abstract class PythonIndexer {
   private static final Logger LOG = LoggerFactory.getLogger(PythonIndexer.class);
 
   protected String projectBaseDirAbsolutePath;
+  protected RetainedParseTrees retainedParseTrees = RetainedParseTrees.disabled();
 
   private final Map<URI, String> packageNames = new HashMap<>();
-  private final PythonParser parser = PythonParser.create();
+  // SSLR parsers are stateful: each thread indexing files gets its own instance, for each kind of lexer
+  private final ThreadLocal<PythonParser> parsers = ThreadLocal.withInitial(() -> PythonParser.create(false));
+  private final ThreadLocal<PythonParser> handWrittenLexerParsers = ThreadLocal.withInitial(() -> PythonParser.create(true));
   private final ProjectLevelSymbolTable projectLevelSymbolTable = ProjectLevelSymbolTable.empty();
 
   public ProjectLevelSymbolTable projectLevelSymbolTable() {
@@ -83,14 +89,45 @@ public abstract class PythonIndexer {
     projectLevelSymbolTable.removeModule(packageName, filename);
   }
 
-  void addFile(PythonInputFile inputFile) throws IOException {
-    AstNode astNode = parser.parse(inputFile.wrappedFile().contents());
-    FileInput astRoot = new PythonTreeMaker().fileInput(astNode);
+  /**
+   * Computes the global symbols of a file without modifying the project-level symbol table, so that it can run on a worker thread.
+   */
+  IndexedFile indexFile(PythonInputFile inputFile, boolean handWrittenLexer) throws IOException {
+    String contents = inputFile.wrappedFile().contents();
+    PythonParser parser = handWrittenLexer ? handWrittenLexerParsers.get() : parsers.get();
+    AstNode astNode = measureOnSensorThread("Parsing", () -> parser.parse(contents));
+    retainedParseTrees.retain(inputFile, contents, astNode);
+    FileInput astRoot = measureOnSensorThread("TreeMaking", () -> new PythonTreeMaker().fileInput(astNode));
     String packageName = pythonPackageName(inputFile.wrappedFile().file(), projectBaseDirAbsolutePath);
-    packageNames.put(inputFile.wrappedFile().uri(), packageName);
-    projectLevelSymbolTable.addProjectPackage(packageName);
     PythonFile pythonFile = SonarQubePythonFile.create(inputFile.wrappedFile());
-    projectLevelSymbolTable.addModule(astRoot, packageName, pythonFile);
+    return new IndexedFile(packageName, projectLevelSymbolTable.computeModuleEntry(astRoot, packageName, pythonFile), contentHash(contents));
+  }
+
+  static boolean isHandWrittenLexerEnabled(SensorContext context) {
+    return context.config().getBoolean(PythonParser.HAND_WRITTEN_LEXER_PROPERTY).orElse(false);
+  }
+
+  /**
+   * Returns the hash identifying the indexed content of a file, if the indexer needs one to record the computed module.
+   */
+  @CheckForNull
+  byte[] contentHash(String contents) {
+    return null;
+  }
+
+  void addFile(PythonInputFile inputFile, IndexedFile indexedFile) {
+    packageNames.put(inputFile.wrappedFile().uri(), indexedFile.packageName());
+    projectLevelSymbolTable.addProjectPackage(indexedFile.packageName());
+    projectLevelSymbolTable.addModule(indexedFile.moduleEntry());
+  }
+
+  /**
+   * Returns the parse tree computed for this file while indexing, if it was retained and the file content did not change since then.
+   * A retained parse tree is returned at most once.
+   */
+  @CheckForNull
+  public AstNode takeRetainedParseTree(PythonInputFile inputFile) {
+    return retainedParseTrees.take(inputFile);
   }
 
   public abstract void buildOnce(SensorContext context);
@@ -130,12 +167,62 @@ public abstract class PythonIndexer {
     return false;
   }
 
+  /**
+   * @param inputFile
+   * @return true if the analysis of this exact file content exceeded the per-file time budget in a previous analysis.
+   * Quarantined files are neither indexed nor parsed: their analysis is skipped with a warning.
+   */
+  public boolean isQuarantined(PythonInputFile inputFile) {
+    return false;
+  }
+
+  /**
+   * Records that the analysis of the current content of this file exceeded the per-file time budget,
+   * so that the next analyses can skip it (see {@link #isQuarantined(PythonInputFile)}).
+   */
+  public void quarantine(PythonInputFile inputFile) {
+    // no op
+  }
+
+  /**
+   * Called once the analysis of a file is over, whether it was parsed or scanned without parsing.
+   */
+  public void endOfFileAnalysis(PythonInputFile inputFile) {
+    // no op
+  }
+
+  /**
+   * Stores the CPD tokens computed for this file, so that they can be restored when the file is scanned without parsing in the next analysis.
+   */
+  public void saveCpdTokens(PythonInputFile inputFile, CpdSerializer.SerializationResult cpdTokens) {
+    // no op
+  }
+
+  @CheckForNull
+  public CpdSerializer.SerializationResult readCachedCpdTokens(PythonInputFile inputFile) {
+    // no op by default
+    return null;
+  }
+
   public abstract CacheContext cacheContext();
 
+  /**
+   * @param contentHash the hash of the content the module was computed from, see {@link #contentHash(String)}
+   */
+  record IndexedFile(String packageName, ProjectLevelSymbolTable.ModuleEntry moduleEntry, @Nullable byte[] contentHash) {
+  }
+
   class GlobalSymbolsScanner extends Scanner {
 
-    protected GlobalSymbolsScanner(SensorContext context) {
+    private final List<Map.Entry<PythonInputFile, IndexedFile>> indexedFiles = new ArrayList<>();
+    private final boolean handWrittenLexer;
+
+    /**
+     * @param handWrittenLexer whether files are parsed with the hand-written lexer, see {@link PythonParser#HAND_WRITTEN_LEXER_PROPERTY}
+     */
+    protected GlobalSymbolsScanner(SensorContext context, boolean handWrittenLexer) {
       super(context);
+      this.handWrittenLexer = handWrittenLexer;
     }
 
     @Override
@@ -145,10 +232,45 @@ public abstract class PythonIndexer {
 
     @Override
     protected void scanFile(PythonInputFile inputFile) throws IOException {
+      prepareScan(inputFile).complete();
+    }
+
+    /**
+     * Sequential and parallel modes both compute modules against the project-level symbol table as it was before this step,
+     * and only add them to it once all files have been indexed, in the order of the input files (see {@link #endOfAnalysis()}).
+     * This keeps the symbol table unchanged while workers read it. Imports are resolved by name only when computing a module entry,
+     * so that entries never depend on the modules indexed in the same step: the result is the same whatever the number of threads.
+     */
+    @Override
+    protected FileScan prepareScan(PythonInputFile inputFile) throws IOException {
       // Global Symbol Table is deactivated for Notebooks see: SONARPY-2021
-      if (inputFile.kind() == PythonInputFile.Kind.PYTHON) {
-        addFile(inputFile);
+      if (inputFile.kind() != PythonInputFile.Kind.PYTHON) {
+        return () -> {};
       }
+      IndexedFile indexedFile = indexFile(inputFile, handWrittenLexer);
+      return () -> indexedFiles.add(Map.entry(inputFile, indexedFile));
+    }
+
+    @Override
+    protected boolean supportsParallelScan() {
+      return true;
+    }
+
+    @Override
+    public boolean canBeScannedWithoutParsing(PythonInputFile inputFile) {
+      return isQuarantined(inputFile);
+    }
+
+    @Override
+    protected boolean scanFileWithoutParsing(PythonInputFile inputFile) {
+      // Quarantined files are not indexed: their symbols are unknown to other modules
+      return true;
+    }
+
+    @Override
+    protected void endOfAnalysis() {
+      indexedFiles.forEach(entry -> addFile(entry.getKey(), entry.getValue()));
+      indexedFiles.clear();
     }
 
     @Override
@@ -0,0 +1,86 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.python.indexer;
+
+import com.sonar.sslr.api.AstNode;
+import java.lang.ref.SoftReference;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.annotation.CheckForNull;
+import org.sonar.plugins.python.PythonInputFile;
+
+/**
+ * Keeps the parse trees computed while indexing, so that rules execution can build its tree without lexing and parsing files again.
+ * Trees are keyed by file URI and content hash.
+ * Retention is bounded by the total length of the retained source code: once this budget is exhausted, further trees are not retained.
+ * As files are analyzed in the same order as they are indexed, this keeps the trees which are needed first.
+ * Retained trees are softly referenced, so that they can be reclaimed under memory pressure.
+ * In all cases where no tree is available, the file is simply parsed again.
+ */
+public class RetainedParseTrees {
+
+  private final long maxSourceLength;
+  private final AtomicLong retainedSourceLength = new AtomicLong();
+  private final Map<URI, RetainedTree> trees = new ConcurrentHashMap<>();
+
+  public RetainedParseTrees(long maxSourceLength) {
+    this.maxSourceLength = maxSourceLength;
+  }
+
+  public static RetainedParseTrees disabled() {
+    return new RetainedParseTrees(0);
+  }
+
+  public void retain(PythonInputFile inputFile, String contents, AstNode astNode) {
+    long sourceLength = contents.length();
+    if (retainedSourceLength.addAndGet(sourceLength) > maxSourceLength) {
+      retainedSourceLength.addAndGet(-sourceLength);
+      return;
+    }
+    RetainedTree previous = trees.put(inputFile.wrappedFile().uri(), new RetainedTree(inputFile.wrappedFile().md5Hash(), sourceLength, new SoftReference<>(astNode)));
+    if (previous != null) {
+      retainedSourceLength.addAndGet(-previous.sourceLength());
+    }
+  }
+
+  /**
+   * Returns the retained tree of the given file if its content did not change since it was retained.
+   * A tree is returned at most once: it is released from this retention afterward.
+   */
+  @CheckForNull
+  public AstNode take(PythonInputFile inputFile) {
+    RetainedTree retainedTree = trees.remove(inputFile.wrappedFile().uri());
+    if (retainedTree == null) {
+      return null;
+    }
+    retainedSourceLength.addAndGet(-retainedTree.sourceLength());
+    if (!retainedTree.contentHash().equals(inputFile.wrappedFile().md5Hash())) {
+      return null;
+    }
+    return retainedTree.astNode().get();
+  }
+
+  public void clear() {
+    trees.clear();
+    retainedSourceLength.set(0);
+  }
+
+  private record RetainedTree(String contentHash, long sourceLength, SoftReference<AstNode> astNode) {
+  }
+}
@@ -17,11 +17,22 @@
 package org.sonar.plugins.python.indexer;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -32,17 +43,39 @@ import org.sonar.plugins.python.api.SonarLintCache;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.PythonInputFile;
 import org.sonar.plugins.python.PythonInputFileImpl;
+import org.sonar.plugins.python.caching.Caching;
+import org.sonar.plugins.python.caching.Caching.FileRecord;
+import org.sonar.plugins.python.caching.LocalFileCache;
 import org.sonar.python.caching.CacheContextImpl;
 import org.sonar.python.caching.PythonReadCacheImpl;
 import org.sonar.python.caching.PythonWriteCacheImpl;
+import org.sonar.python.index.Descriptor;
+import org.sonar.python.semantic.DependencyGraph;
+import org.sonar.python.semantic.ProjectLevelSymbolTable;
+import org.sonar.python.semantic.SymbolUtils;
 import org.sonarsource.api.sonarlint.SonarLintSide;
 import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileEvent;
 import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileListener;
 import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileSystem;
 
+import static org.sonar.python.semantic.SymbolUtils.pythonPackageName;
+
 @SonarLintSide(lifespan = "MODULE")
 public class SonarLintPythonIndexer extends PythonIndexer implements ModuleFileListener {
 
+  /**
+   * Path of the file in which the global symbols of the module are kept between sessions, so that only modified files are indexed on startup.
+   * Defaults to a file of the working directory, named after the base directory of the module as the working directory may be shared.
+   * Setting it to an empty value disables it.
+   */
+  public static final String INDEX_CACHE_FILE_PROPERTY = "sonar.python.sonarlint.indexing.cacheFile";
+  /**
+   * Minimum delay in milliseconds between two saves of the index cache file caused by file events.
+   */
+  public static final String INDEX_CACHE_SAVE_INTERVAL_PROPERTY = "sonar.python.sonarlint.indexing.cacheFile.saveInterval";
+  private static final String INDEX_CACHE_FILE_NAME_PREFIX = "python-sonarlint-index-";
+  private static final long DEFAULT_INDEX_CACHE_SAVE_INTERVAL_MILLIS = 60_000;
+
   private final ModuleFileSystem moduleFileSystem;
 
   private CacheContext cacheContext;
@@ -52,6 +85,18 @@ public class SonarLintPythonIndexer extends PythonIndexer implements ModuleFileL
   private static final long DEFAULT_MAX_LINES_FOR_INDEXING = 300_000;
   private static final String MAX_LINES_PROPERTY = "sonar.python.sonarlint.indexing.maxlines";
 
+  private LocalFileCache indexCacheFile;
+  private Caching indexCache;
+  // Keys of the indexed files whose record in the index cache file is up to date
+  private final Set<String> filesWithCachedRecord = new HashSet<>();
+  private final Map<String, Set<String>> djangoViewsByFile = new HashMap<>();
+  // Hash of the content each file was indexed from, by file key: the content may have changed again when the index cache file is saved
+  private final Map<String, byte[]> contentHashByFile = new HashMap<>();
+  private boolean indexCacheOutdated = false;
+  private long lastIndexCacheSaveMillis = -1;
+  // Last event received for each file since the previous analysis, by absolute path
+  private final Map<String, ModuleFileEvent> pendingEvents = new LinkedHashMap<>();
+
   public SonarLintPythonIndexer(ModuleFileSystem moduleFileSystem) {
     this.moduleFileSystem = moduleFileSystem;
   }
@@ -59,29 +104,208 @@ public class SonarLintPythonIndexer extends PythonIndexer implements ModuleFileL
   @Override
   public void buildOnce(SensorContext context) {
     if (!shouldBuildProjectSymbolTable) {
+      processPendingEvents(context);
       return;
     }
     this.projectBaseDirAbsolutePath = context.fileSystem().baseDir().getAbsolutePath();
     shouldBuildProjectSymbolTable = false;
+    synchronized (pendingEvents) {
+      // The module file system already reflects these events
+      pendingEvents.clear();
+    }
     List<PythonInputFile> files = getInputFiles(moduleFileSystem);
     collectPackageNames(files);
-    long nLines = files.stream().map(PythonInputFile::wrappedFile).map(InputFile::lines).mapToLong(Integer::longValue).sum();
+    openIndexCache(context);
+    Map<PythonInputFile, IndexedFile> cachedModules = readCachedModules(files);
+    List<PythonInputFile> filesToIndex = files.stream().filter(file -> !cachedModules.containsKey(file)).toList();
+    // Files whose global symbols are restored from the index cache file are not parsed: they don't count in the limit
+    long nLines = filesToIndex.stream().map(PythonInputFile::wrappedFile).map(InputFile::lines).mapToLong(Integer::longValue).sum();
     long maxLinesForIndexing = context.config().getLong(MAX_LINES_PROPERTY).orElse(DEFAULT_MAX_LINES_FOR_INDEXING);
     if (nLines > maxLinesForIndexing) {
       // Avoid performance issues for large projects
       LOG.debug("Project symbol table deactivated due to project size (total number of lines is {}, maximum for indexing is {})", nLines, maxLinesForIndexing);
       LOG.debug("Update \"sonar.python.sonarlint.indexing.maxlines\" to set a different limit.");
+      // The project symbol table stays incomplete: it must not be saved
+      indexCache = null;
       return;
     }
-    LOG.debug("Input files for indexing: {}", files);
+    if (!cachedModules.isEmpty()) {
+      LOG.debug("Global symbols of {} out of {} files restored from the index cache file", cachedModules.size(), files.size());
+    }
+    // Restored modules are added first, so that the files to index are computed against them
+    cachedModules.forEach((inputFile, indexedFile) -> {
+      addFile(inputFile, indexedFile);
+      filesWithCachedRecord.add(inputFile.wrappedFile().key());
+    });
+    LOG.debug("Input files for indexing: {}", filesToIndex);
     // computes "globalSymbolsByModuleName"
-    GlobalSymbolsScanner globalSymbolsStep = new GlobalSymbolsScanner(context);
-    globalSymbolsStep.execute(files, context);
+    GlobalSymbolsScanner globalSymbolsStep = new GlobalSymbolsScanner(context, isHandWrittenLexerEnabled(context));
+    globalSymbolsStep.execute(filesToIndex, context);
+    // When all modules were restored, the index cache file only needs to be saved again if some modules were deleted
+    indexCacheOutdated = !filesToIndex.isEmpty() || (indexCache != null && !indexCache.readFilesList().equals(indexedModulesFQNs()));
   }
 
+  /**
+   * The index cache file is saved at most once per interval when file events are processed: changes which are not saved yet are
+   * detected on the next startup, as the content hash of modified files no longer matches their record.
+   */
   @Override
   public void postAnalysis(SensorContext context) {
-    // no op
+    if (!indexCacheOutdated || indexCache == null) {
+      return;
+    }
+    long now = System.currentTimeMillis();
+    long saveInterval = context.config().getLong(INDEX_CACHE_SAVE_INTERVAL_PROPERTY).orElse(DEFAULT_INDEX_CACHE_SAVE_INTERVAL_MILLIS);
+    if (lastIndexCacheSaveMillis < 0 || now - lastIndexCacheSaveMillis >= saveInterval) {
+      saveIndexCache();
+      lastIndexCacheSaveMillis = now;
+    }
+  }
+
+  private void openIndexCache(SensorContext context) {
+    Optional<String> configuredPath = context.config().get(INDEX_CACHE_FILE_PROPERTY);
+    Path path = configuredPath.isPresent()
+      ? configuredPath.filter(p -> !p.isEmpty()).map(Path::of).orElse(null)
+      : Optional.ofNullable(context.fileSystem().workDir())
+        .map(dir -> dir.toPath().resolve(indexCacheFileName(projectBaseDirAbsolutePath)))
+        .orElse(null);
+    if (path == null) {
+      return;
+    }
+    indexCacheFile = LocalFileCache.load(path);
+    CacheContext indexCacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(indexCacheFile), new PythonReadCacheImpl(indexCacheFile));
+    indexCache = new Caching(indexCacheContext, SonarQubePythonIndexer.getCacheVersion(context));
+  }
+
+  // visible for testing
+  static String indexCacheFileName(String baseDirAbsolutePath) {
+    return INDEX_CACHE_FILE_NAME_PREFIX + Integer.toHexString(baseDirAbsolutePath.hashCode()) + ".bin";
+  }
+
+  private Set<String> indexedModulesFQNs() {
+    return indexedFiles.values().stream().map(file -> moduleFQN(new PythonInputFileImpl(file))).collect(Collectors.toSet());
+  }
+
+  /**
+   * Returns the modules whose cached global symbols can be reused: the content of their file did not change,
+   * and they don't depend on a module which was modified or deleted since the index cache file was saved.
+   */
+  private Map<PythonInputFile, IndexedFile> readCachedModules(List<PythonInputFile> files) {
+    if (indexCache == null || !indexCache.isCacheVersionUpToDate()) {
+      return Collections.emptyMap();
+    }
+    Map<PythonInputFile, FileRecord> unchangedFiles = new LinkedHashMap<>();
+    Map<String, Set<String>> importsByModule = new HashMap<>();
+    Set<String> projectModulesFQNs = new HashSet<>();
+    List<String> impactfulModulesFQNs = new ArrayList<>();
+    for (PythonInputFile inputFile : files) {
+      String moduleFQN = moduleFQN(inputFile);
+      projectModulesFQNs.add(moduleFQN);
+      FileRecord fileRecord = indexCache.readFileRecord(inputFile.wrappedFile().key());
+      byte[] contentHash = contentHash(inputFile);
+      if (fileRecord != null && contentHash != null && MessageDigest.isEqual(fileRecord.contentHash(), contentHash)) {
+        unchangedFiles.put(inputFile, fileRecord);
+        importsByModule.put(moduleFQN, fileRecord.imports());
+      } else {
+        impactfulModulesFQNs.add(moduleFQN);
+      }
+    }
+    Set<String> deletedModulesFQNs = indexCache.readFilesList().stream()
+      .filter(moduleFQN -> !projectModulesFQNs.contains(moduleFQN))
+      .collect(Collectors.toSet());
+    impactfulModulesFQNs.addAll(deletedModulesFQNs);
+    Set<String> allModulesFQNs = Stream.concat(projectModulesFQNs.stream(), deletedModulesFQNs.stream()).collect(Collectors.toSet());
+    Set<String> impactedModulesFQNs = DependencyGraph.from(importsByModule, allModulesFQNs).impactedModules(impactfulModulesFQNs);
+    Map<PythonInputFile, IndexedFile> cachedModules = new LinkedHashMap<>();
+    unchangedFiles.forEach((inputFile, fileRecord) -> {
+      String moduleFQN = moduleFQN(inputFile);
+      if (!impactedModulesFQNs.contains(moduleFQN)) {
+        Set<String> djangoViewsFQN = indexCache.readDjangoViews(inputFile.wrappedFile().key());
+        var moduleEntry = new ProjectLevelSymbolTable.ModuleEntry(moduleFQN, fileRecord.descriptors(), fileRecord.imports(), djangoViewsFQN);
+        String packageName = pythonPackageName(inputFile.wrappedFile().file(), projectBaseDirAbsolutePath);
+        cachedModules.put(inputFile, new IndexedFile(packageName, moduleEntry, fileRecord.contentHash()));
+      }
+    });
+    return cachedModules;
+  }
+
+  /**
+   * Replaces the content of the index cache file with the global symbols of the indexed files.
+   * Records of files which were not re-indexed since the last save are copied as is.
+   */
+  private void saveIndexCache() {
+    indexCacheOutdated = false;
+    try {
+      List<String> modulesFQNs = new ArrayList<>();
+      for (InputFile file : indexedFiles.values()) {
+        PythonInputFile inputFile = new PythonInputFileImpl(file);
+        String fileKey = file.key();
+        String moduleFQN = moduleFQN(inputFile);
+        if (filesWithCachedRecord.contains(fileKey)) {
+          indexCache.copyFileRecordFromPrevious(fileKey);
+        } else {
+          FileRecord fileRecord = globalSymbolsRecord(fileKey, moduleFQN);
+          if (fileRecord == null) {
+            continue;
+          }
+          indexCache.writeFileRecord(fileKey, fileRecord, null);
+          filesWithCachedRecord.add(fileKey);
+        }
+        Set<String> djangoViewsFQN = djangoViewsByFile.getOrDefault(fileKey, Set.of());
+        if (!djangoViewsFQN.isEmpty()) {
+          indexCache.writeDjangoViews(fileKey, djangoViewsFQN);
+        }
+        modulesFQNs.add(moduleFQN);
+      }
+      indexCache.writeFilesList(modulesFQNs);
+      indexCache.writeCacheVersion();
+      indexCache.writeModuleNamesStringTable();
+      indexCacheFile.save();
+    } catch (IOException | RuntimeException e) {
+      // The project symbol table is still up to date: only the next startup will be slower
+      LOG.debug("Could not save the index cache file ({}: {})", e.getClass().getSimpleName(), e.getMessage());
+      indexCache = null;
+    }
+  }
+
+  @CheckForNull
+  private FileRecord globalSymbolsRecord(String fileKey, String moduleFQN) {
+    Set<Descriptor> descriptors = projectLevelSymbolTable().descriptorsForModule(moduleFQN);
+    Set<String> imports = projectLevelSymbolTable().importsByModule().get(moduleFQN);
+    byte[] contentHash = contentHashByFile.get(fileKey);
+    return descriptors != null && imports != null && contentHash != null ? new FileRecord(contentHash, imports, descriptors) : null;
+  }
+
+  private String moduleFQN(PythonInputFile inputFile) {
+    String packageName = pythonPackageName(inputFile.wrappedFile().file(), projectBaseDirAbsolutePath);
+    return SymbolUtils.fullyQualifiedModuleName(packageName, inputFile.wrappedFile().filename());
+  }
+
+  /**
+   * The hash is computed from the content, as neither the status nor the MD5 hash of input files are reliable in SonarLint.
+   */
+  @CheckForNull
+  private static byte[] contentHash(PythonInputFile inputFile) {
+    try {
+      return sha256(inputFile.wrappedFile().contents());
+    } catch (IOException e) {
+      return null;
+    }
+  }
+
+  @CheckForNull
+  @Override
+  byte[] contentHash(String contents) {
+    return sha256(contents);
+  }
+
+  @CheckForNull
+  private static byte[] sha256(String contents) {
+    try {
+      return MessageDigest.getInstance("SHA-256").digest(contents.getBytes(StandardCharsets.UTF_8));
+    } catch (NoSuchAlgorithmException e) {
+      return null;
+    }
   }
 
   // SonarLintCache has to be set lazily because SonarLintPythonIndex is injected in the PythonSensor
@@ -113,35 +337,67 @@ public class SonarLintPythonIndexer extends PythonIndexer implements ModuleFileL
   }
 
   @Override
-  void addFile(PythonInputFile inputFile) throws IOException {
-    super.addFile(inputFile);
+  void addFile(PythonInputFile inputFile, IndexedFile indexedFile) {
+    super.addFile(inputFile, indexedFile);
     indexedFiles.put(inputFile.wrappedFile().absolutePath(), inputFile.wrappedFile());
+    djangoViewsByFile.put(inputFile.wrappedFile().key(), indexedFile.moduleEntry().djangoViewsFQN());
+    if (indexedFile.contentHash() != null) {
+      contentHashByFile.put(inputFile.wrappedFile().key(), indexedFile.contentHash());
+    } else {
+      contentHashByFile.remove(inputFile.wrappedFile().key());
+    }
   }
 
   @Override
   void removeFile(PythonInputFile inputFile) {
     super.removeFile(inputFile);
     indexedFiles.remove(inputFile.wrappedFile().absolutePath());
+    filesWithCachedRecord.remove(inputFile.wrappedFile().key());
+    djangoViewsByFile.remove(inputFile.wrappedFile().key());
+    contentHashByFile.remove(inputFile.wrappedFile().key());
   }
 
+  /**
+   * Events are only queued here: a branch switch may fire thousands of them, and a file may be modified several times between two analyses.
+   * They are coalesced per file and processed in a batch at the beginning of the next analysis (see {@link #processPendingEvents(SensorContext)}).
+   */
   @Override
   public void process(ModuleFileEvent moduleFileEvent) {
-    PythonInputFile target = new PythonInputFileImpl(moduleFileEvent.getTarget());
-    String language = target.wrappedFile().language();
+    InputFile target = moduleFileEvent.getTarget();
+    String language = target.language();
     if (language == null || !language.equals(Python.KEY)) {
       LOG.debug("Module file event for {} has been ignored because it's not a Python file.", target);
       return;
     }
-    ModuleFileEvent.Type type = moduleFileEvent.getType();
-    if (type.equals(ModuleFileEvent.Type.DELETED) || type.equals(ModuleFileEvent.Type.MODIFIED)) {
-      removeFile(target);
+    synchronized (pendingEvents) {
+      // Only the last event of a file matters: it is processed against the current state of the project symbol table
+      pendingEvents.remove(target.absolutePath());
+      pendingEvents.put(target.absolutePath(), moduleFileEvent);
     }
-    if (type.equals(ModuleFileEvent.Type.CREATED) || type.equals(ModuleFileEvent.Type.MODIFIED)) {
-      try {
-        addFile(target);
-      } catch (IOException e) {
-        LOG.debug("Failed to load file \"{}\" ({}) to the project symbol table", target.wrappedFile().filename(), type);
+  }
+
+  private void processPendingEvents(SensorContext context) {
+    List<ModuleFileEvent> events;
+    synchronized (pendingEvents) {
+      events = new ArrayList<>(pendingEvents.values());
+      pendingEvents.clear();
+    }
+    if (events.isEmpty()) {
+      return;
+    }
+    LOG.debug("Processing module file events of {} files", events.size());
+    List<PythonInputFile> filesToIndex = new ArrayList<>();
+    for (ModuleFileEvent event : events) {
+      PythonInputFile target = new PythonInputFileImpl(event.getTarget());
+      if (indexedFiles.containsKey(target.wrappedFile().absolutePath())) {
+        removeFile(target);
+      }
+      if (event.getType() != ModuleFileEvent.Type.DELETED) {
+        filesToIndex.add(target);
       }
     }
+    // Files are indexed against the project symbol table without the removed modules, in parallel when several threads are allowed
+    new GlobalSymbolsScanner(context, isHandWrittenLexerEnabled(context)).execute(filesToIndex, context);
+    indexCacheOutdated = true;
   }
 }
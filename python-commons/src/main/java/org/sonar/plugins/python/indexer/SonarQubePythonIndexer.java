@@ -21,18 +21,23 @@ import java.security.MessageDigest;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
+import javax.annotation.CheckForNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.plugins.python.PythonInputFile;
+import org.sonar.plugins.python.PythonScanner;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.caching.Caching;
+import org.sonar.plugins.python.caching.Caching.FileRecord;
+import org.sonar.python.caching.CpdSerializer;
 import org.sonar.python.index.Descriptor;
 import org.sonar.python.semantic.DependencyGraph;
 import org.sonar.python.semantic.SymbolUtils;
@@ -49,6 +54,12 @@ public class SonarQubePythonIndexer extends PythonIndexer {
    * Setting it to true or false, forces the behavior from the analyzer independently of the server.
    */
   public static final String SONAR_CAN_SKIP_UNCHANGED_FILES_KEY = "sonar.python.skipUnchanged";
+  /**
+   * Maximum total length of the source code of files whose parse tree is kept between indexing and rules execution.
+   * Retained trees cost much more heap than their source code, hence retention is disabled (0) by default.
+   */
+  public static final String RETAINED_PARSE_TREES_MAX_SOURCE_LENGTH_KEY = "sonar.python.indexing.retainedParseTrees.maxSourceLength";
+  private static final long DEFAULT_RETAINED_PARSE_TREES_MAX_SOURCE_LENGTH = 0;
   private static final Logger LOG = LoggerFactory.getLogger(SonarQubePythonIndexer.class);
 
   private final Caching caching;
@@ -56,10 +67,27 @@ public class SonarQubePythonIndexer extends PythonIndexer {
   private final Set<PythonInputFile> partiallySkippableFiles = new HashSet<>();
   private final List<PythonInputFile> inputFiles = new ArrayList<>();
   private final Map<PythonInputFile, String> inputFileToFQN = new HashMap<>();
+  private final Map<PythonInputFile, FileRecord> cachedFileRecords = new HashMap<>();
+  // The record of a file is written once its analysis is over, so that it also holds the CPD tokens computed during rules execution
+  private final Set<PythonInputFile> filesWithPendingRecord = new LinkedHashSet<>();
+  private final Map<PythonInputFile, CpdSerializer.SerializationResult> cpdTokensToSave = new HashMap<>();
+  private final boolean canSkipQuarantinedFiles;
+  private Boolean cacheVersionUpToDate;
 
   public SonarQubePythonIndexer(List<PythonInputFile> inputFiles, CacheContext cacheContext, SensorContext context) {
+    this(inputFiles, cacheContext, context, "");
+  }
+
+  /**
+   * @param globalCacheKeysSuffix distinguishes the project-wide cache entries of sensors sharing the same cache,
+   *                              see {@link Caching#IPYNB_GLOBAL_KEYS_SUFFIX}
+   */
+  public SonarQubePythonIndexer(List<PythonInputFile> inputFiles, CacheContext cacheContext, SensorContext context, String globalCacheKeysSuffix) {
     this.projectBaseDirAbsolutePath = context.fileSystem().baseDir().getAbsolutePath();
-    this.caching = new Caching(cacheContext, getCacheVersion(context));
+    this.caching = new Caching(cacheContext, getCacheVersion(context), globalCacheKeysSuffix);
+    this.canSkipQuarantinedFiles = context.config().getLong(PythonScanner.FILE_ANALYSIS_TIMEOUT_PROPERTY_NAME).orElse(0L) > 0;
+    this.retainedParseTrees = new RetainedParseTrees(context.config().getLong(RETAINED_PARSE_TREES_MAX_SOURCE_LENGTH_KEY)
+      .orElse(DEFAULT_RETAINED_PARSE_TREES_MAX_SOURCE_LENGTH));
     inputFiles.forEach(f -> {
       this.inputFiles.add(f);
       inputFileToFQN.put(f, SymbolUtils.fullyQualifiedModuleName(packageName(f), f.wrappedFile().filename()));
@@ -71,7 +99,11 @@ public class SonarQubePythonIndexer extends PythonIndexer {
     LOG.debug("Input files for indexing: {}", inputFiles);
     collectPackageNames(inputFiles);
     if (shouldOptimizeAnalysis(context)) {
-      computeGlobalSymbolsUsingCache(context);
+      computeGlobalSymbolsUsingCache(context, true);
+      return;
+    }
+    if (canReuseCachedGlobalSymbols(context)) {
+      computeGlobalSymbolsUsingCache(context, false);
       return;
     }
     PerformanceMeasure.Duration duration = PerformanceMeasure.start("ProjectLevelSymbolTable");
@@ -81,55 +113,96 @@ public class SonarQubePythonIndexer extends PythonIndexer {
 
   @Override
   public void postAnalysis(SensorContext context) {
+    retainedParseTrees.clear();
     if (caching.isCacheEnabled()) {
+      // Files whose analysis did not complete, e.g. because of a failure
+      new ArrayList<>(filesWithPendingRecord).forEach(this::writeFileRecord);
       Set<String> stubModules = projectLevelSymbolTable().typeShedDescriptorsProvider().stubModules();
       if (!stubModules.isEmpty()) {
         caching.writeTypeshedModules(stubModules);
       }
+      caching.writeModuleNamesStringTable();
     }
   }
 
   private boolean shouldOptimizeAnalysis(SensorContext context) {
     return caching.isCacheEnabled()
-      && (context.canSkipUnchangedFiles() || context.config().getBoolean(SONAR_CAN_SKIP_UNCHANGED_FILES_KEY).orElse(false))
+      && canSkipUnchangedFiles(context)
+      && caching.isCacheVersionUpToDate();
+  }
+
+  /**
+   * Even when unchanged files cannot be skipped during rules execution, the global symbols of unchanged files which are not
+   * impacted by any modification are the same as in the previous analysis: they don't need to be recomputed.
+   */
+  private boolean canReuseCachedGlobalSymbols(SensorContext context) {
+    return caching.isCacheEnabled()
+      && !canSkipUnchangedFiles(context)
       && caching.isCacheVersionUpToDate();
   }
 
-  private void computeGlobalSymbolsUsingCache(SensorContext context) {
-    loadTypeshedSymbols();
+  private static boolean canSkipUnchangedFiles(SensorContext context) {
+    return context.canSkipUnchangedFiles() || context.config().getBoolean(SONAR_CAN_SKIP_UNCHANGED_FILES_KEY).orElse(false);
+  }
+
+  private void computeGlobalSymbolsUsingCache(SensorContext context, boolean canSkipUnchangedFiles) {
+    if (canSkipUnchangedFiles) {
+      loadTypeshedSymbols();
+    }
     projectLevelSymbolTable().typeShedDescriptorsProvider();
-    LOG.info("Using cached data to retrieve global symbols.");
+    if (canSkipUnchangedFiles) {
+      LOG.info("Using cached data to retrieve global symbols.");
+    } else {
+      LOG.info("Using cached data to retrieve global symbols of unchanged files which are not impacted by modifications.");
+    }
     Set<String> currentProjectModulesFQNs = new HashSet<>(inputFileToFQN.values());
     Set<String> deletedModulesFQNs = deletedModulesFQNs(currentProjectModulesFQNs);
     Set<String> allProjectFilesFQNs = Stream.concat(currentProjectModulesFQNs.stream(), deletedModulesFQNs.stream())
       .collect(Collectors.toSet());
     Map<String, Set<String>> importsByModule = new HashMap<>();
     // Deleted files are considered impactful to their dependents but will not be re-analyzed.
-    List<PythonInputFile> impactfulFiles = new ArrayList<>();
     List<String> impactfulModulesFQNs = new ArrayList<>(deletedModulesFQNs);
     for (PythonInputFile inputFile : inputFiles) {
       String currFQN = inputFileToFQN.get(inputFile);
-      boolean isUnimpacted = tryToUseCache(importsByModule, inputFile, currFQN);
-      if (!isUnimpacted) {
+      FileRecord fileRecord = tryToUseCache(inputFile);
+      if (fileRecord == null) {
         // Failed to retrieve some data: consider the file as impactful.
-        impactfulFiles.add(inputFile);
         impactfulModulesFQNs.add(currFQN);
       } else {
-        partiallySkippableFiles.add(inputFile);
+        importsByModule.put(currFQN, fileRecord.imports());
+        cachedFileRecords.put(inputFile, fileRecord);
       }
     }
     // Impacted modules are computed from both modified files and deleted ones.
     Set<String> impactedModulesFQN = DependencyGraph.from(importsByModule, allProjectFilesFQNs).impactedModules(impactfulModulesFQNs);
-    inputFiles.stream().filter(f -> !impactedModulesFQN.contains(inputFileToFQN.get(f))).forEach(fullySkippableFiles::add);
+    List<PythonInputFile> filesToCompute = new ArrayList<>();
+    for (PythonInputFile inputFile : inputFiles) {
+      FileRecord fileRecord = cachedFileRecords.get(inputFile);
+      boolean isUnimpacted = !impactedModulesFQN.contains(inputFileToFQN.get(inputFile));
+      // When unchanged files are skipped, we only need to recompute global symbols for modified files (no cross-file dependencies
+      // in the project symbol table). Otherwise, impacted files are recomputed as well to stay on the safe side.
+      if (fileRecord != null && (canSkipUnchangedFiles || isUnimpacted)) {
+        saveRetrievedDescriptors(inputFile, fileRecord.descriptors());
+      } else {
+        cachedFileRecords.remove(inputFile);
+        filesToCompute.add(inputFile);
+      }
+      if (fileRecord != null && canSkipUnchangedFiles) {
+        partiallySkippableFiles.add(inputFile);
+        if (isUnimpacted) {
+          fullySkippableFiles.add(inputFile);
+        }
+      }
+    }
     LOG.info(
       "Cached information of global symbols will be used for {} out of {} main files. Global symbols will be recomputed for the remaining files.",
-      inputFiles.size() - impactfulFiles.size(),
+      inputFiles.size() - filesToCompute.size(),
       inputFiles.size());
-    LOG.info("Fully optimized analysis can be performed for {} out of {} files.", fullySkippableFiles.size(), inputFiles.size());
-    LOG.info("Partially optimized analysis can be performed for {} out of {} files.", partiallySkippableFiles.size(), inputFiles.size());
-    // Although we need to analyze all impacted files, we only need to recompute global symbols for modified files (no cross-file dependencies
-    // in the project symbol table)
-    computeGlobalSymbols(impactfulFiles, context);
+    if (canSkipUnchangedFiles) {
+      LOG.info("Fully optimized analysis can be performed for {} out of {} files.", fullySkippableFiles.size(), inputFiles.size());
+      LOG.info("Partially optimized analysis can be performed for {} out of {} files.", partiallySkippableFiles.size(), inputFiles.size());
+    }
+    computeGlobalSymbols(filesToCompute, context);
   }
 
   /*
@@ -143,42 +216,27 @@ public class SonarQubePythonIndexer extends PythonIndexer {
     typeShedModules.forEach(typeshedReader::descriptorsForModule);
   }
 
-  private boolean tryToUseCache(Map<String, Set<String>> importsByModule, PythonInputFile inputFile, String currFQN) {
-    if (!fileIsUnchanged(inputFile)) {
-      return false;
-    }
-
-    Set<String> imports = caching.readImportMapEntry(inputFile.wrappedFile().key());
-    if (imports != null) {
-      importsByModule.put(currFQN, imports);
-    }
-    Set<Descriptor> descriptors = caching.readProjectLevelSymbolTableEntry(inputFile.wrappedFile().key());
-    if (descriptors != null && imports != null) {
-      saveRetrievedDescriptors(inputFile.wrappedFile().key(), descriptors, caching);
-      return true;
-    }
-
-    return false;
-  }
-
-  private boolean fileIsUnchanged(PythonInputFile inputFile) {
+  @CheckForNull
+  private FileRecord tryToUseCache(PythonInputFile inputFile) {
     if (!inputFile.wrappedFile().status().equals(InputFile.Status.SAME)) {
-      return false;
+      return null;
     }
-    byte[] fileHash = caching.readFileContentHash(inputFile.wrappedFile().key());
+    FileRecord fileRecord = caching.readFileRecord(inputFile.wrappedFile().key());
     // InputFile.Status is not reliable in some cases
     // We use the hash of the file's content to double-check the content is the same.
-    var fileInputHash = inputFile.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8);
-    return MessageDigest.isEqual(fileHash, fileInputHash);
+    if (fileRecord != null && MessageDigest.isEqual(fileRecord.contentHash(), contentHash(inputFile))) {
+      return fileRecord;
+    }
+    return null;
   }
 
-  private void saveRetrievedDescriptors(String fileKey, Set<Descriptor> descriptors, Caching caching) {
-    projectLevelSymbolTable().insertEntry(fileKey, descriptors);
-    caching.copyFromPrevious(fileKey);
+  private void saveRetrievedDescriptors(PythonInputFile inputFile, Set<Descriptor> descriptors) {
+    projectLevelSymbolTable().insertEntry(inputFileToFQN.get(inputFile), descriptors);
+    filesWithPendingRecord.add(inputFile);
   }
 
   public void computeGlobalSymbols(List<PythonInputFile> files, SensorContext context) {
-    GlobalSymbolsScanner globalSymbolsStep = new GlobalSymbolsScanner(context);
+    GlobalSymbolsScanner globalSymbolsStep = new GlobalSymbolsScanner(context, isHandWrittenLexerEnabled(context));
     globalSymbolsStep.execute(files, context);
     if (caching.isCacheEnabled()) {
       saveGlobalSymbolsInCache(files);
@@ -190,23 +248,71 @@ public class SonarQubePythonIndexer extends PythonIndexer {
 
   private void saveGlobalSymbolsInCache(List<PythonInputFile> files) {
     for (PythonInputFile inputFile : files) {
-      String moduleFQN = inputFileToFQN.get(inputFile);
-      Set<Descriptor> descriptors = projectLevelSymbolTable().descriptorsForModule(moduleFQN);
-      Set<String> imports = projectLevelSymbolTable().importsByModule().get(moduleFQN);
-      if (descriptors != null && imports != null) {
-        // Descriptors/imports map may be null if the file failed to parse.
-        // We don't try to save information in the cache in that case.
-        writeContentHashToCache(inputFile);
-
-        caching.writeProjectLevelSymbolTableEntry(inputFile.wrappedFile().key(), descriptors);
-        caching.writeImportsMapEntry(inputFile.wrappedFile().key(), imports);
+      // Descriptors/imports map may be null if the file failed to parse.
+      // We don't try to save information in the cache in that case.
+      if (globalSymbolsRecord(inputFile) != null) {
+        filesWithPendingRecord.add(inputFile);
       }
     }
   }
 
-  private void writeContentHashToCache(PythonInputFile inputFile) {
-    var contentHash = inputFile.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8);
-    caching.writeFileContentHash(inputFile.wrappedFile().key(), contentHash);
+  @Override
+  public void endOfFileAnalysis(PythonInputFile inputFile) {
+    if (filesWithPendingRecord.contains(inputFile)) {
+      writeFileRecord(inputFile);
+    }
+    cpdTokensToSave.remove(inputFile);
+  }
+
+  @Override
+  public void saveCpdTokens(PythonInputFile inputFile, CpdSerializer.SerializationResult cpdTokens) {
+    if (filesWithPendingRecord.contains(inputFile)) {
+      cpdTokensToSave.put(inputFile, cpdTokens);
+    }
+  }
+
+  @CheckForNull
+  @Override
+  public CpdSerializer.SerializationResult readCachedCpdTokens(PythonInputFile inputFile) {
+    return caching.readCpdTokens(inputFile.wrappedFile().key());
+  }
+
+  private void writeFileRecord(PythonInputFile inputFile) {
+    filesWithPendingRecord.remove(inputFile);
+    String fileKey = inputFile.wrappedFile().key();
+    CpdSerializer.SerializationResult cpdTokens = cpdTokensToSave.remove(inputFile);
+    FileRecord cachedFileRecord = cachedFileRecords.remove(inputFile);
+    if (cachedFileRecord != null && cpdTokens == null) {
+      // Nothing was recomputed: the CPD tokens of the previous analysis are still valid as well
+      caching.copyFileRecordFromPrevious(fileKey);
+      return;
+    }
+    FileRecord fileRecord = cachedFileRecord != null ? cachedFileRecord : globalSymbolsRecord(inputFile);
+    if (fileRecord == null) {
+      return;
+    }
+    try {
+      caching.writeFileRecord(fileKey, fileRecord, cpdTokens);
+    } catch (RuntimeException e) {
+      // Failing to cache data of a file must not fail its analysis
+      LOG.warn("Could not write cached data of file {} ({}: {})", inputFile, e.getClass().getSimpleName(), e.getMessage());
+    }
+  }
+
+  @CheckForNull
+  private FileRecord globalSymbolsRecord(PythonInputFile inputFile) {
+    if (isNotebook(inputFile)) {
+      // Notebooks are not indexed: they have no global symbols, but their content hash is still needed to skip them when unchanged
+      return new FileRecord(contentHash(inputFile), Set.of(), Set.of());
+    }
+    String moduleFQN = inputFileToFQN.get(inputFile);
+    Set<Descriptor> descriptors = projectLevelSymbolTable().descriptorsForModule(moduleFQN);
+    Set<String> imports = projectLevelSymbolTable().importsByModule().get(moduleFQN);
+    return descriptors != null && imports != null ? new FileRecord(contentHash(inputFile), imports, descriptors) : null;
+  }
+
+  private static boolean isNotebook(PythonInputFile inputFile) {
+    return inputFile.kind() == PythonInputFile.Kind.IPYTHON;
   }
 
   private Set<String> deletedModulesFQNs(Set<String> projectModulesFQNs) {
@@ -229,12 +335,40 @@ public class SonarQubePythonIndexer extends PythonIndexer {
     return fullySkippableFiles.contains(inputFile);
   }
 
+  @Override
+  public boolean isQuarantined(PythonInputFile inputFile) {
+    if (!canSkipQuarantinedFiles || !caching.isCacheEnabled() || !isCacheVersionUpToDate()) {
+      // A new version of the analyzer may no longer exceed the time budget on quarantined files
+      return false;
+    }
+    byte[] quarantinedHash = caching.readQuarantinedFileHash(inputFile.wrappedFile().key());
+    return quarantinedHash != null && MessageDigest.isEqual(quarantinedHash, contentHash(inputFile));
+  }
+
+  @Override
+  public void quarantine(PythonInputFile inputFile) {
+    if (caching.isCacheEnabled()) {
+      caching.writeQuarantinedFileHash(inputFile.wrappedFile().key(), contentHash(inputFile));
+    }
+  }
+
+  private boolean isCacheVersionUpToDate() {
+    if (cacheVersionUpToDate == null) {
+      cacheVersionUpToDate = caching.isCacheVersionUpToDate();
+    }
+    return cacheVersionUpToDate;
+  }
+
+  private static byte[] contentHash(PythonInputFile inputFile) {
+    return inputFile.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8);
+  }
+
   @Override
   public CacheContext cacheContext() {
     return caching.cacheContext();
   }
 
-  private static String getCacheVersion(SensorContext context) {
+  static String getCacheVersion(SensorContext context) {
     String implementationVersion = getImplementationVersion(SonarQubePythonIndexer.class);
     var pythonVersions = context.config().getStringArray(PYTHON_VERSION_KEY);
     if (pythonVersions.length == 0) {
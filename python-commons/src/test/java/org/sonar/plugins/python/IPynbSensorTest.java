@@ -47,6 +47,9 @@ import org.sonar.api.testfixtures.log.LogTesterJUnit5;
 import org.sonar.api.utils.Version;
 import org.sonar.plugins.python.api.ProjectPythonVersion;
 import org.sonar.plugins.python.api.PythonVersionUtils;
+import org.sonar.plugins.python.caching.Caching;
+import org.sonar.plugins.python.caching.TestReadCache;
+import org.sonar.plugins.python.caching.TestWriteCache;
 import org.sonar.plugins.python.editions.RepositoryInfoProvider;
 import org.sonar.plugins.python.editions.OpenSourceRepositoryInfoProvider;
 import org.sonar.plugins.python.indexer.PythonIndexer;
@@ -141,14 +144,24 @@ class IPynbSensorTest {
     return inputFile;
   }
 
+  private PythonInputFile inputFile(String name, InputFile.Status status) {
+    PythonInputFile inputFile = createInputFile(name, status);
+    context.fileSystem().add(inputFile.wrappedFile());
+    return inputFile;
+  }
+
   private PythonInputFile createInputFile(String name) {
+    return createInputFile(name, InputFile.Status.ADDED);
+  }
+
+  private PythonInputFile createInputFile(String name, InputFile.Status status) {
     return new PythonInputFileImpl(TestInputFileBuilder.create("moduleKey", name)
       .setModuleBaseDir(baseDir.toPath())
       .setCharset(UTF_8)
       .setType(InputFile.Type.MAIN)
       .setLanguage(IPynb.KEY)
       .initMetadata(TestUtils.fileContent(new File(baseDir, name), UTF_8))
-      .setStatus(InputFile.Status.ADDED)
+      .setStatus(status)
       .build());
   }
 
@@ -249,4 +262,64 @@ class IPynbSensorTest {
     verify(contextSpy, Mockito.times(1)).addTelemetryProperty(TelemetryMetricKey.NOTEBOOK_TOTAL_KEY.key(), "1");
     verify(contextSpy, Mockito.times(1)).addTelemetryProperty(TelemetryMetricKey.NOTEBOOK_EXCEPTION_KEY.key(), "0");
   }
+
+  @Test
+  void test_notebook_sensor_writes_cache_keyed_on_notebook_file() {
+    PythonInputFile inputFile = inputFile(NOTEBOOK_FILE);
+    activeRules = new ActiveRulesBuilder().build();
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(new TestReadCache());
+    context.setPreviousCache(new TestReadCache());
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    notebookSensor().execute(context);
+
+    String fileKey = inputFile.wrappedFile().key();
+    assertThat(writeCache.getData()).containsKeys(
+      Caching.fileRecordCacheKey(fileKey),
+      Caching.PROJECT_FILES_KEY + Caching.IPYNB_GLOBAL_KEYS_SUFFIX,
+      Caching.CACHE_VERSION_KEY + Caching.IPYNB_GLOBAL_KEYS_SUFFIX);
+    // Project-wide keys of the Python sensor are left untouched
+    assertThat(writeCache.getData()).doesNotContainKeys(Caching.PROJECT_FILES_KEY, Caching.CACHE_VERSION_KEY);
+    assertThat(writeCache.readFileRecord(fileKey).contentHash()).isEqualTo(inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+  }
+
+  @Test
+  void test_notebook_sensor_skips_unchanged_notebook() throws IOException {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(IPynbRuleRepository.IPYTHON_REPOSITORY_KEY, "PrintStatementUsage"))
+        .setName("Print Statement Usage")
+        .build())
+      .build();
+    inputFile(NOTEBOOK_FILE);
+    TestWriteCache firstWriteCache = new TestWriteCache();
+    firstWriteCache.bind(new TestReadCache());
+    context.setPreviousCache(new TestReadCache());
+    context.setNextCache(firstWriteCache);
+    context.setCacheEnabled(true);
+    notebookSensor().execute(context);
+    assertThat(context.allIssues()).hasSize(1);
+
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(Files.createTempDirectory("workDir"));
+    PythonInputFile unchangedFile = inputFile(NOTEBOOK_FILE, InputFile.Status.SAME);
+    TestReadCache readCache = new TestReadCache().putAll(firstWriteCache);
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
+    notebookSensor().execute(context);
+
+    assertThat(context.allIssues()).isEmpty();
+    assertThat(logTester.logs(Level.INFO))
+      .contains("The Python analyzer was able to leverage cached data from previous analyses for 1 out of 1 files. These files were not parsed.");
+    // The notebook was skipped rather than dropped because of an analysis failure
+    assertThat(logTester.logs(Level.WARN)).noneMatch(log -> log.startsWith("Unable to analyze file"));
+    // The record of the skipped notebook is carried over to the next analysis
+    String fileKey = unchangedFile.wrappedFile().key();
+    assertThat(writeCache.readFileRecord(fileKey).contentHash()).isEqualTo(unchangedFile.wrappedFile().md5Hash().getBytes(UTF_8));
+  }
 }
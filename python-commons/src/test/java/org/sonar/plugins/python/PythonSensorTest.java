@@ -27,10 +27,11 @@ import java.nio.file.Path;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.junit.jupiter.api.BeforeEach;
@@ -88,17 +89,18 @@ import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.api.internal.EndOfAnalysis;
 import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.plugins.python.architecture.ArchitectureCallbackWrapper;
-import org.sonar.plugins.python.caching.Caching;
 import org.sonar.plugins.python.caching.TestReadCache;
 import org.sonar.plugins.python.caching.TestWriteCache;
 import org.sonar.plugins.python.editions.OpenSourceRepositoryInfoProvider;
 import org.sonar.plugins.python.editions.RepositoryInfoProvider;
 import org.sonar.plugins.python.indexer.PythonIndexer;
 import org.sonar.plugins.python.indexer.SonarLintPythonIndexer;
+import org.sonar.plugins.python.indexer.SonarQubePythonIndexer;
 import org.sonar.plugins.python.indexer.TestModuleFileSystem;
 import org.sonar.plugins.python.warnings.AnalysisWarningsWrapper;
 import org.sonar.python.api.PythonKeyword;
 import org.sonar.python.caching.CpdSerializer;
+import org.sonar.python.index.Descriptor;
 import org.sonar.python.index.VariableDescriptor;
 import org.sonar.python.tree.TokenImpl;
 import org.sonar.python.types.TypeShed;
@@ -117,15 +119,9 @@ import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonar.plugins.python.caching.Caching.CACHE_VERSION_KEY;
-import static org.sonar.plugins.python.caching.Caching.CPD_TOKENS_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.CPD_TOKENS_STRING_TABLE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.IMPORTS_MAP_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX;
 import static org.sonar.plugins.python.caching.Caching.TYPESHED_MODULES_KEY;
-import static org.sonar.plugins.python.caching.Caching.fileContentHashCacheKey;
-import static org.sonar.plugins.python.caching.Caching.importsMapCacheKey;
-import static org.sonar.plugins.python.caching.Caching.projectSymbolTableCacheKey;
-import static org.sonar.python.index.DescriptorsToProtobuf.toProtobufModuleDescriptor;
+import static org.sonar.plugins.python.caching.Caching.fileRecordCacheKey;
+import static org.sonar.plugins.python.caching.Caching.quarantinedFileCacheKey;
 
 class PythonSensorTest {
 
@@ -140,6 +136,9 @@ class PythonSensorTest {
   private static final String CUSTOM_REPOSITORY_KEY = "customKey";
   private static final String CUSTOM_RULE_KEY = "key";
   private static final String RULE_CRASHING_ON_SCAN_KEY = "key2";
+  private static final String SLOW_RULE_KEY = "key3";
+  // Time source of the analysis budget of files, which only advances when SlowRule runs
+  private static final AtomicLong NANO_CLOCK = new AtomicLong();
 
   private static final Version SONARLINT_DETECTABLE_VERSION = Version.create(6, 0);
 
@@ -153,7 +152,7 @@ class PythonSensorTest {
 
     @Override
     public List<Class<?>> checkClasses() {
-      return List.of(MyCustomRule.class, RuleCrashingOnRegularScan.class);
+      return List.of(MyCustomRule.class, RuleCrashingOnRegularScan.class, SlowRule.class);
     }
   }};
   private static Path workDir;
@@ -207,6 +206,19 @@ class PythonSensorTest {
     }
   }
 
+  @Rule(
+    key = SLOW_RULE_KEY,
+    name = "slow_rule",
+    description = "desc",
+    tags = {"bug"})
+  public static class SlowRule implements PythonCheck {
+
+    @Override
+    public void scanFile(PythonVisitorContext visitorContext) {
+      NANO_CLOCK.addAndGet(TimeUnit.MILLISECONDS.toNanos(50));
+    }
+  }
+
   private final File baseDir = new File("src/test/resources/org/sonar/plugins/python/sensor").getAbsoluteFile();
 
   private SensorContextTester context;
@@ -760,6 +772,64 @@ class PythonSensorTest {
     assertThat(location.line()).isEqualTo(2);
   }
 
+  @Test
+  void parallel_analysis() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(PythonRuleRepository.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(PythonRuleRepository.REPOSITORY_KEY, "ParsingError"))
+        .build())
+      .build();
+
+    inputFile(FILE_1);
+    inputFile(FILE_2);
+    inputFile("parse_error.py");
+    List<String> sequentialIssues = executeWithThreads(1);
+    assertThat(logTester.logs(Level.DEBUG)).doesNotContain("Using 4 threads for rules execution");
+
+    context = SensorContextTester.create(baseDir);
+    context.fileSystem().setWorkDir(workDir);
+    PythonInputFile file1 = inputFile(FILE_1);
+    PythonInputFile file2 = inputFile(FILE_2);
+    inputFile("parse_error.py");
+    List<String> parallelIssues = executeWithThreads(4);
+
+    assertThat(logTester.logs(Level.DEBUG)).contains("Using 4 threads for rules execution");
+    assertThat(sequentialIssues).anyMatch(issue -> issue.startsWith("ParsingError "));
+    assertThat(parallelIssues).containsExactlyInAnyOrderElementsOf(sequentialIssues);
+    assertThat(context.allAnalysisErrors()).hasSize(1);
+    assertThat(context.measure(file1.wrappedFile().key(), CoreMetrics.NCLOC)).isNotNull();
+    assertThat(context.measure(file2.wrappedFile().key(), CoreMetrics.NCLOC)).isNotNull();
+    assertThat(context.cpdTokens(file2.wrappedFile().key())).isNotEmpty();
+  }
+
+  private List<String> executeWithThreads(int threads) {
+    context.setSettings(new MapSettings().setProperty(Scanner.ANALYSIS_THREADS_PROPERTY_NAME, threads));
+    sensor().execute(context);
+    return context.allIssues().stream()
+      .map(issue -> issue.ruleKey().rule() + " " + issue.primaryLocation().inputComponent().key() + " " + issue.primaryLocation().textRange())
+      .toList();
+  }
+
+  @Test
+  void parallel_analysis_failFast() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(PythonRuleRepository.REPOSITORY_KEY, "S5905"))
+        .build())
+      .build();
+
+    inputFile(FILE_1);
+    inputFile(FILE_INVALID_SYNTAX, Type.MAIN);
+    context.setSettings(new MapSettings()
+      .setProperty("sonar.internal.analysis.failFast", true)
+      .setProperty(Scanner.ANALYSIS_THREADS_PROPERTY_NAME, 2));
+    PythonSensor sensor = sensor();
+    assertThatThrownBy(() -> sensor.execute(context)).isInstanceOf(IllegalStateException.class);
+  }
+
   @Test
   void cancelled_analysis() {
     PythonInputFile inputFile = inputFile(FILE_1);
@@ -795,6 +865,27 @@ class PythonSensorTest {
     assertThat(new String(Files.readAllBytes(defaultPerformanceFile), UTF_8)).contains("\"PythonSensor\"");
   }
 
+  @Test
+  void saving_performance_measure_per_phase_and_per_check() throws IOException {
+    MapSettings mapSettings = new MapSettings();
+    mapSettings.setProperty("sonar.python.performance.measure", "true");
+    // Rules execution reuses the parse tree of the indexer: parsing is only measured while indexing
+    mapSettings.setProperty(SonarQubePythonIndexer.RETAINED_PARSE_TREES_MAX_SOURCE_LENGTH_KEY, 1_000_000);
+    context.setSettings(mapSettings);
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(PythonRuleRepository.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+
+    inputFile("main.py");
+    sensor().execute(context);
+    Path defaultPerformanceFile = workDir.resolve("sonar-python-performance-measure.json");
+    assertThat(new String(Files.readAllBytes(defaultPerformanceFile), UTF_8))
+      .contains("\"Parsing\"", "\"TreeMaking\"", "\"TypeInferenceV2\"", "\"SubscriptionChecks\"", "\"OneStatementPerLineCheck\"");
+    assertThat(logTester.logs(Level.INFO)).anyMatch(s -> s.startsWith("Slowest files for rules execution:") && s.contains("main.py"));
+  }
+
   @Test
   void saving_performance_measure_custom_path() throws IOException {
     Path customPerformanceFile = workDir.resolve("custom.performance.measure.json");
@@ -879,13 +970,9 @@ class PythonSensorTest {
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
+    Set<Descriptor> descriptors = Set.of(new VariableDescriptor("x", "main.x", null));
     CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(Collections.emptyList());
-    readCache.put(importsMapCacheKey(inputFile.wrappedFile().key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.wrappedFile().key()), serializedSymbolTable);
-    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.data);
-    readCache.put(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.stringTable);
-    readCache.put(fileContentHashCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+    readCache.putFileRecord(inputFile.wrappedFile().key(), inputFile.wrappedFile().md5Hash().getBytes(UTF_8), Collections.emptyList(), descriptors, cpdTokens);
     context.setPreviousCache(readCache);
     context.setNextCache(writeCache);
     context.setCacheEnabled(true);
@@ -897,6 +984,82 @@ class PythonSensorTest {
       .contains("The Python analyzer was able to leverage cached data from previous analyses for 1 out of 1 files. These files were not parsed.");
   }
 
+  @Test
+  void file_exceeding_time_budget_is_quarantined() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(CUSTOM_REPOSITORY_KEY, SLOW_RULE_KEY))
+        .build())
+      .build();
+
+    PythonInputFile inputFile = inputFile(FILE_2);
+    TestReadCache readCache = getValidReadCache();
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings().setProperty(PythonScanner.FILE_ANALYSIS_TIMEOUT_PROPERTY_NAME, 10));
+    PythonSensor sensor = sensor();
+    sensor.setNanoClock(NANO_CLOCK::get);
+    sensor.execute(context);
+
+    assertThat(context.allAnalysisErrors()).hasSize(1);
+    AnalysisError analysisError = context.allAnalysisErrors().iterator().next();
+    assertThat(analysisError.inputFile()).isEqualTo(inputFile.wrappedFile());
+    assertThat(analysisError.message()).isEqualTo("Analysis of file exceeded the time budget of 10 ms during SlowRule, remaining analysis steps were skipped");
+    assertThat(logTester.logs(Level.WARN)).contains(analysisError.message() + ": " + inputFile);
+    assertThat(writeCache.getData()).containsEntry(quarantinedFileCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+  }
+
+  @Test
+  void quarantined_file_is_skipped() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(PythonRuleRepository.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+
+    PythonInputFile inputFile = inputFile(FILE_2);
+    TestReadCache readCache = getValidReadCache();
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    byte[] contentHash = inputFile.wrappedFile().md5Hash().getBytes(UTF_8);
+    readCache.put(quarantinedFileCacheKey(inputFile.wrappedFile().key()), contentHash);
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    context.setSettings(new MapSettings().setProperty(PythonScanner.FILE_ANALYSIS_TIMEOUT_PROPERTY_NAME, 60_000));
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).isEmpty();
+    assertThat(logTester.logs(Level.WARN))
+      .contains("Skipping analysis of file which exceeded the time budget of 60000 ms during a previous analysis and did not change since: " + inputFile);
+    assertThat(writeCache.getData()).containsEntry(quarantinedFileCacheKey(inputFile.wrappedFile().key()), contentHash);
+  }
+
+  @Test
+  void quarantined_file_is_analyzed_without_time_budget() {
+    activeRules = new ActiveRulesBuilder()
+      .addRule(new NewActiveRule.Builder()
+        .setRuleKey(RuleKey.of(PythonRuleRepository.REPOSITORY_KEY, ONE_STATEMENT_PER_LINE_RULE_KEY))
+        .build())
+      .build();
+
+    PythonInputFile inputFile = inputFile(FILE_2);
+    TestReadCache readCache = getValidReadCache();
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
+    readCache.put(quarantinedFileCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+    context.setPreviousCache(readCache);
+    context.setNextCache(writeCache);
+    context.setCacheEnabled(true);
+    sensor().execute(context);
+
+    assertThat(context.allIssues()).hasSize(1);
+    assertThat(writeCache.getData()).doesNotContainKey(quarantinedFileCacheKey(inputFile.wrappedFile().key()));
+  }
+
   @Test
   void test_typeshed_stubs_information_is_saved_to_cache() {
     activeRules = new ActiveRulesBuilder()
@@ -921,8 +1084,7 @@ class PythonSensorTest {
     assertThat(issue.primaryLocation().inputComponent()).isEqualTo(inputFile.wrappedFile());
     assertThat(issue.ruleKey().rule()).isEqualTo(ONE_STATEMENT_PER_LINE_RULE_KEY);
 
-    byte[] bytes = writeCache.getData().get(TYPESHED_MODULES_KEY);
-    Set<String> resolvedTypeshedModules = new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+    Set<String> resolvedTypeshedModules = writeCache.readModuleNames(TYPESHED_MODULES_KEY);
     // typing comes from TypeCheckBuilder querying the ProjectLevelType table (by looking for TypeVar) in its checks, which then queries & cache info in TypeShedDescriptorsProvider
     assertThat(resolvedTypeshedModules).containsExactlyInAnyOrder(
       "typing", "math",
@@ -950,7 +1112,7 @@ class PythonSensorTest {
     List<String> typeshedModules = List.of("typing", "math",
       "django", "django.urls.conf", "django.urls",
       "fastapi", "fastapi.responses");
-    readCache.put(TYPESHED_MODULES_KEY, String.join(";", typeshedModules).getBytes(StandardCharsets.UTF_8));
+    readCache.putModuleNames(TYPESHED_MODULES_KEY, typeshedModules);
     context.setNextCache(writeCache);
     context.setCacheEnabled(true);
     context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
@@ -961,8 +1123,7 @@ class PythonSensorTest {
     assertThat(issue.primaryLocation().inputComponent()).isEqualTo(inputFile.wrappedFile());
     assertThat(issue.ruleKey().rule()).isEqualTo(ONE_STATEMENT_PER_LINE_RULE_KEY);
 
-    byte[] bytes = writeCache.getData().get(TYPESHED_MODULES_KEY);
-    Set<String> resolvedTypeshedModules = new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+    Set<String> resolvedTypeshedModules = writeCache.readModuleNames(TYPESHED_MODULES_KEY);
     assertThat(resolvedTypeshedModules).containsExactlyInAnyOrder(
       "typing", "math",
       "django", "django.urls.conf", "django.urls",
@@ -982,14 +1143,10 @@ class PythonSensorTest {
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
+    Set<Descriptor> descriptors = Set.of(new VariableDescriptor("x", "main.x", null));
     CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(Collections.emptyList());
-    readCache.put(importsMapCacheKey(inputFile.wrappedFile().key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(TYPESHED_MODULES_KEY, String.join(";", List.of("math")).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.wrappedFile().key()), serializedSymbolTable);
-    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.data);
-    readCache.put(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.stringTable);
-    readCache.put(fileContentHashCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+    readCache.putModuleNames(TYPESHED_MODULES_KEY, List.of("math"));
+    readCache.putFileRecord(inputFile.wrappedFile().key(), inputFile.wrappedFile().md5Hash().getBytes(UTF_8), Collections.emptyList(), descriptors, cpdTokens);
 
     context.setPreviousCache(readCache);
     context.setNextCache(writeCache);
@@ -1000,8 +1157,7 @@ class PythonSensorTest {
     assertThat(context.allIssues()).isEmpty();
     assertThat(logTester.logs(Level.INFO))
       .contains("The Python analyzer was able to leverage cached data from previous analyses for 1 out of 1 files. These files were not parsed.");
-    byte[] bytes = writeCache.getData().get(TYPESHED_MODULES_KEY);
-    Set<String> resolvedTypeshedModules = new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+    Set<String> resolvedTypeshedModules = writeCache.readModuleNames(TYPESHED_MODULES_KEY);
     assertThat(resolvedTypeshedModules).containsExactlyInAnyOrder("math");
   }
 
@@ -1017,11 +1173,9 @@ class PythonSensorTest {
       .build();
 
     PythonInputFile inputFile = inputFile(FILE_TEST_FILE, Type.TEST, InputFile.Status.SAME);
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("test_func", "test_file.test_func", null))).toByteArray();
+    Set<Descriptor> descriptors = Set.of(new VariableDescriptor("test_func", "test_file.test_func", null));
     TestReadCache readCache = getValidReadCache();
-    readCache.put(fileContentHashCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
-    readCache.put(importsMapCacheKey(inputFile.wrappedFile().key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.wrappedFile().key()), serializedSymbolTable);
+    readCache.putFileRecord(inputFile.wrappedFile().key(), inputFile.wrappedFile().md5Hash().getBytes(UTF_8), Collections.emptyList(), descriptors, null);
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
 
@@ -1050,10 +1204,8 @@ class PythonSensorTest {
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.wrappedFile().key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.wrappedFile().key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+    Set<Descriptor> descriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    readCache.putFileRecord(inputFile.wrappedFile().key(), inputFile.wrappedFile().md5Hash().getBytes(UTF_8), Collections.emptyList(), descriptors, null);
     context.setPreviousCache(readCache);
     context.setNextCache(writeCache);
     context.setCacheEnabled(true);
@@ -1082,10 +1234,8 @@ class PythonSensorTest {
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile2.wrappedFile().key()), String.join(";", List.of("file1.py")).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile2.wrappedFile().key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile2.wrappedFile().key()), inputFile2.wrappedFile().md5Hash().getBytes(UTF_8));
+    Set<Descriptor> descriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    readCache.putFileRecord(inputFile2.wrappedFile().key(), inputFile2.wrappedFile().md5Hash().getBytes(UTF_8), List.of("file1.py"), descriptors, null);
     context.setPreviousCache(readCache);
     context.setNextCache(writeCache);
     context.setCacheEnabled(true);
@@ -1117,9 +1267,8 @@ class PythonSensorTest {
     context.setCacheEnabled(true);
     context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    readCache.put(IMPORTS_MAP_CACHE_KEY_PREFIX + "file2", String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "file2", serializedSymbolTable);
+    Set<Descriptor> descriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    readCache.putFileRecord("file2", new byte[0], Collections.emptyList(), descriptors, null);
     sensor().execute(contextMock);
 
     assertThat(context.allIssues()).hasSize(1);
@@ -1145,13 +1294,11 @@ class PythonSensorTest {
     sensor().execute(context);
 
     assertThat(writeCache.getData().keySet()).containsExactlyInAnyOrder(
-      "python:cache_version", "python:files", "python:descriptors:moduleKey:pass.py", "python:imports:moduleKey:pass.py",
-      "python:cpd:data:moduleKey:pass.py", "python:cpd:stringTable:moduleKey:pass.py", "python:content_hashes:moduleKey:pass.py", "python:typeshed_modules");
+      "python:cache_version", "python:files", "python:file:moduleKey:pass.py", "python:typeshed_modules", "python:module_names:string_table");
 
-    byte[] tokenData = writeCache.getData().get("python:cpd:data:moduleKey:pass.py");
-    byte[] stringTable = writeCache.getData().get("python:cpd:stringTable:moduleKey:pass.py");
+    CpdSerializer.SerializationResult cpdTokens = writeCache.readCpdTokens("moduleKey:pass.py");
 
-    List<CpdSerializer.TokenInfo> actualTokens = CpdSerializer.deserialize(tokenData, stringTable);
+    List<CpdSerializer.TokenInfo> actualTokens = CpdSerializer.deserialize(cpdTokens.data, cpdTokens.stringTable);
     assertThat(actualTokens)
       .hasSize(1);
 
@@ -1173,7 +1320,7 @@ class PythonSensorTest {
     writeCache.bind(readCache);
 
     PythonInputFile inputFile = inputFile("pass.py", Type.MAIN, InputFile.Status.ADDED);
-    writeCache.write(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), "whatever".getBytes());
+    writeCache.write(fileRecordCacheKey(inputFile.wrappedFile().key()), "whatever".getBytes());
 
     context.setPreviousCache(readCache);
     context.setNextCache(writeCache);
@@ -1182,7 +1329,7 @@ class PythonSensorTest {
     sensor().execute(context);
 
     assertThat(logTester.logs(Level.WARN))
-      .contains("Could not write CPD tokens to cache (IllegalArgumentException: Same key cannot be written to multiple times (python:cpd:data:moduleKey:pass.py))");
+      .contains("Could not write cached data of file pass.py (IllegalArgumentException: Same key cannot be written to multiple times (python:file:moduleKey:pass.py))");
   }
 
   @Test
@@ -1205,15 +1352,13 @@ class PythonSensorTest {
     context.setSettings(new MapSettings().setProperty("sonar.python.skipUnchanged", true));
     sensor().execute(context);
 
-    byte[] mainTokensData = writeCache.getData().get("python:cpd:data:moduleKey:main.py");
-    byte[] mainTokensTable = writeCache.getData().get("python:cpd:stringTable:moduleKey:main.py");
-    List<CpdSerializer.TokenInfo> actualTokensForMain = CpdSerializer.deserialize(mainTokensData, mainTokensTable);
+    CpdSerializer.SerializationResult mainTokens = writeCache.readCpdTokens("moduleKey:main.py");
+    List<CpdSerializer.TokenInfo> actualTokensForMain = CpdSerializer.deserialize(mainTokens.data, mainTokens.stringTable);
     assertThat(actualTokensForMain)
       .hasSize(14);
 
-    byte[] passTokensData = writeCache.getData().get("python:cpd:data:moduleKey:pass.py");
-    byte[] passTokensTable = writeCache.getData().get("python:cpd:stringTable:moduleKey:pass.py");
-    List<CpdSerializer.TokenInfo> actualTokensForPass = CpdSerializer.deserialize(passTokensData, passTokensTable);
+    CpdSerializer.SerializationResult passTokens = writeCache.readCpdTokens("moduleKey:pass.py");
+    List<CpdSerializer.TokenInfo> actualTokensForPass = CpdSerializer.deserialize(passTokens.data, passTokens.stringTable);
     assertThat(actualTokensForPass)
       .hasSize(1);
   }
@@ -1232,12 +1377,7 @@ class PythonSensorTest {
 
     TestReadCache readCache = getValidReadCache();
     CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(tokens);
-    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.data);
-    readCache.put(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.stringTable);
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.wrappedFile().key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.wrappedFile().key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+    readCache.putFileRecord(inputFile.wrappedFile().key(), inputFile.wrappedFile().md5Hash().getBytes(UTF_8), Collections.emptyList(), Collections.emptySet(), cpdTokens);
 
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
@@ -1258,9 +1398,9 @@ class PythonSensorTest {
     assertThat(tokensLines.get(0).getValue()).isEqualTo("pass");
 
     // Verify that we carried the tokens over to the next cache
-    assertThat(writeCache.getData())
-      .containsEntry(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.data)
-      .containsEntry(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.stringTable);
+    CpdSerializer.SerializationResult writtenCpdTokens = writeCache.readCpdTokens(inputFile.wrappedFile().key());
+    assertThat(writtenCpdTokens.data).isEqualTo(cpdTokens.data);
+    assertThat(writtenCpdTokens.stringTable).isEqualTo(cpdTokens.stringTable);
   }
 
   @Test
@@ -1274,9 +1414,7 @@ class PythonSensorTest {
     PythonInputFile inputFile = inputFile("pass.py", Type.MAIN, InputFile.Status.SAME);
 
     TestReadCache readCache = getValidReadCache();
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.wrappedFile().key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.wrappedFile().key()), serializedSymbolTable);
+    readCache.putFileRecord(inputFile.wrappedFile().key(), inputFile.wrappedFile().md5Hash().getBytes(UTF_8), Collections.emptyList(), Collections.emptySet(), null);
 
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
@@ -1300,9 +1438,9 @@ class PythonSensorTest {
     List<Token> expectedTokens = List.of(new TokenImpl(passToken(inputFile.wrappedFile().uri())));
     CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(expectedTokens);
 
-    assertThat(writeCache.getData())
-      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.data)
-      .containsEntry(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.stringTable);
+    CpdSerializer.SerializationResult writtenCpdTokens = writeCache.readCpdTokens(inputFile.wrappedFile().key());
+    assertThat(writtenCpdTokens.data).isEqualTo(cpdTokens.data);
+    assertThat(writtenCpdTokens.stringTable).isEqualTo(cpdTokens.stringTable);
   }
 
   @Test
@@ -1319,13 +1457,10 @@ class PythonSensorTest {
 
     TestReadCache readCache = getValidReadCache();
 
-    readCache.put(CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), "not valid data".getBytes(UTF_8));
-    readCache.put(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.wrappedFile().key(), "not valid string table".getBytes(UTF_8));
-
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.wrappedFile().key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.wrappedFile().key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+    CpdSerializer.SerializationResult invalidCpdTokens = new CpdSerializer.SerializationResult("not valid data".getBytes(UTF_8),
+      "not valid string table".getBytes(UTF_8));
+    readCache.putFileRecord(inputFile.wrappedFile().key(), inputFile.wrappedFile().md5Hash().getBytes(UTF_8), Collections.emptyList(), Collections.emptySet(),
+      invalidCpdTokens);
 
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
@@ -1352,9 +1487,9 @@ class PythonSensorTest {
     List<Token> expectedTokens = List.of(new TokenImpl(passToken(inputFile.wrappedFile().uri())));
     CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(expectedTokens);
 
-    assertThat(writeCache.getData())
-      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.data)
-      .containsEntry(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.stringTable);
+    CpdSerializer.SerializationResult writtenCpdTokens = writeCache.readCpdTokens(inputFile.wrappedFile().key());
+    assertThat(writtenCpdTokens.data).isEqualTo(cpdTokens.data);
+    assertThat(writtenCpdTokens.stringTable).isEqualTo(cpdTokens.stringTable);
   }
 
   @Test
@@ -1395,10 +1530,7 @@ class PythonSensorTest {
     PythonInputFile inputFile = inputFile("pass.py", Type.MAIN, InputFile.Status.SAME);
 
     TestReadCache readCache = getValidReadCache();
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Collections.emptySet()).toByteArray();
-    readCache.put(importsMapCacheKey(inputFile.wrappedFile().key()), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey(inputFile.wrappedFile().key()), serializedSymbolTable);
-    readCache.put(fileContentHashCacheKey(inputFile.wrappedFile().key()), inputFile.wrappedFile().md5Hash().getBytes(UTF_8));
+    readCache.putFileRecord(inputFile.wrappedFile().key(), inputFile.wrappedFile().md5Hash().getBytes(UTF_8), Collections.emptyList(), Collections.emptySet(), null);
 
     TestWriteCache writeCache = new TestWriteCache();
     writeCache.bind(readCache);
@@ -1425,9 +1557,9 @@ class PythonSensorTest {
     List<Token> expectedTokens = List.of(new TokenImpl(passToken(inputFile.wrappedFile().uri())));
     CpdSerializer.SerializationResult cpdTokens = CpdSerializer.serialize(expectedTokens);
 
-    assertThat(writeCache.getData())
-      .containsEntry(Caching.CPD_TOKENS_CACHE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.data)
-      .containsEntry(CPD_TOKENS_STRING_TABLE_KEY_PREFIX + inputFile.wrappedFile().key(), cpdTokens.stringTable);
+    CpdSerializer.SerializationResult writtenCpdTokens = writeCache.readCpdTokens(inputFile.wrappedFile().key());
+    assertThat(writtenCpdTokens.data).isEqualTo(cpdTokens.data);
+    assertThat(writtenCpdTokens.stringTable).isEqualTo(cpdTokens.stringTable);
   }
 
   @Test
@@ -0,0 +1,103 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.python;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.plugins.python.TestUtils.createInputFile;
+
+class ScannerTest {
+
+  private final File baseDir = new File("src/test/resources/org/sonar/plugins/python/indexer").getAbsoluteFile();
+
+  @Test
+  void parallel_scan_scans_files_without_parsing_in_order_on_the_calling_thread() {
+    SensorContextTester context = SensorContextTester.create(baseDir);
+    context.setSettings(new MapSettings().setProperty(Scanner.ANALYSIS_THREADS_PROPERTY_NAME, 3));
+    List<PythonInputFile> files = List.of(
+      createInputFile(baseDir, "main.py", InputFile.Status.SAME, InputFile.Type.MAIN),
+      createInputFile(baseDir, "mod.py", InputFile.Status.CHANGED, InputFile.Type.MAIN),
+      createInputFile(baseDir, "added.py", InputFile.Status.SAME, InputFile.Type.MAIN),
+      createInputFile(baseDir, "lib.py", InputFile.Status.CHANGED, InputFile.Type.MAIN));
+    RecordingScanner scanner = new RecordingScanner(context);
+
+    scanner.execute(files, context);
+
+    assertThat(scanner.events).containsExactly("main.py without parsing", "mod.py", "added.py without parsing", "lib.py");
+    assertThat(scanner.threads).containsOnly(Thread.currentThread());
+  }
+
+  private static class RecordingScanner extends Scanner {
+
+    private final List<String> events = Collections.synchronizedList(new ArrayList<>());
+    private final List<Thread> threads = Collections.synchronizedList(new ArrayList<>());
+
+    RecordingScanner(SensorContext context) {
+      super(context);
+    }
+
+    @Override
+    protected String name() {
+      return "recording";
+    }
+
+    @Override
+    protected void scanFile(PythonInputFile file) {
+      record(file.wrappedFile().filename());
+    }
+
+    @Override
+    protected FileScan prepareScan(PythonInputFile file) {
+      return () -> scanFile(file);
+    }
+
+    @Override
+    protected boolean supportsParallelScan() {
+      return true;
+    }
+
+    @Override
+    public boolean canBeScannedWithoutParsing(PythonInputFile inputFile) {
+      return inputFile.wrappedFile().status() == InputFile.Status.SAME;
+    }
+
+    @Override
+    protected boolean scanFileWithoutParsing(PythonInputFile file) {
+      record(file.wrappedFile().filename() + " without parsing");
+      return true;
+    }
+
+    @Override
+    protected void processException(Exception e, PythonInputFile file) {
+      throw new IllegalStateException(e);
+    }
+
+    private void record(String event) {
+      events.add(event);
+      threads.add(Thread.currentThread());
+    }
+  }
+}
@@ -17,38 +17,35 @@
 package org.sonar.plugins.python.caching;
 
 
-import com.google.protobuf.InvalidProtocolBufferException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
-import java.util.Arrays;
 import java.util.Collections;
-import java.util.Map;
+import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import org.slf4j.event.Level;
 import org.sonar.api.testfixtures.log.LogTesterJUnit5;
 import org.sonar.plugins.python.api.caching.PythonReadCache;
 import org.sonar.plugins.python.api.caching.PythonWriteCache;
+import org.sonar.plugins.python.caching.Caching.FileRecord;
 import org.sonar.python.caching.CacheContextImpl;
+import org.sonar.python.caching.CpdSerializer;
+import org.sonar.python.caching.ModuleNamesSerializer;
 import org.sonar.python.caching.PythonReadCacheImpl;
 import org.sonar.python.caching.PythonWriteCacheImpl;
 import org.sonar.python.index.ClassDescriptor;
 import org.sonar.python.index.Descriptor;
-import org.sonar.python.index.DescriptorsToProtobuf;
 import org.sonar.python.index.FunctionDescriptor;
 import org.sonar.python.index.VariableDescriptor;
-import org.sonar.python.types.protobuf.DescriptorsProtos;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
-import static org.sonar.plugins.python.caching.Caching.IMPORTS_MAP_CACHE_KEY_PREFIX;
-import static org.sonar.plugins.python.caching.Caching.PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX;
-import static org.sonar.python.index.DescriptorsToProtobuf.fromProtobuf;
+import static org.sonar.plugins.python.caching.Caching.FILE_RECORD_KEY_PREFIX;
 
 class CachingTest {
 
@@ -56,10 +53,16 @@ class CachingTest {
   public LogTesterJUnit5 logTester = new LogTesterJUnit5().setLevel(Level.DEBUG);
 
   private final static String CACHE_VERSION = "dummyVersion";
+  private final static byte[] HASH = "hash".getBytes(StandardCharsets.UTF_8);
+  private final static Set<Descriptor> DESCRIPTORS = Set.of(
+    new ClassDescriptor("C", "mod.C", Collections.emptyList(), Collections.emptySet(), false, null, false, false, null, false),
+    new FunctionDescriptor("foo", "mod.foo", Collections.emptyList(), false, false, Collections.emptyList(), false, null, null),
+    new VariableDescriptor("x", "mod.x", null)
+  );
 
 
   @Test
-  void writeProjectLevelSymbolTableEntry() throws InvalidProtocolBufferException {
+  void writeFileRecord() {
     TestWriteCache writeCache = new TestWriteCache();
     PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
     TestReadCache readCache = new TestReadCache();
@@ -67,108 +70,150 @@ class CachingTest {
     CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
 
     Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    Set<Descriptor> initialDescriptors = Set.of(
-      new ClassDescriptor("C", "mod.C", Collections.emptyList(), Collections.emptySet(), false, null, false, false, null, false),
-      new FunctionDescriptor("foo", "mod.foo", Collections.emptyList(), false, false, Collections.emptyList(), false, null, null),
-      new VariableDescriptor("x", "mod.x", null)
-    );
-    caching.writeProjectLevelSymbolTableEntry("mod", initialDescriptors);
-    Map<String, byte[]> data = writeCache.getData();
-    String cacheKey = PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "mod";
-    Set<Descriptor> retrievedDescriptors = fromProtobuf(DescriptorsProtos.ModuleDescriptor.parseFrom(data.get(cacheKey)));
+    Set<String> imports = Set.of("mod2", "pkg1.mod3", "pkg2.pkg3.mod4");
+    CpdSerializer.SerializationResult cpdTokens = new CpdSerializer.SerializationResult(new byte[] {1, 2}, new byte[] {3});
+    caching.writeFileRecord("mod", new FileRecord(HASH, imports, DESCRIPTORS), cpdTokens);
+
     assertThat(cacheContext.isCacheEnabled()).isTrue();
-    assertThat(retrievedDescriptors).usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(initialDescriptors);
+    // The record is readable on its own, without the string table of module names
+    assertThat(writeCache.getData()).containsOnlyKeys(FILE_RECORD_KEY_PREFIX + "mod");
+    FileRecord retrievedRecord = writeCache.readFileRecord("mod");
+    assertThat(retrievedRecord.contentHash()).isEqualTo(HASH);
+    assertThat(retrievedRecord.imports()).containsExactlyInAnyOrderElementsOf(imports);
+    assertThat(retrievedRecord.descriptors()).usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(DESCRIPTORS);
+    CpdSerializer.SerializationResult retrievedCpdTokens = writeCache.readCpdTokens("mod");
+    assertThat(retrievedCpdTokens.data).isEqualTo(cpdTokens.data);
+    assertThat(retrievedCpdTokens.stringTable).isEqualTo(cpdTokens.stringTable);
   }
 
-
   @Test
-  void readProjectLevelSymbolTableEntry() {
+  void readFileRecord() {
     TestWriteCache writeCache = new TestWriteCache();
-    PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
     TestReadCache readCache = new TestReadCache();
-    PythonReadCache pythonReadCache = new PythonReadCacheImpl(readCache);
-    CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
+    CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
 
     Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    Set<Descriptor> initialDescriptors = Set.of(
-      new ClassDescriptor("C", "mod.C", Collections.emptyList(), Collections.emptySet(), false, null, false, false, null, false),
-      new FunctionDescriptor("foo", "mod.foo", Collections.emptyList(), false, false, Collections.emptyList(), false, null, null),
-      new VariableDescriptor("x", "mod.x", null)
-    );
-    String cacheKey = PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "mod";
-    readCache.put(cacheKey, DescriptorsToProtobuf.toProtobufModuleDescriptor(initialDescriptors).toByteArray());
-    Set<Descriptor> retrievedDescriptorsOptional = caching.readProjectLevelSymbolTableEntry("mod");
-    assertThat(retrievedDescriptorsOptional).isNotNull().usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(initialDescriptors);
+    Set<String> imports = Set.of("mod2", "pkg1.mod3", "pkg2.pkg3.mod4");
+    readCache.put(Caching.CACHE_VERSION_KEY, CACHE_VERSION.getBytes(StandardCharsets.UTF_8));
+    readCache.putFileRecord("mod", HASH, imports, DESCRIPTORS, null);
+    readCache.putFileRecord("pkg\\mod5", HASH, Set.of(), Set.of(), null);
+
+    FileRecord fileRecord = caching.readFileRecord("mod");
+    assertThat(fileRecord.contentHash()).isEqualTo(HASH);
+    assertThat(fileRecord.imports()).containsExactlyInAnyOrderElementsOf(imports);
+    assertThat(fileRecord.descriptors()).usingRecursiveFieldByFieldElementComparator().containsExactlyInAnyOrderElementsOf(DESCRIPTORS);
+    assertThat(caching.readFileRecord("pkg\\mod5").imports()).isEmpty();
+    assertThat(caching.readFileRecord("unknown")).isNull();
   }
 
   @Test
-  void readProjectLevelSymbolTableMissingEntry() {
+  void djangoViews() {
     TestWriteCache writeCache = new TestWriteCache();
     TestReadCache readCache = new TestReadCache();
-    CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
+    Caching caching = new Caching(new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache)), CACHE_VERSION);
+    caching.writeDjangoViews("pkg\\urls", Set.of("pkg.views.index", "pkg.views.detail"));
+    caching.writeCacheVersion();
+    assertThat(writeCache.getData()).containsKey(Caching.DJANGO_VIEWS_KEY_PREFIX + "pkg/urls");
 
-    Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    assertThat(caching.readProjectLevelSymbolTableEntry("unknown")).isNull();
+    TestReadCache nextReadCache = new TestReadCache().putAll(writeCache);
+    Caching nextCaching = new Caching(new CacheContextImpl(true, new PythonWriteCacheImpl(new TestWriteCache()), new PythonReadCacheImpl(nextReadCache)), CACHE_VERSION);
+    assertThat(nextCaching.readDjangoViews("pkg\\urls")).containsExactlyInAnyOrder("pkg.views.index", "pkg.views.detail");
+    assertThat(nextCaching.readDjangoViews("pkg/other")).isEmpty();
   }
 
   @Test
-  void readProjectLevelSymbolTableIOException() throws IOException {
+  void readFileRecordIOException() throws IOException {
     TestWriteCache writeCache = new TestWriteCache();
     TestReadCache readCache = new TestReadCache();
     InputStream inputStream = mock(InputStream.class);
     when(inputStream.readAllBytes()).thenThrow(new IOException("Boom!"));
     PythonReadCacheImpl pythonReadCache = Mockito.spy(new PythonReadCacheImpl(readCache));
-    String cacheKey = PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "mod";
+    String cacheKey = FILE_RECORD_KEY_PREFIX + "mod";
     readCache.put(cacheKey, new byte[0]);
     Mockito.when(pythonReadCache.read(cacheKey)).thenReturn(inputStream);
 
     CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), pythonReadCache);
     Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    assertThat(caching.readProjectLevelSymbolTableEntry("mod")).isNull();
-    assertThat(logTester.logs(Level.DEBUG)).contains("Unable to read data for key: \"python:descriptors:mod\"");
+    assertThat(caching.readFileRecord("mod")).isNull();
+    assertThat(logTester.logs(Level.DEBUG)).contains("Unable to read data for key: \"python:file:mod\"");
   }
 
   @Test
-  void writeImportsMapEntry() {
+  void readFileRecordWithOutdatedStringTable() {
     TestWriteCache writeCache = new TestWriteCache();
-    PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
-    PythonReadCache pythonReadCache = new PythonReadCacheImpl(new TestReadCache());
-    CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
+    TestReadCache readCache = new TestReadCache();
+    CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
 
+    // The string table of a previous cache version is not reused, but records don't refer to it
     Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    Set<String> imports = Set.of("mod2", "pkg1.mod3", "pkg2.pkg3.mod4");
-
-    String cacheKey = IMPORTS_MAP_CACHE_KEY_PREFIX + "mod";
-    caching.writeImportsMapEntry("mod", imports);
-    Map<String, byte[]> data = writeCache.getData();
-    Set<String> retrievedDescriptors = Arrays.stream(new String(data.get(cacheKey), StandardCharsets.UTF_8).split(";")).collect(Collectors.toSet());
-    assertThat(retrievedDescriptors).containsExactlyInAnyOrderElementsOf(imports);
+    readCache.put(Caching.CACHE_VERSION_KEY, "previousVersion".getBytes(StandardCharsets.UTF_8));
+    readCache.putFileRecord("mod", HASH, Set.of("mod2"), Set.of(), null);
+    assertThat(caching.readFileRecord("mod").imports()).containsExactly("mod2");
   }
 
   @Test
-  void readImportsMapEntry() {
+  void readCpdTokens() {
     TestWriteCache writeCache = new TestWriteCache();
     TestReadCache readCache = new TestReadCache();
-    writeCache.bind(readCache);
-    PythonWriteCache pythonWriteCache = new PythonWriteCacheImpl(writeCache);
-    PythonReadCache pythonReadCache = new PythonReadCacheImpl(readCache);
-    CacheContextImpl cacheContext = new CacheContextImpl(true, pythonWriteCache, pythonReadCache);
+    CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
+    readCache.putFileRecord("mod", HASH, Set.of("mod2"), DESCRIPTORS, new CpdSerializer.SerializationResult(new byte[] {1, 2}, new byte[] {3}));
+    readCache.putFileRecord("noCpd", HASH, Set.of("mod2"), DESCRIPTORS, null);
 
     Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    Set<String> imports = Set.of("mod2", "pkg1.mod3", "pkg2.pkg3.mod4");
-    String cacheKey = IMPORTS_MAP_CACHE_KEY_PREFIX + "mod";
-    readCache.put(cacheKey, String.join(";", imports).getBytes(StandardCharsets.UTF_8));
-    assertThat(caching.readImportMapEntry("mod")).containsExactlyInAnyOrderElementsOf(imports);
+    CpdSerializer.SerializationResult cpdTokens = caching.readCpdTokens("mod");
+    assertThat(cpdTokens).isNotNull();
+    assertThat(cpdTokens.data).containsExactly(1, 2);
+    assertThat(cpdTokens.stringTable).containsExactly(3);
+    assertThat(caching.readCpdTokens("noCpd")).isNull();
+    assertThat(caching.readCpdTokens("unknown")).isNull();
   }
 
   @Test
-  void readImportsMissingEntry() {
-    TestWriteCache writeCache = new TestWriteCache();
+  void stringTableIsRebuiltOnEachWrite() throws IOException {
     TestReadCache readCache = new TestReadCache();
+    readCache.put(Caching.CACHE_VERSION_KEY, CACHE_VERSION.getBytes(StandardCharsets.UTF_8));
+    readCache.putModuleNames(Caching.PROJECT_FILES_KEY, List.of("pkg.mod1", "pkg.mod2"));
+    PythonWriteCache writeCache = mock(PythonWriteCache.class);
+    Caching caching = new Caching(new CacheContextImpl(true, writeCache, new PythonReadCacheImpl(readCache)), CACHE_VERSION);
+
+    assertThat(caching.readFilesList()).containsExactlyInAnyOrder("pkg.mod1", "pkg.mod2");
+    caching.writeFilesList(List.of("other.mod3"));
+    caching.writeModuleNamesStringTable();
+    caching.writeFilesList(List.of("other.mod4"));
+    caching.writeModuleNamesStringTable();
+
+    ArgumentCaptor<byte[]> stringTables = ArgumentCaptor.forClass(byte[].class);
+    Mockito.verify(writeCache, Mockito.times(2)).write(Mockito.eq(Caching.MODULE_NAMES_STRING_TABLE_KEY), stringTables.capture());
+    assertThat(stringTables.getAllValues().get(0)).isEqualTo(stringTable(List.of("other.mod3")));
+    assertThat(stringTables.getAllValues().get(1)).isEqualTo(stringTable(List.of("other.mod4")));
+  }
+
+  private static byte[] stringTable(List<String> moduleNames) throws IOException {
+    ModuleNamesSerializer serializer = new ModuleNamesSerializer();
+    serializer.serialize(moduleNames);
+    return serializer.serializeStringTable();
+  }
+
+  @Test
+  void stringTableOfPreviousAnalysisReadsItsEntries() {
+    TestReadCache readCache = new TestReadCache();
+    readCache.put(Caching.CACHE_VERSION_KEY, CACHE_VERSION.getBytes(StandardCharsets.UTF_8));
+    readCache.putModuleNames(Caching.PROJECT_FILES_KEY, List.of("pkg.mod1", "pkg.mod2"));
+    readCache.putFileRecord("unchanged", HASH, Set.of("pkg.mod2"), Set.of(), null);
+    TestWriteCache writeCache = new TestWriteCache();
+    writeCache.bind(readCache);
     CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
 
     Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    assertThat(caching.readImportMapEntry("unknown")).isNull();
+    assertThat(caching.readFilesList()).containsExactlyInAnyOrder("pkg.mod1", "pkg.mod2");
+    caching.writeFileRecord("changed", new FileRecord(HASH, Set.of("other.mod3"), Set.of()), null);
+    caching.copyFileRecordFromPrevious("unchanged");
+    caching.writeFilesList(List.of("pkg.mod2", "other.mod3"));
+    caching.writeModuleNamesStringTable();
+
+    assertThat(writeCache.readFileRecord("unchanged").imports()).containsExactly("pkg.mod2");
+    assertThat(writeCache.readFileRecord("changed").imports()).containsExactly("other.mod3");
+    assertThat(writeCache.readModuleNames(Caching.PROJECT_FILES_KEY)).containsExactlyInAnyOrder("pkg.mod2", "other.mod3");
   }
 
   @Test
@@ -181,9 +226,39 @@ class CachingTest {
 
 
     Caching caching = new Caching(cacheContext, CACHE_VERSION);
-    String module = "mod";
-    readCache.put(PROJECT_SYMBOL_TABLE_CACHE_KEY_PREFIX + "mod", new byte[] {42});
-    assertThat(caching.readProjectLevelSymbolTableEntry(module)).isNull();
-    assertThat(logTester.logs(Level.DEBUG)).contains("Failed to deserialize project level symbol table entry for module: \"mod\"");
+    readCache.put(FILE_RECORD_KEY_PREFIX + "mod", new byte[] {42});
+    assertThat(caching.readFileRecord("mod")).isNull();
+    assertThat(caching.readCpdTokens("mod")).isNull();
+    assertThat(logTester.logs(Level.DEBUG)).contains(
+      "Failed to deserialize the cached record of file: \"mod\"",
+      "Failed to deserialize the cached CPD tokens of file: \"mod\"");
+  }
+
+  @Test
+  void globalKeysSuffix() {
+    TestWriteCache writeCache = new TestWriteCache();
+    TestReadCache readCache = new TestReadCache();
+    CacheContextImpl cacheContext = new CacheContextImpl(true, new PythonWriteCacheImpl(writeCache), new PythonReadCacheImpl(readCache));
+    readCache.put(Caching.CACHE_VERSION_KEY, CACHE_VERSION.getBytes(StandardCharsets.UTF_8));
+
+    Caching caching = new Caching(cacheContext, CACHE_VERSION, Caching.IPYNB_GLOBAL_KEYS_SUFFIX);
+    assertThat(caching.isCacheVersionUpToDate()).isFalse();
+    caching.writeCacheVersion();
+    caching.writeFilesList(List.of("mod"));
+    caching.writeTypeshedModules(Set.of("typing"));
+    caching.writeFileRecord("mod.ipynb", new FileRecord(HASH, Set.of(), Set.of()), null);
+    caching.writeModuleNamesStringTable();
+
+    assertThat(writeCache.getData()).containsOnlyKeys(
+      "python:cache_version:ipynb",
+      "python:files:ipynb",
+      "python:typeshed_modules:ipynb",
+      Caching.MODULE_NAMES_STRING_TABLE_KEY + Caching.IPYNB_GLOBAL_KEYS_SUFFIX,
+      FILE_RECORD_KEY_PREFIX + "mod.ipynb");
+    readCache.putAll(writeCache);
+    Caching nextAnalysisCaching = new Caching(cacheContext, CACHE_VERSION, Caching.IPYNB_GLOBAL_KEYS_SUFFIX);
+    assertThat(nextAnalysisCaching.isCacheVersionUpToDate()).isTrue();
+    assertThat(nextAnalysisCaching.readFilesList()).containsExactly("mod");
+    assertThat(nextAnalysisCaching.readTypeshedModules()).containsExactly("typing");
   }
 }
@@ -0,0 +1,119 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.python.caching;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+import org.sonar.api.testfixtures.log.LogTesterJUnit5;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalFileCacheTest {
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5().setLevel(Level.DEBUG);
+
+  @TempDir
+  Path tempDir;
+
+  @Test
+  void write_save_and_load() throws IOException {
+    Path path = tempDir.resolve("sub").resolve("cache.bin");
+    LocalFileCache cache = LocalFileCache.load(path);
+    assertThat(cache.contains("a")).isFalse();
+    cache.write("a", bytes("foo"));
+    cache.write("b", new ByteArrayInputStream(bytes("bar")));
+    // Written entries are only readable once saved
+    assertThat(cache.contains("a")).isFalse();
+    cache.save();
+
+    assertThat(path).exists();
+    assertThat(tempDir.resolve("sub")).isDirectoryContaining(p -> p.equals(path)).isDirectoryNotContaining(p -> p.toString().endsWith(".tmp"));
+    assertThat(read(cache, "a")).isEqualTo(bytes("foo"));
+
+    LocalFileCache reloaded = LocalFileCache.load(path);
+    assertThat(read(reloaded, "a")).isEqualTo(bytes("foo"));
+    assertThat(read(reloaded, "b")).isEqualTo(bytes("bar"));
+  }
+
+  @Test
+  void copy_from_previous() throws IOException {
+    Path path = tempDir.resolve("cache.bin");
+    LocalFileCache cache = LocalFileCache.load(path);
+    cache.write("a", bytes("foo"));
+    cache.write("b", bytes("bar"));
+    cache.save();
+
+    cache.copyFromPrevious("a");
+    cache.save();
+
+    LocalFileCache reloaded = LocalFileCache.load(path);
+    assertThat(read(reloaded, "a")).isEqualTo(bytes("foo"));
+    assertThat(reloaded.contains("b")).isFalse();
+    assertThatThrownBy(() -> reloaded.copyFromPrevious("b"))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Cache file does not contain key \"b\"");
+  }
+
+  @Test
+  void same_key_written_twice() {
+    LocalFileCache cache = LocalFileCache.load(tempDir.resolve("cache.bin"));
+    cache.write("a", bytes("foo"));
+    assertThatThrownBy(() -> cache.write("a", bytes("bar")))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Same key cannot be written to multiple times (a)");
+  }
+
+  @Test
+  void read_missing_key() {
+    LocalFileCache cache = LocalFileCache.load(tempDir.resolve("cache.bin"));
+    assertThatThrownBy(() -> cache.read("a"))
+      .isInstanceOf(IllegalArgumentException.class)
+      .hasMessage("Cache file does not contain key \"a\"");
+  }
+
+  @Test
+  void corrupted_file() throws IOException {
+    Path path = tempDir.resolve("cache.bin");
+    Files.write(path, new byte[] {1, 5, 3});
+    LocalFileCache cache = LocalFileCache.load(path);
+    assertThat(cache.contains("a")).isFalse();
+    assertThat(logTester.logs(Level.DEBUG)).anyMatch(log -> log.startsWith("Could not read cache file"));
+
+    Files.write(path, new byte[] {42});
+    assertThat(LocalFileCache.load(path).contains("a")).isFalse();
+  }
+
+  private static byte[] read(LocalFileCache cache, String key) throws IOException {
+    try (InputStream in = cache.read(key)) {
+      return in.readAllBytes();
+    }
+  }
+
+  private static byte[] bytes(String value) {
+    return value.getBytes(StandardCharsets.UTF_8);
+  }
+}
@@ -17,13 +17,23 @@
 package org.sonar.plugins.python.caching;
 
 import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import javax.annotation.Nullable;
 import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.python.caching.CpdSerializer;
+import org.sonar.python.caching.ModuleNamesSerializer;
+import org.sonar.python.index.Descriptor;
 
 public class TestReadCache implements ReadCache {
   private final Map<String, byte[]> data = new HashMap<>();
+  private final ModuleNamesSerializer moduleNamesSerializer = new ModuleNamesSerializer();
 
   @Override
   public InputStream read(String key) {
@@ -47,6 +57,33 @@ public class TestReadCache implements ReadCache {
     return this;
   }
 
+  /**
+   * Puts an entry holding module names, along with the string table it refers to.
+   */
+  public TestReadCache putModuleNames(String key, Collection<String> moduleNames) {
+    try {
+      this.data.put(key, moduleNamesSerializer.serialize(moduleNames));
+      this.data.put(Caching.MODULE_NAMES_STRING_TABLE_KEY, moduleNamesSerializer.serializeStringTable());
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return this;
+  }
+
+  /**
+   * Puts the record of a file.
+   */
+  public TestReadCache putFileRecord(String fileKey, byte[] contentHash, Collection<String> imports, Set<Descriptor> descriptors,
+    @Nullable CpdSerializer.SerializationResult cpdTokens) {
+    try {
+      Caching.FileRecord fileRecord = new Caching.FileRecord(contentHash, new HashSet<>(imports), descriptors);
+      this.data.put(Caching.fileRecordCacheKey(fileKey), Caching.serializeFileRecord(fileRecord, cpdTokens));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+    return this;
+  }
+
   public TestReadCache putAll(Map<String, byte[]> data) {
     this.data.putAll(data);
     return this;
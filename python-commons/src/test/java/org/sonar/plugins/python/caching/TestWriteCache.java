@@ -18,10 +18,14 @@ package org.sonar.plugins.python.caching;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import org.sonar.api.batch.sensor.cache.ReadCache;
 import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.python.caching.CpdSerializer;
+import org.sonar.python.caching.ModuleNamesSerializer;
 
 public class TestWriteCache implements WriteCache {
 
@@ -37,6 +41,33 @@ public class TestWriteCache implements WriteCache {
     return data;
   }
 
+  /**
+   * Reads an entry holding module names, using the string table written along with it.
+   */
+  public Set<String> readModuleNames(String key) {
+    try {
+      return ModuleNamesSerializer.fromStringTable(data.get(Caching.MODULE_NAMES_STRING_TABLE_KEY)).deserialize(data.get(key));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public Caching.FileRecord readFileRecord(String fileKey) {
+    try {
+      return Caching.deserializeFileRecord(data.get(Caching.fileRecordCacheKey(fileKey)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  public CpdSerializer.SerializationResult readCpdTokens(String fileKey) {
+    try {
+      return Caching.deserializeCpdTokens(data.get(Caching.fileRecordCacheKey(fileKey)));
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   @Override
   public void write(String key, InputStream data) {
     try {
@@ -33,6 +33,7 @@ import org.slf4j.event.Level;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.testfixtures.log.LogTesterJUnit5;
 import org.sonar.plugins.python.Python;
 import org.sonar.plugins.python.PythonInputFile;
@@ -50,6 +51,7 @@ import org.sonarsource.sonarlint.plugin.api.module.file.ModuleFileEvent;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
 class SonarLintPythonIndexerTest {
@@ -108,6 +110,9 @@ class SonarLintPythonIndexerTest {
     when(moduleFileEvent.getType()).thenReturn(ModuleFileEvent.Type.DELETED);
     when(moduleFileEvent.getTarget()).thenReturn(file2.wrappedFile());
     pythonIndexer.process(moduleFileEvent);
+    // Events are processed at the beginning of the next analysis
+    assertThat(projectLevelSymbolTable.getSymbolsFromModule("mod")).hasSize(1);
+    pythonIndexer.buildOnce(context);
 
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("main")).hasSize(1);
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("mod")).isNull();
@@ -121,9 +126,11 @@ class SonarLintPythonIndexerTest {
     when(moduleFileEvent.getType()).thenReturn(ModuleFileEvent.Type.DELETED);
     when(moduleFileEvent.getTarget()).thenReturn(file2.wrappedFile());
     pythonIndexer.process(moduleFileEvent);
+    pythonIndexer.buildOnce(context);
 
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("mod")).isNull();
     pythonIndexer.process(moduleFileEvent);
+    pythonIndexer.buildOnce(context);
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("mod")).isNull();
 
   }
@@ -135,6 +142,7 @@ class SonarLintPythonIndexerTest {
     when(moduleFileEvent.getType()).thenReturn(ModuleFileEvent.Type.CREATED);
     when(moduleFileEvent.getTarget()).thenReturn(file3.wrappedFile());
     pythonIndexer.process(moduleFileEvent);
+    pythonIndexer.buildOnce(context);
 
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("main")).hasSize(1);
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("added")).hasSize(1);
@@ -155,10 +163,11 @@ class SonarLintPythonIndexerTest {
     when(moduleFileEvent.getType()).thenReturn(ModuleFileEvent.Type.CREATED);
     when(moduleFileEvent.getTarget()).thenReturn(nonExistentFile);
     pythonIndexer.process(moduleFileEvent);
+    pythonIndexer.buildOnce(context);
 
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("main")).hasSize(1);
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("nonexistent")).isNull();
-    assertThat(logTester.logs(Level.DEBUG)).contains("Failed to load file \"nonexistent.py\" (CREATED) to the project symbol table");
+    assertThat(logTester.logs(Level.DEBUG)).contains("Unable to construct project-level symbol table for file: nonexistent.py");
   }
 
   @Test
@@ -167,6 +176,7 @@ class SonarLintPythonIndexerTest {
     when(moduleFileEvent.getType()).thenReturn(ModuleFileEvent.Type.MODIFIED);
     when(moduleFileEvent.getTarget()).thenReturn(file2.wrappedFile());
     pythonIndexer.process(moduleFileEvent);
+    pythonIndexer.buildOnce(context);
 
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("main")).hasSize(1);
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("mod")).hasSize(1);
@@ -174,6 +184,54 @@ class SonarLintPythonIndexerTest {
     assertThat(modAddSymbol).isNotNull();
   }
 
+  @Test
+  void test_indexer_events_coalesced_per_file() {
+    PythonInputFile file3 = createInputFile("added.py");
+    pythonIndexer.process(event(ModuleFileEvent.Type.MODIFIED, file2));
+    pythonIndexer.process(event(ModuleFileEvent.Type.CREATED, file3));
+    pythonIndexer.process(event(ModuleFileEvent.Type.MODIFIED, file2));
+    pythonIndexer.process(event(ModuleFileEvent.Type.MODIFIED, file3));
+    pythonIndexer.process(event(ModuleFileEvent.Type.DELETED, file2));
+    pythonIndexer.buildOnce(context);
+
+    assertThat(logTester.logs(Level.DEBUG)).contains("Processing module file events of 2 files");
+    assertThat(projectLevelSymbolTable.getSymbolsFromModule("main")).hasSize(1);
+    assertThat(projectLevelSymbolTable.getSymbolsFromModule("mod")).isNull();
+    assertThat(projectLevelSymbolTable.getSymbol("mod.add")).isNull();
+    assertThat(projectLevelSymbolTable.getSymbol("added.new_func")).isNotNull();
+    assertThat(pythonIndexer.getFileWithId(file3.wrappedFile().absolutePath())).isEqualTo(file3.wrappedFile());
+
+    logTester.clear();
+    pythonIndexer.buildOnce(context);
+    assertThat(logTester.logs(Level.DEBUG)).noneMatch(log -> log.startsWith("Processing module file events"));
+  }
+
+  @Test
+  void test_indexer_events_in_parallel() {
+    context.setSettings(new MapSettings().setProperty("sonar.python.analysis.threads", 2));
+    PythonInputFile file3 = createInputFile("added.py");
+    pythonIndexer.process(event(ModuleFileEvent.Type.MODIFIED, file1));
+    pythonIndexer.process(event(ModuleFileEvent.Type.MODIFIED, file2));
+    pythonIndexer.process(event(ModuleFileEvent.Type.CREATED, file3));
+    pythonIndexer.buildOnce(context);
+
+    assertThat(logTester.logs(Level.DEBUG)).contains("Using 2 threads for global symbols computation");
+    assertThat(projectLevelSymbolTable.getSymbolsFromModule("main")).hasSize(1);
+    assertThat(projectLevelSymbolTable.getSymbol("mod.add")).isNotNull();
+    assertThat(projectLevelSymbolTable.getSymbol("added.new_func")).isNotNull();
+  }
+
+  @Test
+  void test_indexer_events_before_first_analysis() {
+    SonarLintPythonIndexer indexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, file2))));
+    indexer.process(event(ModuleFileEvent.Type.MODIFIED, file2));
+    indexer.buildOnce(context);
+
+    // The module file system already reflects the event: it is not processed again
+    assertThat(logTester.logs(Level.DEBUG)).noneMatch(log -> log.startsWith("Processing module file events"));
+    assertThat(indexer.projectLevelSymbolTable().getSymbol("mod.add")).isNotNull();
+  }
+
   @Test
   void test_indexer_non_python_file() {
     testNonPythonFile("txt");
@@ -209,12 +267,177 @@ class SonarLintPythonIndexerTest {
     }
   }
 
+  @Test
+  void test_index_cache_file_restores_unchanged_files() {
+    pythonIndexer.postAnalysis(context);
+    assertThat(indexCacheFile()).exists();
+
+    SonarLintPythonIndexer restartedIndexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, file2))));
+    restartedIndexer.buildOnce(context);
+
+    assertThat(logTester.logs(Level.DEBUG)).contains("Global symbols of 2 out of 2 files restored from the index cache file");
+    assertThat(logTester.logs(Level.DEBUG)).contains("Input files for indexing: []");
+    ProjectLevelSymbolTable restoredSymbolTable = restartedIndexer.projectLevelSymbolTable();
+    assertThat(restoredSymbolTable.getSymbolsFromModule("main")).hasSize(1);
+    Symbol modAddSymbol = restoredSymbolTable.getSymbol("mod.add");
+    assertThat(modAddSymbol).isNotNull();
+    assertThat(modAddSymbol.is(Symbol.Kind.FUNCTION)).isTrue();
+    assertThat(restartedIndexer.getFileWithId(file2.wrappedFile().absolutePath())).isEqualTo(file2.wrappedFile());
+  }
+
+  @Test
+  void test_index_cache_file_modified_file() {
+    pythonIndexer.postAnalysis(context);
+
+    PythonInputFile modifiedMain = new PythonInputFileImpl(TestInputFileBuilder.create("moduleKey", "main.py")
+      .setModuleBaseDir(baseDir.toPath())
+      .setCharset(StandardCharsets.UTF_8)
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(Python.KEY)
+      .setContents("from mod import add\ndef new_func(): pass\n")
+      .build());
+    SonarLintPythonIndexer restartedIndexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(modifiedMain, file2))));
+    restartedIndexer.buildOnce(context);
+
+    // "main" imports "mod": only "mod" is restored
+    assertThat(logTester.logs(Level.DEBUG)).contains("Global symbols of 1 out of 2 files restored from the index cache file");
+    ProjectLevelSymbolTable restoredSymbolTable = restartedIndexer.projectLevelSymbolTable();
+    assertThat(restoredSymbolTable.getSymbol("main.new_func")).isNotNull();
+    assertThat(restoredSymbolTable.getSymbol("mod.add")).isNotNull();
+  }
+
+  @Test
+  void test_index_cache_file_records_the_indexed_content() throws IOException {
+    InputFile modifiedAfterIndexing = spy(createInputFile("mod.py").wrappedFile());
+    when(modifiedAfterIndexing.contents()).thenReturn("def old_func(): pass\n", "def new_func(): pass\n");
+    SonarLintPythonIndexer indexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, new PythonInputFileImpl(modifiedAfterIndexing)))));
+    indexer.buildOnce(context);
+    // The file is modified again before the index cache file is saved
+    indexer.postAnalysis(context);
+
+    PythonInputFile modifiedMod = new PythonInputFileImpl(TestInputFileBuilder.create("moduleKey", "mod.py")
+      .setModuleBaseDir(baseDir.toPath())
+      .setCharset(StandardCharsets.UTF_8)
+      .setType(InputFile.Type.MAIN)
+      .setLanguage(Python.KEY)
+      .setContents("def new_func(): pass\n")
+      .build());
+    SonarLintPythonIndexer restartedIndexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, modifiedMod))));
+    restartedIndexer.buildOnce(context);
+
+    ProjectLevelSymbolTable restoredSymbolTable = restartedIndexer.projectLevelSymbolTable();
+    assertThat(restoredSymbolTable.getSymbol("mod.new_func")).isNotNull();
+    assertThat(restoredSymbolTable.getSymbol("mod.old_func")).isNull();
+  }
+
+  @Test
+  void test_index_cache_file_deleted_file() {
+    pythonIndexer.postAnalysis(context);
+
+    SonarLintPythonIndexer restartedIndexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1))));
+    restartedIndexer.buildOnce(context);
+
+    // "main" depends on the deleted module "mod": it is indexed again
+    assertThat(logTester.logs(Level.DEBUG)).noneMatch(log -> log.startsWith("Global symbols of"));
+    assertThat(restartedIndexer.projectLevelSymbolTable().getSymbolsFromModule("main")).hasSize(1);
+    assertThat(restartedIndexer.projectLevelSymbolTable().getSymbolsFromModule("mod")).isNull();
+  }
+
+  @Test
+  void test_index_cache_file_not_saved_when_all_modules_are_restored() throws IOException {
+    pythonIndexer.postAnalysis(context);
+
+    SonarLintPythonIndexer restartedIndexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, file2))));
+    restartedIndexer.buildOnce(context);
+    Files.delete(indexCacheFile());
+    restartedIndexer.postAnalysis(context);
+
+    assertThat(indexCacheFile()).doesNotExist();
+  }
+
+  @Test
+  void test_index_cache_file_updated_on_file_events() throws IOException {
+    context.setSettings(new MapSettings().setProperty(SonarLintPythonIndexer.INDEX_CACHE_SAVE_INTERVAL_PROPERTY, 0));
+    pythonIndexer.postAnalysis(context);
+    ModuleFileEvent moduleFileEvent = mock(ModuleFileEvent.class);
+    when(moduleFileEvent.getType()).thenReturn(ModuleFileEvent.Type.CREATED);
+    PythonInputFile file3 = createInputFile("added.py");
+    when(moduleFileEvent.getTarget()).thenReturn(file3.wrappedFile());
+    pythonIndexer.process(moduleFileEvent);
+    pythonIndexer.buildOnce(context);
+    pythonIndexer.postAnalysis(context);
+
+    SonarLintPythonIndexer restartedIndexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, file2, file3))));
+    restartedIndexer.buildOnce(context);
+
+    assertThat(logTester.logs(Level.DEBUG)).contains("Global symbols of 3 out of 3 files restored from the index cache file");
+    assertThat(restartedIndexer.projectLevelSymbolTable().getSymbol("added.new_func")).isNotNull();
+  }
+
+  @Test
+  void test_index_cache_file_saves_on_file_events_are_debounced() {
+    pythonIndexer.postAnalysis(context);
+    PythonInputFile file3 = createInputFile("added.py");
+    pythonIndexer.process(event(ModuleFileEvent.Type.CREATED, file3));
+    pythonIndexer.buildOnce(context);
+    // The index cache file was saved less than a minute ago
+    pythonIndexer.postAnalysis(context);
+
+    SonarLintPythonIndexer restartedIndexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, file2, file3))));
+    restartedIndexer.buildOnce(context);
+
+    assertThat(logTester.logs(Level.DEBUG)).contains("Global symbols of 2 out of 3 files restored from the index cache file");
+    assertThat(restartedIndexer.projectLevelSymbolTable().getSymbol("added.new_func")).isNotNull();
+  }
+
+  @Test
+  void test_index_cache_file_name_depends_on_module() {
+    assertThat(SonarLintPythonIndexer.indexCacheFileName("/path/to/module1"))
+      .startsWith("python-sonarlint-index-")
+      .isNotEqualTo(SonarLintPythonIndexer.indexCacheFileName("/path/to/module2"));
+  }
+
+  @Test
+  void test_index_cache_file_not_counted_in_max_lines() {
+    pythonIndexer.postAnalysis(context);
+    context.setSettings(new MapSettings().setProperty("sonar.python.sonarlint.indexing.maxlines", 1));
+
+    SonarLintPythonIndexer restartedIndexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, file2))));
+    restartedIndexer.buildOnce(context);
+
+    assertThat(logTester.logs(Level.DEBUG)).noneMatch(log -> log.startsWith("Project symbol table deactivated"));
+    assertThat(restartedIndexer.projectLevelSymbolTable().getSymbol("mod.add")).isNotNull();
+  }
+
+  @Test
+  void test_index_cache_file_disabled() {
+    context.setSettings(new MapSettings().setProperty(SonarLintPythonIndexer.INDEX_CACHE_FILE_PROPERTY, ""));
+    SonarLintPythonIndexer indexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, file2))));
+    indexer.buildOnce(context);
+    indexer.postAnalysis(context);
+
+    assertThat(indexCacheFile()).doesNotExist();
+    assertThat(indexer.projectLevelSymbolTable().getSymbol("mod.add")).isNotNull();
+  }
+
+  @Test
+  void test_index_cache_file_custom_path() throws IOException {
+    Path cacheFile = Files.createTempDirectory("cacheDir").resolve("index.bin");
+    context.setSettings(new MapSettings().setProperty(SonarLintPythonIndexer.INDEX_CACHE_FILE_PROPERTY, cacheFile.toString()));
+    SonarLintPythonIndexer indexer = new SonarLintPythonIndexer(new TestModuleFileSystem(new ArrayList<>(List.of(file1, file2))));
+    indexer.buildOnce(context);
+    indexer.postAnalysis(context);
+
+    assertThat(cacheFile).exists();
+  }
+
   private void testNonPythonFile(@Nullable String language) {
     ModuleFileEvent moduleFileEvent = mock(ModuleFileEvent.class);
     PythonInputFile txtFile = createInputFile("non_python.txt", language);
     when(moduleFileEvent.getTarget()).thenReturn(txtFile.wrappedFile());
     try {
       pythonIndexer.process(moduleFileEvent);
+      pythonIndexer.buildOnce(context);
     } catch (RecognitionException exception) {
       fail("Non Python files should not be parsed.");
     }
@@ -222,6 +445,17 @@ class SonarLintPythonIndexerTest {
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("non_python")).isNull();
   }
 
+  private Path indexCacheFile() {
+    return context.fileSystem().workDir().toPath().resolve(SonarLintPythonIndexer.indexCacheFileName(baseDir.getAbsolutePath()));
+  }
+
+  private static ModuleFileEvent event(ModuleFileEvent.Type type, PythonInputFile target) {
+    ModuleFileEvent moduleFileEvent = mock(ModuleFileEvent.class);
+    when(moduleFileEvent.getType()).thenReturn(type);
+    when(moduleFileEvent.getTarget()).thenReturn(target.wrappedFile());
+    return moduleFileEvent;
+  }
+
   private PythonInputFile inputFile(String name) {
     PythonInputFile inputFile = createInputFile(name);
     context.fileSystem().add(inputFile.wrappedFile());
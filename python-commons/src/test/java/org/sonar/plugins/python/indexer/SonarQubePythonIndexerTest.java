@@ -24,8 +24,8 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
@@ -38,12 +38,18 @@ import org.sonar.api.testfixtures.log.LogTesterJUnit5;
 import org.sonar.plugins.python.PythonInputFile;
 import org.sonar.plugins.python.api.caching.PythonReadCache;
 import org.sonar.plugins.python.api.caching.PythonWriteCache;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.caching.Caching;
 import org.sonar.plugins.python.caching.TestReadCache;
 import org.sonar.plugins.python.caching.TestWriteCache;
 import org.sonar.python.caching.CacheContextImpl;
+import org.sonar.python.caching.CpdSerializer;
 import org.sonar.python.caching.PythonReadCacheImpl;
 import org.sonar.python.caching.PythonWriteCacheImpl;
+import org.sonar.python.index.ClassDescriptor;
+import org.sonar.python.index.Descriptor;
 import org.sonar.python.index.VariableDescriptor;
+import org.sonar.python.semantic.ProjectLevelSymbolTable;
 import org.sonar.python.types.TypeShed;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -54,10 +60,7 @@ import static org.sonar.plugins.python.TestUtils.createInputFile;
 import static org.sonar.plugins.python.caching.Caching.CACHE_VERSION_KEY;
 import static org.sonar.plugins.python.caching.Caching.PROJECT_FILES_KEY;
 import static org.sonar.plugins.python.caching.Caching.TYPESHED_MODULES_KEY;
-import static org.sonar.plugins.python.caching.Caching.fileContentHashCacheKey;
-import static org.sonar.plugins.python.caching.Caching.importsMapCacheKey;
-import static org.sonar.plugins.python.caching.Caching.projectSymbolTableCacheKey;
-import static org.sonar.python.index.DescriptorsToProtobuf.toProtobufModuleDescriptor;
+import static org.sonar.plugins.python.caching.Caching.fileRecordCacheKey;
 
 class SonarQubePythonIndexerTest {
 
@@ -100,14 +103,10 @@ class SonarQubePythonIndexerTest {
 
     List<PythonInputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file2.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
+    Set<Descriptor> mainDescriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    Set<Descriptor> outdatedDescriptors = Set.of(new VariableDescriptor("outdated", "mod.outdated", null));
+    readCache.putFileRecord("moduleKey:main.py", contentHash(file1), List.of("mod"), mainDescriptors, null);
+    readCache.putFileRecord("moduleKey:mod.py", contentHash(file2), Collections.emptyList(), outdatedDescriptors, null);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -130,14 +129,10 @@ class SonarQubePythonIndexerTest {
 
     List<PythonInputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("unknown", "mod", "other")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), importsAsByteArray(Collections.emptyList()));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file2.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
+    Set<Descriptor> mainDescriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    Set<Descriptor> outdatedDescriptors = Set.of(new VariableDescriptor("outdated", "mod.outdated", null));
+    readCache.putFileRecord("moduleKey:main.py", contentHash(file1), List.of("unknown", "mod", "other"), mainDescriptors, null);
+    readCache.putFileRecord("moduleKey:mod.py", contentHash(file2), Collections.emptyList(), outdatedDescriptors, null);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -157,14 +152,9 @@ class SonarQubePythonIndexerTest {
 
     List<PythonInputFile> inputFiles = new ArrayList<>(List.of(file1));
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("unknown", "mod", "other")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), importsAsByteArray(Collections.emptyList()));
-    readCache.put(PROJECT_FILES_KEY, importsAsByteArray(List.of("main", "mod")));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
+    Set<Descriptor> mainDescriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    readCache.putModuleNames(PROJECT_FILES_KEY, List.of("main", "mod"));
+    readCache.putFileRecord("moduleKey:main.py", contentHash(file1), List.of("unknown", "mod", "other"), mainDescriptors, null);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -175,8 +165,8 @@ class SonarQubePythonIndexerTest {
       .contains("Fully optimized analysis can be performed for 0 out of 1 files.")
       .contains("Partially optimized analysis can be performed for 1 out of 1 files.");
 
-    byte[] bytes = writeCache.getData().get(PROJECT_FILES_KEY);
-    HashSet<String> retrievedFileList = new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+    pythonIndexer.postAnalysis(context);
+    Set<String> retrievedFileList = writeCache.readModuleNames(PROJECT_FILES_KEY);
     assertThat(retrievedFileList).containsExactlyInAnyOrder("main");
   }
 
@@ -186,14 +176,9 @@ class SonarQubePythonIndexerTest {
 
     List<PythonInputFile> inputFiles = new ArrayList<>(List.of(file1));
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("unknown", "mod", "other")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), importsAsByteArray(Collections.emptyList()));
-    readCache.put(PROJECT_FILES_KEY, importsAsByteArray(List.of("main", "mod")));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
+    Set<Descriptor> outdatedDescriptors = Set.of(new VariableDescriptor("outdated", "mod.outdated", null));
+    readCache.putModuleNames(PROJECT_FILES_KEY, List.of("main", "mod"));
+    readCache.putFileRecord("moduleKey:mod.py", contentHash(file1), Collections.emptyList(), outdatedDescriptors, null);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -202,8 +187,8 @@ class SonarQubePythonIndexerTest {
       .contains("Cached information of global symbols will be used for 1 out of 1 main files. Global symbols will be recomputed for the remaining files.")
       .contains("Fully optimized analysis can be performed for 1 out of 1 files.");
 
-    byte[] bytes = writeCache.getData().get(PROJECT_FILES_KEY);
-    HashSet<String> retrievedFileList = new HashSet<>(Arrays.asList(new String(bytes, StandardCharsets.UTF_8).split(";")));
+    pythonIndexer.postAnalysis(context);
+    Set<String> retrievedFileList = writeCache.readModuleNames(PROJECT_FILES_KEY);
     assertThat(retrievedFileList).containsExactlyInAnyOrder("mod");
   }
 
@@ -215,8 +200,6 @@ class SonarQubePythonIndexerTest {
     List<PythonInputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file2.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
     pythonIndexer.buildOnce(context);
 
     assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file1)).isFalse();
@@ -228,41 +211,14 @@ class SonarQubePythonIndexerTest {
   }
 
   @Test
-  void test_no_file_modified_missing_imports() {
+  void test_no_file_modified_corrupted_record() {
     file1 = createInputFile(baseDir, "main.py", InputFile.Status.SAME, InputFile.Type.MAIN);
     file2 = createInputFile(baseDir, "mod.py", InputFile.Status.SAME, InputFile.Type.MAIN);
 
     List<PythonInputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file2.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
-
-    pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
-    pythonIndexer.buildOnce(context);
-
-    assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file1)).isFalse();
-    assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file2)).isFalse();
-    assertThat(logTester.logs(Level.INFO))
-      .contains("Cached information of global symbols will be used for 0 out of 2 main files. Global symbols will be recomputed for the remaining files.")
-      .contains("Fully optimized analysis can be performed for 0 out of 2 files.")
-      .contains("2/2 source files have been analyzed");
-  }
-
-  @Test
-  void test_no_file_modified_missing_descriptors() {
-    file1 = createInputFile(baseDir, "main.py", InputFile.Status.SAME, InputFile.Type.MAIN);
-    file2 = createInputFile(baseDir, "mod.py", InputFile.Status.SAME, InputFile.Type.MAIN);
-
-    List<PythonInputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
-
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), importsAsByteArray(Collections.emptyList()));
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file2.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
+    readCache.put(fileRecordCacheKey("moduleKey:main.py"), new byte[] {42});
+    readCache.put(fileRecordCacheKey("moduleKey:mod.py"), new byte[] {42});
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
@@ -285,14 +241,10 @@ class SonarQubePythonIndexerTest {
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     readCache.put(CACHE_VERSION_KEY, "outdatedVersion".getBytes(StandardCharsets.UTF_8));
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file2.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
+    Set<Descriptor> mainDescriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    Set<Descriptor> outdatedDescriptors = Set.of(new VariableDescriptor("outdated", "mod.outdated", null));
+    readCache.putFileRecord("moduleKey:main.py", contentHash(file1), List.of("mod"), mainDescriptors, null);
+    readCache.putFileRecord("moduleKey:mod.py", contentHash(file2), Collections.emptyList(), outdatedDescriptors, null);
 
     pythonIndexer.buildOnce(context);
 
@@ -314,14 +266,10 @@ class SonarQubePythonIndexerTest {
     context.settings().setProperty("sonar.python.version", "3.11");
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
 
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file2.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
+    Set<Descriptor> mainDescriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    Set<Descriptor> outdatedDescriptors = Set.of(new VariableDescriptor("outdated", "mod.outdated", null));
+    readCache.putFileRecord("moduleKey:main.py", contentHash(file1), List.of("mod"), mainDescriptors, null);
+    readCache.putFileRecord("moduleKey:mod.py", contentHash(file2), Collections.emptyList(), outdatedDescriptors, null);
 
     pythonIndexer.buildOnce(context);
 
@@ -337,14 +285,12 @@ class SonarQubePythonIndexerTest {
   void test_test_files_use_cache() {
     file1 = createInputFile(baseDir, "main.py", InputFile.Status.SAME, InputFile.Type.TEST);
     file2 = createInputFile(baseDir, "mod.py", InputFile.Status.CHANGED, InputFile.Type.TEST);
-    readCache.put(fileContentHashCacheKey("moduleKey:main.py"), file1.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
 
     List<PythonInputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2));
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
-    byte[] serializedSymbolTable = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("x", "main.x", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:main.py"), importsAsByteArray(List.of("mod")));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:main.py"), serializedSymbolTable);
+    Set<Descriptor> mainDescriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    readCache.putFileRecord("moduleKey:main.py", contentHash(file1), List.of("mod"), mainDescriptors, null);
 
     pythonIndexer.buildOnce(context);
 
@@ -371,6 +317,39 @@ class SonarQubePythonIndexerTest {
     assertThat(logTester.logs(Level.INFO)).doesNotContain("Using cached data to retrieve global symbols.");
   }
 
+  @Test
+  void test_cached_symbols_of_unimpacted_files_reused_when_unchanged_files_cannot_be_skipped() {
+    file1 = createInputFile(baseDir, "main.py", InputFile.Status.SAME, InputFile.Type.MAIN);
+    file2 = createInputFile(baseDir, "mod.py", InputFile.Status.CHANGED, InputFile.Type.MAIN);
+    PythonInputFile file3 = createInputFile(baseDir, "added.py", InputFile.Status.SAME, InputFile.Type.MAIN);
+
+    List<PythonInputFile> inputFiles = new ArrayList<>(Arrays.asList(file1, file2, file3));
+
+    Set<Descriptor> mainDescriptors = Set.of(new VariableDescriptor("x", "main.x", null));
+    Set<Descriptor> addedDescriptors = Set.of(new VariableDescriptor("cached", "added.cached", null));
+    readCache.putFileRecord("moduleKey:main.py", contentHash(file1), List.of("mod"), mainDescriptors, null);
+    readCache.putFileRecord("moduleKey:added.py", contentHash(file3), Collections.emptyList(), addedDescriptors, null);
+
+    context.settings().setProperty("sonar.python.skipUnchanged", false);
+    pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
+    pythonIndexer.buildOnce(context);
+
+    assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file1)).isFalse();
+    assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file2)).isFalse();
+    assertThat(pythonIndexer.canBePartiallyScannedWithoutParsing(file3)).isFalse();
+    assertThat(pythonIndexer.projectLevelSymbolTable().getDescriptorsFromModule("added"))
+      .extracting(Descriptor::name)
+      .containsExactly("cached");
+    // Reused symbols are registered under the module name, as if they had been computed: they are visible to imports
+    assertThat(pythonIndexer.projectLevelSymbolTable().getSymbolsFromModule("added")).extracting(Symbol::name).containsExactly("cached");
+    assertThat(pythonIndexer.projectLevelSymbolTable().getSymbol("added.cached")).isNotNull();
+    assertThat(logTester.logs(Level.INFO))
+      .contains("Using cached data to retrieve global symbols of unchanged files which are not impacted by modifications.")
+      .contains("Cached information of global symbols will be used for 1 out of 3 main files. Global symbols will be recomputed for the remaining files.")
+      .contains("2/2 source files have been analyzed")
+      .doesNotContain("Using cached data to retrieve global symbols.");
+  }
+
   @Test
   void test_pr_analysis_enabled() {
     file1 = createInputFile(baseDir, "main.py", InputFile.Status.CHANGED, InputFile.Type.MAIN);
@@ -422,7 +401,7 @@ class SonarQubePythonIndexerTest {
   void test_regular_scan_when_scan_without_parsing_fails() {
     List<PythonInputFile> files = List.of(createInputFile(baseDir, "main.py", InputFile.Status.SAME, InputFile.Type.MAIN));
     PythonIndexer.GlobalSymbolsScanner globalSymbolsScanner = spy(
-      new SonarQubePythonIndexer(files, cacheContext, context).new GlobalSymbolsScanner(context));
+      new SonarQubePythonIndexer(files, cacheContext, context).new GlobalSymbolsScanner(context, false));
     when(globalSymbolsScanner.canBeScannedWithoutParsing(any())).thenReturn(true);
     globalSymbolsScanner.execute(files, context);
 
@@ -437,7 +416,8 @@ class SonarQubePythonIndexerTest {
 
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
-    assertThat(writeCache.getData().containsKey(projectSymbolTableCacheKey("moduleKey:parse_error.py"))).isFalse();
+    pythonIndexer.postAnalysis(context);
+    assertThat(writeCache.getData().containsKey(fileRecordCacheKey("moduleKey:parse_error.py"))).isFalse();
   }
 
   @Test
@@ -447,10 +427,8 @@ class SonarQubePythonIndexerTest {
 
     List<PythonInputFile> inputFiles = new ArrayList<>(List.of(file1));
 
-    byte[] outdatedEntry = toProtobufModuleDescriptor(Set.of(new VariableDescriptor("outdated", "mod.outdated", null))).toByteArray();
-    readCache.put(importsMapCacheKey("moduleKey:mod.py"), String.join(";", Collections.emptyList()).getBytes(StandardCharsets.UTF_8));
-    readCache.put(projectSymbolTableCacheKey("moduleKey:mod.py"), outdatedEntry);
-    readCache.put(fileContentHashCacheKey("moduleKey:mod.py"), file2.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8));
+    Set<Descriptor> outdatedDescriptors = Set.of(new VariableDescriptor("outdated", "mod.outdated", null));
+    readCache.putFileRecord("moduleKey:mod.py", contentHash(file2), Collections.emptyList(), outdatedDescriptors, null);
     pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
     pythonIndexer.buildOnce(context);
 
@@ -470,7 +448,123 @@ class SonarQubePythonIndexerTest {
     assertThat(pythonIndexer.projectLevelSymbolTable().getSymbolsFromModule("notebook")).isEmpty();
   }
 
-  private byte[] importsAsByteArray(List<String> mod) {
-    return String.join(";", mod).getBytes(StandardCharsets.UTF_8);
+  @Test
+  void test_parallel_indexing() {
+    context.settings().setProperty("sonar.python.analysis.threads", 3);
+    file1 = createInputFile(baseDir, "main.py", InputFile.Status.ADDED, InputFile.Type.MAIN);
+    file2 = createInputFile(baseDir, "mod.py", InputFile.Status.ADDED, InputFile.Type.MAIN);
+    PythonInputFile parseError = createInputFile(baseDir, "parse_error.py", InputFile.Status.ADDED, InputFile.Type.MAIN);
+    List<PythonInputFile> inputFiles = new ArrayList<>(List.of(file1, file2, parseError));
+
+    pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
+    pythonIndexer.buildOnce(context);
+
+    assertThat(logTester.logs(Level.DEBUG)).contains("Using 3 threads for global symbols computation");
+    assertThat(pythonIndexer.projectLevelSymbolTable().getDescriptorsFromModule("main")).isNotNull();
+    assertThat(pythonIndexer.projectLevelSymbolTable().getDescriptorsFromModule("mod")).extracting(Descriptor::name).containsExactly("add");
+    assertThat(pythonIndexer.projectLevelSymbolTable().getDescriptorsFromModule("parse_error")).isNull();
+    assertThat(pythonIndexer.projectLevelSymbolTable().importsByModule().get("main")).contains("mod");
+    pythonIndexer.postAnalysis(context);
+    assertThat(writeCache.getData())
+      .containsKey(fileRecordCacheKey("moduleKey:main.py"))
+      .containsKey(fileRecordCacheKey("moduleKey:mod.py"))
+      .doesNotContainKey(fileRecordCacheKey("moduleKey:parse_error.py"));
+  }
+
+  @Test
+  void test_sequential_and_parallel_indexing_compute_the_same_descriptors() {
+    Map<String, Set<Descriptor>> sequentialDescriptors = indexModulesWithImports(1);
+    Map<String, Set<Descriptor>> parallelDescriptors = indexModulesWithImports(3);
+
+    assertThat(sequentialDescriptors.get("lib")).extracting(Descriptor::name).containsExactly("Derived");
+    assertThat(((ClassDescriptor) sequentialDescriptors.get("lib").iterator().next()).superClasses()).containsExactly("library.Base");
+    assertThat(parallelDescriptors).usingRecursiveComparison().ignoringCollectionOrder().isEqualTo(sequentialDescriptors);
+  }
+
+  private Map<String, Set<Descriptor>> indexModulesWithImports(int threads) {
+    context.settings().setProperty("sonar.python.analysis.threads", threads);
+    List<PythonInputFile> inputFiles = new ArrayList<>(List.of(
+      createInputFile(baseDir, "lib.py", InputFile.Status.ADDED, InputFile.Type.MAIN),
+      createInputFile(baseDir, "library.py", InputFile.Status.ADDED, InputFile.Type.MAIN)));
+    pythonIndexer = new SonarQubePythonIndexer(inputFiles, CacheContextImpl.dummyCache(), context);
+    pythonIndexer.buildOnce(context);
+    ProjectLevelSymbolTable projectLevelSymbolTable = pythonIndexer.projectLevelSymbolTable();
+    return Map.of(
+      "lib", projectLevelSymbolTable.getDescriptorsFromModule("lib"),
+      "library", projectLevelSymbolTable.getDescriptorsFromModule("library"));
+  }
+
+  @Test
+  void test_file_records_written_at_end_of_file_analysis() {
+    file1 = createInputFile(baseDir, "main.py", InputFile.Status.CHANGED, InputFile.Type.MAIN);
+    file2 = createInputFile(baseDir, "mod.py", InputFile.Status.SAME, InputFile.Type.MAIN);
+    List<PythonInputFile> inputFiles = new ArrayList<>(List.of(file1, file2));
+
+    CpdSerializer.SerializationResult cachedCpdTokens = new CpdSerializer.SerializationResult(new byte[] {1}, new byte[] {2});
+    Set<Descriptor> modDescriptors = Set.of(new VariableDescriptor("cached", "mod.cached", null));
+    readCache.putFileRecord("moduleKey:mod.py", contentHash(file2), Collections.emptyList(), modDescriptors, cachedCpdTokens);
+    pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
+    pythonIndexer.buildOnce(context);
+    assertThat(writeCache.getData()).doesNotContainKeys(fileRecordCacheKey("moduleKey:main.py"), fileRecordCacheKey("moduleKey:mod.py"));
+
+    CpdSerializer.SerializationResult cpdTokens = new CpdSerializer.SerializationResult(new byte[] {3}, new byte[] {4});
+    pythonIndexer.saveCpdTokens(file1, cpdTokens);
+    pythonIndexer.endOfFileAnalysis(file1);
+    pythonIndexer.endOfFileAnalysis(file2);
+    pythonIndexer.postAnalysis(context);
+
+    Caching.FileRecord mainRecord = writeCache.readFileRecord("moduleKey:main.py");
+    assertThat(mainRecord.contentHash()).isEqualTo(contentHash(file1));
+    assertThat(mainRecord.imports()).contains("mod");
+    assertThat(writeCache.readCpdTokens("moduleKey:main.py").data).isEqualTo(cpdTokens.data);
+    // Unchanged file: its record is copied from the previous analysis, along with its CPD tokens
+    assertThat(writeCache.readFileRecord("moduleKey:mod.py").descriptors()).extracting(Descriptor::name).containsExactly("cached");
+    assertThat(writeCache.readCpdTokens("moduleKey:mod.py").data).isEqualTo(cachedCpdTokens.data);
+  }
+
+  @Test
+  void test_parse_trees_are_not_retained_by_default() {
+    file1 = createInputFile(baseDir, "main.py", InputFile.Status.ADDED, InputFile.Type.MAIN);
+    List<PythonInputFile> inputFiles = new ArrayList<>(List.of(file1));
+
+    pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
+    pythonIndexer.buildOnce(context);
+
+    assertThat(pythonIndexer.takeRetainedParseTree(file1)).isNull();
+  }
+
+  @Test
+  void test_parse_trees_are_retained_for_rules_execution() {
+    context.settings().setProperty(SonarQubePythonIndexer.RETAINED_PARSE_TREES_MAX_SOURCE_LENGTH_KEY, 1_000_000);
+    file1 = createInputFile(baseDir, "main.py", InputFile.Status.ADDED, InputFile.Type.MAIN);
+    file2 = createInputFile(baseDir, "mod.py", InputFile.Status.ADDED, InputFile.Type.MAIN);
+    List<PythonInputFile> inputFiles = new ArrayList<>(List.of(file1, file2));
+
+    pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
+    pythonIndexer.buildOnce(context);
+
+    assertThat(pythonIndexer.takeRetainedParseTree(file1)).isNotNull();
+    assertThat(pythonIndexer.takeRetainedParseTree(file1)).isNull();
+    pythonIndexer.postAnalysis(context);
+    assertThat(pythonIndexer.takeRetainedParseTree(file2)).isNull();
+  }
+
+  @Test
+  void test_parse_trees_retention_budget() {
+    context.settings().setProperty(SonarQubePythonIndexer.RETAINED_PARSE_TREES_MAX_SOURCE_LENGTH_KEY, 60);
+    file1 = createInputFile(baseDir, "main.py", InputFile.Status.ADDED, InputFile.Type.MAIN);
+    file2 = createInputFile(baseDir, "mod.py", InputFile.Status.ADDED, InputFile.Type.MAIN);
+    List<PythonInputFile> inputFiles = new ArrayList<>(List.of(file1, file2));
+
+    pythonIndexer = new SonarQubePythonIndexer(inputFiles, cacheContext, context);
+    pythonIndexer.buildOnce(context);
+
+    // main.py fits in the budget, mod.py does not anymore
+    assertThat(pythonIndexer.takeRetainedParseTree(file1)).isNotNull();
+    assertThat(pythonIndexer.takeRetainedParseTree(file2)).isNull();
+  }
+
+  private static byte[] contentHash(PythonInputFile inputFile) {
+    return inputFile.wrappedFile().md5Hash().getBytes(StandardCharsets.UTF_8);
   }
 }
@@ -0,0 +1,5 @@
+from library import Base
+
+Alias = Base
+
+class Derived(Base): ...
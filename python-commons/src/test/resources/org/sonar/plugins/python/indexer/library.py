@@ -0,0 +1,2 @@
+class Base:
+    def method(self) -> int: ...
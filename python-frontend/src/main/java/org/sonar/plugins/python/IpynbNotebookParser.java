@@ -21,12 +21,14 @@ import com.fasterxml.jackson.core.JsonLocation;
 import com.fasterxml.jackson.core.JsonParser;
 import com.fasterxml.jackson.core.JsonToken;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
+import java.io.InputStreamReader;
+import java.io.Reader;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
+import javax.annotation.Nullable;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.python.EscapeCharPositionInfo;
 import org.sonar.python.IPythonLocation;
 
@@ -36,6 +38,8 @@ public class IpynbNotebookParser {
 
   private static final Set<String> ACCEPTED_LANGUAGE = Set.of("python", "ipython");
 
+  private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
   public static Optional<GeneratedIPythonFile> parseNotebook(PythonInputFile inputFile) {
     try {
       return new IpynbNotebookParser(inputFile).parse();
@@ -52,75 +56,109 @@ public class IpynbNotebookParser {
 
   private int lastPythonLine = 0;
 
-  public Optional<GeneratedIPythonFile> parse() throws IOException {
-    // If the language is not present, we assume it is a Python notebook
-    var isPythonNotebook = parseLanguage().map(ACCEPTED_LANGUAGE::contains).orElse(true);
+  private boolean languageFound = false;
 
-    return Boolean.TRUE.equals(isPythonNotebook) ? Optional.of(parseNotebook()) : Optional.empty();
-  }
+  @Nullable
+  private String language = null;
 
-  public Optional<String> parseLanguage() throws IOException {
-    String content = inputFile.wrappedFile().contents();
-    JsonFactory factory = new JsonFactory();
-    try (JsonParser jParser = factory.createParser(content)) {
-      while (!jParser.isClosed()) {
-        JsonToken jsonToken = jParser.nextToken();
-        if (JsonToken.FIELD_NAME.equals(jsonToken) && "language".equals(jParser.currentName())) {
-          jParser.nextToken();
-          return Optional.ofNullable(jParser.getValueAsString());
+  @Nullable
+  private NotebookParsingData notebookData = null;
+
+  @Nullable
+  private JsonLocation cellsEndLocation = null;
+
+  /**
+   * Reads the notebook in a single pass over its stream: the language metadata and the sources of code cells are extracted,
+   * while the outputs of cells, which may contain large payloads (e.g. images), are skipped without being materialized.
+   * Reading stops as soon as the language and the cells are known.
+   */
+  public Optional<GeneratedIPythonFile> parse() throws IOException {
+    InputFile wrappedFile = inputFile.wrappedFile();
+    // A reader is used so that JSON locations are expressed in characters, as expected by the location map
+    try (Reader reader = new InputStreamReader(wrappedFile.inputStream(), wrappedFile.charset());
+      JsonParser jParser = JSON_FACTORY.createParser(reader)) {
+      while (!isComplete() && jParser.nextToken() != null) {
+        if (JsonToken.FIELD_NAME.equals(jParser.currentToken())) {
+          processField(jParser);
         }
       }
     }
-    return Optional.empty();
+    return isPythonNotebook() ? Optional.of(generatedFile()) : Optional.empty();
   }
 
-  public GeneratedIPythonFile parseNotebook() throws IOException {
-    String content = inputFile.wrappedFile().contents();
-    boolean isCompressed = content.lines().count() <= 1;
-    JsonFactory factory = new JsonFactory();
-    try (JsonParser jParser = factory.createParser(content)) {
-      return parseCells(jParser, isCompressed).map(notebookData -> {
-        // Account for EOF token
-        JsonLocation location = jParser.currentTokenLocation();
-        notebookData.addDefaultLocation(lastPythonLine, location.getLineNr(), location.getColumnNr());
-        return new GeneratedIPythonFile(inputFile.wrappedFile(), notebookData.getAggregatedSource().toString(), notebookData.getLocationMap());
-      }).orElse(new GeneratedIPythonFile(inputFile.wrappedFile(), "", new LinkedHashMap<>()));
-    }
+  private boolean isComplete() {
+    return languageFound && (notebookData != null || !isPythonNotebook());
+  }
 
+  private boolean isPythonNotebook() {
+    // If the language is not present, we assume it is a Python notebook
+    return language == null || ACCEPTED_LANGUAGE.contains(language);
   }
 
-  private Optional<NotebookParsingData> parseCells(JsonParser parser, boolean isCompressed) throws IOException {
-    while (!parser.isClosed()) {
-      parser.nextToken();
-      String fieldName = parser.currentName();
-      if ("cells".equals(fieldName)) {
-        // consume array start token
-        parser.nextToken();
-        Optional<NotebookParsingData> data = parseCellArray(parser, isCompressed);
-        parser.close();
-        return data;
-      }
+  private GeneratedIPythonFile generatedFile() {
+    if (notebookData == null || notebookData.getAggregatedSourceLine() == 0) {
+      return new GeneratedIPythonFile(inputFile.wrappedFile(), "", new NotebookLocationMap());
     }
-    return Optional.empty();
+    notebookData.removeTrailingExtraLine();
+    if (cellsEndLocation != null) {
+      // Account for EOF token
+      notebookData.addDefaultLocation(lastPythonLine, cellsEndLocation.getLineNr(), cellsEndLocation.getColumnNr());
+    }
+    return new GeneratedIPythonFile(inputFile.wrappedFile(), notebookData.getAggregatedSource().toString(), notebookData.getLocationMap());
   }
 
-  private Optional<NotebookParsingData> parseCellArray(JsonParser jParser, boolean isCompressed) throws IOException {
-    List<NotebookParsingData> cellsData = new ArrayList<>();
+  /**
+   * Processes the field the parser is positioned on, consuming its value when the field is relevant.
+   */
+  private void processField(JsonParser parser) throws IOException {
+    String fieldName = parser.currentName();
+    if ("outputs".equals(fieldName)) {
+      parser.nextToken();
+      parser.skipChildren();
+    } else if (!languageFound && "language".equals(fieldName)) {
+      parser.nextToken();
+      language = parser.getValueAsString();
+      languageFound = true;
+      parser.skipChildren();
+    } else if (notebookData == null && "cells".equals(fieldName)) {
+      // consume array start token
+      parser.nextToken();
+      parseCellArray(parser);
+    }
+  }
 
-    while (jParser.nextToken() != JsonToken.END_ARRAY) {
-      if (jParser.currentToken() == JsonToken.START_OBJECT) {
-        processCodeCell(cellsData, jParser, isCompressed);
+  /**
+   * Skips the object or array the parser is positioned on, still looking for the language of the notebook in it.
+   */
+  private void skipNestedObjects(JsonParser parser) throws IOException {
+    JsonToken token = parser.currentToken();
+    if (token != JsonToken.START_OBJECT && token != JsonToken.START_ARRAY) {
+      return;
+    }
+    if (languageFound || "outputs".equals(parser.currentName())) {
+      parser.skipChildren();
+      return;
+    }
+    int depth = 1;
+    while (depth > 0 && (token = parser.nextToken()) != null) {
+      if (token == JsonToken.START_OBJECT || token == JsonToken.START_ARRAY) {
+        depth++;
+      } else if (token == JsonToken.END_OBJECT || token == JsonToken.END_ARRAY) {
+        depth--;
+      } else if (token == JsonToken.FIELD_NAME) {
+        processField(parser);
       }
     }
-    Optional<NotebookParsingData> aggregatedNotebookData = cellsData.stream().reduce(NotebookParsingData::combine);
-    aggregatedNotebookData.ifPresent(NotebookParsingData::removeTrailingExtraLine);
-    return aggregatedNotebookData;
   }
 
-  private static void skipNestedObjects(JsonParser parser) throws IOException {
-    if (parser.currentToken() == JsonToken.START_OBJECT || parser.currentToken() == JsonToken.START_ARRAY) {
-      parser.skipChildren();
+  private void parseCellArray(JsonParser jParser) throws IOException {
+    notebookData = new NotebookParsingData(new StringBuilder(), new NotebookLocationMap(), 0);
+    while (jParser.nextToken() != JsonToken.END_ARRAY) {
+      if (jParser.currentToken() == JsonToken.START_OBJECT) {
+        processCodeCell(notebookData, jParser);
+      }
     }
+    cellsEndLocation = jParser.currentTokenLocation();
   }
 
   private static boolean processCodeCellType(JsonParser jParser) throws IOException {
@@ -133,9 +171,9 @@ public class IpynbNotebookParser {
     return false;
   }
 
-  private void processCodeCell(List<NotebookParsingData> accumulator, JsonParser jParser, boolean isCompressed) throws IOException {
+  private void processCodeCell(NotebookParsingData accumulator, JsonParser jParser) throws IOException {
     boolean isCodeCell = false;
-    Optional<NotebookParsingData> notebookData = Optional.empty();
+    Optional<NotebookParsingData> cellData = Optional.empty();
     while (jParser.nextToken() != JsonToken.END_OBJECT) {
 
       skipNestedObjects(jParser);
@@ -147,39 +185,40 @@ public class IpynbNotebookParser {
       if (JsonToken.FIELD_NAME.equals(jParser.currentToken()) && "source".equals(jParser.currentName())) {
         jParser.nextToken();
 
-        int startLine = 0;
-        if (!accumulator.isEmpty()) {
-          startLine = accumulator.get(accumulator.size() - 1).getAggregatedSourceLine();
-        }
+        int startLine = accumulator.getAggregatedSourceLine();
         switch (jParser.currentToken()) {
           case START_ARRAY:
-            notebookData = Optional.of(parseSourceArray(startLine, jParser, isCompressed));
+            cellData = Optional.of(parseSourceArray(startLine, jParser));
             break;
           case VALUE_STRING:
-            notebookData = Optional.of(parseSourceMultilineString(startLine, jParser));
+            cellData = Optional.of(parseSourceMultilineString(startLine, jParser));
             break;
           default:
             throw new IllegalStateException("Unexpected token: " + jParser.currentToken());
         }
+      } else if (JsonToken.FIELD_NAME.equals(jParser.currentToken())) {
+        processField(jParser);
       }
     }
 
-    if (isCodeCell && notebookData.isPresent()) {
-      var data = notebookData.get();
-      lastPythonLine = data.getAggregatedSourceLine();
-      accumulator.add(data);
+    if (isCodeCell && cellData.isPresent()) {
+      accumulator.combine(cellData.get());
+      lastPythonLine = accumulator.getAggregatedSourceLine();
     }
   }
 
-  private static NotebookParsingData parseSourceArray(int startLine, JsonParser jParser, boolean isCompressed) throws IOException {
+  private static NotebookParsingData parseSourceArray(int startLine, JsonParser jParser) throws IOException {
     NotebookParsingData cellData = NotebookParsingData.fromLine(startLine);
     JsonLocation tokenLocation = jParser.currentTokenLocation();
+    // Lines of an array written on a single JSON line (e.g. in compressed notebooks) do not span whole JSON lines
+    int arrayStartLine = tokenLocation.getLineNr();
     // In case of an empty cell, we don't add an extra line
     var lastSourceLine = "\n";
     while (jParser.nextToken() != JsonToken.END_ARRAY) {
       String sourceLine = jParser.getValueAsString();
       var newTokenLocation = jParser.currentTokenLocation();
       var countEscapedChar = countEscapeCharacters(sourceLine);
+      boolean isCompressed = newTokenLocation.getLineNr() == arrayStartLine;
       cellData.addLineToSource(sourceLine, newTokenLocation.getLineNr(), newTokenLocation.getColumnNr(), countEscapedChar, isCompressed);
       lastSourceLine = sourceLine;
       tokenLocation = newTokenLocation;
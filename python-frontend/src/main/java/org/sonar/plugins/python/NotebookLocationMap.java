@@ -0,0 +1,155 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.python;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import org.sonar.python.IPythonLocation;
+
+/**
+ * Locations in the notebook JSON of the lines of the generated Python source, keyed by line number.
+ * Keys are expected to be small and dense, so locations are stored in an array indexed by line number instead of boxed entries.
+ * Null locations are rejected, as null marks the lines without location.
+ */
+class NotebookLocationMap extends AbstractMap<Integer, IPythonLocation> {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  // null is stored for lines without location
+  private IPythonLocation[] locations = new IPythonLocation[INITIAL_CAPACITY];
+  private int size = 0;
+
+  @Override
+  public IPythonLocation put(Integer key, IPythonLocation location) {
+    Objects.requireNonNull(location, "Location cannot be null");
+    int line = key;
+    ensureCapacity(line);
+    IPythonLocation previous = locations[line];
+    locations[line] = location;
+    if (previous == null) {
+      size++;
+    }
+    return previous;
+  }
+
+  @CheckForNull
+  @Override
+  public IPythonLocation get(Object key) {
+    return key instanceof Integer line ? location(line) : null;
+  }
+
+  @Override
+  public boolean containsKey(Object key) {
+    return get(key) != null;
+  }
+
+  @CheckForNull
+  @Override
+  public IPythonLocation remove(Object key) {
+    IPythonLocation previous = get(key);
+    if (previous != null) {
+      locations[(Integer) key] = null;
+      size--;
+    }
+    return previous;
+  }
+
+  @Override
+  public void clear() {
+    Arrays.fill(locations, null);
+    size = 0;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public Set<Map.Entry<Integer, IPythonLocation>> entrySet() {
+    return new AbstractSet<>() {
+      @Override
+      public Iterator<Map.Entry<Integer, IPythonLocation>> iterator() {
+        return new EntryIterator();
+      }
+
+      @Override
+      public int size() {
+        return NotebookLocationMap.this.size();
+      }
+    };
+  }
+
+  @CheckForNull
+  private IPythonLocation location(int line) {
+    return line >= 0 && line < locations.length ? locations[line] : null;
+  }
+
+  private int nextLine(int fromLine) {
+    for (int line = fromLine; line < locations.length; line++) {
+      if (locations[line] != null) {
+        return line;
+      }
+    }
+    return -1;
+  }
+
+  private void ensureCapacity(int line) {
+    if (line < 0) {
+      throw new IllegalArgumentException("Invalid line number: " + line);
+    }
+    if (line >= locations.length) {
+      locations = Arrays.copyOf(locations, Math.max(line + 1, locations.length * 2));
+    }
+  }
+
+  private class EntryIterator implements Iterator<Map.Entry<Integer, IPythonLocation>> {
+    private int next = nextLine(0);
+    private int last = -1;
+
+    @Override
+    public boolean hasNext() {
+      return next >= 0;
+    }
+
+    @Override
+    public Map.Entry<Integer, IPythonLocation> next() {
+      if (next < 0) {
+        throw new NoSuchElementException();
+      }
+      last = next;
+      next = nextLine(next + 1);
+      return new SimpleImmutableEntry<>(last, locations[last]);
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) {
+        throw new IllegalStateException();
+      }
+      NotebookLocationMap.this.remove(last);
+      last = -1;
+    }
+  }
+}
@@ -30,4 +30,14 @@ public interface PythonFileConsumer {
   default boolean scanWithoutParsing(PythonInputFileContext inputFileContext) {
     return true;
   }
+
+  /**
+   * Returns false when this consumer only relies on the v2 semantic model ({@code typeV2()} and {@link PythonVisitorContext#typeChecker()})
+   * and never on the legacy one ({@code Name.symbol()}, {@code Expression.type()}, variables of scopes...).
+   * When no consumer of a file requires it, the legacy symbol table of this file is not computed.
+   */
+  @Beta
+  default boolean requiresLegacySymbolTable() {
+    return true;
+  }
 }
@@ -25,6 +25,7 @@ import org.sonar.api.SonarProduct;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.api.symbols.Symbol;
 import org.sonar.python.semantic.ProjectLevelSymbolTable;
+import org.sonar.python.types.TypeShedContext;
 
 public class PythonInputFileContext {
 
@@ -66,6 +67,11 @@ public class PythonInputFileContext {
     return projectLevelSymbolTable.stubFilesSymbols();
   }
 
+  @Beta
+  public TypeShedContext typeShedContext() {
+    return projectLevelSymbolTable.typeShedContext();
+  }
+
   @CheckForNull
   public File workingDirectory() {
     return workingDirectory;
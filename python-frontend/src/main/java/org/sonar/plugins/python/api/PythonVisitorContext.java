@@ -20,6 +20,7 @@ import com.sonar.sslr.api.RecognitionException;
 import java.io.File;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Supplier;
 import javax.annotation.Nullable;
 import org.sonar.api.SonarProduct;
 import org.sonar.plugins.python.api.PythonCheck.PreciseIssue;
@@ -27,11 +28,13 @@ import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.api.tree.FileInput;
 import org.sonar.python.types.v2.TypeChecker;
 import org.sonar.python.caching.CacheContextImpl;
+import org.sonar.python.cfg.ControlFlowAnalysisCache;
 import org.sonar.python.semantic.ProjectLevelSymbolTable;
 import org.sonar.python.semantic.SymbolTableBuilder;
 import org.sonar.python.semantic.v2.ProjectLevelTypeTable;
 import org.sonar.python.semantic.v2.SymbolTableBuilderV2;
 import org.sonar.python.semantic.v2.TypeInferenceV2;
+import org.sonarsource.performance.measure.PerformanceMeasure;
 
 public class PythonVisitorContext extends PythonInputFileContext {
 
@@ -39,16 +42,18 @@ public class PythonVisitorContext extends PythonInputFileContext {
   private final RecognitionException parsingException;
   private List<PreciseIssue> issues = new ArrayList<>();
   private final TypeChecker typeChecker;
+  private final ControlFlowAnalysisCache controlFlowAnalysisCache;
 
   public PythonVisitorContext(FileInput rootTree, PythonFile pythonFile, @Nullable File workingDirectory, String packageName) {
     super(pythonFile, workingDirectory, CacheContextImpl.dummyCache(), ProjectLevelSymbolTable.empty());
     this.rootTree = rootTree;
     this.parsingException = null;
+    this.controlFlowAnalysisCache = new ControlFlowAnalysisCache(pythonFile);
     SymbolTableBuilder symbolTableBuilder = new SymbolTableBuilder(packageName, pythonFile);
     symbolTableBuilder.visitFileInput(rootTree);
     var symbolTable = new SymbolTableBuilderV2(rootTree).build();
     var projectLevelTypeTable = new ProjectLevelTypeTable(ProjectLevelSymbolTable.empty());
-    new TypeInferenceV2(projectLevelTypeTable, pythonFile, symbolTable, packageName).inferTypes(rootTree);
+    new TypeInferenceV2(projectLevelTypeTable, pythonFile, symbolTable, packageName, controlFlowAnalysisCache).inferTypes(rootTree);
     this.typeChecker = new TypeChecker(projectLevelTypeTable);
   }
 
@@ -57,32 +62,63 @@ public class PythonVisitorContext extends PythonInputFileContext {
     super(pythonFile, workingDirectory, cacheContext, projectLevelSymbolTable);
     this.rootTree = rootTree;
     this.parsingException = null;
+    this.controlFlowAnalysisCache = new ControlFlowAnalysisCache(pythonFile);
     new SymbolTableBuilder(packageName, pythonFile, projectLevelSymbolTable).visitFileInput(rootTree);
 
     var symbolTable = new SymbolTableBuilderV2(rootTree)
       .build();
-    var projectLevelTypeTable = new ProjectLevelTypeTable(projectLevelSymbolTable);
-    new TypeInferenceV2(projectLevelTypeTable, pythonFile, symbolTable, packageName).inferTypes(rootTree);
+    var projectLevelTypeTable = projectLevelSymbolTable.typeTable();
+    new TypeInferenceV2(projectLevelTypeTable, pythonFile, symbolTable, packageName, controlFlowAnalysisCache).inferTypes(rootTree);
     this.typeChecker = new TypeChecker(projectLevelTypeTable);
   }
 
   public PythonVisitorContext(FileInput rootTree, PythonFile pythonFile, @Nullable File workingDirectory, String packageName,
     ProjectLevelSymbolTable projectLevelSymbolTable, CacheContext cacheContext, SonarProduct sonarProduct) {
+    this(rootTree, pythonFile, workingDirectory, packageName, projectLevelSymbolTable, cacheContext, sonarProduct, true);
+  }
+
+  /**
+   * @param buildLegacySymbolTable false to only compute the v2 semantic model, when no consumer of this context relies on the legacy one
+   * (see {@link PythonFileConsumer#requiresLegacySymbolTable()})
+   */
+  public PythonVisitorContext(FileInput rootTree, PythonFile pythonFile, @Nullable File workingDirectory, String packageName,
+    ProjectLevelSymbolTable projectLevelSymbolTable, CacheContext cacheContext, SonarProduct sonarProduct, boolean buildLegacySymbolTable) {
     super(pythonFile, workingDirectory, cacheContext, sonarProduct, projectLevelSymbolTable);
     this.rootTree = rootTree;
     this.parsingException = null;
-    new SymbolTableBuilder(packageName, pythonFile, projectLevelSymbolTable).visitFileInput(rootTree);
-    var symbolTable = new SymbolTableBuilderV2(rootTree)
-      .build();
-    var projectLevelTypeTable = new ProjectLevelTypeTable(projectLevelSymbolTable);
-    new TypeInferenceV2(projectLevelTypeTable, pythonFile, symbolTable, packageName).inferTypes(rootTree);
+    this.controlFlowAnalysisCache = new ControlFlowAnalysisCache(pythonFile);
+    if (buildLegacySymbolTable) {
+      measure("SymbolTableBuilder", () -> new SymbolTableBuilder(packageName, pythonFile, projectLevelSymbolTable).visitFileInput(rootTree));
+    }
+    var symbolTable = measure("SymbolTableBuilderV2", () -> new SymbolTableBuilderV2(rootTree)
+      .build());
+    var projectLevelTypeTable = projectLevelSymbolTable.typeTable();
+    measure("TypeInferenceV2",
+      () -> new TypeInferenceV2(projectLevelTypeTable, pythonFile, symbolTable, packageName, controlFlowAnalysisCache).inferTypes(rootTree));
     this.typeChecker = new TypeChecker(projectLevelTypeTable);
   }
 
+  private static void measure(String measurementName, Runnable action) {
+    measure(measurementName, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  private static <T> T measure(String measurementName, Supplier<T> action) {
+    PerformanceMeasure.Duration duration = PerformanceMeasure.start(measurementName);
+    try {
+      return action.get();
+    } finally {
+      duration.stop();
+    }
+  }
+
   public PythonVisitorContext(PythonFile pythonFile, RecognitionException parsingException) {
     super(pythonFile, null, CacheContextImpl.dummyCache(), ProjectLevelSymbolTable.empty());
     this.rootTree = null;
     this.parsingException = parsingException;
+    this.controlFlowAnalysisCache = new ControlFlowAnalysisCache(pythonFile);
     this.typeChecker = new TypeChecker(new ProjectLevelTypeTable(ProjectLevelSymbolTable.empty()));
   }
 
@@ -90,6 +126,7 @@ public class PythonVisitorContext extends PythonInputFileContext {
     super(pythonFile, null, CacheContextImpl.dummyCache(), sonarProduct, ProjectLevelSymbolTable.empty());
     this.rootTree = null;
     this.parsingException = parsingException;
+    this.controlFlowAnalysisCache = new ControlFlowAnalysisCache(pythonFile);
     this.typeChecker = new TypeChecker(new ProjectLevelTypeTable(ProjectLevelSymbolTable.empty()));
   }
 
@@ -101,6 +138,13 @@ public class PythonVisitorContext extends PythonInputFileContext {
     return typeChecker;
   }
 
+  /**
+   * Control flow graphs and data flow analyses of the file, shared by the type inference and the checks until the end of its analysis.
+   */
+  public ControlFlowAnalysisCache controlFlowAnalysisCache() {
+    return controlFlowAnalysisCache;
+  }
+
   public RecognitionException parsingException() {
     return parsingException;
   }
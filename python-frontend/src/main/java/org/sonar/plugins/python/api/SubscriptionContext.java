@@ -23,9 +23,14 @@ import java.util.Set;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.plugins.python.api.caching.CacheContext;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
 import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.api.tree.FunctionDef;
 import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.plugins.python.api.tree.Tree;
+import org.sonar.python.cfg.fixpoint.LiveVariablesAnalysis;
+import org.sonar.python.cfg.fixpoint.ReachingDefinitionsAnalysis;
 import org.sonar.python.types.v2.TypeChecker;
 
 public interface SubscriptionContext {
@@ -67,4 +72,40 @@ public interface SubscriptionContext {
   CacheContext cacheContext();
 
   TypeChecker typeChecker();
+
+  /**
+   * Returns the control flow graph of a function, built once per file and shared by all checks. Returns null if it cannot be built.
+   * By default, the graph is built on each call.
+   */
+  @Beta
+  @CheckForNull
+  default ControlFlowGraph controlFlowGraph(FunctionDef functionDef) {
+    return ControlFlowGraph.build(functionDef, pythonFile());
+  }
+
+  /**
+   * Returns the control flow graph of the module level statements, built once per file and shared by all checks.
+   * Returns null if it cannot be built. By default, the graph is built on each call.
+   */
+  @Beta
+  @CheckForNull
+  default ControlFlowGraph controlFlowGraph(FileInput fileInput) {
+    return ControlFlowGraph.build(fileInput, pythonFile());
+  }
+
+  /**
+   * Returns the live variables analysis of a control flow graph returned by {@link #controlFlowGraph(FunctionDef)}, computed once per file.
+   */
+  @Beta
+  default LiveVariablesAnalysis liveVariablesAnalysis(ControlFlowGraph cfg) {
+    return LiveVariablesAnalysis.analyze(cfg);
+  }
+
+  /**
+   * Returns the reaching definitions analysis of the file, shared by all checks.
+   */
+  @Beta
+  default ReachingDefinitionsAnalysis reachingDefinitionsAnalysis() {
+    return new ReachingDefinitionsAnalysis(pythonFile());
+  }
 }
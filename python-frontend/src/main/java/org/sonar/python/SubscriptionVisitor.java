@@ -19,6 +19,7 @@ package org.sonar.python;
 import java.io.File;
 import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Deque;
@@ -26,6 +27,7 @@ import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.function.BooleanSupplier;
 import java.util.function.Consumer;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -39,12 +41,16 @@ import org.sonar.plugins.python.api.PythonVersionUtils;
 import org.sonar.plugins.python.api.PythonVisitorContext;
 import org.sonar.plugins.python.api.SubscriptionContext;
 import org.sonar.plugins.python.api.caching.CacheContext;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
 import org.sonar.plugins.python.api.symbols.Symbol;
 import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.api.tree.FunctionDef;
 import org.sonar.plugins.python.api.tree.StringElement;
 import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.plugins.python.api.tree.Tree.Kind;
+import org.sonar.python.cfg.fixpoint.LiveVariablesAnalysis;
+import org.sonar.python.cfg.fixpoint.ReachingDefinitionsAnalysis;
 import org.sonar.python.regex.PythonAnalyzerRegexSource;
 import org.sonar.python.regex.PythonRegexIssueLocation;
 import org.sonar.python.regex.RegexContext;
@@ -53,58 +59,118 @@ import org.sonarsource.analyzer.commons.regex.RegexParseResult;
 import org.sonarsource.analyzer.commons.regex.RegexParser;
 import org.sonarsource.analyzer.commons.regex.ast.FlagSet;
 import org.sonarsource.analyzer.commons.regex.ast.RegexSyntaxElement;
+import org.sonarsource.performance.measure.PerformanceMeasure;
 
 public class SubscriptionVisitor {
 
-  private final EnumMap<Kind, List<SubscriptionContextImpl>> consumers = new EnumMap<>(Kind.class);
+  private static final SubscriptionContextImpl[] NO_CONSUMERS = new SubscriptionContextImpl[0];
+
+  /**
+   * Consumers indexed by the ordinal of the kind they subscribed to, so that dispatching a node is a single array load.
+   */
+  private final SubscriptionContextImpl[][] consumersByKind;
+  /**
+   * Tokens are leaves of the tree which are only pushed on the stack when a check subscribed to them.
+   */
+  private final boolean visitTokens;
+  /**
+   * Selected once per analysis, so that dispatching a node does not look up the current measure when measures are not activated.
+   */
+  private final boolean measureChecks;
   private final PythonVisitorContext pythonVisitorContext;
   private Tree currentElement;
   private final HashMap<String, RegexParseResult> regexCache = new HashMap<>();
 
   public static void analyze(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext) {
-    SubscriptionVisitor subscriptionVisitor = new SubscriptionVisitor(checks, pythonVisitorContext);
+    analyze(checks, pythonVisitorContext, () -> false);
+  }
+
+  public static boolean analyze(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext, BooleanSupplier isCancelled) {
+    return analyze(checks, pythonVisitorContext, isCancelled, false);
+  }
+
+  /**
+   * @param isCancelled tested after the checks subscribed to a node were executed: once it returns true, the remaining nodes are not
+   *                    visited and the checks are not notified of the end of the file
+   * @param measureChecks whether the durations of the checks are reported to {@link PerformanceMeasure}, accumulated per check
+   * @return false if the analysis was cancelled, true otherwise
+   */
+  public static boolean analyze(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext, BooleanSupplier isCancelled,
+    boolean measureChecks) {
+    SubscriptionVisitor subscriptionVisitor = new SubscriptionVisitor(checks, pythonVisitorContext, measureChecks);
     FileInput rootTree = pythonVisitorContext.rootTree();
     if (rootTree != null) {
-      subscriptionVisitor.scan(rootTree);
+      if (!subscriptionVisitor.scan(rootTree, isCancelled)) {
+        return false;
+      }
       checks.forEach(PythonSubscriptionCheck::leaveFile);
     }
+    return true;
   }
 
-  private SubscriptionVisitor(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext) {
+  private SubscriptionVisitor(Collection<PythonSubscriptionCheck> checks, PythonVisitorContext pythonVisitorContext, boolean measureChecks) {
     this.pythonVisitorContext = pythonVisitorContext;
+    this.measureChecks = measureChecks;
+    EnumMap<Kind, List<SubscriptionContextImpl>> consumers = new EnumMap<>(Kind.class);
     for (PythonSubscriptionCheck check : checks) {
       check.initialize((elementType, consumer) -> {
         List<SubscriptionContextImpl> elementConsumers = consumers.computeIfAbsent(elementType, c -> new ArrayList<>());
         elementConsumers.add(new SubscriptionContextImpl(check, consumer));
       });
     }
+    this.consumersByKind = new SubscriptionContextImpl[Kind.values().length][];
+    Arrays.fill(consumersByKind, NO_CONSUMERS);
+    consumers.forEach((kind, elementConsumers) -> consumersByKind[kind.ordinal()] = elementConsumers.toArray(NO_CONSUMERS));
+    this.visitTokens = consumers.containsKey(Kind.TOKEN);
   }
 
-  private void scan(Tree element) {
+  private boolean scan(Tree element, BooleanSupplier isCancelled) {
     Deque<Tree> stack = new ArrayDeque<>();
     stack.push(element);
     while (!stack.isEmpty()) {
       currentElement = stack.pop();
-      consumers.getOrDefault(currentElement.getKind(), Collections.emptyList()).forEach(SubscriptionContextImpl::execute);
-      for (int i = currentElement.children().size() - 1; i >= 0; i--) {
-        if (currentElement.children().get(i) != null) {
-          stack.push(currentElement.children().get(i));
+      SubscriptionContextImpl[] consumers = consumersByKind[currentElement.getKind().ordinal()];
+      for (SubscriptionContextImpl consumer : consumers) {
+        consumer.execute();
+      }
+      // Nodes without consumers are visited quickly: cancellation is only tested after running checks
+      if (consumers.length > 0 && isCancelled.getAsBoolean()) {
+        return false;
+      }
+      List<Tree> children = currentElement.children();
+      for (int i = children.size() - 1; i >= 0; i--) {
+        Tree child = children.get(i);
+        if (child != null && (visitTokens || child.getKind() != Kind.TOKEN)) {
+          stack.push(child);
         }
       }
     }
+    return true;
   }
 
   private class SubscriptionContextImpl implements SubscriptionContext, RegexContext {
     private final PythonCheck check;
     private final Consumer<SubscriptionContext> consumer;
+    private final String measurementName;
 
     SubscriptionContextImpl(PythonCheck check, Consumer<SubscriptionContext> consumer) {
       this.check = check;
       this.consumer = consumer;
+      this.measurementName = check.getClass().getSimpleName();
     }
 
     public void execute() {
-      consumer.accept(this);
+      if (!measureChecks) {
+        consumer.accept(this);
+        return;
+      }
+      // Durations of the same check are accumulated across all dispatches
+      PerformanceMeasure.Duration duration = PerformanceMeasure.start(measurementName);
+      try {
+        consumer.accept(this);
+      } finally {
+        duration.stop();
+      }
     }
 
     @Override
@@ -184,6 +250,28 @@ public class SubscriptionVisitor {
       return pythonVisitorContext.typeChecker();
     }
 
+    @Override
+    @CheckForNull
+    public ControlFlowGraph controlFlowGraph(FunctionDef functionDef) {
+      return pythonVisitorContext.controlFlowAnalysisCache().controlFlowGraph(functionDef);
+    }
+
+    @Override
+    @CheckForNull
+    public ControlFlowGraph controlFlowGraph(FileInput fileInput) {
+      return pythonVisitorContext.controlFlowAnalysisCache().controlFlowGraph(fileInput);
+    }
+
+    @Override
+    public LiveVariablesAnalysis liveVariablesAnalysis(ControlFlowGraph cfg) {
+      return pythonVisitorContext.controlFlowAnalysisCache().liveVariablesAnalysis(cfg);
+    }
+
+    @Override
+    public ReachingDefinitionsAnalysis reachingDefinitionsAnalysis() {
+      return pythonVisitorContext.controlFlowAnalysisCache().reachingDefinitionsAnalysis();
+    }
+
     public RegexParseResult regexForStringElement(StringElement stringElement, FlagSet flagSet) {
       return regexCache.computeIfAbsent(stringElement.hashCode() + "-" + flagSet.getMask(),
         s -> new RegexParser(new PythonAnalyzerRegexSource(stringElement), flagSet).parse());
@@ -0,0 +1,184 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.caching;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Binary encoding of sets of dotted module names (imports of a module, modules of the project, used Typeshed modules).
+ * <p>
+ * Names are sorted and prefix-compressed by segment: each name only stores the number of leading segments it shares with the previous
+ * one, followed by the indices of its remaining segments in a string table. The string table is meant to be shared by the project-wide
+ * entries of an analysis, and is stored separately. Entries written independently of each other, such as the records of files,
+ * embed their own string table instead (see {@link #serializeWithStringTable(Collection)}).
+ * <p>
+ * This class is not thread-safe.
+ */
+public class ModuleNamesSerializer {
+
+  public static final int FORMAT_VERSION = 1;
+  private static final String END_MARKER = "END";
+
+  private final StringTable stringTable;
+
+  public ModuleNamesSerializer() {
+    this.stringTable = new StringTable();
+  }
+
+  private ModuleNamesSerializer(StringTable stringTable) {
+    this.stringTable = stringTable;
+  }
+
+  public static ModuleNamesSerializer fromStringTable(byte[] stringTableBytes) throws IOException {
+    try (VarLengthInputStream in = new VarLengthInputStream(stringTableBytes)) {
+      checkFormatVersion(in);
+      int size = in.readInt();
+      List<String> byIndex = new ArrayList<>(size);
+      for (int i = 0; i < size; i++) {
+        byIndex.add(in.readUTF());
+      }
+      checkEndMarker(in);
+      return new ModuleNamesSerializer(new StringTable(byIndex));
+    }
+  }
+
+  public byte[] serialize(Collection<String> moduleNames) throws IOException {
+    List<String> sortedNames = moduleNames.stream().sorted().toList();
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (VarLengthOutputStream out = new VarLengthOutputStream(stream)) {
+      out.writeInt(FORMAT_VERSION);
+      out.writeInt(sortedNames.size());
+      String[] previousSegments = new String[0];
+      for (String name : sortedNames) {
+        String[] segments = segments(name);
+        int commonPrefixLength = commonPrefixLength(previousSegments, segments);
+        out.writeInt(commonPrefixLength);
+        out.writeInt(segments.length - commonPrefixLength);
+        for (int i = commonPrefixLength; i < segments.length; i++) {
+          out.writeInt(stringTable.getIndex(segments[i]));
+        }
+        previousSegments = segments;
+      }
+      out.writeUTF(END_MARKER);
+    }
+    return stream.toByteArray();
+  }
+
+  /**
+   * Serializes module names along with a string table of their own, so that they can be read without any shared string table.
+   */
+  public static byte[] serializeWithStringTable(Collection<String> moduleNames) throws IOException {
+    ModuleNamesSerializer serializer = new ModuleNamesSerializer();
+    byte[] moduleNamesBytes = serializer.serialize(moduleNames);
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (VarLengthOutputStream out = new VarLengthOutputStream(stream)) {
+      out.writeBytes(serializer.serializeStringTable());
+      out.writeBytes(moduleNamesBytes);
+    }
+    return stream.toByteArray();
+  }
+
+  public static Set<String> deserializeWithStringTable(byte[] bytes) throws IOException {
+    try (VarLengthInputStream in = new VarLengthInputStream(bytes)) {
+      ModuleNamesSerializer serializer = fromStringTable(in.readBytes());
+      return serializer.deserialize(in.readBytes());
+    }
+  }
+
+  public Set<String> deserialize(byte[] bytes) throws IOException {
+    try (VarLengthInputStream in = new VarLengthInputStream(bytes)) {
+      checkFormatVersion(in);
+      int size = in.readInt();
+      Set<String> moduleNames = new HashSet<>();
+      List<String> previousSegments = new ArrayList<>();
+      for (int i = 0; i < size; i++) {
+        int commonPrefixLength = in.readInt();
+        int remainingSegments = in.readInt();
+        if (commonPrefixLength > previousSegments.size()) {
+          throw corruptedFormat();
+        }
+        List<String> segments = new ArrayList<>(previousSegments.subList(0, commonPrefixLength));
+        for (int j = 0; j < remainingSegments; j++) {
+          segments.add(readSegment(in));
+        }
+        moduleNames.add(String.join(".", segments));
+        previousSegments = segments;
+      }
+      checkEndMarker(in);
+      return moduleNames;
+    }
+  }
+
+  public byte[] serializeStringTable() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    try (VarLengthOutputStream out = new VarLengthOutputStream(stream)) {
+      out.writeInt(FORMAT_VERSION);
+      List<String> byIndex = stringTable.getStringList();
+      out.writeInt(byIndex.size());
+      for (String string : byIndex) {
+        out.writeUTF(string);
+      }
+      out.writeUTF(END_MARKER);
+    }
+    return stream.toByteArray();
+  }
+
+  private String readSegment(VarLengthInputStream in) throws IOException {
+    int index = in.readInt();
+    if (index < 0 || index >= stringTable.getStringList().size()) {
+      throw corruptedFormat();
+    }
+    return stringTable.getString(index);
+  }
+
+  private static String[] segments(String moduleName) {
+    // Negative limit to keep trailing empty segments, so that the encoding is lossless
+    return moduleName.split("\\.", -1);
+  }
+
+  private static int commonPrefixLength(String[] previous, String[] current) {
+    int length = Math.min(previous.length, current.length);
+    int i = 0;
+    while (i < length && previous[i].equals(current[i])) {
+      i++;
+    }
+    return i;
+  }
+
+  private static void checkFormatVersion(VarLengthInputStream in) throws IOException {
+    int version = in.readInt();
+    if (version != FORMAT_VERSION) {
+      throw new IOException("Can't read data from cache, unsupported format version " + version);
+    }
+  }
+
+  private static void checkEndMarker(VarLengthInputStream in) throws IOException {
+    if (!END_MARKER.equals(in.readUTF())) {
+      throw corruptedFormat();
+    }
+  }
+
+  private static IOException corruptedFormat() {
+    return new IOException("Can't read data from cache, format corrupted");
+  }
+}
@@ -19,6 +19,7 @@ package org.sonar.python.caching;
 import java.io.ByteArrayInputStream;
 import java.io.Closeable;
 import java.io.DataInputStream;
+import java.io.EOFException;
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 
@@ -40,6 +41,23 @@ public class VarLengthInputStream implements Closeable {
     return new String(bytes, StandardCharsets.UTF_8);
   }
 
+  public byte[] readBytes() throws IOException {
+    int length = readInt();
+    if (length < 0 || length > in.available()) {
+      throw new EOFException();
+    }
+    byte[] bytes = new byte[length];
+    in.readFully(bytes);
+    return bytes;
+  }
+
+  public void skipBytes() throws IOException {
+    int length = readInt();
+    if (in.skipBytes(length) != length) {
+      throw new EOFException();
+    }
+  }
+
   public int readInt() throws IOException {
     int result = 0;
     int shift = 0;
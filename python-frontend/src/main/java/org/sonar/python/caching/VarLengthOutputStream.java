@@ -57,6 +57,11 @@ public class VarLengthOutputStream implements Closeable {
     out.write(bytes);
   }
 
+  public void writeBytes(byte[] bytes) throws IOException {
+    writeInt(bytes.length);
+    out.write(bytes);
+  }
+
   @Override
   public void close() throws IOException {
     out.close();
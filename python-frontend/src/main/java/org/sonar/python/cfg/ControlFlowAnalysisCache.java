@@ -0,0 +1,80 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.cfg;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.api.tree.FunctionDef;
+import org.sonar.plugins.python.api.tree.Tree;
+import org.sonar.python.cfg.fixpoint.LiveVariablesAnalysis;
+import org.sonar.python.cfg.fixpoint.ReachingDefinitionsAnalysis;
+
+/**
+ * Control flow graphs and data flow analyses of a single file, computed on first use and shared by the type inference and the checks.
+ * Graphs and analyses are only read once computed, so they must not be modified by their consumers.
+ */
+public class ControlFlowAnalysisCache {
+
+  private final PythonFile pythonFile;
+  private final Map<Tree, ControlFlowGraph> cfgByTree = new HashMap<>();
+  private final Map<ControlFlowGraph, LiveVariablesAnalysis> liveVariablesByCfg = new HashMap<>();
+  private ReachingDefinitionsAnalysis reachingDefinitionsAnalysis = null;
+
+  public ControlFlowAnalysisCache(PythonFile pythonFile) {
+    this.pythonFile = pythonFile;
+  }
+
+  @CheckForNull
+  public ControlFlowGraph controlFlowGraph(FunctionDef functionDef) {
+    if (!cfgByTree.containsKey(functionDef)) {
+      cfgByTree.put(functionDef, ControlFlowGraph.build(functionDef, pythonFile));
+    }
+    return cfgByTree.get(functionDef);
+  }
+
+  @CheckForNull
+  public ControlFlowGraph controlFlowGraph(FileInput fileInput) {
+    if (!cfgByTree.containsKey(fileInput)) {
+      cfgByTree.put(fileInput, ControlFlowGraph.build(fileInput, pythonFile));
+    }
+    return cfgByTree.get(fileInput);
+  }
+
+  public LiveVariablesAnalysis liveVariablesAnalysis(ControlFlowGraph cfg) {
+    return liveVariablesByCfg.computeIfAbsent(cfg, LiveVariablesAnalysis::analyze);
+  }
+
+  public ReachingDefinitionsAnalysis reachingDefinitionsAnalysis() {
+    if (reachingDefinitionsAnalysis == null) {
+      reachingDefinitionsAnalysis = new ReachingDefinitionsAnalysis(this::controlFlowGraph);
+    }
+    return reachingDefinitionsAnalysis;
+  }
+
+  /**
+   * Releases the graphs and analyses once the file has been analyzed.
+   */
+  public void clear() {
+    cfgByTree.clear();
+    liveVariablesByCfg.clear();
+    reachingDefinitionsAnalysis = null;
+  }
+}
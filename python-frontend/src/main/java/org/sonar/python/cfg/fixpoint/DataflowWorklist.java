@@ -0,0 +1,120 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.plugins.python.api.cfg.CfgBlock;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+
+/**
+ * Worklist of the blocks of a control flow graph for fixpoint computations.
+ * Blocks are ordered by reverse postorder for forward analyses and by postorder for backward analyses, so that a block is mostly
+ * processed after the blocks it depends on. Pending blocks are tracked in a bitmap: a block is never queued twice, and the next block
+ * is always the first pending one in that order.
+ */
+class DataflowWorklist {
+
+  private final List<CfgBlock> orderedBlocks;
+  private final Map<CfgBlock, Integer> orderByBlock = new HashMap<>();
+  private final BitSet pendingBlocks;
+
+  private DataflowWorklist(List<CfgBlock> orderedBlocks) {
+    this.orderedBlocks = orderedBlocks;
+    for (int i = 0; i < orderedBlocks.size(); i++) {
+      orderByBlock.put(orderedBlocks.get(i), i);
+    }
+    this.pendingBlocks = new BitSet(orderedBlocks.size());
+    pendingBlocks.set(0, orderedBlocks.size());
+  }
+
+  /**
+   * All the blocks of the graph are initially pending.
+   */
+  static DataflowWorklist forward(ControlFlowGraph cfg) {
+    List<CfgBlock> reversePostorder = reachableBlocksInPostorder(cfg);
+    Collections.reverse(reversePostorder);
+    return new DataflowWorklist(withUnreachableBlocks(cfg, reversePostorder));
+  }
+
+  /**
+   * All the blocks of the graph are initially pending.
+   */
+  static DataflowWorklist backward(ControlFlowGraph cfg) {
+    return new DataflowWorklist(withUnreachableBlocks(cfg, reachableBlocksInPostorder(cfg)));
+  }
+
+  boolean isEmpty() {
+    return pendingBlocks.isEmpty();
+  }
+
+  CfgBlock pop() {
+    int next = pendingBlocks.nextSetBit(0);
+    pendingBlocks.clear(next);
+    return orderedBlocks.get(next);
+  }
+
+  void pushAll(Collection<CfgBlock> blocks) {
+    for (CfgBlock block : blocks) {
+      Integer order = orderByBlock.get(block);
+      if (order != null) {
+        pendingBlocks.set(order);
+      }
+    }
+  }
+
+  private static List<CfgBlock> reachableBlocksInPostorder(ControlFlowGraph cfg) {
+    List<CfgBlock> postorder = new ArrayList<>();
+    Set<CfgBlock> visited = new HashSet<>();
+    Deque<Map.Entry<CfgBlock, Iterator<CfgBlock>>> stack = new ArrayDeque<>();
+    visited.add(cfg.start());
+    stack.push(Map.entry(cfg.start(), cfg.start().successors().iterator()));
+    while (!stack.isEmpty()) {
+      Map.Entry<CfgBlock, Iterator<CfgBlock>> current = stack.peek();
+      Iterator<CfgBlock> successors = current.getValue();
+      if (successors.hasNext()) {
+        CfgBlock successor = successors.next();
+        if (visited.add(successor)) {
+          stack.push(Map.entry(successor, successor.successors().iterator()));
+        }
+      } else {
+        stack.pop();
+        postorder.add(current.getKey());
+      }
+    }
+    return postorder;
+  }
+
+  private static List<CfgBlock> withUnreachableBlocks(ControlFlowGraph cfg, List<CfgBlock> reachableBlocks) {
+    Set<CfgBlock> blocks = cfg.blocks();
+    List<CfgBlock> result = new ArrayList<>(reachableBlocks.size());
+    reachableBlocks.stream().filter(blocks::contains).forEach(result::add);
+    Set<CfgBlock> reachable = new HashSet<>(result);
+    blocks.stream().filter(block -> !reachable.contains(block)).forEach(result::add);
+    return result;
+  }
+}
@@ -16,10 +16,8 @@
  */
 package org.sonar.python.cfg.fixpoint;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.BitSet;
 import java.util.HashMap;
-import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
 import org.sonar.plugins.python.api.cfg.CfgBlock;
@@ -37,23 +35,38 @@ public class DefinedVariablesAnalysis {
     return instance;
   }
 
+  /**
+   * Sets of symbols are represented as bit sets during the fixpoint computation: a program state is the set of its symbols
+   * and the subset of those which are defined.
+   */
   private void compute(ControlFlowGraph cfg, Set<Symbol> localVariables) {
     Map<Symbol, VariableDefinition> initialState = new HashMap<>();
+    SymbolIndex symbolIndex = new SymbolIndex();
+    BitSet initialSymbols = new BitSet();
+    BitSet initiallyDefined = new BitSet();
     for (Symbol variable : localVariables) {
       boolean isParameter = isParameter(variable);
       initialState.put(variable, isParameter ? VariableDefinition.DEFINED : VariableDefinition.UNDEFINED);
+      int index = symbolIndex.indexOf(variable);
+      initialSymbols.set(index);
+      initiallyDefined.set(index, isParameter);
     }
     Set<CfgBlock> blocks = cfg.blocks();
-    blocks.forEach(block -> definedVariablesPerBlock.put(block, DefinedVariables.build(block, initialState)));
-    Deque<CfgBlock> workList = new ArrayDeque<>(blocks);
+    blocks.forEach(block -> {
+      DefinedVariables definedVariables = DefinedVariables.build(block, initialState);
+      definedVariables.initBitSets(symbolIndex, initialSymbols, initiallyDefined);
+      definedVariablesPerBlock.put(block, definedVariables);
+    });
+    DataflowWorklist workList = DataflowWorklist.forward(cfg);
     while (!workList.isEmpty()) {
       CfgBlock currentBlock = workList.pop();
       DefinedVariables definedVariables = this.definedVariablesPerBlock.get(currentBlock);
       boolean outHasChanged = definedVariables.propagate(this.definedVariablesPerBlock);
       if (outHasChanged) {
-        currentBlock.successors().forEach(workList::push);
+        workList.pushAll(currentBlock.successors());
       }
     }
+    definedVariablesPerBlock.values().forEach(definedVariables -> definedVariables.updateProgramStates(symbolIndex));
   }
 
   private static boolean isParameter(Symbol variable) {
@@ -66,14 +79,7 @@ public class DefinedVariablesAnalysis {
 
   public enum VariableDefinition {
     UNDEFINED,
-    DEFINED;
-
-    static VariableDefinition join(VariableDefinition v1, VariableDefinition v2) {
-      if (v1 == UNDEFINED && v2 == UNDEFINED) {
-        return UNDEFINED;
-      }
-      return DEFINED;
-    }
+    DEFINED
   }
 
   public static class DefinedVariables extends CfgBlockState {
@@ -82,6 +88,12 @@ public class DefinedVariablesAnalysis {
 
     private Map<Symbol, VariableDefinition> out = new HashMap<>();
 
+    private BitSet killBits = new BitSet();
+    private BitSet inSymbols = new BitSet();
+    private BitSet inDefined = new BitSet();
+    private BitSet outSymbols = new BitSet();
+    private BitSet outDefined = new BitSet();
+
     private DefinedVariables(CfgBlock block) {
       super(block);
     }
@@ -98,28 +110,38 @@ public class DefinedVariablesAnalysis {
 
     /**
      * Propagates forward: first computes the in set from all predecessors, then the out set.
+     * A symbol missing from a program state is undefined.
      */
     private boolean propagate(Map<CfgBlock, DefinedVariables> definedVariablesPerBlock) {
-      block.predecessors().stream()
-        .map(definedVariablesPerBlock::get)
-        .map(DefinedVariables::getOut)
-        .forEach(predecessorOuts -> in = join(in, predecessorOuts));
-      Map<Symbol, VariableDefinition> newOut = new HashMap<>(in);
-      kill.forEach(symbol -> newOut.put(symbol, VariableDefinition.DEFINED));
-      boolean outHasChanged = !newOut.equals(out);
-      out = newOut;
+      for (CfgBlock predecessor : block.predecessors()) {
+        DefinedVariables predecessorState = definedVariablesPerBlock.get(predecessor);
+        inSymbols.or(predecessorState.outSymbols);
+        inDefined.or(predecessorState.outDefined);
+      }
+      BitSet newOutSymbols = (BitSet) inSymbols.clone();
+      newOutSymbols.or(killBits);
+      BitSet newOutDefined = (BitSet) inDefined.clone();
+      newOutDefined.or(killBits);
+      boolean outHasChanged = !newOutSymbols.equals(outSymbols) || !newOutDefined.equals(outDefined);
+      outSymbols = newOutSymbols;
+      outDefined = newOutDefined;
       return outHasChanged;
     }
 
-    private static Map<Symbol, VariableDefinition> join(Map<Symbol, VariableDefinition> programState1, Map<Symbol, VariableDefinition> programState2) {
+    private void initBitSets(SymbolIndex symbolIndex, BitSet initialSymbols, BitSet initiallyDefined) {
+      killBits = symbolIndex.bitSet(kill);
+      inSymbols = (BitSet) initialSymbols.clone();
+      inDefined = (BitSet) initiallyDefined.clone();
+    }
+
+    private void updateProgramStates(SymbolIndex symbolIndex) {
+      in = programState(symbolIndex, inSymbols, inDefined);
+      out = programState(symbolIndex, outSymbols, outDefined);
+    }
+
+    private static Map<Symbol, VariableDefinition> programState(SymbolIndex symbolIndex, BitSet symbols, BitSet defined) {
       Map<Symbol, VariableDefinition> result = new HashMap<>();
-      Set<Symbol> allKeys = new HashSet<>(programState1.keySet());
-      allKeys.addAll(programState2.keySet());
-      for (Symbol key : allKeys) {
-        VariableDefinition varDef1 = programState1.getOrDefault(key, VariableDefinition.UNDEFINED);
-        VariableDefinition varDef2 = programState2.getOrDefault(key, VariableDefinition.UNDEFINED);
-        result.put(key, VariableDefinition.join(varDef1, varDef2));
-      }
+      symbols.stream().forEach(index -> result.put(symbolIndex.symbol(index), defined.get(index) ? VariableDefinition.DEFINED : VariableDefinition.UNDEFINED));
       return result;
     }
 
@@ -16,8 +16,6 @@
  */
 package org.sonar.python.cfg.fixpoint;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
@@ -40,13 +38,13 @@ public abstract class ForwardAnalysis {
     ProgramState initialState = initialState();
     Set<CfgBlock> blocks = cfg.blocks();
     blocks.forEach(block -> programStateByBlock.put(block, new ProgramStateAtBlock(block, initialState)));
-    Deque<CfgBlock> workList = new ArrayDeque<>(blocks);
+    DataflowWorklist workList = DataflowWorklist.forward(cfg);
     while (!workList.isEmpty()) {
       CfgBlock currentBlock = workList.pop();
       ProgramStateAtBlock programStateAtBlock = programStateByBlock.get(currentBlock);
       boolean outHasChanged = programStateAtBlock.propagate();
       if (outHasChanged) {
-        currentBlock.successors().forEach(workList::push);
+        workList.pushAll(currentBlock.successors());
       }
     }
     return programStateByBlock.get(cfg.end()).out;
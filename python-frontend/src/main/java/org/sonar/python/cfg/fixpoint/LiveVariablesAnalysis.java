@@ -16,8 +16,7 @@
  */
 package org.sonar.python.cfg.fixpoint;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import java.util.BitSet;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -40,18 +39,25 @@ public class LiveVariablesAnalysis {
   /**
    * See "worklist algorithm" in http://www.cs.cornell.edu/courses/cs4120/2013fa/lectures/lec26-fa13.pdf
    * An alternative terminology for "kill/gen" is "def/use"
+   * Sets of symbols are represented as bit sets during the fixpoint computation.
    */
   private void compute(ControlFlowGraph cfg) {
-    cfg.blocks().forEach(block -> liveVariablesPerBlock.put(block, LiveVariables.build(block)));
-    Deque<CfgBlock> workList = new ArrayDeque<>(cfg.blocks());
+    SymbolIndex symbolIndex = new SymbolIndex();
+    cfg.blocks().forEach(block -> {
+      LiveVariables liveVariables = LiveVariables.build(block);
+      liveVariables.initBitSets(symbolIndex);
+      liveVariablesPerBlock.put(block, liveVariables);
+    });
+    DataflowWorklist workList = DataflowWorklist.backward(cfg);
     while (!workList.isEmpty()) {
       CfgBlock currentBlock = workList.pop();
       LiveVariables liveVariables = liveVariablesPerBlock.get(currentBlock);
       boolean liveInHasChanged = liveVariables.propagate(liveVariablesPerBlock);
       if (liveInHasChanged) {
-        currentBlock.predecessors().forEach(workList::push);
+        workList.pushAll(currentBlock.predecessors());
       }
     }
+    liveVariablesPerBlock.values().forEach(liveVariables -> liveVariables.updateSymbolSets(symbolIndex));
   }
 
   public LiveVariables getLiveVariables(CfgBlock block) {
@@ -86,6 +92,11 @@ public class LiveVariablesAnalysis {
      */
     private Set<Symbol> out = new HashSet<>();
 
+    private BitSet genBits = new BitSet();
+    private BitSet killBits = new BitSet();
+    private BitSet inBits = new BitSet();
+    private final BitSet outBits = new BitSet();
+
     private LiveVariables(CfgBlock block) {
       super(block);
     }
@@ -99,30 +110,33 @@ public class LiveVariablesAnalysis {
       return instance;
     }
 
+    private void initBitSets(SymbolIndex symbolIndex) {
+      genBits = symbolIndex.bitSet(gen);
+      killBits = symbolIndex.bitSet(kill);
+    }
+
     /**
      * Propagates backwards: first computes the 'out' set, then the 'in' set.
      */
     private boolean propagate(Map<CfgBlock, LiveVariables> liveVariablesPerBlock) {
-      out.clear();
-      block.successors().stream()
-        .map(liveVariablesPerBlock::get)
-        .map(LiveVariables::getIn)
-        .forEach(out::addAll);
+      outBits.clear();
+      for (CfgBlock successor : block.successors()) {
+        outBits.or(liveVariablesPerBlock.get(successor).inBits);
+      }
       // in = gen + (out - kill)
-      Set<Symbol> newIn = new HashSet<>(gen);
-      newIn.addAll(difference(out, kill));
-      boolean inHasChanged = !newIn.equals(in);
-      in = newIn;
+      BitSet newIn = (BitSet) outBits.clone();
+      newIn.andNot(killBits);
+      newIn.or(genBits);
+      boolean inHasChanged = !newIn.equals(inBits);
+      inBits = newIn;
       return inHasChanged;
     }
 
-    private static Set<Symbol> difference(Set<Symbol> out, Set<Symbol> kill) {
-      Set<Symbol> result = new HashSet<>(out);
-      result.removeIf(kill::contains);
-      return result;
+    private void updateSymbolSets(SymbolIndex symbolIndex) {
+      in = symbolIndex.symbols(inBits);
+      out = symbolIndex.symbols(outBits);
     }
 
-
     public Set<Symbol> getIn() {
       return in;
     }
@@ -16,16 +16,15 @@
  */
 package org.sonar.python.cfg.fixpoint;
 
-import java.util.ArrayDeque;
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Deque;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Stream;
 import org.sonar.plugins.python.api.PythonFile;
@@ -56,11 +55,19 @@ import static org.sonar.plugins.python.api.tree.Tree.Kind.TRY_STMT;
 public class ReachingDefinitionsAnalysis {
   private final Map<CfgBlock, ProgramStateAtBlock> programStateByBlock = new HashMap<>();
   private final Map<Name, Set<Expression>> assignedExpressionByName = new HashMap<>();
-  private final PythonFile pythonFile;
+  private final Function<FunctionDef, ControlFlowGraph> controlFlowGraphProvider;
   private final Map<Symbol, Set<Name>> assignedNamesBySymbol = new HashMap<>();
 
   public ReachingDefinitionsAnalysis(PythonFile pythonFile) {
-    this.pythonFile = pythonFile;
+    this(functionDef -> ControlFlowGraph.build(functionDef, pythonFile));
+  }
+
+  /**
+   * @param controlFlowGraphProvider provides the control flow graphs of the functions, for instance from a
+   * {@link org.sonar.python.cfg.ControlFlowAnalysisCache} shared with other analyses of the same file
+   */
+  public ReachingDefinitionsAnalysis(Function<FunctionDef, ControlFlowGraph> controlFlowGraphProvider) {
+    this.controlFlowGraphProvider = controlFlowGraphProvider;
   }
 
   public Set<Expression> valuesAtLocation(Name variable) {
@@ -77,7 +84,7 @@ public class ReachingDefinitionsAnalysis {
     if (enclosingFunction == null || TreeUtils.hasDescendant(enclosingFunction, t -> t.is(TRY_STMT))) {
       return Collections.emptySet();
     }
-    ControlFlowGraph cfg = ControlFlowGraph.build(enclosingFunction, pythonFile);
+    ControlFlowGraph cfg = controlFlowGraphProvider.apply(enclosingFunction);
     if (cfg == null) {
       return Collections.emptySet();
     }
@@ -107,13 +114,13 @@ public class ReachingDefinitionsAnalysis {
     }
     Set<CfgBlock> blocks = cfg.blocks();
     blocks.forEach(block -> programStateByBlock.put(block, new ProgramStateAtBlock(block, initialState)));
-    Deque<CfgBlock> workList = new ArrayDeque<>(blocks);
+    DataflowWorklist workList = DataflowWorklist.forward(cfg);
     while (!workList.isEmpty()) {
       CfgBlock currentBlock = workList.pop();
       ProgramStateAtBlock programStateAtBlock = programStateByBlock.get(currentBlock);
       boolean outHasChanged = programStateAtBlock.propagate();
       if (outHasChanged) {
-        currentBlock.successors().forEach(workList::push);
+        workList.pushAll(currentBlock.successors());
       }
     }
     updateProgramStateByElement(cfg);
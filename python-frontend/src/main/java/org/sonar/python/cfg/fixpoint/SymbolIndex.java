@@ -0,0 +1,59 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.plugins.python.api.symbols.Symbol;
+
+/**
+ * Numbers the symbols tracked by a data flow analysis of a single control flow graph, so that sets of symbols can be represented as bit sets.
+ */
+class SymbolIndex {
+
+  private final Map<Symbol, Integer> indexBySymbol = new HashMap<>();
+  private final List<Symbol> symbols = new ArrayList<>();
+
+  int indexOf(Symbol symbol) {
+    return indexBySymbol.computeIfAbsent(symbol, s -> {
+      symbols.add(s);
+      return symbols.size() - 1;
+    });
+  }
+
+  BitSet bitSet(Collection<Symbol> symbolsToIndex) {
+    BitSet bitSet = new BitSet();
+    symbolsToIndex.forEach(symbol -> bitSet.set(indexOf(symbol)));
+    return bitSet;
+  }
+
+  Symbol symbol(int index) {
+    return symbols.get(index);
+  }
+
+  Set<Symbol> symbols(BitSet bitSet) {
+    Set<Symbol> result = new HashSet<>();
+    bitSet.stream().forEach(index -> result.add(symbols.get(index)));
+    return result;
+  }
+}
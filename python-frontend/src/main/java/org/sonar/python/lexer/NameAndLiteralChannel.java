@@ -0,0 +1,297 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.lexer;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.TokenType;
+import com.sonar.sslr.impl.Lexer;
+import java.util.HashMap;
+import java.util.Map;
+import org.sonar.python.api.PythonKeyword;
+import org.sonar.python.api.PythonTokenType;
+import org.sonar.sslr.channel.Channel;
+import org.sonar.sslr.channel.CodeReader;
+
+/**
+ * Hand-written equivalent of the regular expression channels for bytes literals and numbers, and of the identifier and keyword channel.
+ * The first character selects the kind of token through a character class table, and the token is then matched in a single pass
+ * with the same semantics as the possessive regular expressions it replaces, tried in the same order.
+ * <ul>
+ *   <li>http://docs.python.org/release/3.2/reference/lexical_analysis.html#string-and-bytes-literals</li>
+ *   <li>http://docs.python.org/reference/lexical_analysis.html#numeric-literals</li>
+ *   <li>http://docs.python.org/reference/lexical_analysis.html#identifiers</li>
+ * </ul>
+ */
+public class NameAndLiteralChannel extends Channel<Lexer> {
+
+  private static final int EOF = -1;
+
+  private static final int DIGIT = 1;
+  private static final int HEX_DIGIT = 1 << 1;
+  private static final int OCT_DIGIT = 1 << 2;
+  private static final int BIN_DIGIT = 1 << 3;
+  private static final int ZERO = 1 << 4;
+  private static final int NAME_START = 1 << 5;
+  private static final int NAME_PART = 1 << 6;
+
+  private static final int[] ASCII_CLASSES = new int[128];
+
+  static {
+    for (char c = '0'; c <= '9'; c++) {
+      ASCII_CLASSES[c] = DIGIT | HEX_DIGIT | NAME_PART;
+    }
+    for (char c = '0'; c <= '7'; c++) {
+      ASCII_CLASSES[c] |= OCT_DIGIT;
+    }
+    ASCII_CLASSES['0'] |= BIN_DIGIT | ZERO;
+    ASCII_CLASSES['1'] |= BIN_DIGIT;
+    for (char c = 'a'; c <= 'z'; c++) {
+      ASCII_CLASSES[c] = NAME_START | NAME_PART;
+      ASCII_CLASSES[Character.toUpperCase(c)] = NAME_START | NAME_PART;
+    }
+    for (char c = 'a'; c <= 'f'; c++) {
+      ASCII_CLASSES[c] |= HEX_DIGIT;
+      ASCII_CLASSES[Character.toUpperCase(c)] |= HEX_DIGIT;
+    }
+    ASCII_CLASSES['_'] = NAME_START | NAME_PART;
+  }
+
+  private static final Map<String, TokenType> KEYWORDS = new HashMap<>();
+
+  static {
+    for (PythonKeyword keyword : PythonKeyword.values()) {
+      KEYWORDS.put(keyword.getValue(), keyword);
+    }
+  }
+
+  private final StringBuilder sb = new StringBuilder();
+
+  @Override
+  public boolean consume(CodeReader code, Lexer output) {
+    int ch = charAt(code, 0);
+    int length;
+    TokenType type;
+    if (ch == '.' || is(ch, DIGIT)) {
+      length = number(code, ch);
+      type = PythonTokenType.NUMBER;
+    } else if (is(ch, NAME_START)) {
+      length = bytesLiteral(code, ch);
+      type = PythonTokenType.STRING;
+      if (length == EOF) {
+        length = name(code);
+        type = null;
+      }
+    } else {
+      return false;
+    }
+    if (length == EOF) {
+      return false;
+    }
+
+    int line = code.getLinePosition();
+    int column = code.getColumnPosition();
+    for (int i = 0; i < length; i++) {
+      sb.append((char) code.pop());
+    }
+    String value = sb.toString();
+    sb.setLength(0);
+    if (type == null) {
+      type = KEYWORDS.getOrDefault(value, GenericTokenType.IDENTIFIER);
+    }
+    output.addToken(Token.builder()
+      .setType(type)
+      .setValueAndOriginalValue(value)
+      .setURI(output.getURI())
+      .setLine(line)
+      .setColumn(column)
+      .build());
+    return true;
+  }
+
+  /**
+   * Identifier start: letters, underscore or any non-ASCII character. Identifier part: the same, plus digits.
+   */
+  private static int name(CodeReader code) {
+    int index = 1;
+    while (is(charAt(code, index), NAME_PART)) {
+      index++;
+    }
+    return index;
+  }
+
+  /**
+   * {@code ([bB][Rr]?|[rR][bB]?)} followed by a single or double quoted string.
+   */
+  private static int bytesLiteral(CodeReader code, int first) {
+    int index;
+    if (first == 'b' || first == 'B') {
+      index = isOneOf(charAt(code, 1), 'r', 'R') ? 2 : 1;
+    } else if (first == 'r' || first == 'R') {
+      index = isOneOf(charAt(code, 1), 'b', 'B') ? 2 : 1;
+    } else {
+      return EOF;
+    }
+    int quote = charAt(code, index);
+    if (quote != '\'' && quote != '"') {
+      return EOF;
+    }
+    index++;
+    int ch = charAt(code, index);
+    while (ch != quote) {
+      if (ch == EOF) {
+        return EOF;
+      }
+      if (ch == '\\') {
+        if (charAt(code, index + 1) == EOF) {
+          return EOF;
+        }
+        index++;
+      }
+      index++;
+      ch = charAt(code, index);
+    }
+    return index + 1;
+  }
+
+  private static int number(CodeReader code, int first) {
+    if (first == '.') {
+      // \.[0-9]++(_?[0-9])*+EXP?+IMAG?+
+      int end = digitPart(code, 1);
+      return end == EOF ? EOF : optional(code, optionalExponent(code, end), 'j', 'J');
+    }
+    int digits = digitPart(code, 0);
+    if (charAt(code, digits) == '.') {
+      // [0-9]++(_?[0-9])*+\.[0-9]*+(_?[0-9])*+EXP?+IMAG?+
+      int end = underscoreSeparated(code, digits + 1, DIGIT);
+      return optional(code, optionalExponent(code, end), 'j', 'J');
+    }
+    int exponent = exponent(code, digits);
+    if (exponent != EOF) {
+      // [0-9]++(_?[0-9])*+EXP IMAG?+
+      return optional(code, exponent, 'j', 'J');
+    }
+    if (isOneOf(charAt(code, digits), 'j', 'J')) {
+      // [0-9]++(_?[0-9])*+IMAG
+      return digits + 1;
+    }
+    return integer(code, first);
+  }
+
+  private static int integer(CodeReader code, int first) {
+    if (first != '0') {
+      // [1-9](_?[0-9])*+L?+
+      return optional(code, underscoreSeparated(code, 1, DIGIT), 'l', 'L');
+    }
+    int second = charAt(code, 1);
+    // 0[oO]?+(_?[0-7])++L?+
+    int end = atLeastOne(code, isOneOf(second, 'o', 'O') ? 2 : 1, OCT_DIGIT);
+    if (end == EOF && isOneOf(second, 'x', 'X')) {
+      // 0[xX](_?[0-9a-fA-F])++L?+
+      end = atLeastOne(code, 2, HEX_DIGIT);
+    }
+    if (end == EOF && isOneOf(second, 'b', 'B')) {
+      // 0[bB](_?[01])++L?+
+      end = atLeastOne(code, 2, BIN_DIGIT);
+    }
+    if (end == EOF) {
+      // 0(_?0)*+L?+
+      end = underscoreSeparated(code, 1, ZERO);
+    }
+    return optional(code, end, 'l', 'L');
+  }
+
+  /**
+   * {@code [0-9]++(_?[0-9])*+}
+   */
+  private static int digitPart(CodeReader code, int index) {
+    return is(charAt(code, index), DIGIT) ? underscoreSeparated(code, index + 1, DIGIT) : EOF;
+  }
+
+  /**
+   * {@code (_?[class])++}
+   */
+  private static int atLeastOne(CodeReader code, int index, int charClass) {
+    int end = underscoreSeparated(code, index, charClass);
+    return end == index ? EOF : end;
+  }
+
+  /**
+   * {@code (_?[class])*+}
+   */
+  private static int underscoreSeparated(CodeReader code, int index, int charClass) {
+    int i = index;
+    while (true) {
+      int ch = charAt(code, i);
+      if (is(ch, charClass)) {
+        i++;
+      } else if (ch == '_' && is(charAt(code, i + 1), charClass)) {
+        i += 2;
+      } else {
+        return i;
+      }
+    }
+  }
+
+  private static int optionalExponent(CodeReader code, int index) {
+    int end = exponent(code, index);
+    return end == EOF ? index : end;
+  }
+
+  /**
+   * {@code [Ee][+-]?+[0-9_]++}
+   */
+  private static int exponent(CodeReader code, int index) {
+    if (!isOneOf(charAt(code, index), 'e', 'E')) {
+      return EOF;
+    }
+    int i = index + 1;
+    if (isOneOf(charAt(code, i), '+', '-')) {
+      i++;
+    }
+    int start = i;
+    int ch = charAt(code, i);
+    while (is(ch, DIGIT) || ch == '_') {
+      i++;
+      ch = charAt(code, i);
+    }
+    return i == start ? EOF : i;
+  }
+
+  private static int optional(CodeReader code, int index, char lowerCase, char upperCase) {
+    return isOneOf(charAt(code, index), lowerCase, upperCase) ? (index + 1) : index;
+  }
+
+  private static boolean isOneOf(int ch, char first, char second) {
+    return ch == first || ch == second;
+  }
+
+  private static boolean is(int ch, int charClass) {
+    if (ch < 0) {
+      return false;
+    }
+    if (ch >= ASCII_CLASSES.length) {
+      // any non-ASCII character is accepted in identifiers, as by the regular expression channel
+      return (charClass & (NAME_START | NAME_PART)) != 0;
+    }
+    return (ASCII_CLASSES[ch] & charClass) != 0;
+  }
+
+  private static int charAt(CodeReader code, int index) {
+    return index < code.length() ? code.charAt(index) : EOF;
+  }
+}
@@ -50,35 +50,69 @@ public final class PythonLexer {
   }
 
   public static Lexer create(LexerState lexerState) {
+    return create(lexerState, false);
+  }
+
+  /**
+   * @param handWrittenChannels selects the hand-written channels, or the regular expression channels they replace.
+   *                            Both produce the same tokens.
+   */
+  public static Lexer create(LexerState lexerState, boolean handWrittenChannels) {
     Lexer.Builder builder = Lexer.builder().withFailIfNoChannelToConsumeOneCharacter(true);
-    addCommonChannels(builder, lexerState);
+    addCommonChannels(builder, lexerState, handWrittenChannels);
     return builder.build();
   }
 
   public static Lexer ipynbLexer(LexerState lexerState) {
+    return ipynbLexer(lexerState, false);
+  }
+
+  public static Lexer ipynbLexer(LexerState lexerState, boolean handWrittenChannels) {
     Lexer.Builder builder = Lexer.builder().withFailIfNoChannelToConsumeOneCharacter(true);
     builder.withChannel(new IPynbCellDelimiterChannel(lexerState));
-    addCommonChannels(builder, lexerState);
+    addCommonChannels(builder, lexerState, handWrittenChannels);
     return builder.build();
   }
 
-  private static void addCommonChannels(Lexer.Builder builder, LexerState lexerState) {
+  private static void addCommonChannels(Lexer.Builder builder, LexerState lexerState, boolean handWrittenChannels) {
     builder
       .withChannel(new NewLineChannel(lexerState))
 
-      .withChannel(new IndentationChannel(lexerState))
+      .withChannel(new IndentationChannel(lexerState));
 
-      .withChannel(new BlackHoleChannel("\\s"))
+    if (handWrittenChannels) {
+      builder.withChannel(new WhitespaceAndCommentChannel());
+    } else {
+      builder
+        .withChannel(new BlackHoleChannel("\\s"))
 
-      // http://docs.python.org/reference/lexical_analysis.html#comments
-      .withChannel(commentRegexp("#[^\\n\\r]*+"))
+        // http://docs.python.org/reference/lexical_analysis.html#comments
+        .withChannel(commentRegexp("#[^\\n\\r]*+"));
+    }
 
+    builder
       // http://docs.python.org/reference/lexical_analysis.html#string-literals
       .withChannel(new StringLiteralsChannel())
 
       //https://docs.python.org/3.6/reference/lexical_analysis.html#formatted-string-literals
-      .withChannel(new FStringChannel(lexerState))
+      .withChannel(new FStringChannel(lexerState));
+
+    if (handWrittenChannels) {
+      builder.withChannel(new NameAndLiteralChannel());
+    } else {
+      addRegexpChannels(builder);
+    }
+
+    builder
+      // http://docs.python.org/reference/lexical_analysis.html#operators
+      // http://docs.python.org/reference/lexical_analysis.html#delimiters
+      .withChannel(new PunctuatorChannel(PythonPunctuator.values()))
 
+      .withChannel(new UnknownCharacterChannel());
+  }
+
+  private static void addRegexpChannels(Lexer.Builder builder) {
+    builder
       // http://docs.python.org/release/3.2/reference/lexical_analysis.html#string-and-bytes-literals
       .withChannel(regexp(PythonTokenType.STRING, BYTES_PREFIX + SINGLE_QUOTE_STRING))
       .withChannel(regexp(PythonTokenType.STRING, BYTES_PREFIX + DOUBLE_QUOTES_STRING))
@@ -102,12 +136,6 @@ public final class PythonLexer {
       // http://docs.python.org/reference/lexical_analysis.html#identifiers
       .withChannel(new IdentifierAndKeywordChannel(and(
         or(IDENTIFIER_START, UNICODE_CHAR),
-        o2n(or(IDENTIFIER_CONTINUE, UNICODE_CHAR))), true, PythonKeyword.values()))
-
-      // http://docs.python.org/reference/lexical_analysis.html#operators
-      // http://docs.python.org/reference/lexical_analysis.html#delimiters
-      .withChannel(new PunctuatorChannel(PythonPunctuator.values()))
-
-      .withChannel(new UnknownCharacterChannel());
+        o2n(or(IDENTIFIER_CONTINUE, UNICODE_CHAR))), true, PythonKeyword.values()));
   }
 }
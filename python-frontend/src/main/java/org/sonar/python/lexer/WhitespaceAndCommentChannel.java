@@ -0,0 +1,83 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.lexer;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import org.sonar.sslr.channel.Channel;
+import org.sonar.sslr.channel.CodeReader;
+
+/**
+ * Hand-written equivalent of the {@code \s} black hole channel and of the {@code #[^\n\r]*+} comment channel.
+ * Line terminators are never consumed here: {@link NewLineChannel} always consumes them first.
+ * http://docs.python.org/reference/lexical_analysis.html#comments
+ */
+public class WhitespaceAndCommentChannel extends Channel<Lexer> {
+
+  private final StringBuilder sb = new StringBuilder();
+
+  @Override
+  public boolean consume(CodeReader code, Lexer output) {
+    int length = code.length();
+    if (length == 0) {
+      return false;
+    }
+    char ch = code.charAt(0);
+    if (isWhitespace(ch)) {
+      int index = 1;
+      while (index < length && isWhitespace(code.charAt(index))) {
+        index++;
+      }
+      for (int i = 0; i < index; i++) {
+        code.pop();
+      }
+      return true;
+    }
+    if (ch == '#') {
+      int line = code.getLinePosition();
+      int column = code.getColumnPosition();
+      int index = 1;
+      while (index < length && !isNewLine(code.charAt(index))) {
+        index++;
+      }
+      for (int i = 0; i < index; i++) {
+        sb.append((char) code.pop());
+      }
+      Token comment = Token.builder()
+        .setType(GenericTokenType.COMMENT)
+        .setValueAndOriginalValue(sb.toString())
+        .setURI(output.getURI())
+        .setLine(line)
+        .setColumn(column)
+        .build();
+      output.addTrivia(Trivia.createComment(comment));
+      sb.setLength(0);
+      return true;
+    }
+    return false;
+  }
+
+  private static boolean isWhitespace(char ch) {
+    return ch == ' ' || ch == '\t' || ch == '\f' || ch == '\u000B';
+  }
+
+  private static boolean isNewLine(char ch) {
+    return ch == '\n' || ch == '\r';
+  }
+}
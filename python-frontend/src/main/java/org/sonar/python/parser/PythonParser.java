@@ -33,16 +33,32 @@ import org.sonar.python.lexer.PythonLexer;
 
 public final class PythonParser {
 
+  /**
+   * Property selecting the lexer of the parsers created by the analysis, see {@link #create(boolean)}.
+   */
+  public static final String HAND_WRITTEN_LEXER_PROPERTY = "sonar.python.lexer.handwritten";
+
   private final Parser<Grammar> sslrParser;
 
   public static PythonParser create() {
+    return create(false);
+  }
+
+  /**
+   * @param handWrittenLexer whether the lexer uses the hand-written channels, see {@link PythonLexer#create(LexerState, boolean)}
+   */
+  public static PythonParser create(boolean handWrittenLexer) {
     LexerState lexerState = new LexerState();
-    return new PythonParser(new PythonGrammarBuilder().create(), lexerState, PythonLexer.create(lexerState));
+    return new PythonParser(new PythonGrammarBuilder().create(), lexerState, PythonLexer.create(lexerState, handWrittenLexer));
   }
 
   public static PythonParser createIPythonParser() {
+    return createIPythonParser(false);
+  }
+
+  public static PythonParser createIPythonParser(boolean handWrittenLexer) {
     LexerState lexerState = new LexerState();
-    return new PythonParser(new IPythonGrammarBuilder().create(), lexerState, PythonLexer.ipynbLexer(lexerState));
+    return new PythonParser(new IPythonGrammarBuilder().create(), lexerState, PythonLexer.ipynbLexer(lexerState, handWrittenLexer));
   }
 
   private PythonParser(Grammar grammar, LexerState lexerState, Lexer lexer) {
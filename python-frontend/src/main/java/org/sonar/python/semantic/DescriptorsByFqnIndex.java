@@ -0,0 +1,106 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.semantic;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.CheckForNull;
+import org.sonar.python.index.AmbiguousDescriptor;
+import org.sonar.python.index.Descriptor;
+
+/**
+ * Index of the global descriptors of a project by fully qualified name.
+ * Descriptors sharing the same name are resolved to an {@link AmbiguousDescriptor}.
+ * Adding or removing the descriptors of a module only updates the names they define, so that editing a module does not cost
+ * as much as the whole project. Updates are serialized, while lookups don't block and can run concurrently with them.
+ */
+class DescriptorsByFqnIndex {
+
+  // Descriptors added under each fully qualified name: almost always a lone descriptor added once, which is stored as is.
+  // Names defined by several descriptors, or by a descriptor added several times, hold the number of additions of each descriptor.
+  private final Map<String, Object> additionsByFqn = new HashMap<>();
+  private final Map<String, Descriptor> resolvedDescriptorsByFqn = new ConcurrentHashMap<>();
+
+  synchronized void add(Collection<Descriptor> descriptors) {
+    Set<String> updatedNames = new HashSet<>();
+    for (Descriptor descriptor : descriptors) {
+      String fullyQualifiedName = descriptor.fullyQualifiedName();
+      if (fullyQualifiedName != null) {
+        Object additions = additionsByFqn.get(fullyQualifiedName);
+        if (additions == null) {
+          additionsByFqn.put(fullyQualifiedName, descriptor);
+        } else if (additions instanceof Descriptor loneDescriptor) {
+          Map<Descriptor, Integer> counts = new HashMap<>();
+          counts.put(loneDescriptor, 1);
+          counts.merge(descriptor, 1, Integer::sum);
+          additionsByFqn.put(fullyQualifiedName, counts);
+        } else {
+          counts(additions).merge(descriptor, 1, Integer::sum);
+        }
+        updatedNames.add(fullyQualifiedName);
+      }
+    }
+    updatedNames.forEach(this::resolve);
+  }
+
+  synchronized void remove(Collection<Descriptor> descriptors) {
+    Set<String> updatedNames = new HashSet<>();
+    for (Descriptor descriptor : descriptors) {
+      String fullyQualifiedName = descriptor.fullyQualifiedName();
+      Object additions = fullyQualifiedName == null ? null : additionsByFqn.get(fullyQualifiedName);
+      if (additions == descriptor) {
+        additionsByFqn.remove(fullyQualifiedName);
+        updatedNames.add(fullyQualifiedName);
+      } else if (additions instanceof Map && counts(additions).containsKey(descriptor)) {
+        Map<Descriptor, Integer> counts = counts(additions);
+        counts.computeIfPresent(descriptor, (d, count) -> count == 1 ? null : (count - 1));
+        if (counts.size() == 1 && counts.values().iterator().next() == 1) {
+          additionsByFqn.put(fullyQualifiedName, counts.keySet().iterator().next());
+        }
+        updatedNames.add(fullyQualifiedName);
+      }
+    }
+    updatedNames.forEach(this::resolve);
+  }
+
+  @CheckForNull
+  Descriptor get(String fullyQualifiedName) {
+    return resolvedDescriptorsByFqn.get(fullyQualifiedName);
+  }
+
+  private void resolve(String fullyQualifiedName) {
+    Object additions = additionsByFqn.get(fullyQualifiedName);
+    if (additions == null) {
+      resolvedDescriptorsByFqn.remove(fullyQualifiedName);
+    } else if (additions instanceof Descriptor loneDescriptor) {
+      resolvedDescriptorsByFqn.put(fullyQualifiedName, loneDescriptor);
+    } else {
+      Set<Descriptor> alternatives = counts(additions).keySet();
+      Descriptor resolved = alternatives.size() == 1 ? alternatives.iterator().next() : AmbiguousDescriptor.create(new HashSet<>(alternatives));
+      resolvedDescriptorsByFqn.put(fullyQualifiedName, resolved);
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Map<Descriptor, Integer> counts(Object additions) {
+    return (Map<Descriptor, Integer>) additions;
+  }
+}
@@ -23,7 +23,7 @@ import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Set;
-import java.util.function.Function;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -33,7 +33,6 @@ import org.sonar.plugins.python.api.tree.BaseTreeVisitor;
 import org.sonar.plugins.python.api.tree.CallExpression;
 import org.sonar.plugins.python.api.tree.FileInput;
 import org.sonar.plugins.python.api.tree.RegularArgument;
-import org.sonar.python.index.AmbiguousDescriptor;
 import org.sonar.python.index.Descriptor;
 import org.sonar.python.index.DescriptorUtils;
 import org.sonar.python.semantic.v2.BasicTypeTable;
@@ -43,6 +42,7 @@ import org.sonar.python.semantic.v2.TypeInferenceV2;
 import org.sonar.python.semantic.v2.UsageV2;
 import org.sonar.python.semantic.v2.converter.PythonTypeToDescriptorConverter;
 import org.sonar.python.semantic.v2.typeshed.TypeShedDescriptorsProvider;
+import org.sonar.python.types.TypeShedContext;
 import org.sonar.python.types.v2.FunctionType;
 import org.sonar.python.types.v2.PythonType;
 import org.sonar.python.types.v2.TriBool;
@@ -56,12 +56,32 @@ public class ProjectLevelSymbolTable {
 
   private final PythonTypeToDescriptorConverter pythonTypeToDescriptorConverter = new PythonTypeToDescriptorConverter();
   private final Map<String, Set<Descriptor>> globalDescriptorsByModuleName;
-  private Map<String, Descriptor> globalDescriptorsByFQN;
+  private final DescriptorsByFqnIndex globalDescriptorsByFQN = new DescriptorsByFqnIndex();
   private final Set<String> djangoViewsFQN = new HashSet<>();
   private final Map<String, Set<String>> importsByModule = new HashMap<>();
   private final Set<String> projectBasePackages = new HashSet<>();
   private TypeShedDescriptorsProvider typeShedDescriptorsProvider = null;
+  private TypeShedContext typeShedContext = null;
   private Set<Symbol> cachedSymbols = null;
+  /**
+   * Symbols referenced by other symbols, materialized once and shared between files (see {@link #getReferencedSymbol}).
+   * Cleared whenever a module is added or removed, as symbols refer to the descriptors of other modules.
+   */
+  private final Map<Descriptor, ReferencedSymbol> referencedSymbolsByDescriptor = new ConcurrentHashMap<>();
+  private final ThreadLocal<Boolean> isMaterializingReferencedSymbol = ThreadLocal.withInitial(() -> false);
+  // Descriptors of the module whose symbols are being materialized by getSymbolsFromModule, on the current thread
+  private final ThreadLocal<Set<Descriptor>> materializedModuleDescriptors = ThreadLocal.withInitial(Set::of);
+  private static final int MAX_REFERENCED_SYMBOLS = 10_000;
+  /**
+   * Type table shared by the files analyzed against this symbol table (see {@link #typeTable()}).
+   * Discarded whenever a module is added or removed, as it holds the converted types of the project modules.
+   */
+  private volatile ProjectLevelTypeTable typeTable = null;
+  /**
+   * Type table only used to trigger Typeshed resolutions while computing module entries.
+   * Discarded whenever a module is added or removed, like {@link #typeTable}, as it resolves imports against the project modules.
+   */
+  private volatile BasicTypeTable moduleEntryTypeTable = null;
 
   public static ProjectLevelSymbolTable empty() {
     return new ProjectLevelSymbolTable();
@@ -73,6 +93,7 @@ public class ProjectLevelSymbolTable {
     for (var entry : globalDescriptorsByModuleName.entrySet()) {
       var descriptors = entry.getValue();
       projectLevelSymbolTable.globalDescriptorsByModuleName.put(entry.getKey(), descriptors);
+      projectLevelSymbolTable.globalDescriptorsByFQN.add(descriptors);
     }
 
     return projectLevelSymbolTable;
@@ -84,17 +105,29 @@ public class ProjectLevelSymbolTable {
 
   public void removeModule(String packageName, String fileName) {
     String fullyQualifiedModuleName = SymbolUtils.fullyQualifiedModuleName(packageName, fileName);
-    globalDescriptorsByModuleName.remove(fullyQualifiedModuleName);
-    // ensure globalDescriptorsByFQN is re-computed
-    this.globalDescriptorsByFQN = null;
+    Set<Descriptor> removedDescriptors = globalDescriptorsByModuleName.remove(fullyQualifiedModuleName);
+    if (removedDescriptors != null) {
+      globalDescriptorsByFQN.remove(removedDescriptors);
+      referencedSymbolsByDescriptor.clear();
+      typeTable = null;
+      moduleEntryTypeTable = null;
+    }
   }
 
   public void addModule(FileInput fileInput, String packageName, PythonFile pythonFile) {
+    addModule(computeModuleEntry(fileInput, packageName, pythonFile));
+  }
+
+  /**
+   * Computes the global descriptors, imports and Django views of a module without modifying this symbol table.
+   * Several modules can be computed concurrently, as long as no module is added to or removed from this symbol table in the meantime.
+   * Use {@link #addModule(ModuleEntry)} to register the result.
+   */
+  public ModuleEntry computeModuleEntry(FileInput fileInput, String packageName, PythonFile pythonFile) {
     String fullyQualifiedModuleName = SymbolUtils.fullyQualifiedModuleName(packageName, pythonFile.fileName());
     var symbolTable = new SymbolTableBuilderV2(fileInput).build();
-    var typeInferenceV2 = new TypeInferenceV2(new BasicTypeTable(new ProjectLevelTypeTable(this)), pythonFile, symbolTable, packageName);
+    var typeInferenceV2 = new TypeInferenceV2(moduleEntryTypeTable(), pythonFile, symbolTable, packageName);
     var typesBySymbol = typeInferenceV2.inferTypes(fileInput);
-    importsByModule.put(fullyQualifiedModuleName, typeInferenceV2.importedModulesFQN());
     var moduleDescriptors = typesBySymbol.entrySet()
       .stream()
       .filter(entry -> isNotMissingType(entry.getValue()))
@@ -107,33 +140,31 @@ public class ProjectLevelSymbolTable {
         || entry.getKey().usages().stream().anyMatch(u -> u.kind().equals(UsageV2.Kind.IMPORT))))
       .map(Map.Entry::getValue)
       .collect(Collectors.toSet());
-    globalDescriptorsByModuleName.put(fullyQualifiedModuleName, moduleDescriptors);
-    addModuleToGlobalSymbolsByFQN(moduleDescriptors);
 
-    DjangoViewsVisitor djangoViewsVisitor = new DjangoViewsVisitor(fullyQualifiedModuleName);
+    DjangoViewsVisitor djangoViewsVisitor = new DjangoViewsVisitor();
     fileInput.accept(djangoViewsVisitor);
+    return new ModuleEntry(fullyQualifiedModuleName, moduleDescriptors, typeInferenceV2.importedModulesFQN(), djangoViewsVisitor.moduleDjangoViewsFQN);
   }
 
-  private static boolean isNotMissingType(Set<PythonType> types) {
-    return !types.isEmpty() && types.stream().noneMatch(UnknownType.UnresolvedImportType.class::isInstance);
+  public void addModule(ModuleEntry moduleEntry) {
+    importsByModule.put(moduleEntry.fullyQualifiedModuleName(), moduleEntry.importedModulesFQN());
+    Set<Descriptor> previousDescriptors = globalDescriptorsByModuleName.put(moduleEntry.fullyQualifiedModuleName(), moduleEntry.descriptors());
+    replaceModuleInGlobalSymbolsByFQN(previousDescriptors, moduleEntry.descriptors());
+    djangoViewsFQN.addAll(moduleEntry.djangoViewsFQN());
   }
 
-  private void addModuleToGlobalSymbolsByFQN(Set<Descriptor> descriptors) {
-    Map<String, Descriptor> moduleDescriptorsByFQN = descriptors.stream()
-      .filter(d -> d.fullyQualifiedName() != null)
-      .collect(Collectors.toMap(Descriptor::fullyQualifiedName, Function.identity(), AmbiguousDescriptor::create));
-    globalDescriptorsByFQN().putAll(moduleDescriptorsByFQN);
+  private static boolean isNotMissingType(Set<PythonType> types) {
+    return !types.isEmpty() && types.stream().noneMatch(UnknownType.UnresolvedImportType.class::isInstance);
   }
 
-  private Map<String, Descriptor> globalDescriptorsByFQN() {
-    if (globalDescriptorsByFQN == null) {
-      globalDescriptorsByFQN = globalDescriptorsByModuleName.values()
-        .stream()
-        .flatMap(Collection::stream)
-        .filter(descriptor -> descriptor.fullyQualifiedName() != null)
-        .collect(Collectors.toMap(Descriptor::fullyQualifiedName, Function.identity(), AmbiguousDescriptor::create));
+  private void replaceModuleInGlobalSymbolsByFQN(@Nullable Set<Descriptor> previousDescriptors, Set<Descriptor> descriptors) {
+    if (previousDescriptors != null) {
+      globalDescriptorsByFQN.remove(previousDescriptors);
     }
-    return globalDescriptorsByFQN;
+    globalDescriptorsByFQN.add(descriptors);
+    referencedSymbolsByDescriptor.clear();
+    typeTable = null;
+    moduleEntryTypeTable = null;
   }
 
   @CheckForNull
@@ -148,10 +179,62 @@ public class ProjectLevelSymbolTable {
   public Symbol getSymbol(@Nullable String fullyQualifiedName, @Nullable String localSymbolName,
                           Map<Descriptor, Symbol> createdSymbolsByDescriptor, Map<String, Symbol> createdSymbolsByFqn) {
     if (fullyQualifiedName == null) return null;
-    Descriptor descriptor = globalDescriptorsByFQN().get(fullyQualifiedName);
+    Descriptor descriptor = globalDescriptorsByFQN.get(fullyQualifiedName);
     return descriptor == null ? null : DescriptorUtils.symbolFromDescriptor(descriptor, this, localSymbolName, createdSymbolsByDescriptor, createdSymbolsByFqn);
   }
 
+  /**
+   * Returns the symbol of a fully qualified name referenced by another symbol, as a superclass or as the declared type of a parameter.
+   * Unlike the symbols returned by {@link #getSymbol(String)}, which are bound to the file importing them (usages, import alias),
+   * referenced symbols are only read: like Typeshed symbols, they are materialized once and shared between files.
+   * Symbols which are already created by the current call, or which refer back to it (cycles, other symbols of the module being
+   * materialized), are resolved with the given maps instead, so that a symbol is never materialized twice within the same call.
+   */
+  @CheckForNull
+  public Symbol getReferencedSymbol(@Nullable String fullyQualifiedName, Map<Descriptor, Symbol> createdSymbolsByDescriptor, Map<String, Symbol> createdSymbolsByFqn) {
+    Descriptor descriptor = fullyQualifiedName == null ? null : globalDescriptorsByFQN.get(fullyQualifiedName);
+    if (descriptor == null) {
+      return null;
+    }
+    Symbol createdSymbol = createdSymbolsByDescriptor.get(descriptor);
+    if (createdSymbol != null) {
+      return createdSymbol;
+    }
+    if (Boolean.TRUE.equals(isMaterializingReferencedSymbol.get()) || materializedModuleDescriptors.get().contains(descriptor)) {
+      return getSymbol(fullyQualifiedName, null, createdSymbolsByDescriptor, createdSymbolsByFqn);
+    }
+    ReferencedSymbol referencedSymbol = referencedSymbolsByDescriptor.get(descriptor);
+    if (referencedSymbol == null) {
+      referencedSymbol = materializeReferencedSymbol(descriptor);
+    }
+    if (isBoundToCall(referencedSymbol, createdSymbolsByDescriptor)) {
+      return getSymbol(fullyQualifiedName, null, createdSymbolsByDescriptor, createdSymbolsByFqn);
+    }
+    return referencedSymbol.symbol();
+  }
+
+  private ReferencedSymbol materializeReferencedSymbol(Descriptor descriptor) {
+    Map<Descriptor, Symbol> createdSymbolsByDescriptor = new HashMap<>();
+    Symbol symbol;
+    isMaterializingReferencedSymbol.set(true);
+    try {
+      symbol = DescriptorUtils.symbolFromDescriptor(descriptor, this, null, createdSymbolsByDescriptor, new HashMap<>());
+    } finally {
+      isMaterializingReferencedSymbol.set(false);
+    }
+    if (referencedSymbolsByDescriptor.size() >= MAX_REFERENCED_SYMBOLS) {
+      referencedSymbolsByDescriptor.clear();
+    }
+    ReferencedSymbol referencedSymbol = new ReferencedSymbol(symbol, Set.copyOf(createdSymbolsByDescriptor.keySet()));
+    ReferencedSymbol existingSymbol = referencedSymbolsByDescriptor.putIfAbsent(descriptor, referencedSymbol);
+    return existingSymbol != null ? existingSymbol : referencedSymbol;
+  }
+
+  private boolean isBoundToCall(ReferencedSymbol referencedSymbol, Map<Descriptor, Symbol> createdSymbolsByDescriptor) {
+    Set<Descriptor> moduleDescriptors = materializedModuleDescriptors.get();
+    return referencedSymbol.descriptors().stream().anyMatch(d -> createdSymbolsByDescriptor.containsKey(d) || moduleDescriptors.contains(d));
+  }
+
   @CheckForNull
   public Set<Symbol> getSymbolsFromModule(@Nullable String moduleName) {
     Set<Descriptor> descriptors = globalDescriptorsByModuleName.get(moduleName);
@@ -160,8 +243,13 @@ public class ProjectLevelSymbolTable {
     }
     Map<Descriptor, Symbol> createdSymbolsByDescriptor = new HashMap<>();
     Map<String, Symbol> createdSymbolsByFqn = new HashMap<>();
-    return descriptors.stream()
-      .map(desc -> DescriptorUtils.symbolFromDescriptor(desc, this, null, createdSymbolsByDescriptor, createdSymbolsByFqn)).collect(Collectors.toSet());
+    materializedModuleDescriptors.set(descriptors);
+    try {
+      return descriptors.stream()
+        .map(desc -> DescriptorUtils.symbolFromDescriptor(desc, this, null, createdSymbolsByDescriptor, createdSymbolsByFqn)).collect(Collectors.toSet());
+    } finally {
+      materializedModuleDescriptors.remove();
+    }
   }
 
   @CheckForNull
@@ -174,7 +262,7 @@ public class ProjectLevelSymbolTable {
   }
 
   public void insertEntry(String moduleName, Set<Descriptor> descriptors) {
-    this.globalDescriptorsByModuleName.put(moduleName, descriptors);
+    replaceModuleInGlobalSymbolsByFQN(this.globalDescriptorsByModuleName.put(moduleName, descriptors), descriptors);
   }
 
   @CheckForNull
@@ -194,13 +282,56 @@ public class ProjectLevelSymbolTable {
     return projectBasePackages;
   }
 
-  public TypeShedDescriptorsProvider typeShedDescriptorsProvider() {
+  public synchronized TypeShedDescriptorsProvider typeShedDescriptorsProvider() {
     if (typeShedDescriptorsProvider == null) {
       typeShedDescriptorsProvider = new TypeShedDescriptorsProvider(projectBasePackages);
     }
     return typeShedDescriptorsProvider;
   }
 
+  /**
+   * Returns the type table of the project modules and of Typeshed, shared by all the files analyzed against this symbol table
+   * so that the builtins and the imported modules are only converted once.
+   * A new type table is built after a module has been added or removed.
+   */
+  public ProjectLevelTypeTable typeTable() {
+    ProjectLevelTypeTable result = typeTable;
+    if (result == null) {
+      synchronized (this) {
+        result = typeTable;
+        if (result == null) {
+          result = new ProjectLevelTypeTable(this);
+          typeTable = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  private BasicTypeTable moduleEntryTypeTable() {
+    BasicTypeTable result = moduleEntryTypeTable;
+    if (result == null) {
+      synchronized (this) {
+        result = moduleEntryTypeTable;
+        if (result == null) {
+          result = new BasicTypeTable(new ProjectLevelTypeTable(this));
+          moduleEntryTypeTable = result;
+        }
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the {@link org.sonar.python.types.TypeShed} state of the analysis using this symbol table.
+   */
+  public synchronized TypeShedContext typeShedContext() {
+    if (typeShedContext == null) {
+      typeShedContext = new TypeShedContext(this);
+    }
+    return typeShedContext;
+  }
+
   /**
    * Returns stub symbols to be used by SonarSecurity.
    * Ambiguous symbols that only contain class symbols are disambiguated with latest Python version.
@@ -221,19 +352,24 @@ public class ProjectLevelSymbolTable {
     return cachedSymbols;
   }
 
+  /**
+   * A shared symbol along with the descriptors of all the project symbols it refers to, itself included.
+   */
+  private record ReferencedSymbol(Symbol symbol, Set<Descriptor> descriptors) {
+  }
+
+  public record ModuleEntry(String fullyQualifiedModuleName, Set<Descriptor> descriptors, Set<String> importedModulesFQN, Set<String> djangoViewsFQN) {
+  }
+
   private class DjangoViewsVisitor extends BaseTreeVisitor {
 
-    String fullyQualifiedModuleName;
+    private final Set<String> moduleDjangoViewsFQN = new HashSet<>();
     private TypeCheckBuilder confPathCall = null;
     private TypeCheckBuilder pathCall = null;
 
-    public DjangoViewsVisitor(String fullyQualifiedModuleName) {
-      this.fullyQualifiedModuleName = fullyQualifiedModuleName;
-    }
-
     @Override
     public void visitFileInput(FileInput fileInput) {
-      TypeChecker typeChecker = new TypeChecker(new BasicTypeTable(new ProjectLevelTypeTable(ProjectLevelSymbolTable.this)));
+      TypeChecker typeChecker = new TypeChecker(moduleEntryTypeTable());
       confPathCall = typeChecker.typeCheckBuilder().isTypeWithName("django.urls.conf.path");
       pathCall = typeChecker.typeCheckBuilder().isTypeWithName("django.urls.path");
       super.visitFileInput(fileInput);
@@ -248,9 +384,9 @@ public class ProjectLevelSymbolTable {
           PythonType pythonType = viewArgument.expression().typeV2();
           if (pythonType instanceof UnknownType.UnresolvedImportType unresolvedImportType) {
             String importPath = unresolvedImportType.importPath();
-            djangoViewsFQN.add(importPath);
+            moduleDjangoViewsFQN.add(importPath);
           } else if (pythonType instanceof FunctionType functionType) {
-            djangoViewsFQN.add(functionType.fullyQualifiedName());
+            moduleDjangoViewsFQN.add(functionType.fullyQualifiedName());
           }
         }
       }
@@ -37,18 +37,18 @@ public class LazyTypesContext {
   }
 
   public LazyType getOrCreateLazyType(String importPath) {
-    if (lazyTypes.containsKey(importPath)) {
-      return lazyTypes.get(importPath);
+    // Lazy types are created and resolved under the lock of the type table, as it can be shared between threads
+    synchronized (typeTable) {
+      return lazyTypes.computeIfAbsent(importPath, path -> new LazyType(path, this));
     }
-    var lazyType = new LazyType(importPath, this);
-    lazyTypes.put(importPath, lazyType);
-    return lazyType;
   }
 
   public PythonType resolveLazyType(LazyType lazyType) {
-    PythonType resolved = typeTable.getType(lazyType.importPath());
-    lazyType.resolve(resolved);
-    lazyTypes.remove(lazyType.importPath());
-    return resolved;
+    synchronized (typeTable) {
+      PythonType resolved = typeTable.getType(lazyType.importPath());
+      lazyType.resolve(resolved);
+      lazyTypes.remove(lazyType.importPath());
+      return resolved;
+    }
   }
 }
@@ -26,6 +26,12 @@ import org.sonar.python.types.v2.ObjectType;
 import org.sonar.python.types.v2.PythonType;
 import org.sonar.python.types.v2.TypeWrapper;
 
+/**
+ * Type table resolving the types of the project modules and of Typeshed.
+ * Modules are converted lazily and kept for the lifetime of the table, which is shared by all the files analyzed against the same
+ * {@link ProjectLevelSymbolTable} (see {@link ProjectLevelSymbolTable#typeTable()}): resolution is synchronized so that files
+ * can be analyzed concurrently.
+ */
 public class ProjectLevelTypeTable implements TypeTable {
 
   private final SymbolsModuleTypeProvider symbolsModuleTypeProvider;
@@ -54,7 +60,7 @@ public class ProjectLevelTypeTable implements TypeTable {
   }
 
   @Override
-  public PythonType getType(List<String> typeFqnParts) {
+  public synchronized PythonType getType(List<String> typeFqnParts) {
     var parent = (PythonType) rootModule;
     for (int i = 0; i < typeFqnParts.size(); i++) {
       var part = typeFqnParts.get(i);
@@ -103,7 +109,7 @@ public class ProjectLevelTypeTable implements TypeTable {
    * as it will only consider submodules over package members in case of name conflict.
    */
   @Override
-  public PythonType getModuleType(List<String> typeFqnParts) {
+  public synchronized PythonType getModuleType(List<String> typeFqnParts) {
     var parent = (PythonType) rootModule;
     for (int i = 0; i < typeFqnParts.size(); i++) {
       var part = typeFqnParts.get(i);
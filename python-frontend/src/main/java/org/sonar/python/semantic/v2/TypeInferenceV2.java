@@ -33,6 +33,7 @@ import org.sonar.plugins.python.api.tree.Name;
 import org.sonar.plugins.python.api.tree.Parameter;
 import org.sonar.plugins.python.api.tree.StatementList;
 import org.sonar.plugins.python.api.tree.Tree;
+import org.sonar.python.cfg.ControlFlowAnalysisCache;
 import org.sonar.python.semantic.SymbolUtils;
 import org.sonar.python.semantic.v2.types.AstBasedTypeInference;
 import org.sonar.python.semantic.v2.types.FlowSensitiveTypeInference;
@@ -49,13 +50,23 @@ public class TypeInferenceV2 {
   private final SymbolTable symbolTable;
   private final PythonFile pythonFile;
   private final String fullyQualifiedModuleName;
+  private final ControlFlowAnalysisCache controlFlowAnalysisCache;
   private Set<String> importedModulesFQN;
 
   public TypeInferenceV2(TypeTable projectLevelTypeTable, PythonFile pythonFile, SymbolTable symbolTable, String packageName) {
+    this(projectLevelTypeTable, pythonFile, symbolTable, packageName, new ControlFlowAnalysisCache(pythonFile));
+  }
+
+  /**
+   * @param controlFlowAnalysisCache control flow graphs of the file, shared with the checks analyzing it
+   */
+  public TypeInferenceV2(TypeTable projectLevelTypeTable, PythonFile pythonFile, SymbolTable symbolTable, String packageName,
+    ControlFlowAnalysisCache controlFlowAnalysisCache) {
     this.projectLevelTypeTable = projectLevelTypeTable;
     this.symbolTable = symbolTable;
     this.pythonFile = pythonFile;
     this.fullyQualifiedModuleName = SymbolUtils.fullyQualifiedModuleName(packageName, pythonFile.fileName());
+    this.controlFlowAnalysisCache = controlFlowAnalysisCache;
   }
 
   public Map<SymbolV2, Set<PythonType>> inferTypes(FileInput fileInput) {
@@ -87,7 +98,7 @@ public class TypeInferenceV2 {
       statements,
       moduleSymbols,
       Collections.emptySet(),
-      () -> ControlFlowGraph.build(fileInput, pythonFile)
+      () -> controlFlowAnalysisCache.controlFlowGraph(fileInput)
     );
   }
 
@@ -101,7 +112,7 @@ public class TypeInferenceV2 {
       functionDef.body(),
       localVariables,
       parameterNames,
-      () -> ControlFlowGraph.build(functionDef, pythonFile)
+      () -> controlFlowAnalysisCache.controlFlowGraph(functionDef)
     );
   }
 
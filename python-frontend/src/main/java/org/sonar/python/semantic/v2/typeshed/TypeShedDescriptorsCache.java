@@ -0,0 +1,89 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.semantic.v2.typeshed;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.SoftReference;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+import org.sonar.plugins.python.api.PythonVersionUtils;
+import org.sonar.python.index.Descriptor;
+
+/**
+ * JVM-wide cache of converted typeshed module members, shared by all {@link TypeShedDescriptorsProvider} instances.
+ * <p>
+ * Converted descriptors depend on the targeted Python versions, which are therefore part of the key. Cached maps are
+ * unmodifiable so they can safely be read concurrently by several analyses. Entries are softly referenced: the garbage
+ * collector may reclaim them under memory pressure (e.g. in long-lived SonarLint processes), in which case they are
+ * converted again on the next lookup.
+ */
+class TypeShedDescriptorsCache {
+
+  private static final TypeShedDescriptorsCache INSTANCE = new TypeShedDescriptorsCache();
+
+  private final Map<Key, Entry> entries = new ConcurrentHashMap<>();
+  private final ReferenceQueue<Map<String, Descriptor>> clearedEntries = new ReferenceQueue<>();
+
+  private record Key(Set<PythonVersionUtils.Version> pythonVersions, String directory, String moduleName) {
+  }
+
+  private static class Entry extends SoftReference<Map<String, Descriptor>> {
+    private final Key key;
+
+    Entry(Key key, Map<String, Descriptor> members, ReferenceQueue<Map<String, Descriptor>> queue) {
+      super(members, queue);
+      this.key = key;
+    }
+  }
+
+  static TypeShedDescriptorsCache get() {
+    return INSTANCE;
+  }
+
+  Map<String, Descriptor> members(Set<PythonVersionUtils.Version> pythonVersions, String directory, String moduleName,
+    Supplier<Map<String, Descriptor>> loader) {
+    expungeClearedEntries();
+    Key key = new Key(pythonVersions, directory, moduleName);
+    Entry entry = entries.get(key);
+    Map<String, Descriptor> members = entry == null ? null : entry.get();
+    if (members == null) {
+      // Concurrent lookups of the same module may both convert it: the result is identical, the last one wins
+      members = Collections.unmodifiableMap(loader.get());
+      entries.put(key, new Entry(key, members, clearedEntries));
+    }
+    return members;
+  }
+
+  int size() {
+    expungeClearedEntries();
+    return entries.size();
+  }
+
+  void clear() {
+    entries.clear();
+  }
+
+  private void expungeClearedEntries() {
+    Entry cleared;
+    while ((cleared = (Entry) clearedEntries.poll()) != null) {
+      entries.remove(cleared.key, cleared);
+    }
+  }
+}
@@ -16,8 +16,6 @@
  */
 package org.sonar.python.semantic.v2.typeshed;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
@@ -26,28 +24,23 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
-import javax.annotation.CheckForNull;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 import org.sonar.plugins.python.api.ProjectPythonVersion;
 import org.sonar.plugins.python.api.PythonVersionUtils;
 import org.sonar.python.index.ClassDescriptor;
 import org.sonar.python.index.Descriptor;
 import org.sonar.python.index.ModuleDescriptor;
-import org.sonar.python.types.protobuf.SymbolsProtos.ModuleSymbol;
+import org.sonar.python.types.TypeShedArchive;
 
 import static org.sonar.plugins.python.api.types.BuiltinTypes.NONE_TYPE;
 
 public class TypeShedDescriptorsProvider {
-  private static final Logger LOG = LoggerFactory.getLogger(TypeShedDescriptorsProvider.class);
-
-  private static final String PROTOBUF_BASE_RESOURCE_PATH = "/org/sonar/python/types/";
-  private static final String PROTOBUF_CUSTOM_STUBS = PROTOBUF_BASE_RESOURCE_PATH + "custom_protobuf/";
-  private static final String PROTOBUF = PROTOBUF_BASE_RESOURCE_PATH + "stdlib_protobuf/";
-  private static final String PROTOBUF_THIRD_PARTY = PROTOBUF_BASE_RESOURCE_PATH + "third_party_protobuf/";
-  private static final String PROTOBUF_THIRD_PARTY_MYPY = PROTOBUF_BASE_RESOURCE_PATH + "third_party_protobuf_mypy/";
+  private static final String PROTOBUF_CUSTOM_STUBS = "custom_protobuf";
+  private static final String PROTOBUF = "stdlib_protobuf";
+  private static final String PROTOBUF_THIRD_PARTY = "third_party_protobuf";
+  private static final String PROTOBUF_THIRD_PARTY_MYPY = "third_party_protobuf_mypy";
   public static final String BUILTINS_FQN = "builtins";
   // This is needed for some Python 2 modules whose name differ from their Python 3 counterpart by capitalization only.
   private static final Map<String, String> MODULES_TO_DISAMBIGUATE = Map.of(
@@ -56,8 +49,9 @@ public class TypeShedDescriptorsProvider {
     "SocketServer", "2@SocketServer"
   );
   private final ModuleSymbolToDescriptorConverter moduleConverter;
+  private final Set<PythonVersionUtils.Version> projectPythonVersions;
 
-  private Map<String, Descriptor> builtins;
+  private volatile Map<String, Descriptor> builtins;
   private final Set<String> projectBasePackages;
   private final Map<String, Map<String, Descriptor>> cachedDescriptors;
 
@@ -66,8 +60,9 @@ public class TypeShedDescriptorsProvider {
   }
 
   public TypeShedDescriptorsProvider(Set<String> projectBasePackages, Set<PythonVersionUtils.Version> projectPythonVersions) {
-    moduleConverter = new ModuleSymbolToDescriptorConverter(projectPythonVersions);
-    cachedDescriptors = new HashMap<>();
+    this.projectPythonVersions = Set.copyOf(projectPythonVersions);
+    moduleConverter = new ModuleSymbolToDescriptorConverter(this.projectPythonVersions);
+    cachedDescriptors = new ConcurrentHashMap<>();
     this.projectBasePackages = projectBasePackages;
   }
 
@@ -77,11 +72,24 @@ public class TypeShedDescriptorsProvider {
 
   public Map<String, Descriptor> builtinDescriptors() {
     if (builtins == null) {
-      Map<String, Descriptor> symbols = getModuleDescriptors(BUILTINS_FQN, PROTOBUF);
+      initBuiltinDescriptors();
+    }
+    return builtins;
+  }
+
+  private synchronized void initBuiltinDescriptors() {
+    if (builtins == null) {
+      Map<String, Descriptor> symbols = new HashMap<>(getModuleDescriptors(BUILTINS_FQN, PROTOBUF));
       symbols.put(NONE_TYPE, new ClassDescriptor.ClassDescriptorBuilder().withName(NONE_TYPE).withFullyQualifiedName(NONE_TYPE).build());
       builtins = Collections.unmodifiableMap(symbols);
     }
-    return builtins;
+  }
+
+  /**
+   * Clears the modules converted by all the providers of the JVM, so that they are converted again when next looked up
+   */
+  public static void clearConvertedModules() {
+    TypeShedDescriptorsCache.get().clear();
   }
 
   /**
@@ -115,26 +123,19 @@ public class TypeShedDescriptorsProvider {
   }
 
   private Map<String, Descriptor> getModuleDescriptors(String moduleName, String dirName) {
+    return TypeShedDescriptorsCache.get().members(projectPythonVersions, dirName, moduleName, () -> convertModuleDescriptors(moduleName, dirName));
+  }
+
+  private Map<String, Descriptor> convertModuleDescriptors(String moduleName, String dirName) {
     String fileName = MODULES_TO_DISAMBIGUATE.getOrDefault(moduleName, moduleName);
-    InputStream resource = this.getClass().getResourceAsStream(dirName + fileName + ".protobuf");
-    if (resource == null) {
+    var moduleSymbol = TypeShedArchive.get().moduleSymbol(dirName, fileName);
+    if (moduleSymbol == null) {
       return Collections.emptyMap();
     }
-    var moduleSymbol = deserializedModule(moduleName, resource);
     var moduleDescriptor = moduleConverter.convert(moduleSymbol);
     return Optional.ofNullable(moduleDescriptor).map(ModuleDescriptor::members).orElseGet(Map::of);
   }
 
-  @CheckForNull
-  static ModuleSymbol deserializedModule(String moduleName, InputStream resource) {
-    try {
-      return ModuleSymbol.parseFrom(resource);
-    } catch (IOException e) {
-      LOG.debug("Error while deserializing protobuf for module {}", moduleName, e);
-      return null;
-    }
-  }
-
   public List<Descriptor> stubFilesDescriptors() {
     List<Descriptor> descriptors = new ArrayList<>(new TreeMap<>(builtinDescriptors()).values());
     new TreeMap<>(cachedDescriptors).values().forEach(entry -> descriptors.addAll(new TreeMap<>(entry).values()));
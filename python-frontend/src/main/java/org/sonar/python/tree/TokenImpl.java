@@ -28,17 +28,28 @@ import org.sonar.plugins.python.api.tree.Trivia;
 
 public class TokenImpl extends PyTree implements Token {
 
-  private com.sonar.sslr.api.Token token;
+  /**
+   * Python lines of the first lines of files, shared by all the tokens instead of being allocated on each {@link #pythonLine()} call.
+   */
+  private static final PythonLine[] PYTHON_LINES = new PythonLine[1024];
+
+  private final com.sonar.sslr.api.Token token;
+  /**
+   * Created on first access: most tokens have no trivia, and the trivia of the others are rarely requested.
+   */
   private List<Trivia> trivia;
 
-  private Integer line;
-  private Integer column;
-  private int includedEscapeChars;
-  private boolean isCompressed = false;
+  private final int line;
+  private final int column;
+  private final int includedEscapeChars;
+  private final boolean isCompressed;
 
   public TokenImpl(com.sonar.sslr.api.Token token) {
     this.token = token;
-    this.trivia = token.getTrivia().stream().map(tr -> new TriviaImpl(new TokenImpl(tr.getToken()))).collect(Collectors.toList());
+    this.line = token.getLine();
+    this.column = token.getColumn();
+    this.includedEscapeChars = 0;
+    this.isCompressed = false;
   }
 
   public TokenImpl(com.sonar.sslr.api.Token token, int line, int column, int includedEscapeChars, List<Trivia> trivia, boolean isCompressed) {
@@ -57,17 +68,27 @@ public class TokenImpl extends PyTree implements Token {
 
   @Override
   public int line() {
-    return line != null ? line : pythonLine().line();
+    return line;
   }
 
   @Override
   public int column() {
-    return column != null ? column : pythonColumn();
+    return column;
   }
 
   @Override
   public PythonLine pythonLine() {
-    return new PythonLine(token.getLine());
+    int pythonLine = token.getLine();
+    if (pythonLine < 0 || pythonLine >= PYTHON_LINES.length) {
+      return new PythonLine(pythonLine);
+    }
+    PythonLine result = PYTHON_LINES[pythonLine];
+    if (result == null) {
+      // Concurrent initializations of the same entry are harmless, as lines are immutable
+      result = new PythonLine(pythonLine);
+      PYTHON_LINES[pythonLine] = result;
+    }
+    return result;
   }
 
   @Override
@@ -82,6 +103,12 @@ public class TokenImpl extends PyTree implements Token {
 
   @Override
   public List<Trivia> trivia() {
+    if (trivia == null) {
+      List<com.sonar.sslr.api.Trivia> tokenTrivia = token.getTrivia();
+      trivia = tokenTrivia.isEmpty() ? Collections.emptyList() : tokenTrivia.stream()
+        .map(tr -> (Trivia) new TriviaImpl(new TokenImpl(tr.getToken())))
+        .collect(Collectors.toList());
+    }
     return trivia;
   }
 
@@ -16,8 +16,6 @@
  */
 package org.sonar.python.types;
 
-import java.io.IOException;
-import java.io.InputStream;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
@@ -26,6 +24,7 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -59,15 +58,13 @@ import static org.sonar.plugins.python.api.types.BuiltinTypes.TUPLE;
 
 public class TypeShed {
 
-  private static Map<String, Symbol> builtins;
-  private static final Map<String, Map<String, Symbol>> typeShedSymbols = new HashMap<>();
-  private static final Map<String, Set<Symbol>> builtinGlobalSymbols = new HashMap<>();
-  private static final Set<String> modulesInProgress = new HashSet<>();
+  private static final TypeShedContext DEFAULT_CONTEXT = new TypeShedContext(null);
+  private static final ThreadLocal<TypeShedContext> boundContext = new ThreadLocal<>();
 
-  private static final String PROTOBUF_CUSTOM_STUBS = "custom_protobuf/";
-  private static final String PROTOBUF = "stdlib_protobuf/";
-  private static final String PROTOBUF_THIRD_PARTY = "third_party_protobuf/";
-  private static final String PROTOBUF_THIRD_PARTY_MYPY = "third_party_protobuf_mypy/";
+  private static final String PROTOBUF_CUSTOM_STUBS = "custom_protobuf";
+  private static final String PROTOBUF = "stdlib_protobuf";
+  private static final String PROTOBUF_THIRD_PARTY = "third_party_protobuf";
+  private static final String PROTOBUF_THIRD_PARTY_MYPY = "third_party_protobuf_mypy";
   private static final String BUILTINS_FQN = "builtins";
   private static final String BUILTINS_PREFIX = BUILTINS_FQN + ".";
   // Those fundamentals builtins symbols need not to be ambiguous for the frontend to work properly
@@ -87,8 +84,6 @@ public class TypeShed {
   }
 
   private static final Logger LOG = LoggerFactory.getLogger(TypeShed.class);
-  private static Set<String> supportedPythonVersions;
-  private static ProjectLevelSymbolTable projectLevelSymbolTable;
 
   private TypeShed() {
   }
@@ -97,23 +92,60 @@ public class TypeShed {
   // Public methods
   //================================================================================
 
+  /**
+   * Runs the given action with {@code context} as the state of all {@link TypeShed} methods called from the current thread.
+   */
+  public static void runWith(TypeShedContext context, Runnable action) {
+    callWith(context, () -> {
+      action.run();
+      return null;
+    });
+  }
+
+  /**
+   * Same as {@link #runWith(TypeShedContext, Runnable)}, for an action returning a result.
+   */
+  public static <T> T callWith(TypeShedContext context, Supplier<T> action) {
+    TypeShedContext previous = boundContext.get();
+    boundContext.set(context);
+    try {
+      return action.get();
+    } finally {
+      if (previous == null) {
+        boundContext.remove();
+      } else {
+        boundContext.set(previous);
+      }
+    }
+  }
+
+  static TypeShedContext currentContext() {
+    TypeShedContext context = boundContext.get();
+    return context != null ? context : DEFAULT_CONTEXT;
+  }
+
   public static void setProjectLevelSymbolTable(ProjectLevelSymbolTable projectLevelSymbolTable) {
-    TypeShed.projectLevelSymbolTable = projectLevelSymbolTable;
+    currentContext().setProjectLevelSymbolTable(projectLevelSymbolTable);
   }
 
   public static Map<String, Symbol> builtinSymbols() {
-    if ((TypeShed.builtins == null)) {
-      supportedPythonVersions = ProjectPythonVersion.currentVersions().stream().map(PythonVersionUtils.Version::serializedValue).collect(Collectors.toSet());
-      Map<String, Symbol> builtins = getSymbolsFromProtobufModule(BUILTINS_FQN, PROTOBUF);
-      builtins.put(NONE_TYPE, new ClassSymbolImpl(NONE_TYPE, NONE_TYPE));
-      TypeShed.builtins = Collections.unmodifiableMap(builtins);
-      TypeShed.builtinGlobalSymbols.put("", new HashSet<>(builtins.values()));
+    TypeShedContext context = currentContext();
+    synchronized (context) {
+      if (context.builtins == null) {
+        context.supportedPythonVersions = ProjectPythonVersion.currentVersions().stream().map(PythonVersionUtils.Version::serializedValue).collect(Collectors.toSet());
+        Map<String, Symbol> builtins = getSymbolsFromProtobufModule(BUILTINS_FQN, PROTOBUF);
+        builtins.put(NONE_TYPE, new ClassSymbolImpl(NONE_TYPE, NONE_TYPE));
+        context.builtins = Collections.unmodifiableMap(builtins);
+      }
+      return context.builtins;
     }
-    return builtins;
   }
 
   public static Map<String, Map<String, Symbol>> getLoadedTypeShedSymbols() {
-    return typeShedSymbols;
+    TypeShedContext context = currentContext();
+    synchronized (context) {
+      return new HashMap<>(context.typeShedSymbols);
+    }
   }
 
   public static ClassSymbol typeShedClass(String fullyQualifiedName) {
@@ -127,7 +159,8 @@ public class TypeShed {
     return (ClassSymbol) symbol;
   }
 
-  private static boolean searchedModuleMatchesCurrentProject(String searchedModule) {
+  private static boolean searchedModuleMatchesCurrentProject(TypeShedContext context, String searchedModule) {
+    ProjectLevelSymbolTable projectLevelSymbolTable = context.projectLevelSymbolTable();
     if (projectLevelSymbolTable == null) {
       return false;
     }
@@ -138,15 +171,18 @@ public class TypeShed {
    * Returns map of exported symbols by name for a given module
    */
   public static Map<String, Symbol> symbolsForModule(String moduleName) {
-    if (searchedModuleMatchesCurrentProject(moduleName)) {
-      return Collections.emptyMap();
-    }
-    if (!TypeShed.typeShedSymbols.containsKey(moduleName)) {
-      Map<String, Symbol> symbols = searchTypeShedForModule(moduleName);
-      typeShedSymbols.put(moduleName, symbols);
-      return symbols;
+    TypeShedContext context = currentContext();
+    synchronized (context) {
+      if (searchedModuleMatchesCurrentProject(context, moduleName)) {
+        return Collections.emptyMap();
+      }
+      if (!context.typeShedSymbols.containsKey(moduleName)) {
+        Map<String, Symbol> symbols = searchTypeShedForModule(context, moduleName);
+        context.typeShedSymbols.put(moduleName, symbols);
+        return symbols;
+      }
+      return context.typeShedSymbols.get(moduleName);
     }
-    return TypeShed.typeShedSymbols.get(moduleName);
   }
 
   @CheckForNull
@@ -185,7 +221,7 @@ public class TypeShed {
    */
   public static Collection<Symbol> stubFilesSymbols() {
     Set<Symbol> symbols = new HashSet<>(TypeShed.builtinSymbols().values());
-    for (Map<String, Symbol> symbolsByFqn : typeShedSymbols.values()) {
+    for (Map<String, Symbol> symbolsByFqn : getLoadedTypeShedSymbols().values()) {
       for (Symbol symbol : symbolsByFqn.values()) {
         Symbol stubSymbol = symbol;
         if (isAmbiguousSymbolOfClasses(symbol)) {
@@ -202,7 +238,7 @@ public class TypeShed {
 
   public static Set<String> stubModules() {
     Set<String> modules = new HashSet<>();
-    for (Map.Entry<String, Map<String, Symbol>> entry : typeShedSymbols.entrySet()) {
+    for (Map.Entry<String, Map<String, Symbol>> entry : getLoadedTypeShedSymbols().entrySet()) {
       if (!entry.getValue().isEmpty()) {
         modules.add(entry.getKey());
       }
@@ -231,6 +267,7 @@ public class TypeShed {
     if (validForPythonVersions.isEmpty()) {
       return true;
     }
+    Set<String> supportedPythonVersions = currentContext().supportedPythonVersions;
     if(supportedPythonVersions == null) {
       throw new IllegalStateException("supportedPythonVersion is uninitialized. Call builtinSymbols() first");
     }
@@ -272,9 +309,7 @@ public class TypeShed {
     String[] fqnSplitByDot = fullyQualifiedName.split("\\.");
     String symbolLocalNameFromFqn = fqnSplitByDot[fqnSplitByDot.length - 1];
     String moduleName = Arrays.stream(fqnSplitByDot, 0, fqnSplitByDot.length - 1).collect(Collectors.joining("."));
-    InputStream resource = TypeShed.class.getResourceAsStream(PROTOBUF + moduleName + ".protobuf");
-    if (resource == null) return null;
-    ModuleSymbol moduleSymbol = deserializedModule(moduleName, resource);
+    ModuleSymbol moduleSymbol = TypeShedArchive.get().moduleSymbol(PROTOBUF, moduleName);
     if (moduleSymbol == null) return null;
     for (SymbolsProtos.ClassSymbol classSymbol : moduleSymbol.getClassesList()) {
       if (classSymbol.getName().equals(symbolLocalNameFromFqn)) {
@@ -290,12 +325,12 @@ public class TypeShed {
 
   // used by tests whenever 'sonar.python.version' changes
   public static void resetBuiltinSymbols() {
-    builtins = null;
-    typeShedSymbols.clear();
+    currentContext().reset();
     builtinSymbols();
   }
 
-  private static Map<String, Symbol> searchTypeShedForModule(String moduleName) {
+  private static Map<String, Symbol> searchTypeShedForModule(TypeShedContext context, String moduleName) {
+    Set<String> modulesInProgress = context.modulesInProgress;
     if (modulesInProgress.contains(moduleName)) {
       return new HashMap<>();
     }
@@ -350,21 +385,7 @@ public class TypeShed {
 
   private static Map<String, Symbol> getSymbolsFromProtobufModule(String moduleName, String dirName) {
     String fileName = MODULES_TO_DISAMBIGUATE.getOrDefault(moduleName, moduleName);
-    InputStream resource = TypeShed.class.getResourceAsStream(dirName + fileName + ".protobuf");
-    if (resource == null) {
-      return Collections.emptyMap();
-    }
-    return getSymbolsFromProtobufModule(deserializedModule(moduleName, resource));
-  }
-
-  @CheckForNull
-  static ModuleSymbol deserializedModule(String moduleName, InputStream resource) {
-    try {
-      return ModuleSymbol.parseFrom(resource);
-    } catch (IOException e) {
-      LOG.debug("Error while deserializing protobuf for module " + moduleName, e);
-      return null;
-    }
+    return getSymbolsFromProtobufModule(TypeShedArchive.get().moduleSymbol(dirName, fileName));
   }
 
   static Map<String, Symbol> getSymbolsFromProtobufModule(@Nullable ModuleSymbol moduleSymbol) {
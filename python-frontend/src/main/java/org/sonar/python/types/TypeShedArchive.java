@@ -0,0 +1,250 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.types;
+
+import com.google.protobuf.InvalidProtocolBufferException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.JarURLConnection;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.net.URLConnection;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.jar.JarEntry;
+import java.util.zip.CRC32;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.python.types.protobuf.SymbolsProtos.ModuleSymbol;
+
+/**
+ * Read access to the serialized typeshed stubs.
+ * <p>
+ * At build time {@code TypeShedArchiveWriter} packs every {@code <directory>/<module>.protobuf} resource into a single
+ * {@value #ARCHIVE_NAME} file: a header mapping each {@code <directory>/<module>} key to an (offset, length) pair, followed by
+ * the concatenated protobuf payloads. The archive is memory-mapped once, so a lookup is a hash probe in the in-memory
+ * index and deserialization reads directly from the mapped buffer.
+ * <p>
+ * When the archive is a regular file, it is mapped in place. When it is packaged in a jar, it is first extracted to a file
+ * named after its checksum in a temporary directory owned by the current user: later JVMs running the same plugin version map
+ * that file again instead of extracting it, once its checksum is verified. When the archive cannot be mapped, it is read
+ * into memory instead.
+ * <p>
+ * When the archive is not available (e.g. when running from sources that were not processed by the build), lookups fall
+ * back to the individual classpath resources.
+ */
+public class TypeShedArchive {
+
+  private static final Logger LOG = LoggerFactory.getLogger(TypeShedArchive.class);
+
+  static final String ARCHIVE_NAME = "typeshed.archive";
+  static final int MAGIC = 0x50595453;
+  static final int VERSION = 1;
+  static final String PROTOBUF_EXTENSION = ".protobuf";
+
+  @Nullable
+  private final ByteBuffer buffer;
+  private final Map<String, Entry> entries;
+
+  private record Entry(int offset, int length) {
+  }
+
+  private TypeShedArchive(@Nullable ByteBuffer buffer, Map<String, Entry> entries) {
+    this.buffer = buffer;
+    this.entries = entries;
+  }
+
+  private static class Holder {
+    private static final TypeShedArchive INSTANCE = load();
+  }
+
+  public static TypeShedArchive get() {
+    return Holder.INSTANCE;
+  }
+
+  /**
+   * Returns the module stored under {@code directory/fileName}, or null when there is no such module or when it cannot be
+   * deserialized.
+   */
+  @CheckForNull
+  public ModuleSymbol moduleSymbol(String directory, String fileName) {
+    if (buffer == null) {
+      return moduleSymbolFromResource(directory, fileName);
+    }
+    Entry entry = entries.get(key(directory, fileName));
+    if (entry == null) {
+      return null;
+    }
+    try {
+      return ModuleSymbol.parseFrom(buffer.slice(entry.offset(), entry.length()));
+    } catch (InvalidProtocolBufferException e) {
+      LOG.debug("Error while deserializing protobuf for module {}", fileName, e);
+      return null;
+    }
+  }
+
+  boolean isLoaded() {
+    return buffer != null;
+  }
+
+  static String key(String directory, String fileName) {
+    return directory + "/" + fileName;
+  }
+
+  @CheckForNull
+  private static ModuleSymbol moduleSymbolFromResource(String directory, String fileName) {
+    try (InputStream resource = TypeShedArchive.class.getResourceAsStream(key(directory, fileName) + PROTOBUF_EXTENSION)) {
+      if (resource == null) {
+        return null;
+      }
+      return deserializedModule(fileName, resource);
+    } catch (IOException e) {
+      LOG.debug("Error while reading protobuf for module {}", fileName, e);
+      return null;
+    }
+  }
+
+  @CheckForNull
+  static ModuleSymbol deserializedModule(String moduleName, InputStream resource) {
+    try {
+      return ModuleSymbol.parseFrom(resource);
+    } catch (IOException e) {
+      LOG.debug("Error while deserializing protobuf for module " + moduleName, e);
+      return null;
+    }
+  }
+
+  private static TypeShedArchive load() {
+    Path extractionDirectory = Path.of(System.getProperty("java.io.tmpdir"), "sonar-python-" + System.getProperty("user.name"));
+    return load(TypeShedArchive.class.getResource(ARCHIVE_NAME), extractionDirectory);
+  }
+
+  static TypeShedArchive load(@Nullable URL url, Path extractionDirectory) {
+    if (url == null) {
+      LOG.warn("Typeshed archive not found, reading typeshed stubs from individual resources");
+      return new TypeShedArchive(null, Map.of());
+    }
+    try {
+      return open(archivePath(url, extractionDirectory));
+    } catch (IOException | URISyntaxException | RuntimeException e) {
+      LOG.warn("Unable to map typeshed archive, reading it into memory: {}", e.getMessage());
+    }
+    try (InputStream in = url.openStream()) {
+      return read(ByteBuffer.wrap(in.readAllBytes()), url.toString());
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("Unable to read typeshed archive, reading typeshed stubs from individual resources", e);
+      return new TypeShedArchive(null, Map.of());
+    }
+  }
+
+  private static Path archivePath(URL url, Path extractionDirectory) throws IOException, URISyntaxException {
+    if ("file".equals(url.getProtocol())) {
+      return Path.of(url.toURI());
+    }
+    // Packaged inside a jar: a jar entry cannot be mapped
+    return extract(url, extractionDirectory);
+  }
+
+  /**
+   * Extracts the archive to a file of the given directory named after the CRC and size of its jar entry, unless a file with this
+   * CRC was already extracted. The directory is only accessible to the current user when the file system supports it.
+   * The file is written under a temporary name and then moved, so that a process never maps a partially written archive.
+   */
+  static Path extract(URL url, Path directory) throws IOException {
+    URLConnection connection = url.openConnection();
+    if (!(connection instanceof JarURLConnection jarConnection) || jarConnection.getJarEntry().getCrc() == -1) {
+      throw new IOException("Unable to identify the content of the typeshed archive: " + url);
+    }
+    JarEntry entry = jarConnection.getJarEntry();
+    Path extracted = directory.resolve(String.format("typeshed-%08x-%d.archive", entry.getCrc(), entry.getSize()));
+    if (Files.isRegularFile(extracted) && crc(extracted) == entry.getCrc()) {
+      return extracted;
+    }
+    createPrivateDirectory(directory);
+    Path temporary = Files.createTempFile(directory, "typeshed", ".tmp");
+    try {
+      try (InputStream in = jarConnection.getInputStream()) {
+        Files.copy(in, temporary, StandardCopyOption.REPLACE_EXISTING);
+      }
+      Files.move(temporary, extracted, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+    } catch (IOException e) {
+      if (!Files.isRegularFile(extracted) || crc(extracted) != entry.getCrc()) {
+        throw e;
+      }
+      // Extracted concurrently by another process
+    } finally {
+      Files.deleteIfExists(temporary);
+    }
+    return extracted;
+  }
+
+  private static void createPrivateDirectory(Path directory) throws IOException {
+    if (Files.isDirectory(directory)) {
+      return;
+    }
+    if (FileSystems.getDefault().supportedFileAttributeViews().contains("posix")) {
+      Files.createDirectories(directory, PosixFilePermissions.asFileAttribute(PosixFilePermissions.fromString("rwx------")));
+    } else {
+      Files.createDirectories(directory);
+    }
+  }
+
+  private static long crc(Path file) throws IOException {
+    CRC32 crc = new CRC32();
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      crc.update(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+    }
+    return crc.getValue();
+  }
+
+  static TypeShedArchive open(Path archive) throws IOException {
+    ByteBuffer mapped;
+    try (FileChannel channel = FileChannel.open(archive, StandardOpenOption.READ)) {
+      mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+    }
+    return read(mapped, archive.toString());
+  }
+
+  static TypeShedArchive read(ByteBuffer buffer, String source) throws IOException {
+    if (buffer.getInt() != MAGIC) {
+      throw new IOException("Invalid typeshed archive: " + source);
+    }
+    int version = buffer.getInt();
+    if (version != VERSION) {
+      throw new IOException("Unsupported typeshed archive version " + version + ": " + source);
+    }
+    int count = buffer.getInt();
+    Map<String, Entry> entries = new HashMap<>(count * 2);
+    for (int i = 0; i < count; i++) {
+      byte[] keyBytes = new byte[Short.toUnsignedInt(buffer.getShort())];
+      buffer.get(keyBytes);
+      entries.put(new String(keyBytes, StandardCharsets.UTF_8), new Entry(buffer.getInt(), buffer.getInt()));
+    }
+    return new TypeShedArchive(buffer, entries);
+  }
+}
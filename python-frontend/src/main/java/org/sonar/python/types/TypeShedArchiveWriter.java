@@ -0,0 +1,86 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.types;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Build-time packer producing the {@link TypeShedArchive} from the serialized typeshed stub directories.
+ * The build executes it on {@code target/classes/org/sonar/python/types} once the main classes are compiled,
+ * and excludes it from the jar.
+ */
+public class TypeShedArchiveWriter {
+
+  static final List<String> DIRECTORIES = List.of("custom_protobuf", "stdlib_protobuf", "third_party_protobuf", "third_party_protobuf_mypy");
+
+  private TypeShedArchiveWriter() {
+  }
+
+  public static void main(String[] args) throws IOException {
+    Path typesDirectory = Path.of(args[0]);
+    write(typesDirectory, typesDirectory.resolve(TypeShedArchive.ARCHIVE_NAME));
+  }
+
+  private record Module(byte[] key, Path file, int length) {
+  }
+
+  static void write(Path typesDirectory, Path archive) throws IOException {
+    List<Module> modules = new ArrayList<>();
+    for (String directory : DIRECTORIES) {
+      Path path = typesDirectory.resolve(directory);
+      if (!Files.isDirectory(path)) {
+        continue;
+      }
+      try (Stream<Path> files = Files.list(path)) {
+        for (Path file : files.filter(f -> f.getFileName().toString().endsWith(TypeShedArchive.PROTOBUF_EXTENSION)).sorted().toList()) {
+          String fileName = file.getFileName().toString();
+          String moduleName = fileName.substring(0, fileName.length() - TypeShedArchive.PROTOBUF_EXTENSION.length());
+          byte[] key = TypeShedArchive.key(directory, moduleName).getBytes(StandardCharsets.UTF_8);
+          modules.add(new Module(key, file, Math.toIntExact(Files.size(file))));
+        }
+      }
+    }
+
+    long offset = 3L * Integer.BYTES;
+    for (Module module : modules) {
+      offset += Short.BYTES + module.key().length + 2L * Integer.BYTES;
+    }
+    try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(archive)))) {
+      out.writeInt(TypeShedArchive.MAGIC);
+      out.writeInt(TypeShedArchive.VERSION);
+      out.writeInt(modules.size());
+      for (Module module : modules) {
+        out.writeShort(module.key().length);
+        out.write(module.key());
+        out.writeInt(Math.toIntExact(offset));
+        out.writeInt(module.length());
+        offset += module.length();
+      }
+      for (Module module : modules) {
+        Files.copy(module.file(), out);
+      }
+    }
+  }
+}
@@ -0,0 +1,61 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.types;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonar.plugins.python.api.symbols.Symbol;
+import org.sonar.python.semantic.ProjectLevelSymbolTable;
+
+/**
+ * Mutable state of {@link TypeShed}, scoped to one analysis.
+ * <p>
+ * Typeshed symbols are lazily deserialized, and the resulting {@link Symbol} instances are mutable: they are therefore
+ * kept per analysis rather than shared JVM-wide. The static {@link TypeShed} methods operate on the context bound to the
+ * current thread with {@link TypeShed#runWith(TypeShedContext, Runnable)}, or on a default JVM-wide context otherwise.
+ * All accesses to the state are guarded by this instance's monitor, so one context can safely be used by several threads.
+ */
+public class TypeShedContext {
+
+  Map<String, Symbol> builtins;
+  final Map<String, Map<String, Symbol>> typeShedSymbols = new HashMap<>();
+  final Set<String> modulesInProgress = new HashSet<>();
+  volatile Set<String> supportedPythonVersions;
+  private ProjectLevelSymbolTable projectLevelSymbolTable;
+
+  public TypeShedContext(@Nullable ProjectLevelSymbolTable projectLevelSymbolTable) {
+    this.projectLevelSymbolTable = projectLevelSymbolTable;
+  }
+
+  @CheckForNull
+  synchronized ProjectLevelSymbolTable projectLevelSymbolTable() {
+    return projectLevelSymbolTable;
+  }
+
+  synchronized void setProjectLevelSymbolTable(@Nullable ProjectLevelSymbolTable projectLevelSymbolTable) {
+    this.projectLevelSymbolTable = projectLevelSymbolTable;
+  }
+
+  synchronized void reset() {
+    builtins = null;
+    typeShedSymbols.clear();
+  }
+}
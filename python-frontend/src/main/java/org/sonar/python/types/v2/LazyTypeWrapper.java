@@ -19,7 +19,7 @@ package org.sonar.python.types.v2;
 import java.util.Objects;
 
 public class LazyTypeWrapper implements TypeWrapper {
-  private PythonType type;
+  private volatile PythonType type;
   private String importPath;
 
   public LazyTypeWrapper(PythonType type) {
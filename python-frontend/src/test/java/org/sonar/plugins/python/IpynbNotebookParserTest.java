@@ -153,6 +153,18 @@ class IpynbNotebookParserTest {
     assertThat(resultOptional).isEmpty();
   }
 
+  @Test
+  void testParseNotebookIgnoresLanguageInOutputs() throws IOException {
+    var inputFile = createInputFile(baseDir, "notebook_language_in_outputs.ipynb", InputFile.Status.CHANGED, InputFile.Type.MAIN);
+
+    var resultOptional = IpynbNotebookParser.parseNotebook(inputFile);
+
+    assertThat(resultOptional).isPresent();
+    var result = resultOptional.get();
+    assertThat(result.contents()).isEqualTo("print(\"hello world\")\n" + IpynbNotebookParser.SONAR_PYTHON_NOTEBOOK_CELL_DELIMITER);
+    assertThat(result.locationMap()).containsEntry(1, new IPythonLocation(19, 5, mapToColumnMappingList(Map.of(6, 1, 18, 1))));
+  }
+
   @Test
   void testParseNotebookWithNoLanguage() {
     var inputFile = createInputFile(baseDir, "notebook_no_language.ipynb", InputFile.Status.CHANGED, InputFile.Type.MAIN);
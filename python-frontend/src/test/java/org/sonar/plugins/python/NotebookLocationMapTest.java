@@ -0,0 +1,72 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.plugins.python;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+import org.sonar.python.EscapeCharPositionInfo;
+import org.sonar.python.IPythonLocation;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class NotebookLocationMapTest {
+
+  @Test
+  void behaves_like_a_map() {
+    var location1 = new IPythonLocation(3, 5);
+    var location2 = new IPythonLocation(4, 7, List.of(new EscapeCharPositionInfo(2, 1)), true);
+    var location200 = new IPythonLocation(40, 1);
+
+    var map = new NotebookLocationMap();
+    assertThat(map.put(1, location1)).isNull();
+    map.put(2, location2);
+    map.putIfAbsent(200, location200);
+    map.putIfAbsent(200, location1);
+
+    Map<Integer, IPythonLocation> expected = new LinkedHashMap<>();
+    expected.put(1, location1);
+    expected.put(2, location2);
+    expected.put(200, location200);
+    assertThat(map)
+      .isEqualTo(expected)
+      .hasSameHashCodeAs(expected)
+      .containsExactly(Map.entry(1, location1), Map.entry(2, location2), Map.entry(200, location200))
+      .doesNotContainKeys(0, 3, 201, -1);
+    assertThat(map.get("1")).isNull();
+    assertThat(map.get(2)).isSameAs(location2);
+
+    assertThat(map.put(2, location1)).isEqualTo(location2);
+    assertThat(map.remove(1)).isEqualTo(location1);
+    assertThat(map).containsOnly(Map.entry(2, location1), Map.entry(200, location200));
+
+    map.clear();
+    assertThat(map).isEmpty();
+  }
+
+  @Test
+  void rejects_null_locations() {
+    var location = new IPythonLocation(3, 5);
+    var map = new NotebookLocationMap();
+    map.put(1, location);
+
+    assertThatThrownBy(() -> map.put(1, null)).isInstanceOf(NullPointerException.class);
+    assertThat(map).hasSize(1).containsEntry(1, location);
+  }
+}
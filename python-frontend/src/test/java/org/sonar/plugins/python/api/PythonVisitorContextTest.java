@@ -36,6 +36,7 @@ import org.sonar.python.parser.PythonParser;
 import org.sonar.python.semantic.ProjectLevelSymbolTable;
 import org.sonar.python.tree.FileInputImpl;
 import org.sonar.python.tree.PythonTreeMaker;
+import org.sonar.python.types.v2.FunctionType;
 
 import static org.assertj.core.api.AssertionsForInterfaceTypes.assertThat;
 import static org.mockito.Mockito.mock;
@@ -88,6 +89,21 @@ class PythonVisitorContextTest {
     assertThat(fileInput.globalVariables()).extracting(Symbol::name).containsExactlyInAnyOrder("a", "b");
   }
 
+  @Test
+  void legacySymbolTableNotBuilt() {
+    FileInput fileInput = PythonTestUtils.parseWithoutSymbols("def foo(): pass");
+    PythonFile pythonFile = pythonFile("my_module.py");
+
+    new PythonVisitorContext(fileInput, pythonFile, null, "my_package", ProjectLevelSymbolTable.empty(), CacheContextImpl.dummyCache(), SonarProduct.SONARLINT, false);
+    FunctionDef functionDef = (FunctionDef) PythonTestUtils.getAllDescendant(fileInput, t -> t.is(Tree.Kind.FUNCDEF)).get(0);
+    assertThat(functionDef.name().symbol()).isNull();
+    assertThat(fileInput.globalVariables()).isEmpty();
+    assertThat(functionDef.name().typeV2()).isInstanceOf(FunctionType.class);
+
+    new PythonVisitorContext(fileInput, pythonFile, null, "my_package", ProjectLevelSymbolTable.empty(), CacheContextImpl.dummyCache(), SonarProduct.SONARLINT, true);
+    assertThat(functionDef.name().symbol().fullyQualifiedName()).isEqualTo("my_package.my_module.foo");
+  }
+
   @Test
   void sonar_product() {
     CacheContextImpl cacheContext = CacheContextImpl.dummyCache();
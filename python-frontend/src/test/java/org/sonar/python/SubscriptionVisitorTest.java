@@ -16,7 +16,9 @@
  */
 package org.sonar.python;
 
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.regex.Pattern;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
@@ -27,7 +29,9 @@ import org.sonar.plugins.python.api.PythonVisitorContext;
 import org.sonar.plugins.python.api.caching.CacheContext;
 import org.sonar.plugins.python.api.tree.ClassDef;
 import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.api.tree.Name;
 import org.sonar.plugins.python.api.tree.StringElement;
+import org.sonar.plugins.python.api.tree.Token;
 import org.sonar.plugins.python.api.tree.Tree;
 import org.sonar.python.regex.RegexContext;
 import org.sonar.python.semantic.ProjectLevelSymbolTable;
@@ -100,4 +104,82 @@ class SubscriptionVisitorTest {
     PythonVisitorContext context = new PythonVisitorContext(fileInput, PythonTestUtils.pythonFile("file"), null, "");
     SubscriptionVisitor.analyze(Collections.singleton(check), context);
   }
+
+  @Test
+  void dispatch_by_kind() {
+    List<String> visited = new ArrayList<>();
+    PythonSubscriptionCheck check = new PythonSubscriptionCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerSyntaxNodeConsumer(Tree.Kind.NAME, ctx -> visited.add("first " + ((Name) ctx.syntaxNode()).name()));
+        context.registerSyntaxNodeConsumer(Tree.Kind.NAME, ctx -> visited.add("second " + ((Name) ctx.syntaxNode()).name()));
+        context.registerSyntaxNodeConsumer(Tree.Kind.FUNCDEF, ctx -> visited.add("def"));
+      }
+    };
+
+    FileInput fileInput = PythonTestUtils.parse("def foo(): x = y");
+    PythonVisitorContext context = new PythonVisitorContext(fileInput, PythonTestUtils.pythonFile("file"), null, "");
+    SubscriptionVisitor.analyze(Collections.singleton(check), context);
+    assertThat(visited).containsExactly("def", "first foo", "second foo", "first x", "second x", "first y", "second y");
+  }
+
+  @Test
+  void tokens_are_dispatched_when_subscribed() {
+    List<String> tokens = new ArrayList<>();
+    PythonSubscriptionCheck check = new PythonSubscriptionCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerSyntaxNodeConsumer(Tree.Kind.TOKEN, ctx -> tokens.add(((Token) ctx.syntaxNode()).value()));
+      }
+    };
+
+    FileInput fileInput = PythonTestUtils.parse("x = 1");
+    PythonVisitorContext context = new PythonVisitorContext(fileInput, PythonTestUtils.pythonFile("file"), null, "");
+    SubscriptionVisitor.analyze(Collections.singleton(check), context);
+    assertThat(tokens).startsWith("x", "=", "1");
+  }
+
+  @Test
+  void cancelled_analysis_stops_visiting_nodes() {
+    List<String> visited = new ArrayList<>();
+    List<String> leftFiles = new ArrayList<>();
+    PythonSubscriptionCheck check = new PythonSubscriptionCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerSyntaxNodeConsumer(Tree.Kind.NAME, ctx -> visited.add(((Name) ctx.syntaxNode()).name()));
+      }
+
+      @Override
+      public void leaveFile() {
+        leftFiles.add("file");
+      }
+    };
+
+    FileInput fileInput = PythonTestUtils.parse("x = y + z");
+    PythonVisitorContext context = new PythonVisitorContext(fileInput, PythonTestUtils.pythonFile("file"), null, "");
+    assertThat(SubscriptionVisitor.analyze(Collections.singleton(check), context, () -> visited.size() == 2)).isFalse();
+    assertThat(visited).containsExactly("x", "y");
+    assertThat(leftFiles).isEmpty();
+
+    visited.clear();
+    assertThat(SubscriptionVisitor.analyze(Collections.singleton(check), context, () -> false)).isTrue();
+    assertThat(visited).containsExactly("x", "y", "z");
+    assertThat(leftFiles).containsExactly("file");
+  }
+
+  @Test
+  void measured_analysis_visits_the_same_nodes() {
+    List<String> visited = new ArrayList<>();
+    PythonSubscriptionCheck check = new PythonSubscriptionCheck() {
+      @Override
+      public void initialize(Context context) {
+        context.registerSyntaxNodeConsumer(Tree.Kind.NAME, ctx -> visited.add(((Name) ctx.syntaxNode()).name()));
+      }
+    };
+
+    FileInput fileInput = PythonTestUtils.parse("x = y + z");
+    PythonVisitorContext context = new PythonVisitorContext(fileInput, PythonTestUtils.pythonFile("file"), null, "");
+    assertThat(SubscriptionVisitor.analyze(Collections.singleton(check), context, () -> false, true)).isTrue();
+    assertThat(visited).containsExactly("x", "y", "z");
+  }
 }
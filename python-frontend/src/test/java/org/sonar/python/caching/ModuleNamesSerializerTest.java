@@ -0,0 +1,101 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.caching;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ModuleNamesSerializerTest {
+
+  @Test
+  void to_bytes_from_bytes() throws IOException {
+    ModuleNamesSerializer serializer = new ModuleNamesSerializer();
+    Set<String> moduleNames = Set.of("pkg.sub.mod1", "pkg.sub.mod2", "pkg.other", "mod", "", "pkg..rel", "trailing.");
+    byte[] bytes = serializer.serialize(moduleNames);
+
+    ModuleNamesSerializer deserializer = ModuleNamesSerializer.fromStringTable(serializer.serializeStringTable());
+    assertThat(deserializer.deserialize(bytes)).containsExactlyInAnyOrderElementsOf(moduleNames);
+    assertThat(deserializer.deserialize(serializer.serialize(Set.of()))).isEmpty();
+  }
+
+  @Test
+  void segments_are_shared_and_prefix_compressed() throws IOException {
+    ModuleNamesSerializer serializer = new ModuleNamesSerializer();
+    byte[] first = serializer.serialize(List.of("a.b.c", "a.b.d"));
+    byte[] second = serializer.serialize(List.of("a.b.c.e"));
+    // version, size, then (common prefix length, remaining segments, segment indices) per name, then the end marker
+    assertThat(first).containsExactly(1, 2, 0, 3, 0, 1, 2, 2, 1, 3, 3, 'E', 'N', 'D');
+    assertThat(second).containsExactly(1, 1, 0, 4, 0, 1, 2, 4, 3, 'E', 'N', 'D');
+
+    ModuleNamesSerializer deserializer = ModuleNamesSerializer.fromStringTable(serializer.serializeStringTable());
+    assertThat(deserializer.deserialize(first)).containsExactlyInAnyOrder("a.b.c", "a.b.d");
+    assertThat(deserializer.deserialize(second)).containsExactly("a.b.c.e");
+  }
+
+  @Test
+  void string_table_is_extended() throws IOException {
+    ModuleNamesSerializer previous = new ModuleNamesSerializer();
+    byte[] previousEntry = previous.serialize(List.of("pkg.mod"));
+
+    ModuleNamesSerializer current = ModuleNamesSerializer.fromStringTable(previous.serializeStringTable());
+    byte[] currentEntry = current.serialize(List.of("other.mod"));
+
+    ModuleNamesSerializer next = ModuleNamesSerializer.fromStringTable(current.serializeStringTable());
+    assertThat(next.deserialize(previousEntry)).containsExactly("pkg.mod");
+    assertThat(next.deserialize(currentEntry)).containsExactly("other.mod");
+  }
+
+  @Test
+  void with_embedded_string_table() throws IOException {
+    Set<String> moduleNames = Set.of("pkg.sub.mod1", "pkg.sub.mod2", "mod");
+    byte[] bytes = ModuleNamesSerializer.serializeWithStringTable(moduleNames);
+    assertThat(ModuleNamesSerializer.deserializeWithStringTable(bytes)).containsExactlyInAnyOrderElementsOf(moduleNames);
+    assertThat(ModuleNamesSerializer.deserializeWithStringTable(ModuleNamesSerializer.serializeWithStringTable(Set.of()))).isEmpty();
+  }
+
+  @Test
+  void unsupported_format_version() {
+    assertThatThrownBy(() -> new ModuleNamesSerializer().deserialize(new byte[] {2, 0}))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Can't read data from cache, unsupported format version 2");
+    assertThatThrownBy(() -> ModuleNamesSerializer.fromStringTable(new byte[] {0}))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Can't read data from cache, unsupported format version 0");
+  }
+
+  @Test
+  void corrupted_format() {
+    ModuleNamesSerializer serializer = new ModuleNamesSerializer();
+    // Unknown segment index
+    assertThatThrownBy(() -> serializer.deserialize(new byte[] {1, 1, 0, 1, 5}))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Can't read data from cache, format corrupted");
+    // Common prefix longer than the previous name
+    assertThatThrownBy(() -> serializer.deserialize(new byte[] {1, 1, 1, 0}))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Can't read data from cache, format corrupted");
+    // Invalid end marker
+    assertThatThrownBy(() -> serializer.deserialize(new byte[] {1, 0, 3, 'E', 'N', 'N'}))
+      .isInstanceOf(IOException.class)
+      .hasMessage("Can't read data from cache, format corrupted");
+  }
+}
@@ -0,0 +1,83 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.cfg;
+
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.api.tree.FunctionDef;
+import org.sonar.plugins.python.api.tree.Name;
+import org.sonar.plugins.python.api.tree.Tree;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.python.PythonTestUtils.getLastDescendant;
+import static org.sonar.python.PythonTestUtils.parse;
+
+class ControlFlowAnalysisCacheTest {
+
+  private final PythonFile file = Mockito.mock(PythonFile.class, "file1.py");
+
+  @Test
+  void control_flow_graphs_are_built_once() {
+    FileInput fileInput = parse(
+      "def foo():",
+      "  x = 42",
+      "  return x"
+    );
+    FunctionDef functionDef = (FunctionDef) fileInput.statements().statements().get(0);
+    ControlFlowAnalysisCache cache = new ControlFlowAnalysisCache(file);
+
+    ControlFlowGraph functionCfg = cache.controlFlowGraph(functionDef);
+    assertThat(functionCfg).isNotNull();
+    assertThat(cache.controlFlowGraph(functionDef)).isSameAs(functionCfg);
+    ControlFlowGraph fileCfg = cache.controlFlowGraph(fileInput);
+    assertThat(fileCfg).isNotNull().isNotSameAs(functionCfg);
+    assertThat(cache.controlFlowGraph(fileInput)).isSameAs(fileCfg);
+    assertThat(cache.liveVariablesAnalysis(functionCfg)).isSameAs(cache.liveVariablesAnalysis(functionCfg));
+    assertThat(cache.reachingDefinitionsAnalysis()).isSameAs(cache.reachingDefinitionsAnalysis());
+  }
+
+  @Test
+  void reaching_definitions_analysis_of_cached_control_flow_graphs() {
+    FileInput fileInput = parse(
+      "def foo():",
+      "  x = 42",
+      "  return x"
+    );
+    FunctionDef functionDef = (FunctionDef) fileInput.statements().statements().get(0);
+    Name x = getLastDescendant(fileInput, t -> t.is(Tree.Kind.NAME));
+    ControlFlowAnalysisCache cache = new ControlFlowAnalysisCache(file);
+
+    ControlFlowGraph functionCfg = cache.controlFlowGraph(functionDef);
+    assertThat(cache.reachingDefinitionsAnalysis().valuesAtLocation(x)).hasSize(1);
+    assertThat(cache.controlFlowGraph(functionDef)).isSameAs(functionCfg);
+  }
+
+  @Test
+  void cleared_at_end_of_file() {
+    FileInput fileInput = parse("x = 42");
+    ControlFlowAnalysisCache cache = new ControlFlowAnalysisCache(file);
+    ControlFlowGraph fileCfg = cache.controlFlowGraph(fileInput);
+    var reachingDefinitionsAnalysis = cache.reachingDefinitionsAnalysis();
+
+    cache.clear();
+    assertThat(cache.controlFlowGraph(fileInput)).isNotNull().isNotSameAs(fileCfg);
+    assertThat(cache.reachingDefinitionsAnalysis()).isNotSameAs(reachingDefinitionsAnalysis);
+  }
+}
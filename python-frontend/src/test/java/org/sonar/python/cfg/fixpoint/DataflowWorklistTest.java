@@ -0,0 +1,109 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.cfg.fixpoint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.sonar.plugins.python.api.PythonFile;
+import org.sonar.plugins.python.api.cfg.CfgBlock;
+import org.sonar.plugins.python.api.cfg.ControlFlowGraph;
+import org.sonar.plugins.python.api.tree.FileInput;
+import org.sonar.plugins.python.api.tree.FunctionDef;
+import org.sonar.python.PythonTestUtils;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DataflowWorklistTest {
+
+  private final PythonFile file = Mockito.mock(PythonFile.class, "file1.py");
+
+  @Test
+  void forward_worklist_follows_reverse_postorder() {
+    ControlFlowGraph cfg = cfg(
+      "def f(x):",
+      "  if x:",
+      "    x = 1",
+      "  else:",
+      "    x = 2",
+      "  return x"
+    );
+    List<CfgBlock> order = popAll(DataflowWorklist.forward(cfg));
+    assertThat(order).hasSameSizeAs(cfg.blocks()).containsExactlyInAnyOrderElementsOf(cfg.blocks());
+    assertThat(order.get(0)).isSameAs(cfg.start());
+    assertThat(order.get(order.size() - 1)).isSameAs(cfg.end());
+    for (CfgBlock block : order) {
+      block.predecessors().forEach(predecessor -> assertThat(order.indexOf(predecessor)).isLessThan(order.indexOf(block)));
+    }
+  }
+
+  @Test
+  void backward_worklist_follows_postorder() {
+    ControlFlowGraph cfg = cfg(
+      "def f(x):",
+      "  if x:",
+      "    x = 1",
+      "  return x"
+    );
+    List<CfgBlock> order = popAll(DataflowWorklist.backward(cfg));
+    assertThat(order).containsExactlyInAnyOrderElementsOf(cfg.blocks());
+    assertThat(order.get(0)).isSameAs(cfg.end());
+    assertThat(order.get(order.size() - 1)).isSameAs(cfg.start());
+  }
+
+  @Test
+  void pending_blocks_are_queued_once() {
+    ControlFlowGraph cfg = cfg(
+      "def f(x):",
+      "  while x:",
+      "    x = x - 1",
+      "  return x"
+    );
+    DataflowWorklist worklist = DataflowWorklist.forward(cfg);
+    popAll(worklist);
+    worklist.pushAll(List.of(cfg.end(), cfg.start(), cfg.end()));
+    assertThat(popAll(worklist)).containsExactly(cfg.start(), cfg.end());
+  }
+
+  @Test
+  void unreachable_blocks_are_processed() {
+    ControlFlowGraph cfg = cfg(
+      "def f(x):",
+      "  return x",
+      "  x = 1"
+    );
+    Set<CfgBlock> blocks = cfg.blocks();
+    assertThat(popAll(DataflowWorklist.forward(cfg))).containsExactlyInAnyOrderElementsOf(blocks);
+    assertThat(popAll(DataflowWorklist.backward(cfg))).containsExactlyInAnyOrderElementsOf(blocks);
+  }
+
+  private ControlFlowGraph cfg(String... lines) {
+    FileInput fileInput = PythonTestUtils.parse(lines);
+    FunctionDef functionDef = (FunctionDef) fileInput.statements().statements().get(0);
+    return ControlFlowGraph.build(functionDef, file);
+  }
+
+  private static List<CfgBlock> popAll(DataflowWorklist worklist) {
+    List<CfgBlock> blocks = new ArrayList<>();
+    while (!worklist.isEmpty()) {
+      blocks.add(worklist.pop());
+    }
+    return blocks;
+  }
+}
@@ -0,0 +1,108 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.lexer;
+
+import com.sonar.sslr.api.GenericTokenType;
+import com.sonar.sslr.api.Token;
+import com.sonar.sslr.api.Trivia;
+import com.sonar.sslr.impl.Lexer;
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.apache.commons.io.FileUtils;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.sonar.python.api.PythonKeyword;
+import org.sonar.python.api.PythonPunctuator;
+import org.sonar.python.api.PythonTokenType;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HandWrittenChannelsTest {
+
+  private final TestLexer regexpLexer = new TestLexer(state -> PythonLexer.create(state, false));
+  private final TestLexer handWrittenLexer = new TestLexer(state -> PythonLexer.create(state, true));
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "", " ", "\t\f x", "x  # comment\n", "#", "# comment\r\n  y", "x = 1 \\\n  + 2\n", "  \n\n",
+    "b''", "b'abc'", "B\"a\\\"b\"", "br'x'", "Rb'x'", "rB\"x\"", "b'''abc'''", "b'''abc", "b'abc", "b'abc\\", "rx'a'", "bytes",
+    "1", "10", "1_000", "1__0", "1_", "0", "00", "0_0", "007", "08", "0o17", "0O1_7", "0o", "0o8", "0x1F", "0X_a", "0x", "0b101", "0B_1",
+    "0b2", "1L", "0l", "0x1FL", "1.", "1.5", "1._5", "1.e5", "1.5e-3", "1.5E+_", "1e", "1e5", "1E-5j", "1j", "1.5J", ".5", ".5e3j", "._5",
+    "...", "1if", "1.__class__", "x.y", "1..2",
+    "None", "True", "async", "def f(a, b):\n  return a + b\n", "if x:\n\tpass\nelse:\n  pass", "_x1 = é + ü2 + 変数 + x\u0300",
+    "f'{x:>10} {y!r} {{z}}'", "print(rb'\\d+', f\"{1.5e3}\")", "[1,\n 2]  # done\n", "\u00a0x"
+  })
+  void same_tokens_as_regexp_channels(String code) {
+    assertThat(handWrittenLexer.lex(code)).isEqualTo(regexpLexer.lex(code));
+  }
+
+  @Test
+  void same_tokens_on_python_files() throws IOException {
+    for (File file : FileUtils.listFiles(new File("src/test/resources"), new String[]{"py", "pyi"}, true)) {
+      String content = new String(Files.readAllBytes(file.toPath()), UTF_8);
+      assertThat(handWrittenLexer.lex(content)).as(file.getPath()).isEqualTo(regexpLexer.lex(content));
+    }
+  }
+
+  @Test
+  void same_tokens_on_notebooks() throws IOException {
+    TestLexer regexpIpynbLexer = new TestLexer(state -> PythonLexer.ipynbLexer(state, false));
+    TestLexer handWrittenIpynbLexer = new TestLexer(state -> PythonLexer.ipynbLexer(state, true));
+    for (File file : FileUtils.listFiles(new File("src/test/resources/parser/notebooks"), new String[]{"py"}, true)) {
+      String content = new String(Files.readAllBytes(file.toPath()), UTF_8);
+      assertThat(handWrittenIpynbLexer.lex(content)).as(file.getPath()).isEqualTo(regexpIpynbLexer.lex(content));
+    }
+    String code = "x = 1 # comment\n#%% md\n  y = 0x1F\n#SONAR_PYTHON_NOTEBOOK_CELL_DELIMITER\nb'z'";
+    assertThat(handWrittenIpynbLexer.lex(code)).isEqualTo(regexpIpynbLexer.lex(code));
+  }
+
+  @Test
+  void token_types() {
+    LexerState lexerState = new LexerState();
+    lexerState.reset();
+    List<Token> tokens = PythonLexer.create(lexerState, true).lex("def x1(): return 0x1F, b'a' # c");
+    assertThat(tokens).extracting(Token::getType).containsExactly(PythonKeyword.DEF, GenericTokenType.IDENTIFIER,
+      PythonPunctuator.LPARENTHESIS, PythonPunctuator.RPARENTHESIS, PythonPunctuator.COLON, PythonKeyword.RETURN, PythonTokenType.NUMBER,
+      PythonPunctuator.COMMA, PythonTokenType.STRING, GenericTokenType.EOF);
+    assertThat(tokens.get(tokens.size() - 1).getTrivia()).extracting(trivia -> trivia.getToken().getValue()).containsExactly("# c");
+  }
+
+  private static class TestLexer {
+    private final LexerState lexerState = new LexerState();
+    private final Lexer lexer;
+
+    TestLexer(Function<LexerState, Lexer> lexerFactory) {
+      lexer = lexerFactory.apply(lexerState);
+    }
+
+    List<String> lex(String code) {
+      lexerState.reset();
+      return lexer.lex(code).stream().map(TestLexer::describe).collect(Collectors.toList());
+    }
+
+    private static String describe(Token token) {
+      String trivia = token.getTrivia().stream().map(Trivia::getToken).map(TestLexer::describe).collect(Collectors.joining(", "));
+      return token.getType() + " '" + token.getOriginalValue() + "' " + token.getLine() + ":" + token.getColumn() + " [" + trivia + "]";
+    }
+  }
+}
@@ -0,0 +1,94 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.semantic;
+
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.python.index.AmbiguousDescriptor;
+import org.sonar.python.index.Descriptor;
+import org.sonar.python.index.VariableDescriptor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DescriptorsByFqnIndexTest {
+
+  @Test
+  void add_and_remove() {
+    DescriptorsByFqnIndex index = new DescriptorsByFqnIndex();
+    VariableDescriptor x = new VariableDescriptor("x", "mod.x", null);
+    VariableDescriptor y = new VariableDescriptor("y", "mod.y", null);
+    VariableDescriptor noFqn = new VariableDescriptor("z", null, null);
+    index.add(List.of(x, y, noFqn));
+    assertThat(index.get("mod.x")).isSameAs(x);
+    assertThat(index.get("mod.y")).isSameAs(y);
+
+    index.remove(List.of(x, noFqn));
+    assertThat(index.get("mod.x")).isNull();
+    assertThat(index.get("mod.y")).isSameAs(y);
+
+    // Removing a descriptor which is not indexed has no effect
+    index.remove(List.of(x, new VariableDescriptor("y", "mod.y", null)));
+    assertThat(index.get("mod.y")).isSameAs(y);
+  }
+
+  @Test
+  void ambiguous_descriptors() {
+    DescriptorsByFqnIndex index = new DescriptorsByFqnIndex();
+    VariableDescriptor x1 = new VariableDescriptor("x", "mod.x", null);
+    VariableDescriptor x2 = new VariableDescriptor("x", "mod.x", "int");
+    VariableDescriptor x3 = new VariableDescriptor("x", "mod.x", "str");
+    index.add(List.of(x1, x2));
+    index.add(List.of(x3));
+    Descriptor descriptor = index.get("mod.x");
+    assertThat(descriptor).isInstanceOf(AmbiguousDescriptor.class);
+    assertThat(((AmbiguousDescriptor) descriptor).alternatives()).containsExactlyInAnyOrder(x1, x2, x3);
+
+    // Only the affected name is resolved again
+    index.remove(List.of(x1, x3));
+    assertThat(index.get("mod.x")).isSameAs(x2);
+  }
+
+  @Test
+  void descriptors_added_several_times() {
+    DescriptorsByFqnIndex index = new DescriptorsByFqnIndex();
+    VariableDescriptor x = new VariableDescriptor("x", "mod.x", null);
+    index.add(List.of(x));
+    index.add(List.of(x));
+    assertThat(index.get("mod.x")).isSameAs(x);
+
+    index.remove(List.of(x));
+    assertThat(index.get("mod.x")).isSameAs(x);
+    index.remove(List.of(x));
+    assertThat(index.get("mod.x")).isNull();
+  }
+
+  @Test
+  void collision_collapsed_to_lone_descriptor() {
+    DescriptorsByFqnIndex index = new DescriptorsByFqnIndex();
+    VariableDescriptor x1 = new VariableDescriptor("x", "mod.x", null);
+    VariableDescriptor x2 = new VariableDescriptor("x", "mod.x", "int");
+    index.add(List.of(x1, x2));
+    index.remove(List.of(x1));
+    assertThat(index.get("mod.x")).isSameAs(x2);
+
+    // Once back to a lone descriptor, a new collision is resolved again
+    index.add(List.of(x1));
+    assertThat(index.get("mod.x")).isInstanceOf(AmbiguousDescriptor.class);
+    index.remove(List.of(x2, x1));
+    assertThat(index.get("mod.x")).isNull();
+  }
+}
@@ -415,6 +415,93 @@ class ProjectLevelSymbolTableTest {
     assertThat(projectLevelSymbolTable.getSymbolsFromModule("mod")).isNull();
   }
 
+  @Test
+  void test_fqn_index_updated_incrementally() {
+    ProjectLevelSymbolTable projectLevelSymbolTable = empty();
+    projectLevelSymbolTable.addModule(parseWithoutSymbols("class A: pass"), "", pythonFile("mod.py"));
+    projectLevelSymbolTable.addModule(parseWithoutSymbols("def f(): pass"), "", pythonFile("mod2.py"));
+    assertThat(projectLevelSymbolTable.getSymbol("mod.A")).isNotNull();
+
+    projectLevelSymbolTable.removeModule("", "mod.py");
+    assertThat(projectLevelSymbolTable.getSymbol("mod.A")).isNull();
+    assertThat(projectLevelSymbolTable.getSymbol("mod2.f")).isNotNull();
+
+    // A module added again replaces its previous descriptors
+    projectLevelSymbolTable.addModule(parseWithoutSymbols("class B: pass"), "", pythonFile("mod2.py"));
+    assertThat(projectLevelSymbolTable.getSymbol("mod2.f")).isNull();
+    assertThat(projectLevelSymbolTable.getSymbol("mod2.B")).isNotNull();
+
+    projectLevelSymbolTable.insertEntry("mod3", Set.of(new VariableDescriptor("x", "mod3.x", null)));
+    assertThat(projectLevelSymbolTable.getSymbol("mod3.x")).isNotNull();
+    projectLevelSymbolTable.insertEntry("mod3", Set.of());
+    assertThat(projectLevelSymbolTable.getSymbol("mod3.x")).isNull();
+  }
+
+  @Test
+  void test_fqn_index_ambiguous_descriptors_of_removed_module() {
+    ProjectLevelSymbolTable projectLevelSymbolTable = empty();
+    projectLevelSymbolTable.addModule(parseWithoutSymbols(
+      "if cond:",
+      "  def f(): pass",
+      "else:",
+      "  def f(x): pass"
+    ), "", pythonFile("mod.py"));
+    assertThat(projectLevelSymbolTable.getSymbol("mod.f")).isNotNull();
+    projectLevelSymbolTable.removeModule("", "mod.py");
+    assertThat(projectLevelSymbolTable.getSymbol("mod.f")).isNull();
+  }
+
+  @Test
+  void referenced_symbols_are_shared() {
+    ClassDescriptor a = new ClassDescriptor.ClassDescriptorBuilder().withName("A").withFullyQualifiedName("mod.A").build();
+    ClassDescriptor b = new ClassDescriptor.ClassDescriptorBuilder().withName("B").withFullyQualifiedName("mod.B").withSuperClasses(List.of("mod.A")).build();
+    ProjectLevelSymbolTable projectLevelSymbolTable = from(Map.of("mod", Set.of(a, b)));
+
+    ClassSymbol firstB = (ClassSymbol) projectLevelSymbolTable.getSymbol("mod.B");
+    ClassSymbol secondB = (ClassSymbol) projectLevelSymbolTable.getSymbol("mod.B", "alias");
+    // Imported symbols are bound to a file: they are not shared
+    assertThat(firstB).isNotSameAs(secondB);
+    assertThat(secondB.name()).isEqualTo("alias");
+    Symbol superClass = firstB.superClasses().get(0);
+    assertThat(superClass.fullyQualifiedName()).isEqualTo("mod.A");
+    assertThat(secondB.superClasses().get(0)).isSameAs(superClass);
+
+    // Shared symbols are dropped when a module changes
+    projectLevelSymbolTable.insertEntry("other", Set.of(new VariableDescriptor("x", "other.x", null)));
+    ClassSymbol thirdB = (ClassSymbol) projectLevelSymbolTable.getSymbol("mod.B");
+    assertThat(thirdB.superClasses().get(0)).isNotSameAs(superClass);
+  }
+
+  @Test
+  void referenced_symbols_with_cyclic_references() {
+    FunctionDescriptor f = new FunctionDescriptor.FunctionDescriptorBuilder().withName("f").withFullyQualifiedName("mod.A.f").withIsInstanceMethod(true)
+      .withParameters(List.of(
+        new FunctionDescriptor.Parameter("self", null, false, false, false, false, false, null),
+        new FunctionDescriptor.Parameter("b", "mod.B", false, false, false, false, false, null)))
+      .build();
+    FunctionDescriptor g = new FunctionDescriptor.FunctionDescriptorBuilder().withName("g").withFullyQualifiedName("mod.B.g").withIsInstanceMethod(true)
+      .withParameters(List.of(
+        new FunctionDescriptor.Parameter("self", null, false, false, false, false, false, null),
+        new FunctionDescriptor.Parameter("a", "mod.A", false, false, false, false, false, null)))
+      .build();
+    ClassDescriptor a = new ClassDescriptor.ClassDescriptorBuilder().withName("A").withFullyQualifiedName("mod.A").withMembers(Set.of(f)).build();
+    ClassDescriptor b = new ClassDescriptor.ClassDescriptorBuilder().withName("B").withFullyQualifiedName("mod.B").withMembers(Set.of(g)).build();
+    ProjectLevelSymbolTable projectLevelSymbolTable = from(Map.of("mod", Set.of(a, b)));
+
+    ClassSymbol classA = (ClassSymbol) projectLevelSymbolTable.getSymbol("mod.A");
+    FunctionSymbol methodF = (FunctionSymbol) classA.declaredMembers().iterator().next();
+    Symbol typeOfB = ((DeclaredType) methodF.parameters().get(1).declaredType()).getTypeClass();
+    assertThat(typeOfB.fullyQualifiedName()).isEqualTo("mod.B");
+
+    // "B" refers back to "A": it is resolved within each call rather than shared
+    FunctionSymbol methodG = (FunctionSymbol) ((ClassSymbol) typeOfB).declaredMembers().iterator().next();
+    Symbol typeOfA = ((DeclaredType) methodG.parameters().get(1).declaredType()).getTypeClass();
+    assertThat(typeOfA).isSameAs(classA);
+    ClassSymbol otherClassA = (ClassSymbol) projectLevelSymbolTable.getSymbol("mod.A");
+    FunctionSymbol otherMethodF = (FunctionSymbol) otherClassA.declaredMembers().iterator().next();
+    assertThat(((DeclaredType) otherMethodF.parameters().get(1).declaredType()).getTypeClass()).isNotSameAs(typeOfB);
+  }
+
   @Test
   void test_insert_entry() {
     ProjectLevelSymbolTable projectLevelSymbolTable = empty();
@@ -16,6 +16,10 @@
  */
 package org.sonar.python.semantic.v2;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.sonar.plugins.python.api.PythonFile;
@@ -442,4 +446,46 @@ class ProjectLevelTypeTableTest {
     TypeChecker typeChecker = new TypeChecker(projectLevelTypeTable);
     assertThat(typeChecker.typeCheckBuilder().isInstanceOf("lib.MyClass").check(myAliasType)).isEqualTo(TriBool.UNKNOWN);
   }
+
+  @Test
+  void sharedTypeTableIsRebuiltWhenModulesChange() {
+    var projectLevelSymbolTable = ProjectLevelSymbolTable.empty();
+    projectLevelSymbolTable.addModule(parseWithoutSymbols("class MyClass: ..."), "", pythonFile("lib.py"));
+
+    var typeTable = projectLevelSymbolTable.typeTable();
+    assertThat(projectLevelSymbolTable.typeTable()).isSameAs(typeTable);
+    var myClassType = typeTable.getType("lib.MyClass");
+    assertThat(myClassType).isInstanceOf(ClassType.class);
+    assertThat(typeTable.getType("lib.MyClass")).isSameAs(myClassType);
+
+    projectLevelSymbolTable.addModule(parseWithoutSymbols("def my_function(): ..."), "", pythonFile("lib.py"));
+    var rebuiltTypeTable = projectLevelSymbolTable.typeTable();
+    assertThat(rebuiltTypeTable).isNotSameAs(typeTable);
+    assertThat(rebuiltTypeTable.getType("lib.MyClass")).isSameAs(PythonType.UNKNOWN);
+    assertThat(rebuiltTypeTable.getType("lib.my_function")).isInstanceOf(FunctionType.class);
+
+    projectLevelSymbolTable.removeModule("", "lib.py");
+    assertThat(projectLevelSymbolTable.typeTable()).isNotSameAs(rebuiltTypeTable);
+    assertThat(projectLevelSymbolTable.typeTable().getType("lib.my_function")).isSameAs(PythonType.UNKNOWN);
+  }
+
+  @Test
+  void sharedTypeTableResolvedConcurrently() throws Exception {
+    var projectLevelSymbolTable = ProjectLevelSymbolTable.empty();
+    var typeTable = projectLevelSymbolTable.typeTable();
+    var executor = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<PythonType>> futures = new ArrayList<>();
+      for (int i = 0; i < 8; i++) {
+        futures.add(executor.submit(() -> typeTable.getType("typing.Generator")));
+      }
+      var generatorClassType = typeTable.getType("typing.Generator");
+      assertThat(generatorClassType).isInstanceOf(ClassType.class);
+      for (Future<PythonType> future : futures) {
+        assertThat(future.get()).isSameAs(generatorClassType);
+      }
+    } finally {
+      executor.shutdownNow();
+    }
+  }
 }
@@ -16,8 +16,6 @@
  */
 package org.sonar.python.semantic.v2.typeshed;
 
-import java.io.ByteArrayInputStream;
-import java.io.InputStream;
 import java.util.Set;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -92,6 +90,22 @@ class TypeShedDescriptorsProviderTest {
     assertThat(typing).isNotEmpty();
   }
 
+  @Test
+  void descriptorsAreSharedAcrossProvidersTest() {
+    var typing = typeshedDescriptorsProvider().descriptorsForModule("typing");
+    assertThat(typeshedDescriptorsProvider().descriptorsForModule("typing")).isSameAs(typing);
+    assertThat(typing).isNotEmpty();
+
+    var typing312 = new TypeShedDescriptorsProvider(Set.of(), Set.of(PythonVersionUtils.Version.V_312)).descriptorsForModule("typing");
+    assertThat(typing312).isNotSameAs(typing);
+    assertThat(new TypeShedDescriptorsProvider(Set.of(), Set.of(PythonVersionUtils.Version.V_312)).descriptorsForModule("typing")).isSameAs(typing312);
+
+    assertThat(TypeShedDescriptorsCache.get().size()).isPositive();
+    TypeShedDescriptorsProvider.clearConvertedModules();
+    assertThat(TypeShedDescriptorsCache.get().size()).isZero();
+    assertThat(typeshedDescriptorsProvider().descriptorsForModule("typing")).isNotSameAs(typing).containsOnlyKeys(typing.keySet());
+  }
+
   @Test
   void moduleMatchesCurrentProjectTest() {
     var provider = typeshedDescriptorsProvider(Set.of("typing"));
@@ -171,11 +185,4 @@ class TypeShedDescriptorsProviderTest {
     assertThat(unknownModule).isEmpty();
   }
 
-  @Test
-  void readExceptionTest() {
-    InputStream targetStream = new ByteArrayInputStream("foo".getBytes());
-    assertThat(TypeShedDescriptorsProvider.deserializedModule("mod", targetStream)).isNull();
-    assertThat(logTester.logs(Level.DEBUG)).contains("Error while deserializing protobuf for module mod");
-  }
-
 }
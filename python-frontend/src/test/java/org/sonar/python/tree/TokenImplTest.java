@@ -0,0 +1,66 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.tree;
+
+import com.sonar.sslr.api.Token;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.sonar.plugins.python.api.PythonLine;
+import org.sonar.python.lexer.LexerState;
+import org.sonar.python.lexer.PythonLexer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenImplTest {
+
+  private static List<Token> lex(String code) {
+    LexerState lexerState = new LexerState();
+    lexerState.reset();
+    return PythonLexer.create(lexerState).lex(code);
+  }
+
+  @Test
+  void location_of_sslr_token() {
+    Token sslrToken = lex("\n  foo").stream().filter(t -> "foo".equals(t.getValue())).findFirst().orElseThrow();
+    TokenImpl token = new TokenImpl(sslrToken);
+    assertThat(token.line()).isEqualTo(2);
+    assertThat(token.column()).isEqualTo(2);
+    assertThat(token.pythonColumn()).isEqualTo(2);
+    assertThat(token.pythonLine()).isEqualTo(new PythonLine(2)).isSameAs(token.pythonLine());
+    assertThat(token.includedEscapeChars()).isZero();
+    assertThat(token.isCompressed()).isFalse();
+  }
+
+  @Test
+  void python_line_of_distant_line() {
+    Token sslrToken = lex("\n".repeat(5000) + "foo").stream().filter(t -> "foo".equals(t.getValue())).findFirst().orElseThrow();
+    TokenImpl token = new TokenImpl(sslrToken);
+    assertThat(token.pythonLine()).isEqualTo(new PythonLine(5001));
+  }
+
+  @Test
+  void trivia_created_on_first_access() {
+    Token sslrToken = lex("# comment\npass").stream().filter(t -> "pass".equals(t.getValue())).findFirst().orElseThrow();
+    TokenImpl token = new TokenImpl(sslrToken);
+    assertThat(token.trivia()).hasSize(1).isSameAs(token.trivia());
+    assertThat(token.trivia().get(0).value()).isEqualTo("# comment");
+    assertThat(token.trivia().get(0).token().line()).isEqualTo(1);
+
+    TokenImpl tokenWithoutTrivia = new TokenImpl(lex("pass").get(0));
+    assertThat(tokenWithoutTrivia.trivia()).isEmpty();
+  }
+}
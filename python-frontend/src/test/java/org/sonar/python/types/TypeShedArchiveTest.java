@@ -0,0 +1,167 @@
+/*
+ * SonarQube Python Plugin
+ * Copyright (C) 2011-2025 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the Sonar Source-Available License Version 1, as published by SonarSource SA.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the Sonar Source-Available License for more details.
+ *
+ * You should have received a copy of the Sonar Source-Available License
+ * along with this program; if not, see https://sonarsource.com/license/ssal/
+ */
+package org.sonar.python.types;
+
+import java.io.IOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.nio.file.attribute.PosixFilePermissions;
+import java.util.jar.JarEntry;
+import java.util.jar.JarOutputStream;
+import java.util.stream.Stream;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledOnOs;
+import org.junit.jupiter.api.condition.OS;
+import org.junit.jupiter.api.extension.RegisterExtension;
+import org.junit.jupiter.api.io.TempDir;
+import org.slf4j.event.Level;
+import org.sonar.api.testfixtures.log.LogTesterJUnit5;
+import org.sonar.python.types.protobuf.SymbolsProtos.ModuleSymbol;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TypeShedArchiveTest {
+
+  @RegisterExtension
+  public LogTesterJUnit5 logTester = new LogTesterJUnit5().setLevel(Level.DEBUG);
+
+  @TempDir
+  Path typesDirectory;
+
+  @Test
+  void write_and_read_archive() throws IOException {
+    writeModule("stdlib_protobuf", "mod", ModuleSymbol.newBuilder().setFullyQualifiedName("mod").build());
+    writeModule("stdlib_protobuf", "2@ConfigParser", ModuleSymbol.newBuilder().setFullyQualifiedName("ConfigParser").build());
+    writeModule("custom_protobuf", "mod", ModuleSymbol.newBuilder().setFullyQualifiedName("custom_mod").build());
+    Files.writeString(typesDirectory.resolve("stdlib_protobuf").resolve("broken.protobuf"), "foo");
+    Files.writeString(typesDirectory.resolve("stdlib_protobuf").resolve("README.md"), "not a module");
+
+    Path archivePath = typesDirectory.resolve(TypeShedArchive.ARCHIVE_NAME);
+    TypeShedArchiveWriter.write(typesDirectory, archivePath);
+    TypeShedArchive archive = TypeShedArchive.open(archivePath);
+
+    assertThat(archive.isLoaded()).isTrue();
+    assertThat(archive.moduleSymbol("stdlib_protobuf", "mod").getFullyQualifiedName()).isEqualTo("mod");
+    assertThat(archive.moduleSymbol("custom_protobuf", "mod").getFullyQualifiedName()).isEqualTo("custom_mod");
+    assertThat(archive.moduleSymbol("stdlib_protobuf", "2@ConfigParser").getFullyQualifiedName()).isEqualTo("ConfigParser");
+    assertThat(archive.moduleSymbol("third_party_protobuf", "mod")).isNull();
+    assertThat(archive.moduleSymbol("stdlib_protobuf", "unknown")).isNull();
+    assertThat(archive.moduleSymbol("stdlib_protobuf", "README.md")).isNull();
+
+    assertThat(archive.moduleSymbol("stdlib_protobuf", "broken")).isNull();
+    assertThat(logTester.logs(Level.DEBUG)).contains("Error while deserializing protobuf for module broken");
+  }
+
+  @Test
+  void invalid_archive() throws IOException {
+    Path invalid = typesDirectory.resolve("invalid.archive");
+    Files.write(invalid, new byte[] {0, 0, 0, 1, 0, 0, 0, 1, 0, 0, 0, 0});
+    assertThatThrownBy(() -> TypeShedArchive.open(invalid))
+      .isInstanceOf(IOException.class)
+      .hasMessageStartingWith("Invalid typeshed archive");
+  }
+
+  @Test
+  void archive_extracted_once_from_jar() throws IOException {
+    Path archivePath = typesDirectory.resolve(TypeShedArchive.ARCHIVE_NAME);
+    URL url = archiveInJar(archivePath);
+    Path extractionDirectory = typesDirectory.resolve("extracted");
+
+    Path extracted = TypeShedArchive.extract(url, extractionDirectory);
+    assertThat(extracted).hasSameBinaryContentAs(archivePath);
+    assertThat(TypeShedArchive.open(extracted).moduleSymbol("stdlib_protobuf", "mod").getFullyQualifiedName()).isEqualTo("mod");
+
+    FileTime lastModifiedTime = FileTime.fromMillis(0);
+    Files.setLastModifiedTime(extracted, lastModifiedTime);
+    assertThat(TypeShedArchive.extract(url, extractionDirectory)).isEqualTo(extracted);
+    assertThat(Files.getLastModifiedTime(extracted)).isEqualTo(lastModifiedTime);
+    try (Stream<Path> files = Files.list(extractionDirectory)) {
+      assertThat(files).containsExactly(extracted);
+    }
+
+    URL fileUrl = archivePath.toUri().toURL();
+    assertThatThrownBy(() -> TypeShedArchive.extract(fileUrl, extractionDirectory))
+      .isInstanceOf(IOException.class)
+      .hasMessageStartingWith("Unable to identify the content of the typeshed archive");
+  }
+
+  @Test
+  void corrupted_extracted_archive_is_extracted_again() throws IOException {
+    Path archivePath = typesDirectory.resolve(TypeShedArchive.ARCHIVE_NAME);
+    URL url = archiveInJar(archivePath);
+    Path extractionDirectory = typesDirectory.resolve("extracted");
+    Path extracted = TypeShedArchive.extract(url, extractionDirectory);
+
+    Files.write(extracted, new byte[(int) Files.size(extracted)]);
+    assertThat(TypeShedArchive.extract(url, extractionDirectory)).isEqualTo(extracted);
+    assertThat(extracted).hasSameBinaryContentAs(archivePath);
+  }
+
+  @Test
+  @EnabledOnOs({OS.LINUX, OS.MAC})
+  void extraction_directory_only_accessible_to_current_user() throws IOException {
+    Path extractionDirectory = typesDirectory.resolve("extracted");
+    TypeShedArchive.extract(archiveInJar(typesDirectory.resolve(TypeShedArchive.ARCHIVE_NAME)), extractionDirectory);
+    assertThat(Files.getPosixFilePermissions(extractionDirectory)).isEqualTo(PosixFilePermissions.fromString("rwx------"));
+  }
+
+  @Test
+  void archive_read_into_memory_when_it_cannot_be_extracted() throws IOException {
+    URL url = archiveInJar(typesDirectory.resolve(TypeShedArchive.ARCHIVE_NAME));
+    Path notADirectory = Files.writeString(typesDirectory.resolve("file"), "");
+
+    TypeShedArchive archive = TypeShedArchive.load(url, notADirectory);
+    assertThat(archive.isLoaded()).isTrue();
+    assertThat(archive.moduleSymbol("stdlib_protobuf", "mod").getFullyQualifiedName()).isEqualTo("mod");
+    assertThat(logTester.logs(Level.WARN)).anyMatch(log -> log.startsWith("Unable to map typeshed archive, reading it into memory"));
+  }
+
+  @Test
+  void missing_archive() {
+    TypeShedArchive archive = TypeShedArchive.load(null, typesDirectory);
+    assertThat(archive.isLoaded()).isFalse();
+    assertThat(logTester.logs(Level.WARN)).contains("Typeshed archive not found, reading typeshed stubs from individual resources");
+  }
+
+  @Test
+  void bundled_typeshed() {
+    TypeShedArchive archive = TypeShedArchive.get();
+    assertThat(archive.moduleSymbol("stdlib_protobuf", "builtins").getFullyQualifiedName()).isEqualTo("builtins");
+    assertThat(archive.moduleSymbol("stdlib_protobuf", "NOT_EXISTENT")).isNull();
+  }
+
+  private URL archiveInJar(Path archivePath) throws IOException {
+    writeModule("stdlib_protobuf", "mod", ModuleSymbol.newBuilder().setFullyQualifiedName("mod").build());
+    TypeShedArchiveWriter.write(typesDirectory, archivePath);
+    Path jar = typesDirectory.resolve("plugin.jar");
+    try (JarOutputStream out = new JarOutputStream(Files.newOutputStream(jar))) {
+      out.putNextEntry(new JarEntry("types/" + TypeShedArchive.ARCHIVE_NAME));
+      Files.copy(archivePath, out);
+      out.closeEntry();
+    }
+    return new URL("jar:" + jar.toUri() + "!/types/" + TypeShedArchive.ARCHIVE_NAME);
+  }
+
+  private void writeModule(String directory, String fileName, ModuleSymbol moduleSymbol) throws IOException {
+    Path path = typesDirectory.resolve(directory);
+    Files.createDirectories(path);
+    Files.write(path.resolve(fileName + TypeShedArchive.PROTOBUF_EXTENSION), moduleSymbol.toByteArray());
+  }
+}
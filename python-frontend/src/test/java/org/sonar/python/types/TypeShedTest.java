@@ -166,6 +166,27 @@ class TypeShedTest {
     assertThat(symbol).isNotNull();
   }
 
+  @Test
+  void symbols_are_scoped_to_bound_context() {
+    ProjectLevelSymbolTable projectLevelSymbolTable = Mockito.mock(ProjectLevelSymbolTable.class);
+    Mockito.when(projectLevelSymbolTable.projectBasePackages()).thenReturn(Set.of("sklearn"));
+    Map<String, Symbol> defaultThreadingSymbols = symbolsForModule("threading");
+
+    TypeShedContext context = new TypeShedContext(projectLevelSymbolTable);
+    TypeShed.runWith(context, () -> {
+      assertThat(symbolsForModule("sklearn.ensemble")).isEmpty();
+      assertThat(TypeShed.typeShedClass("int").name()).isEqualTo("int");
+      Map<String, Symbol> threadingSymbols = symbolsForModule("threading");
+      assertThat(threadingSymbols).isNotEmpty().isNotSameAs(defaultThreadingSymbols);
+      assertThat(symbolsForModule("threading")).isSameAs(threadingSymbols);
+    });
+    assertThat(context.typeShedSymbols).containsKey("threading").doesNotContainKey("sklearn.ensemble");
+    assertThat(symbolsForModule("threading")).isSameAs(defaultThreadingSymbols);
+
+    assertThat(TypeShed.callWith(context, () -> symbolsForModule("threading"))).isSameAs(context.typeShedSymbols.get("threading"));
+    assertThat(symbolsForModule("threading")).isSameAs(defaultThreadingSymbols);
+  }
+
   @Test
   void third_party_symbols() {
     Map<String, Symbol> flaskLoggingSymbols = symbolsForModule("flask.helpers");
@@ -370,7 +391,7 @@ class TypeShedTest {
     assertThat(symbolsForModule("NOT_EXISTENT")).isEmpty();
     assertThat(TypeShed.getSymbolsFromProtobufModule(null)).isEmpty();
     InputStream targetStream = new ByteArrayInputStream("foo".getBytes());
-    assertThat(TypeShed.deserializedModule("mod", targetStream)).isNull();
+    assertThat(TypeShedArchive.deserializedModule("mod", targetStream)).isNull();
     assertThat(logTester.logs(Level.DEBUG)).contains("Error while deserializing protobuf for module mod");
   }
 